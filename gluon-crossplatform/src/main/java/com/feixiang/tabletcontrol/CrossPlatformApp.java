@@ -3,7 +3,10 @@ package com.feixiang.tabletcontrol;
 import com.feixiang.tabletcontrol.core.service.ProjectService;
 import com.feixiang.tabletcontrol.core.service.impl.ProjectServiceImpl;
 import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.BinaryProjectRepository;
 import com.feixiang.tabletcontrol.core.repository.impl.JsonProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.LogStructuredProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectWorkspace;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
 import com.feixiang.tabletcontrol.platform.PlatformManager;
 import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
@@ -30,10 +33,14 @@ public class CrossPlatformApp extends Application {
     
     private static final Logger logger = LoggerFactory.getLogger(CrossPlatformApp.class);
     
+    // 存储后端选择: json / sharded / binary / kv
+    private static final String STORAGE_PROPERTY = "tabletcontrol.storage";
+    
     // 核心组件
     private PlatformManager platformManager;
     private CrossPlatformPathManager pathManager;
     private ProjectRepository projectRepository;
+    private ProjectWorkspace projectWorkspace;
     private ProjectService projectService;
     private MainViewController mainViewController;
     private ResponsiveLayoutManager layoutManager;
@@ -126,10 +133,15 @@ public class CrossPlatformApp extends Application {
         logger.info("应用程序正在关闭...");
         
         try {
-            // 保存当前状态
+            // 保存当前状态（后台写入，关闭服务时等待完成）
             if (projectService != null && projectService.hasUnsavedChanges()) {
-                projectService.saveCurrentProject();
-                logger.info("已保存未保存的更改");
+                projectService.saveCurrentProjectAsync().whenComplete((result, error) -> {
+                    if (error == null) {
+                        logger.info("已保存未保存的更改");
+                    } else {
+                        logger.error("保存未保存的更改失败", error);
+                    }
+                });
             }
             
             // 清理资源
@@ -181,18 +193,49 @@ public class CrossPlatformApp extends Application {
     private void initializeDataLayer() {
         logger.debug("初始化数据访问层");
         
-        this.projectRepository = new JsonProjectRepository(pathManager);
+        String backend = System.getProperty(STORAGE_PROPERTY, "sharded");
+        this.projectRepository = createProjectRepository(backend, pathManager);
+        // 每个房间一个项目，工作区中的项目使用相同的存储后端
+        this.projectWorkspace = new ProjectWorkspace(pathManager, projectRepository,
+            paths -> createProjectRepository(backend, paths));
         
         logger.info("项目数据存储库初始化完成");
     }
     
+    /**
+     * 按存储后端名称创建项目存储库
+     * json: 单文件JSON; sharded: 清单 + 每页一个文件，启动时只读取清单和当前页面;
+     * binary: 单文件二进制; kv: 单文件日志结构键值存储，按组件增量保存
+     */
+    private ProjectRepository createProjectRepository(String backend, CrossPlatformPathManager paths) {
+        switch (backend.trim().toLowerCase()) {
+            case "json":
+                return new JsonProjectRepository(paths, JsonProjectRepository.StorageLayout.SINGLE_FILE);
+            case "binary":
+                return new BinaryProjectRepository(paths);
+            case "kv":
+                return new LogStructuredProjectRepository(paths);
+            case "sharded":
+                return new JsonProjectRepository(paths, JsonProjectRepository.StorageLayout.SHARDED);
+            default:
+                logger.warn("未知的存储后端: {}，使用分片存储", backend);
+                return new JsonProjectRepository(paths, JsonProjectRepository.StorageLayout.SHARDED);
+        }
+    }
+    
     /**
      * 初始化业务层
      */
     private void initializeBusinessLayer() {
         logger.debug("初始化业务服务层");
         
-        this.projectService = new ProjectServiceImpl(projectRepository);
+        ProjectServiceImpl service = new ProjectServiceImpl(projectRepository);
+        service.setWorkspace(projectWorkspace);
+        this.projectService = service;
+        // 编辑日志模式：保存时只追加修改记录
+        projectService.setJournalingEnabled(true);
+        // 日志记录同步到磁盘，连续保存合并为一次同步
+        projectService.setDurableWritesEnabled(true);
         
         logger.info("业务服务层初始化完成");
     }
@@ -303,6 +346,13 @@ public class CrossPlatformApp extends Application {
             logger.error("加载项目数据失败", e);
             showError("数据加载失败", "无法加载项目数据: " + e.getMessage());
         }
+        
+        // 部署脚本替换项目文件后只重新加载变化的页面
+        try {
+            projectService.startExternalChangeWatch();
+        } catch (Exception e) {
+            logger.warn("无法监视项目文件的外部修改", e);
+        }
     }
     
     /**
@@ -359,6 +409,10 @@ public class CrossPlatformApp extends Application {
             mainViewController.cleanup();
         }
         
+        if (projectService != null) {
+            projectService.shutdown();
+        }
+        
         // 其他清理工作...
     }
 }
@@ -1,6 +1,7 @@
 package com.feixiang.tabletcontrol.core.model;
 
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 组件数据模型 - 跨平台版本
@@ -8,6 +9,9 @@ import java.io.Serializable;
  */
 public class ComponentData implements Serializable {
     private static final long serialVersionUID = 2L;
+    
+    // 组件ID序号，与创建时间组合保证唯一
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
 
     // 绝对坐标 (向后兼容)
     private int x;
@@ -32,6 +36,9 @@ public class ComponentData implements Serializable {
     private boolean enabled = true; // 是否启用
     private String tooltip; // 工具提示
     private String cssClass; // CSS样式类
+    
+    // 已被页面快照引用 (不参与序列化)：只读，需要修改时先复制，见 PageData.getComponentForUpdate
+    private transient volatile boolean frozen;
 
     // 定位模式枚举
     public enum PositionMode {
@@ -71,54 +78,55 @@ public class ComponentData implements Serializable {
     
     // Getter和Setter方法
     public int getX() { return x; }
-    public void setX(int x) { this.x = x; }
+    public void setX(int x) { checkMutable(); this.x = x; }
     
     public int getY() { return y; }
-    public void setY(int y) { this.y = y; }
+    public void setY(int y) { checkMutable(); this.y = y; }
     
     public int getWidth() { return width; }
-    public void setWidth(int width) { this.width = width; }
+    public void setWidth(int width) { checkMutable(); this.width = width; }
     
     public int getHeight() { return height; }
-    public void setHeight(int height) { this.height = height; }
+    public void setHeight(int height) { checkMutable(); this.height = height; }
     
     public int getOriginalWidth() { return originalWidth; }
-    public void setOriginalWidth(int originalWidth) { this.originalWidth = originalWidth; }
+    public void setOriginalWidth(int originalWidth) { checkMutable(); this.originalWidth = originalWidth; }
     
     public int getOriginalHeight() { return originalHeight; }
-    public void setOriginalHeight(int originalHeight) { this.originalHeight = originalHeight; }
+    public void setOriginalHeight(int originalHeight) { checkMutable(); this.originalHeight = originalHeight; }
     
     public String getFunctionType() { return functionType; }
-    public void setFunctionType(String functionType) { this.functionType = functionType; }
+    public void setFunctionType(String functionType) { checkMutable(); this.functionType = functionType; }
 
     public LabelData getLabelData() { return labelData; }
-    public void setLabelData(LabelData labelData) { this.labelData = labelData; }
+    public void setLabelData(LabelData labelData) { checkMutable(); this.labelData = labelData; }
 
     // 相对定位相关方法
     public RelativePosition getRelativePosition() { return relativePosition; }
     public void setRelativePosition(RelativePosition relativePosition) {
+        checkMutable();
         this.relativePosition = relativePosition;
         this.positionMode = PositionMode.RELATIVE;
     }
 
     public PositionMode getPositionMode() { return positionMode; }
-    public void setPositionMode(PositionMode positionMode) { this.positionMode = positionMode; }
+    public void setPositionMode(PositionMode positionMode) { checkMutable(); this.positionMode = positionMode; }
     
     // 跨平台扩展属性
     public String getComponentId() { return componentId; }
-    public void setComponentId(String componentId) { this.componentId = componentId; }
+    public void setComponentId(String componentId) { checkMutable(); this.componentId = componentId; }
     
     public boolean isVisible() { return visible; }
-    public void setVisible(boolean visible) { this.visible = visible; }
+    public void setVisible(boolean visible) { checkMutable(); this.visible = visible; }
     
     public boolean isEnabled() { return enabled; }
-    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public void setEnabled(boolean enabled) { checkMutable(); this.enabled = enabled; }
     
     public String getTooltip() { return tooltip; }
-    public void setTooltip(String tooltip) { this.tooltip = tooltip; }
+    public void setTooltip(String tooltip) { checkMutable(); this.tooltip = tooltip; }
     
     public String getCssClass() { return cssClass; }
-    public void setCssClass(String cssClass) { this.cssClass = cssClass; }
+    public void setCssClass(String cssClass) { checkMutable(); this.cssClass = cssClass; }
 
     /**
      * 获取在指定容器尺寸下的绝对位置
@@ -137,6 +145,7 @@ public class ComponentData implements Serializable {
      * 从绝对坐标更新相对位置
      */
     public void updateRelativePosition(int containerWidth, int containerHeight) {
+        checkMutable();
         if (containerWidth > 0 && containerHeight > 0) {
             this.relativePosition = RelativePosition.fromAbsolute(x, y, width, height, containerWidth, containerHeight);
             this.positionMode = PositionMode.RELATIVE;
@@ -147,6 +156,7 @@ public class ComponentData implements Serializable {
      * 从相对位置更新绝对坐标
      */
     public void updateAbsolutePosition(int containerWidth, int containerHeight) {
+        checkMutable();
         if (relativePosition != null && containerWidth > 0 && containerHeight > 0) {
             RelativePosition.AbsolutePosition absPos = relativePosition.toAbsolute(containerWidth, containerHeight);
             this.x = absPos.x;
@@ -156,11 +166,38 @@ public class ComponentData implements Serializable {
         }
     }
     
+    /**
+     * 检查组件是否已被页面快照引用
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    /**
+     * 标记组件已被页面快照引用（由组件列表在创建快照时调用），标签和相对位置一同冻结
+     */
+    void freeze() {
+        if (labelData != null) {
+            labelData.freeze();
+        }
+        if (relativePosition != null) {
+            relativePosition.freeze();
+        }
+        this.frozen = true;
+    }
+    
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("组件已被页面快照引用，需通过 PageData.getComponentForUpdate 取得可修改的组件: " + componentId);
+        }
+    }
+    
     /**
      * 生成组件唯一标识
+     * 进程内的序号保证同一毫秒内创建的组件也不会重复
      */
-    private String generateComponentId() {
-        return "comp_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+    private static String generateComponentId() {
+        return "comp_" + System.currentTimeMillis() + "_" + ID_SEQUENCE.getAndIncrement();
     }
     
     /**
@@ -182,6 +219,7 @@ public class ComponentData implements Serializable {
      * 修复组件数据完整性
      */
     public void repair() {
+        checkMutable();
         if (functionType == null) {
             functionType = "未知组件";
         }
@@ -257,6 +295,15 @@ public class ComponentData implements Serializable {
         return copy;
     }
     
+    /**
+     * 创建保留组件ID的副本（用于保存快照）
+     */
+    public ComponentData snapshot() {
+        ComponentData snapshot = copy();
+        snapshot.componentId = this.componentId;
+        return snapshot;
+    }
+    
     @Override
     public String toString() {
         return "ComponentData{" +
@@ -0,0 +1,449 @@
+package com.feixiang.tabletcontrol.core.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * 页面组件列表 - 按位置索引的持久化B树
+ * 快照与列表共享全部节点，创建快照的代价与组件数量无关；之后的修改只复制从根到被修改位置路径上的节点，
+ * 读取、替换、插入和删除都是 O(log n)。
+ * 节点记录创建它的编辑令牌，令牌与列表当前令牌相同的节点只属于该列表，可以直接修改；创建快照时列表更换令牌，
+ * 已有节点从此只读。创建快照时同时冻结列表中的组件，组件需要修改时先复制（见 {@link PageData#getComponentForUpdate(int)}）。
+ * 列表本身非线程安全；快照只读，可以被多个线程同时读取
+ */
+final class ComponentList extends AbstractList<ComponentData> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 节点最多容纳的组件或子节点数
+    private static final int NODE_CAPACITY = 32;
+
+    private transient Node root;
+    // 编辑令牌，快照为null（只读）
+    private transient Object editToken;
+    // 上次冻结之后加入列表的组件及出现次数，创建快照时冻结；null表示尚未创建过快照，首次创建时冻结全部组件
+    private transient Map<ComponentData, Integer> unfrozen;
+
+    ComponentList() {
+        this.editToken = new Object();
+        this.root = new Node(editToken, true);
+    }
+
+    ComponentList(Collection<? extends ComponentData> components) {
+        this();
+        for (ComponentData component : components) {
+            add(component);
+        }
+    }
+
+    private ComponentList(Node root) {
+        this.root = root;
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    @Override
+    public ComponentData get(int index) {
+        checkIndex(index);
+        Node node = root;
+        while (!node.leaf) {
+            int child = 0;
+            while (index >= node.child(child).size) {
+                index -= node.child(child).size;
+                child++;
+            }
+            node = node.child(child);
+        }
+        return (ComponentData) node.slots[index];
+    }
+
+    @Override
+    public ComponentData set(int index, ComponentData component) {
+        checkWritable();
+        checkIndex(index);
+        root = editable(root);
+        Node node = root;
+        while (!node.leaf) {
+            int child = 0;
+            while (index >= node.child(child).size) {
+                index -= node.child(child).size;
+                child++;
+            }
+            Node next = editable(node.child(child));
+            node.slots[child] = next;
+            node = next;
+        }
+        ComponentData previous = (ComponentData) node.slots[index];
+        node.slots[index] = component;
+        untrack(previous);
+        track(component);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, ComponentData component) {
+        checkWritable();
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        root = editable(root);
+        Node split = insert(root, index, component);
+        if (split != null) {
+            Node newRoot = new Node(editToken, false);
+            newRoot.slots[0] = root;
+            newRoot.slots[1] = split;
+            newRoot.count = 2;
+            newRoot.size = root.size + split.size;
+            root = newRoot;
+        }
+        modCount++;
+        track(component);
+    }
+
+    @Override
+    public ComponentData remove(int index) {
+        checkWritable();
+        checkIndex(index);
+        root = editable(root);
+        ComponentData removed = remove(root, index);
+        // 根节点只剩一个子节点时降低高度
+        while (!root.leaf && root.count == 1) {
+            root = root.child(0);
+        }
+        if (!root.leaf && root.count == 0) {
+            root = new Node(editToken, true);
+        }
+        modCount++;
+        untrack(removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        root = new Node(editToken, true);
+        if (unfrozen != null) {
+            unfrozen.clear();
+        }
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int index = 0;
+        for (ComponentData component : this) {
+            if (o == null ? component == null : o.equals(component)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public Iterator<ComponentData> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * 创建只读快照并冻结列表中的组件，列表之后的修改不影响快照
+     */
+    ComponentList snapshot() {
+        freezeComponents();
+        // 已有节点从此只读，之后的修改先复制路径上的节点
+        editToken = new Object();
+        return new ComponentList(root);
+    }
+
+    /**
+     * 检查两个列表是否为同一内容（共享根节点）
+     */
+    boolean sharesContentWith(ComponentList other) {
+        return other != null && other.root == root;
+    }
+
+    private void freezeComponents() {
+        if (unfrozen == null) {
+            for (ComponentData component : this) {
+                if (component != null) {
+                    component.freeze();
+                }
+            }
+            unfrozen = new IdentityHashMap<>();
+            return;
+        }
+        for (ComponentData component : unfrozen.keySet()) {
+            component.freeze();
+        }
+        unfrozen.clear();
+    }
+
+    private void track(ComponentData component) {
+        if (unfrozen != null && component != null && !component.isFrozen()) {
+            unfrozen.merge(component, 1, Integer::sum);
+        }
+    }
+
+    private void untrack(ComponentData component) {
+        if (unfrozen != null && component != null) {
+            unfrozen.computeIfPresent(component, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private Node editable(Node node) {
+        return node.token == editToken ? node : node.copy(editToken);
+    }
+
+    /**
+     * 在子树中插入组件（节点已可修改）
+     * @return 节点已满而分裂出的右半部分，未分裂时返回null
+     */
+    private Node insert(Node node, int index, ComponentData component) {
+        if (node.leaf) {
+            node.size++;
+            return insertSlot(node, index, component);
+        }
+        // 位于两个子节点边界的位置插入左侧子节点末尾，末尾追加总是进入最后一个子节点
+        int child = 0;
+        while (child < node.count - 1 && index > node.child(child).size) {
+            index -= node.child(child).size;
+            child++;
+        }
+        Node next = editable(node.child(child));
+        node.slots[child] = next;
+        node.size++;
+        Node split = insert(next, index, component);
+        return split != null ? insertSlot(node, child + 1, split) : null;
+    }
+
+    /**
+     * 在节点中插入组件或子节点，节点已满时分裂
+     * @return 分裂出的右半部分，未分裂时返回null
+     */
+    private Node insertSlot(Node node, int position, Object item) {
+        if (node.count < NODE_CAPACITY) {
+            System.arraycopy(node.slots, position, node.slots, position + 1, node.count - position);
+            node.slots[position] = item;
+            node.count++;
+            return null;
+        }
+        // 在末尾追加时左半部分保持全满，顺序追加的列表节点不会半空
+        int keep = position == NODE_CAPACITY ? NODE_CAPACITY : NODE_CAPACITY / 2;
+        Node right = new Node(editToken, node.leaf);
+        right.count = NODE_CAPACITY - keep;
+        System.arraycopy(node.slots, keep, right.slots, 0, right.count);
+        Arrays.fill(node.slots, keep, NODE_CAPACITY, null);
+        node.count = keep;
+        if (position < keep || position == keep && keep < NODE_CAPACITY) {
+            insertSlot(node, position, item);
+        } else {
+            insertSlot(right, position - keep, item);
+        }
+        node.updateSize();
+        right.updateSize();
+        return right;
+    }
+
+    /**
+     * 从子树中删除组件（节点已可修改）
+     */
+    private ComponentData remove(Node node, int index) {
+        node.size--;
+        if (node.leaf) {
+            ComponentData removed = (ComponentData) node.slots[index];
+            removeSlot(node, index);
+            return removed;
+        }
+        int child = 0;
+        while (index >= node.child(child).size) {
+            index -= node.child(child).size;
+            child++;
+        }
+        Node next = editable(node.child(child));
+        node.slots[child] = next;
+        ComponentData removed = remove(next, index);
+        if (next.count == 0) {
+            removeSlot(node, child);
+        } else if (next.count < NODE_CAPACITY / 4) {
+            mergeWithNeighbour(node, child);
+        }
+        return removed;
+    }
+
+    /**
+     * 子节点过空时与相邻子节点合并，避免删除后树变得稀疏
+     */
+    private void mergeWithNeighbour(Node node, int child) {
+        int left = child > 0 ? child - 1 : child;
+        if (left + 1 >= node.count) {
+            return;
+        }
+        Node right = node.child(left + 1);
+        if (node.child(left).count + right.count > NODE_CAPACITY) {
+            return;
+        }
+        Node merged = editable(node.child(left));
+        // 右侧节点的内容（组件或只读子节点）直接并入，右侧节点可能仍被快照引用，不修改
+        System.arraycopy(right.slots, 0, merged.slots, merged.count, right.count);
+        merged.count += right.count;
+        merged.size += right.size;
+        node.slots[left] = merged;
+        removeSlot(node, left + 1);
+    }
+
+    private static void removeSlot(Node node, int position) {
+        System.arraycopy(node.slots, position + 1, node.slots, position, node.count - position - 1);
+        node.slots[--node.count] = null;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private void checkWritable() {
+        if (editToken == null) {
+            throw new UnsupportedOperationException("组件列表快照只读");
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size());
+        for (ComponentData component : this) {
+            out.writeObject(component);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        editToken = new Object();
+        root = new Node(editToken, true);
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            add((ComponentData) in.readObject());
+        }
+    }
+
+    /**
+     * B树节点：叶子节点保存组件，内部节点保存子节点
+     */
+    private static final class Node {
+        final Object token;
+        final boolean leaf;
+        final Object[] slots;
+        int count;
+        // 子树中的组件数
+        int size;
+
+        Node(Object token, boolean leaf) {
+            this(token, leaf, new Object[NODE_CAPACITY]);
+        }
+
+        private Node(Object token, boolean leaf, Object[] slots) {
+            this.token = token;
+            this.leaf = leaf;
+            this.slots = slots;
+        }
+
+        Node child(int index) {
+            return (Node) slots[index];
+        }
+
+        Node copy(Object token) {
+            Node copy = new Node(token, leaf, slots.clone());
+            copy.count = count;
+            copy.size = size;
+            return copy;
+        }
+
+        void updateSize() {
+            if (leaf) {
+                size = count;
+                return;
+            }
+            size = 0;
+            for (int i = 0; i < count; i++) {
+                size += child(i).size;
+            }
+        }
+    }
+
+    /**
+     * 按叶子节点顺序遍历，每个叶子只定位一次
+     */
+    private final class Itr implements Iterator<ComponentData> {
+        private int cursor;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+        private Node leafRoot;
+        private Node leaf;
+        private int leafStart;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size();
+        }
+
+        @Override
+        public ComponentData next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= size()) {
+                throw new NoSuchElementException();
+            }
+            // 替换组件可能复制了路径上的节点，根节点变化后重新定位
+            if (leaf == null || leafRoot != root || cursor >= leafStart + leaf.count) {
+                locate(cursor);
+            }
+            lastReturned = cursor;
+            return (ComponentData) leaf.slots[cursor++ - leafStart];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            ComponentList.this.remove(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+            leaf = null;
+        }
+
+        private void locate(int index) {
+            Node node = root;
+            int start = 0;
+            while (!node.leaf) {
+                int child = 0;
+                while (index - start >= node.child(child).size) {
+                    start += node.child(child).size;
+                    child++;
+                }
+                node = node.child(child);
+            }
+            leafRoot = root;
+            leaf = node;
+            leafStart = start;
+        }
+    }
+}
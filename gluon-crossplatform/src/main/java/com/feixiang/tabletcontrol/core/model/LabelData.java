@@ -26,6 +26,9 @@ public class LabelData implements Serializable {
     private boolean autoScaleFont = true; // 是否自动缩放字体
     private double fontScaleFactor = 1.0; // 字体缩放因子
     
+    // 所属组件已被页面快照引用 (不参与序列化)：只读
+    private transient volatile boolean frozen;
+    
     // 默认构造函数
     public LabelData() {
         // 设置跨平台默认值
@@ -62,50 +65,51 @@ public class LabelData implements Serializable {
     
     // Getter和Setter方法
     public String getText() { return text; }
-    public void setText(String text) { this.text = text; }
+    public void setText(String text) { checkMutable(); this.text = text; }
     
     public String getFontName() { return fontName; }
     public void setFontName(String fontName) { 
+        checkMutable();
         this.fontName = fontName;
         this.fontFamily = mapToSystemFont(fontName);
     }
     
     public int getFontSize() { return fontSize; }
-    public void setFontSize(int fontSize) { this.fontSize = fontSize; }
+    public void setFontSize(int fontSize) { checkMutable(); this.fontSize = fontSize; }
     
     public int getFontStyle() { return fontStyle; }
-    public void setFontStyle(int fontStyle) { this.fontStyle = fontStyle; }
+    public void setFontStyle(int fontStyle) { checkMutable(); this.fontStyle = fontStyle; }
     
     public int getColorRGB() { return colorRGB; }
-    public void setColorRGB(int colorRGB) { this.colorRGB = colorRGB; }
+    public void setColorRGB(int colorRGB) { checkMutable(); this.colorRGB = colorRGB; }
     
     public String getIconPath() { return iconPath; }
-    public void setIconPath(String iconPath) { this.iconPath = iconPath; }
+    public void setIconPath(String iconPath) { checkMutable(); this.iconPath = iconPath; }
     
     public int getOriginalFontSize() { return originalFontSize; }
-    public void setOriginalFontSize(int originalFontSize) { this.originalFontSize = originalFontSize; }
+    public void setOriginalFontSize(int originalFontSize) { checkMutable(); this.originalFontSize = originalFontSize; }
     
     public int getHorizontalAlignment() { return horizontalAlignment; }
-    public void setHorizontalAlignment(int horizontalAlignment) { this.horizontalAlignment = horizontalAlignment; }
+    public void setHorizontalAlignment(int horizontalAlignment) { checkMutable(); this.horizontalAlignment = horizontalAlignment; }
     
     public int getVerticalAlignment() { return verticalAlignment; }
-    public void setVerticalAlignment(int verticalAlignment) { this.verticalAlignment = verticalAlignment; }
+    public void setVerticalAlignment(int verticalAlignment) { checkMutable(); this.verticalAlignment = verticalAlignment; }
     
     public int getHorizontalTextPosition() { return horizontalTextPosition; }
-    public void setHorizontalTextPosition(int horizontalTextPosition) { this.horizontalTextPosition = horizontalTextPosition; }
+    public void setHorizontalTextPosition(int horizontalTextPosition) { checkMutable(); this.horizontalTextPosition = horizontalTextPosition; }
     
     public int getVerticalTextPosition() { return verticalTextPosition; }
-    public void setVerticalTextPosition(int verticalTextPosition) { this.verticalTextPosition = verticalTextPosition; }
+    public void setVerticalTextPosition(int verticalTextPosition) { checkMutable(); this.verticalTextPosition = verticalTextPosition; }
     
     // 跨平台扩展属性
     public String getFontFamily() { return fontFamily; }
-    public void setFontFamily(String fontFamily) { this.fontFamily = fontFamily; }
+    public void setFontFamily(String fontFamily) { checkMutable(); this.fontFamily = fontFamily; }
     
     public boolean isAutoScaleFont() { return autoScaleFont; }
-    public void setAutoScaleFont(boolean autoScaleFont) { this.autoScaleFont = autoScaleFont; }
+    public void setAutoScaleFont(boolean autoScaleFont) { checkMutable(); this.autoScaleFont = autoScaleFont; }
     
     public double getFontScaleFactor() { return fontScaleFactor; }
-    public void setFontScaleFactor(double fontScaleFactor) { this.fontScaleFactor = fontScaleFactor; }
+    public void setFontScaleFactor(double fontScaleFactor) { checkMutable(); this.fontScaleFactor = fontScaleFactor; }
     
     // 跨平台适配方法
     
@@ -152,6 +156,7 @@ public class LabelData implements Serializable {
      * 从十六进制字符串设置颜色
      */
     public void setColorFromHex(String hexColor) {
+        checkMutable();
         if (hexColor != null && hexColor.startsWith("#") && hexColor.length() == 7) {
             try {
                 this.colorRGB = Integer.parseInt(hexColor.substring(1), 16);
@@ -176,6 +181,7 @@ public class LabelData implements Serializable {
      * 从RGB分量设置颜色
      */
     public void setColorFromRGB(int red, int green, int blue) {
+        checkMutable();
         red = Math.max(0, Math.min(255, red));
         green = Math.max(0, Math.min(255, green));
         blue = Math.max(0, Math.min(255, blue));
@@ -214,6 +220,23 @@ public class LabelData implements Serializable {
         return sb.toString();
     }
     
+    /**
+     * 检查是否已随所属组件被页面快照引用（只读）
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    void freeze() {
+        this.frozen = true;
+    }
+    
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("标签数据已随组件被页面快照引用，不能修改");
+        }
+    }
+    
     /**
      * 创建副本
      */
@@ -1,8 +1,16 @@
 package com.feixiang.tabletcontrol.core.model;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 页面数据模型 - 跨平台版本
@@ -12,15 +20,37 @@ public class PageData implements Serializable {
     private static final long serialVersionUID = 1L;
     
     private String name;
-    private List<ComponentData> components;
+    private ComponentList components;
     private long createdTime;
     private long lastModifiedTime;
     private String backgroundImage; // 背景图片路径
     private String backgroundColor; // 背景颜色
     
+    // 修改计数 (不参与序列化)，与已保存的计数不同时页面需要重新写入；新建页面视为未保存
+    private transient volatile long modCount = 1;
+    private transient volatile long savedModCount = 0;
+    
+    // 最近一次保存快照的组件列表（用于诊断列表是否仍与快照相同）
+    private transient WeakReference<ComponentList> snapshotComponents;
+    // 快照只读
+    private transient boolean readOnly;
+    // 修复后的内容尚未写回存储
+    private transient boolean repairUnsaved;
+    
+    // 组件ID索引（不参与序列化，首次按ID查找时建立）：组件ID -> 列表位置。
+    // 位置小于 indexedCount 的记录有效；插入、删除或移动组件后，之后的位置在下次查找时重新建立
+    private transient Map<String, Integer> componentIndex;
+    private transient int indexedCount;
+    
+    // 空间索引（不参与序列化，首次按位置查询时按容器尺寸建立）：增删和替换组件时同步更新，
+    // 其他修改（就地修改组件后 markDirty、分辨率适配等）使修改计数不一致，下次查询时重新建立
+    private transient PageSpatialIndex spatialIndex;
+    // 通过 getComponentForUpdate 取出、等待 markDirty 更新空间索引的组件 -> 索引中登记的组件
+    private transient Map<ComponentData, ComponentData> pendingSpatialUpdates;
+    
     // 默认构造函数
     public PageData() {
-        this.components = new ArrayList<>();
+        this.components = new ComponentList();
         this.createdTime = System.currentTimeMillis();
         this.lastModifiedTime = this.createdTime;
     }
@@ -34,36 +64,41 @@ public class PageData implements Serializable {
     // 构造函数
     public PageData(String name, List<ComponentData> components) {
         this(name);
-        this.components = components != null ? new ArrayList<>(components) : new ArrayList<>();
+        this.components = components != null ? new ComponentList(components) : new ComponentList();
     }
     
     // Getter和Setter方法
     public String getName() { return name; }
     public void setName(String name) { 
+        checkWritable();
         this.name = name; 
         updateLastModifiedTime();
     }
     
     public List<ComponentData> getComponents() { return components; }
     public void setComponents(List<ComponentData> components) { 
-        this.components = components != null ? new ArrayList<>(components) : new ArrayList<>();
+        checkWritable();
+        this.components = components != null ? new ComponentList(components) : new ComponentList();
+        resetComponentIndex();
         updateLastModifiedTime();
     }
     
     public long getCreatedTime() { return createdTime; }
-    public void setCreatedTime(long createdTime) { this.createdTime = createdTime; }
+    public void setCreatedTime(long createdTime) { checkWritable(); this.createdTime = createdTime; }
     
     public long getLastModifiedTime() { return lastModifiedTime; }
-    public void setLastModifiedTime(long lastModifiedTime) { this.lastModifiedTime = lastModifiedTime; }
+    public void setLastModifiedTime(long lastModifiedTime) { checkWritable(); this.lastModifiedTime = lastModifiedTime; }
     
     public String getBackgroundImage() { return backgroundImage; }
     public void setBackgroundImage(String backgroundImage) { 
+        checkWritable();
         this.backgroundImage = backgroundImage;
         updateLastModifiedTime();
     }
     
     public String getBackgroundColor() { return backgroundColor; }
     public void setBackgroundColor(String backgroundColor) { 
+        checkWritable();
         this.backgroundColor = backgroundColor;
         updateLastModifiedTime();
     }
@@ -76,7 +111,9 @@ public class PageData implements Serializable {
     public void addComponent(ComponentData component) {
         if (component != null) {
             this.components.add(component);
+            indexAppended(component);
             updateLastModifiedTime();
+            updateSpatialIndex(null, component);
         }
     }
     
@@ -84,11 +121,12 @@ public class PageData implements Serializable {
      * 移除组件
      */
     public boolean removeComponent(ComponentData component) {
-        boolean removed = this.components.remove(component);
-        if (removed) {
-            updateLastModifiedTime();
+        int index = findComponentIndex(component);
+        if (index < 0) {
+            return false;
         }
-        return removed;
+        removeComponent(index);
+        return true;
     }
     
     /**
@@ -97,17 +135,30 @@ public class PageData implements Serializable {
     public ComponentData removeComponent(int index) {
         if (index >= 0 && index < components.size()) {
             ComponentData removed = components.remove(index);
+            indexRemoved(index, removed);
             updateLastModifiedTime();
+            updateSpatialIndex(removed, null);
             return removed;
         }
         return null;
     }
     
+    /**
+     * 根据组件ID移除组件
+     * @return 被移除的组件，ID不存在时返回null
+     */
+    public ComponentData removeComponentById(String componentId) {
+        int index = findComponentIndexById(componentId);
+        return index >= 0 ? removeComponent(index) : null;
+    }
+    
     /**
      * 清空所有组件
      */
     public void clearComponents() {
-        this.components.clear();
+        checkWritable();
+        components.clear();
+        resetComponentIndex();
         updateLastModifiedTime();
     }
     
@@ -135,25 +186,82 @@ public class PageData implements Serializable {
         return null;
     }
     
+    /**
+     * 根据组件ID获取组件
+     * @return 组件，ID不存在时返回null
+     */
+    public ComponentData getComponentById(String componentId) {
+        int index = findComponentIndexById(componentId);
+        return index >= 0 ? components.get(index) : null;
+    }
+    
+    /**
+     * 检查页面是否包含指定ID的组件
+     */
+    public boolean containsComponentId(String componentId) {
+        return findComponentIndexById(componentId) >= 0;
+    }
+    
     /**
      * 查找组件索引
+     * 先按组件ID查找，组件ID不在索引中（例如创建后修改过ID）时按对象逐个比较
      */
     public int findComponentIndex(ComponentData component) {
+        if (component != null) {
+            int index = findComponentIndexById(component.getComponentId());
+            if (index >= 0 && components.get(index) == component) {
+                return index;
+            }
+        }
         return components.indexOf(component);
     }
     
+    /**
+     * 根据组件ID查找组件索引，ID重复时返回第一个组件的位置
+     * @return 组件索引，ID不存在时返回-1
+     */
+    public synchronized int findComponentIndexById(String componentId) {
+        if (componentId == null) {
+            return -1;
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            refreshComponentIndex();
+            Integer index = componentIndex.get(componentId);
+            if (index == null) {
+                return -1;
+            }
+            if (hasComponentId(index, componentId)) {
+                return index;
+            }
+            // 组件列表在索引之外被修改，重新建立索引
+            resetComponentIndex();
+        }
+        return -1;
+    }
+    
     /**
      * 替换组件
      */
     public boolean replaceComponent(int index, ComponentData newComponent) {
         if (index >= 0 && index < components.size() && newComponent != null) {
-            components.set(index, newComponent);
+            ComponentData oldComponent = components.set(index, newComponent);
+            indexReplaced(index, oldComponent, newComponent);
             updateLastModifiedTime();
+            updateSpatialIndex(oldComponent, newComponent);
             return true;
         }
         return false;
     }
     
+    /**
+     * 根据组件ID替换组件
+     * @return ID不存在或新组件为null时返回false
+     */
+    public boolean replaceComponentById(String componentId, ComponentData newComponent) {
+        int index = findComponentIndexById(componentId);
+        return index >= 0 && replaceComponent(index, newComponent);
+    }
+    
     /**
      * 替换组件
      */
@@ -175,7 +283,10 @@ public class PageData implements Serializable {
             
             ComponentData component = components.remove(fromIndex);
             components.add(toIndex, component);
+            invalidateComponentIndex(Math.min(fromIndex, toIndex));
             updateLastModifiedTime();
+            // 只改变层次顺序，组件边界不变
+            updateSpatialIndex(null, null);
             return true;
         }
         return false;
@@ -268,11 +379,15 @@ public class PageData implements Serializable {
             return false;
         }
         
-        // 检查每个组件的完整性
+        // 检查每个组件的完整性，组件ID必须在页面内唯一
+        Set<String> componentIds = new HashSet<>();
         for (ComponentData component : components) {
             if (component == null || component.getFunctionType() == null) {
                 return false;
             }
+            if (component.getComponentId() == null || !componentIds.add(component.getComponentId())) {
+                return false;
+            }
         }
         
         return true;
@@ -282,26 +397,410 @@ public class PageData implements Serializable {
      * 修复页面数据完整性
      */
     public void repairIntegrity() {
+        checkWritable();
         if (name == null) {
             name = "未命名页面";
         }
         
         if (components == null) {
-            components = new ArrayList<>();
+            components = new ComponentList();
         }
         
         // 移除无效组件
         components.removeIf(component -> 
             component == null || component.getFunctionType() == null);
         
+        // 缺少ID或ID重复的组件按位置分配新ID（快照引用的组件先复制）
+        // 新ID由页面内容决定，修复写回存储之前每次加载得到相同的ID，编辑日志中的记录仍能对应
+        Set<String> componentIds = new HashSet<>();
+        for (int i = 0; i < components.size(); i++) {
+            String componentId = components.get(i).getComponentId();
+            if (componentId == null || !componentIds.add(componentId)) {
+                String repairedId = repairedComponentId(componentId, i, componentIds);
+                getComponentForUpdate(i).setComponentId(repairedId);
+                componentIds.add(repairedId);
+            }
+        }
+        resetComponentIndex();
+        
+        repairUnsaved = true;
         updateLastModifiedTime();
     }
     
+    private String repairedComponentId(String componentId, int index, Set<String> usedIds) {
+        String base = (componentId != null ? componentId : "comp_" + Integer.toHexString(name.hashCode())) + "_" + index;
+        String candidate = base;
+        for (int suffix = 1; usedIds.contains(candidate); suffix++) {
+            candidate = base + "_" + suffix;
+        }
+        return candidate;
+    }
+    
+    /**
+     * 创建用于保存的页面快照（保留组件ID和修改计数）
+     * 快照与页面共享组件列表的节点和组件对象，创建代价与组件数量无关；之后页面的修改只复制被修改路径上的节点。
+     * 快照引用的组件（连同标签和相对位置）被冻结，修改时抛出异常，页面需通过 {@link #getComponentForUpdate(int)}
+     * 取得可修改的副本，快照中的内容保持不变。快照本身也只读，需要修改副本时使用 {@link #copy()}
+     */
+    public synchronized PageData snapshot() {
+        PageData snapshot = viewSnapshot();
+        this.snapshotComponents = new WeakReference<>(snapshot.components);
+        return snapshot;
+    }
+    
+    /**
+     * 创建发布到项目只读视图的页面快照，与 {@link #snapshot()} 相同，但不作为保存快照记录
+     */
+    synchronized PageData viewSnapshot() {
+        PageData snapshot = new PageData(name);
+        snapshot.components = components.snapshot();
+        copyFieldsTo(snapshot);
+        snapshot.readOnly = true;
+        return snapshot;
+    }
+    
+    /**
+     * 创建页面的深拷贝（组件逐个复制，保留组件ID和修改计数），副本可以自由修改
+     */
+    public PageData copy() {
+        PageData copy = new PageData(name);
+        ComponentList copiedComponents = new ComponentList();
+        for (ComponentData component : components) {
+            copiedComponents.add(component != null ? component.snapshot() : null);
+        }
+        copy.components = copiedComponents;
+        copyFieldsTo(copy);
+        return copy;
+    }
+    
+    /**
+     * 取得要就地修改的组件
+     * 组件已被快照引用时先复制组件并替换列表中的引用，修改完成后调用 {@link #markDirty()}
+     * @return 可以修改的组件，索引无效时返回null
+     */
+    public synchronized ComponentData getComponentForUpdate(int index) {
+        checkWritable();
+        if (index < 0 || index >= components.size()) {
+            return null;
+        }
+        ComponentData component = components.get(index);
+        if (component == null) {
+            return null;
+        }
+        ComponentData registered = component;
+        if (component.isFrozen()) {
+            // 副本保留组件ID，ID索引不变
+            component = component.snapshot();
+            components.set(index, component);
+        }
+        // 空间索引在 markDirty 时按登记时的边界移除原组件，再按修改后的边界登记
+        if (spatialIndex != null) {
+            if (pendingSpatialUpdates == null) {
+                pendingSpatialUpdates = new IdentityHashMap<>();
+            }
+            pendingSpatialUpdates.putIfAbsent(component, registered);
+        }
+        return component;
+    }
+    
+    /**
+     * 检查组件列表是否与最近一次保存快照相同，即快照之后没有增删或替换组件（用于测试和诊断）
+     */
+    public synchronized boolean isSharingComponents() {
+        ComponentList shared = snapshotComponents != null ? snapshotComponents.get() : null;
+        return components.sharesContentWith(shared);
+    }
+    
+    /**
+     * 建立 indexedCount 之后位置的索引
+     */
+    private void refreshComponentIndex() {
+        if (componentIndex == null) {
+            componentIndex = new HashMap<>();
+            indexedCount = 0;
+        }
+        int size = components.size();
+        for (int i = indexedCount; i < size; i++) {
+            ComponentData component = components.get(i);
+            if (component != null && component.getComponentId() != null) {
+                indexPosition(component.getComponentId(), i);
+            }
+        }
+        indexedCount = size;
+    }
+    
+    /**
+     * 记录组件位置，ID重复时保留之前的有效位置
+     */
+    private void indexPosition(String componentId, int index) {
+        Integer existing = componentIndex.get(componentId);
+        if (existing == null || existing >= index || !hasComponentId(existing, componentId)) {
+            componentIndex.put(componentId, index);
+        }
+    }
+    
+    private boolean hasComponentId(int index, String componentId) {
+        if (index < 0 || index >= components.size()) {
+            return false;
+        }
+        ComponentData component = components.get(index);
+        return component != null && componentId.equals(component.getComponentId());
+    }
+    
+    private synchronized void indexAppended(ComponentData component) {
+        int index = components.size() - 1;
+        if (componentIndex != null && indexedCount == index) {
+            if (component.getComponentId() != null) {
+                indexPosition(component.getComponentId(), index);
+            }
+            indexedCount = index + 1;
+        }
+    }
+    
+    private synchronized void indexRemoved(int index, ComponentData removed) {
+        if (componentIndex == null) {
+            return;
+        }
+        String componentId = removed != null ? removed.getComponentId() : null;
+        if (componentId != null) {
+            Integer position = componentIndex.get(componentId);
+            if (position != null && position >= index) {
+                componentIndex.remove(componentId);
+            }
+        }
+        indexedCount = Math.min(indexedCount, index);
+    }
+    
+    private synchronized void indexReplaced(int index, ComponentData oldComponent, ComponentData newComponent) {
+        if (componentIndex == null) {
+            return;
+        }
+        String oldId = oldComponent != null ? oldComponent.getComponentId() : null;
+        if (oldId != null && oldId.equals(newComponent.getComponentId())) {
+            return;
+        }
+        if (oldId != null) {
+            Integer position = componentIndex.get(oldId);
+            if (position != null && position == index) {
+                componentIndex.remove(oldId);
+            }
+        }
+        if (index < indexedCount && newComponent.getComponentId() != null) {
+            indexPosition(newComponent.getComponentId(), index);
+        }
+    }
+    
+    /**
+     * 指定位置之后的组件位置已变化，下次查找时重新建立
+     */
+    private synchronized void invalidateComponentIndex(int fromIndex) {
+        indexedCount = Math.min(indexedCount, fromIndex);
+    }
+    
+    private synchronized void resetComponentIndex() {
+        componentIndex = null;
+        indexedCount = 0;
+        spatialIndex = null;
+        pendingSpatialUpdates = null;
+    }
+    
+    /**
+     * 查找包含指定点的组件（用于触摸命中测试）
+     * @param containerWidth 容器宽度（计算相对定位组件的位置）
+     * @param containerHeight 容器高度
+     * @return 按层次从上到下排列的组件
+     */
+    public List<ComponentData> findComponentsAt(int x, int y, int containerWidth, int containerHeight) {
+        List<ComponentData> result = spatialIndex(containerWidth, containerHeight).query(x, y, 1, 1, false);
+        sortByLayer(result);
+        Collections.reverse(result);
+        return result;
+    }
+    
+    /**
+     * 查找与区域相交或完全位于区域内的组件（用于框选）
+     * @param containedOnly 为true时只返回完全位于区域内的组件
+     * @return 按层次从下到上排列的组件
+     */
+    public List<ComponentData> findComponentsInRegion(ComponentData.AbsolutePosition region, boolean containedOnly,
+                                                      int containerWidth, int containerHeight) {
+        List<ComponentData> result = spatialIndex(containerWidth, containerHeight)
+                .query(region.x, region.y, region.width, region.height, containedOnly);
+        sortByLayer(result);
+        return result;
+    }
+    
+    /**
+     * 查找与组件重叠的其他组件
+     * @return 按层次从下到上排列的组件，组件不在页面中时返回空列表
+     */
+    public List<ComponentData> findOverlappingComponents(ComponentData component,
+                                                         int containerWidth, int containerHeight) {
+        PageSpatialIndex index = spatialIndex(containerWidth, containerHeight);
+        ComponentData.AbsolutePosition bounds = index.getBounds(component);
+        if (bounds == null) {
+            return new ArrayList<>();
+        }
+        List<ComponentData> result = index.query(bounds.x, bounds.y, bounds.width, bounds.height, false);
+        result.removeIf(candidate -> candidate == component);
+        sortByLayer(result);
+        return result;
+    }
+    
+    /**
+     * 获取与页面内容和容器尺寸一致的空间索引，必要时重新建立
+     * 索引只在页面修改时更新，页面没有修改期间多个线程可以同时查询返回的索引
+     */
+    private synchronized PageSpatialIndex spatialIndex(int containerWidth, int containerHeight) {
+        PageSpatialIndex index = spatialIndex;
+        if (index == null || !index.matches(containerWidth, containerHeight) || index.getModCount() != modCount) {
+            index = new PageSpatialIndex(components, containerWidth, containerHeight, modCount);
+            spatialIndex = index;
+            pendingSpatialUpdates = null;
+        }
+        return index;
+    }
+    
+    /**
+     * 增删或替换组件后同步更新空间索引（在修改计数递增之后调用）
+     * 索引在本次修改之前已不一致时丢弃，下次查询时重新建立
+     */
+    private synchronized void updateSpatialIndex(ComponentData removed, ComponentData added) {
+        PageSpatialIndex index = spatialIndex;
+        if (index == null) {
+            return;
+        }
+        if (index.getModCount() != modCount - 1) {
+            spatialIndex = null;
+            pendingSpatialUpdates = null;
+            return;
+        }
+        // 同一组件对象可能在页面中出现多次，仍在页面中时保留
+        if (removed != null && !isInPage(removed)) {
+            index.remove(removed);
+        }
+        if (added != null) {
+            index.add(added);
+        }
+        index.setModCount(modCount);
+    }
+    
+    /**
+     * 就地修改组件后更新空间索引（在 markDirty 递增修改计数之后调用）
+     * 没有经过 getComponentForUpdate 取得的修改无法定位，丢弃索引，下次查询时重新建立
+     */
+    private synchronized void applyPendingSpatialUpdates() {
+        PageSpatialIndex index = spatialIndex;
+        Map<ComponentData, ComponentData> pending = pendingSpatialUpdates;
+        pendingSpatialUpdates = null;
+        if (index == null) {
+            return;
+        }
+        if (pending == null || index.getModCount() != modCount - 1) {
+            spatialIndex = null;
+            return;
+        }
+        for (Map.Entry<ComponentData, ComponentData> entry : pending.entrySet()) {
+            index.remove(entry.getValue());
+            if (isInPage(entry.getKey())) {
+                index.add(entry.getKey());
+            }
+        }
+        index.setModCount(modCount);
+    }
+    
+    private boolean isInPage(ComponentData component) {
+        int index = findComponentIndexById(component.getComponentId());
+        return index >= 0 && components.get(index) == component;
+    }
+    
+    /**
+     * 按组件在列表中的位置（层次顺序，后绘制的在上层）排序
+     */
+    private void sortByLayer(List<ComponentData> result) {
+        Map<ComponentData, Integer> layers = new IdentityHashMap<>();
+        for (ComponentData component : result) {
+            layers.put(component, findComponentIndex(component));
+        }
+        result.sort(Comparator.comparingInt(layers::get));
+    }
+    
+    private void copyFieldsTo(PageData snapshot) {
+        snapshot.createdTime = createdTime;
+        snapshot.lastModifiedTime = lastModifiedTime;
+        snapshot.backgroundImage = backgroundImage;
+        snapshot.backgroundColor = backgroundColor;
+        snapshot.modCount = modCount;
+        snapshot.savedModCount = savedModCount;
+    }
+    
+    /**
+     * 标记页面已修改（直接修改组件属性后调用）
+     */
+    public void markDirty() {
+        checkWritable();
+        updateLastModifiedTime();
+        applyPendingSpatialUpdates();
+    }
+    
+    /**
+     * 检查页面是否有未保存的修改
+     */
+    public boolean isDirty() {
+        return modCount != savedModCount;
+    }
+    
+    /**
+     * 获取修改计数
+     */
+    public long getModCount() {
+        return modCount;
+    }
+    
+    /**
+     * 标记页面已保存
+     * @param savedModCount 写入时捕获的修改计数，之后的修改仍视为未保存
+     */
+    public void markSaved(long savedModCount) {
+        this.savedModCount = savedModCount;
+        this.repairUnsaved = false;
+    }
+    
+    /**
+     * 标记页面当前内容已保存
+     */
+    public void markSaved() {
+        markSaved(modCount);
+    }
+    
+    /**
+     * 以存储内容为基准（加载后调用），加载时修复过的页面仍视为未保存，下次保存时写回
+     */
+    public void markLoaded() {
+        if (!repairUnsaved) {
+            markSaved();
+        }
+    }
+    
+    /**
+     * 检查是否有尚未写回存储的完整性修复
+     */
+    public boolean isRepairUnsaved() {
+        return repairUnsaved;
+    }
+    
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("页面快照只读: " + name);
+        }
+    }
+    
     /**
      * 更新最后修改时间
      */
     private void updateLastModifiedTime() {
         this.lastModifiedTime = System.currentTimeMillis();
+        this.modCount++;
     }
     
     @Override
@@ -0,0 +1,32 @@
+package com.feixiang.tabletcontrol.core.model;
+
+import java.io.IOException;
+
+/**
+ * 页面延迟加载器
+ * 由存储库提供，ProjectData 在首次访问某个页面时通过它按需读取页面数据
+ */
+public interface PageLoader {
+
+    /**
+     * 检查加载器是否能够提供指定页面
+     * @param pageName 页面名称
+     * @return 如果页面可以被延迟加载则返回true
+     */
+    boolean containsPage(String pageName);
+
+    /**
+     * 加载页面数据
+     * @param pageName 页面名称
+     * @return 页面数据，如果不存在则返回null
+     * @throws IOException 读取失败时抛出异常
+     */
+    PageData loadPage(String pageName) throws IOException;
+
+    /**
+     * 获取未加载页面的组件数量（来自存储清单，无需读取页面文件）
+     * @param pageName 页面名称
+     * @return 组件数量，未知时返回0
+     */
+    int getComponentCount(String pageName);
+}
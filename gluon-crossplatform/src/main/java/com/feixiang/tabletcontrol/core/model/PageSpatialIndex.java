@@ -0,0 +1,165 @@
+package com.feixiang.tabletcontrol.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 页面组件的均匀网格空间索引
+ * 按容器尺寸计算组件的绝对边界，组件登记在边界覆盖的每个网格中，查询只检查与查询区域相交的网格。
+ * 网格大小按建立索引时的组件密度选择，每个网格平均只有少量组件；超出容器的部分归入边缘网格。
+ * 由 {@link PageData} 维护，非线程安全
+ */
+final class PageSpatialIndex {
+
+    private static final int MIN_CELL_SIZE = 16;
+    private static final int COMPONENTS_PER_CELL = 4;
+
+    private final int containerWidth;
+    private final int containerHeight;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final List<List<ComponentData>> cells;
+    private final Map<ComponentData, ComponentData.AbsolutePosition> bounds = new IdentityHashMap<>();
+    // 索引与页面内容一致时页面的修改计数
+    private long modCount;
+
+    PageSpatialIndex(List<ComponentData> components, int containerWidth, int containerHeight, long modCount) {
+        this.containerWidth = containerWidth;
+        this.containerHeight = containerHeight;
+        double area = (double) Math.max(1, containerWidth) * Math.max(1, containerHeight);
+        this.cellSize = Math.max(MIN_CELL_SIZE,
+                (int) Math.ceil(Math.sqrt(area * COMPONENTS_PER_CELL / Math.max(1, components.size()))));
+        this.columns = Math.max(1, (containerWidth + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (containerHeight + cellSize - 1) / cellSize);
+        this.cells = new ArrayList<>(Collections.nCopies(columns * rows, (List<ComponentData>) null));
+        for (ComponentData component : components) {
+            add(component);
+        }
+        this.modCount = modCount;
+    }
+
+    boolean matches(int containerWidth, int containerHeight) {
+        return this.containerWidth == containerWidth && this.containerHeight == containerHeight;
+    }
+
+    long getModCount() {
+        return modCount;
+    }
+
+    void setModCount(long modCount) {
+        this.modCount = modCount;
+    }
+
+    /**
+     * 登记组件，同一组件只登记一次
+     */
+    void add(ComponentData component) {
+        if (component == null || bounds.containsKey(component)) {
+            return;
+        }
+        ComponentData.AbsolutePosition position = component.getAbsolutePosition(containerWidth, containerHeight);
+        bounds.put(component, position);
+        int[] range = cellRange(position.x, position.y, position.width, position.height);
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                int cell = row * columns + column;
+                List<ComponentData> members = cells.get(cell);
+                if (members == null) {
+                    members = new ArrayList<>(COMPONENTS_PER_CELL);
+                    cells.set(cell, members);
+                }
+                members.add(component);
+            }
+        }
+    }
+
+    void remove(ComponentData component) {
+        ComponentData.AbsolutePosition position = component != null ? bounds.remove(component) : null;
+        if (position == null) {
+            return;
+        }
+        int[] range = cellRange(position.x, position.y, position.width, position.height);
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                List<ComponentData> members = cells.get(row * columns + column);
+                if (members != null) {
+                    members.removeIf(member -> member == component);
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找与区域相交（或完全位于区域内）的组件，结果无顺序
+     * @param containedOnly 为true时只返回完全位于区域内的组件
+     */
+    List<ComponentData> query(int x, int y, int width, int height, boolean containedOnly) {
+        List<ComponentData> result = new ArrayList<>();
+        Map<ComponentData, Boolean> seen = new IdentityHashMap<>();
+        int[] range = cellRange(x, y, width, height);
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                List<ComponentData> members = cells.get(row * columns + column);
+                if (members == null) {
+                    continue;
+                }
+                for (ComponentData member : members) {
+                    if (seen.put(member, Boolean.TRUE) != null) {
+                        continue;
+                    }
+                    ComponentData.AbsolutePosition position = bounds.get(member);
+                    boolean match = containedOnly
+                            ? contains(x, y, width, height, position)
+                            : intersects(x, y, width, height, position);
+                    if (match) {
+                        result.add(member);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取登记时的组件边界
+     */
+    ComponentData.AbsolutePosition getBounds(ComponentData component) {
+        return bounds.get(component);
+    }
+
+    /**
+     * 计算区域覆盖的网格范围 [起始列, 起始行, 结束列, 结束行]，空区域按1像素处理
+     */
+    private int[] cellRange(int x, int y, int width, int height) {
+        long right = (long) x + Math.max(1, width) - 1;
+        long bottom = (long) y + Math.max(1, height) - 1;
+        return new int[] {
+                clamp(Math.floorDiv(x, cellSize), columns),
+                clamp(Math.floorDiv(y, cellSize), rows),
+                clamp(Math.floorDiv(right, (long) cellSize), columns),
+                clamp(Math.floorDiv(bottom, (long) cellSize), rows)
+        };
+    }
+
+    private static int clamp(long cell, int count) {
+        return (int) Math.max(0, Math.min(count - 1, cell));
+    }
+
+    private static boolean intersects(int x, int y, int width, int height, ComponentData.AbsolutePosition position) {
+        long regionRight = (long) x + Math.max(1, width);
+        long regionBottom = (long) y + Math.max(1, height);
+        long right = (long) position.x + Math.max(1, position.width);
+        long bottom = (long) position.y + Math.max(1, position.height);
+        return position.x < regionRight && x < right && position.y < regionBottom && y < bottom;
+    }
+
+    private static boolean contains(int x, int y, int width, int height, ComponentData.AbsolutePosition position) {
+        return position.x >= x && position.y >= y
+                && (long) position.x + position.width <= (long) x + width
+                && (long) position.y + position.height <= (long) y + height;
+    }
+}
@@ -1,10 +1,14 @@
 package com.feixiang.tabletcontrol.core.model;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 项目数据模型 - 跨平台版本
@@ -23,6 +27,15 @@ public class ProjectData implements Serializable {
     private String version;
     private String editResolution; // 编辑时的分辨率，用于跨平台适配
     
+    // 延迟加载器 (分片存储时由存储库设置，不参与序列化)
+    private transient PageLoader pageLoader;
+    // 正在加载的页面，同一页面的并发访问等待同一次加载 (由对象锁保护)
+    private transient Map<String, CompletableFuture<PageData>> pendingLoads;
+    
+    // 项目属性和页面列表的修改计数 (不参与序列化)，新建项目视为未保存
+    private transient volatile long modCount = 1;
+    private transient volatile long savedModCount = 0;
+    
     // 默认构造函数
     public ProjectData() {
         this.name = "新建项目";
@@ -81,12 +94,15 @@ public class ProjectData implements Serializable {
         updateLastModifiedTime();
     }
     
+    public PageLoader getPageLoader() { return pageLoader; }
+    public void setPageLoader(PageLoader pageLoader) { this.pageLoader = pageLoader; }
+    
     // 业务方法
     
     /**
      * 添加页面
      */
-    public void addPage(String pageName) {
+    public synchronized void addPage(String pageName) {
         if (pageName != null && !pages.contains(pageName)) {
             pages.add(pageName);
             pageContents.put(pageName, new PageData(pageName));
@@ -100,7 +116,7 @@ public class ProjectData implements Serializable {
     /**
      * 添加页面数据
      */
-    public void addPage(PageData pageData) {
+    public synchronized void addPage(PageData pageData) {
         if (pageData != null && pageData.getName() != null) {
             String pageName = pageData.getName();
             if (!pages.contains(pageName)) {
@@ -117,7 +133,7 @@ public class ProjectData implements Serializable {
     /**
      * 移除页面
      */
-    public boolean removePage(String pageName) {
+    public synchronized boolean removePage(String pageName) {
         if (pageName != null && pages.contains(pageName)) {
             pages.remove(pageName);
             pageContents.remove(pageName);
@@ -135,9 +151,100 @@ public class ProjectData implements Serializable {
     
     /**
      * 获取页面数据
+     * 分片存储的页面在首次访问时才从存储库加载。读取页面在对象锁之外进行，加载一个页面时不阻塞
+     * 其他页面的访问；同一页面同时被多个线程访问时只加载一次
      */
     public PageData getPageData(String pageName) {
-        return pageContents.get(pageName);
+        CompletableFuture<PageData> load;
+        PageLoader loader = null;
+        synchronized (this) {
+            PageData pageData = pageContents.get(pageName);
+            if (pageData != null || !isLazyPage(pageName)) {
+                return pageData;
+            }
+            if (pendingLoads == null) {
+                pendingLoads = new HashMap<>();
+            }
+            load = pendingLoads.get(pageName);
+            if (load == null) {
+                load = new CompletableFuture<>();
+                pendingLoads.put(pageName, load);
+                loader = pageLoader;
+            }
+        }
+        if (loader == null) {
+            return awaitLoad(pageName, load);
+        }
+
+        PageData pageData;
+        try {
+            pageData = loader.loadPage(pageName);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                pendingLoads.remove(pageName);
+            }
+            load.completeExceptionally(e);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException("加载页面失败: " + pageName, (IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+        synchronized (this) {
+            pendingLoads.remove(pageName);
+            // 加载期间页面被删除或另行加入时以当前内容为准
+            PageData current = pageContents.get(pageName);
+            if (current != null || !pages.contains(pageName)) {
+                pageData = current;
+            } else if (pageData != null) {
+                pageContents.put(pageName, pageData);
+            }
+        }
+        load.complete(pageData);
+        return pageData;
+    }
+
+    /**
+     * 在对象锁之外等待其他线程正在进行的页面加载
+     */
+    private PageData awaitLoad(String pageName, CompletableFuture<PageData> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException("加载页面失败: " + pageName, (IOException) e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 检查页面数据是否已加载到内存
+     */
+    public synchronized boolean isPageLoaded(String pageName) {
+        return pageContents.containsKey(pageName);
+    }
+    
+    /**
+     * 加载所有尚未加载的页面（整体序列化前调用）
+     */
+    public void loadAllPages() {
+        if (pageLoader == null) {
+            return;
+        }
+        for (String pageName : new ArrayList<>(pages)) {
+            getPageData(pageName);
+        }
+    }
+    
+    /**
+     * 检查页面是否尚未加载但可由延迟加载器提供
+     */
+    private boolean isLazyPage(String pageName) {
+        return pageLoader != null && pages.contains(pageName)
+                && !pageContents.containsKey(pageName) && pageLoader.containsPage(pageName);
     }
 
     /**
@@ -151,7 +258,7 @@ public class ProjectData implements Serializable {
      * 获取当前页面数据
      */
     public PageData getCurrentPageData() {
-        return currentPage != null ? pageContents.get(currentPage) : null;
+        return currentPage != null ? getPageData(currentPage) : null;
     }
     
     /**
@@ -179,6 +286,16 @@ public class ProjectData implements Serializable {
      * 重命名页面
      */
     public boolean renamePage(String oldName, String newName) {
+        // 未加载的页面先在对象锁之外加载，确保以新名称保存时内容不丢失
+        if (oldName != null && newName != null) {
+            getPageData(oldName);
+        }
+        synchronized (this) {
+            return renameLoadedPage(oldName, newName);
+        }
+    }
+    
+    private boolean renameLoadedPage(String oldName, String newName) {
         if (oldName != null && newName != null && pages.contains(oldName) && !pages.contains(newName)) {
             int index = pages.indexOf(oldName);
             pages.set(index, newName);
@@ -202,13 +319,21 @@ public class ProjectData implements Serializable {
     /**
      * 获取总组件数量（跨平台统计）
      */
-    public int getTotalComponentCount() {
+    public synchronized int getTotalComponentCount() {
         int count = 0;
         for (PageData pageData : pageContents.values()) {
             if (pageData != null && pageData.getComponents() != null) {
                 count += pageData.getComponents().size();
             }
         }
+        // 未加载页面使用存储清单中的统计
+        if (pageLoader != null) {
+            for (String pageName : pages) {
+                if (!pageContents.containsKey(pageName) && pageLoader.containsPage(pageName)) {
+                    count += pageLoader.getComponentCount(pageName);
+                }
+            }
+        }
         return count;
     }
     
@@ -223,7 +348,7 @@ public class ProjectData implements Serializable {
     /**
      * 检查项目数据完整性
      */
-    public boolean validateIntegrity() {
+    public synchronized boolean validateIntegrity() {
         // 检查基本数据完整性
         if (pages == null || pageContents == null) {
             return false;
@@ -231,7 +356,7 @@ public class ProjectData implements Serializable {
         
         // 检查页面数据一致性
         for (String pageName : pages) {
-            if (!pageContents.containsKey(pageName)) {
+            if (!pageContents.containsKey(pageName) && !isLazyPage(pageName)) {
                 return false;
             }
         }
@@ -247,7 +372,7 @@ public class ProjectData implements Serializable {
     /**
      * 修复项目数据完整性
      */
-    public void repairIntegrity() {
+    public synchronized void repairIntegrity() {
         if (pages == null) {
             pages = new ArrayList<>();
         }
@@ -256,7 +381,7 @@ public class ProjectData implements Serializable {
         }
         
         // 移除无效的页面引用
-        pages.removeIf(pageName -> !pageContents.containsKey(pageName));
+        pages.removeIf(pageName -> !pageContents.containsKey(pageName) && !isLazyPage(pageName));
         
         // 移除无效的页面数据
         pageContents.entrySet().removeIf(entry -> !pages.contains(entry.getKey()));
@@ -269,11 +394,121 @@ public class ProjectData implements Serializable {
         updateLastModifiedTime();
     }
     
+    /**
+     * 创建用于后台保存的项目快照
+     * 未修改且可由延迟加载器重新读取的页面不复制，快照中仍按需从存储加载
+     */
+    public synchronized ProjectData snapshot() {
+        ProjectData snapshot = new ProjectData();
+        snapshot.name = name;
+        snapshot.description = description;
+        snapshot.pages = new ArrayList<>(pages);
+        snapshot.currentPage = currentPage;
+        snapshot.createdTime = createdTime;
+        snapshot.lastModifiedTime = lastModifiedTime;
+        snapshot.version = version;
+        snapshot.editResolution = editResolution;
+        snapshot.pageLoader = pageLoader;
+        for (Map.Entry<String, PageData> entry : pageContents.entrySet()) {
+            PageData pageData = entry.getValue();
+            if (pageData == null) {
+                continue;
+            }
+            boolean reloadable = pageLoader != null && pageLoader.containsPage(entry.getKey());
+            if (pageData.isDirty() || !reloadable) {
+                snapshot.pageContents.put(entry.getKey(), pageData.snapshot());
+            }
+        }
+        snapshot.modCount = modCount;
+        snapshot.savedModCount = savedModCount;
+        return snapshot;
+    }
+    
+    /**
+     * 检查项目属性或页面列表是否有未保存的修改（不含页面内容）
+     */
+    public boolean isDirty() {
+        return modCount != savedModCount;
+    }
+    
+    /**
+     * 获取项目属性的修改计数
+     */
+    public long getModCount() {
+        return modCount;
+    }
+    
+    /**
+     * 标记项目属性已保存
+     * @param savedModCount 写入时捕获的修改计数
+     */
+    public void markSaved(long savedModCount) {
+        this.savedModCount = savedModCount;
+    }
+    
+    /**
+     * 获取已加载且有未保存修改的页面名称
+     */
+    public synchronized List<String> getDirtyPageNames() {
+        List<String> dirtyPages = new ArrayList<>();
+        for (String pageName : pages) {
+            PageData pageData = pageContents.get(pageName);
+            if (pageData != null && pageData.isDirty()) {
+                dirtyPages.add(pageName);
+            }
+        }
+        return dirtyPages;
+    }
+    
+    /**
+     * 检查项目是否有任何未保存的修改
+     */
+    public boolean hasUnsavedChanges() {
+        return isDirty() || !getDirtyPageNames().isEmpty();
+    }
+    
+    /**
+     * 标记项目和所有已加载页面与存储一致（加载或完整保存后调用）
+     */
+    public synchronized void markClean() {
+        for (PageData pageData : pageContents.values()) {
+            if (pageData != null) {
+                pageData.markSaved();
+            }
+        }
+        this.savedModCount = modCount;
+    }
+    
+    /**
+     * 以存储内容为基准标记项目（加载后调用），加载时修复过的页面仍视为未保存
+     */
+    public synchronized void markLoaded() {
+        for (PageData pageData : pageContents.values()) {
+            if (pageData != null) {
+                pageData.markLoaded();
+            }
+        }
+        this.savedModCount = modCount;
+    }
+    
+    /**
+     * 检查已加载的页面中是否有尚未写回存储的完整性修复
+     */
+    public synchronized boolean hasUnsavedRepairs() {
+        for (PageData pageData : pageContents.values()) {
+            if (pageData != null && pageData.isRepairUnsaved()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * 更新最后修改时间
      */
     private void updateLastModifiedTime() {
         this.lastModifiedTime = System.currentTimeMillis();
+        this.modCount++;
     }
     
     @Override
@@ -0,0 +1,158 @@
+package com.feixiang.tabletcontrol.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 项目的不可变只读视图
+ * 项目服务在每次修改提交后发布新的视图，读取方不需要加锁，也不需要复制组件列表。
+ * 页面内容为与页面共享节点的持久化快照，页面之后的修改不会影响已发布的视图；
+ * 视图中的页面、组件列表和组件（连同标签和相对位置）均已冻结，修改时抛出异常。
+ * 只包含已加载到内存的页面，尚未加载的分片页面不在视图中
+ */
+public final class ProjectSnapshot {
+
+    /**
+     * 没有当前项目时的空视图
+     */
+    public static final ProjectSnapshot EMPTY = new ProjectSnapshot(0, null, null, null,
+            Collections.emptyList(), null, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final String name;
+    private final String description;
+    private final String editResolution;
+    private final List<String> pages;
+    private final String currentPage;
+    private final Map<String, PageData> pageContents;
+    private final Map<String, List<ComponentData>> pageComponents;
+
+    private ProjectSnapshot(long version, String name, String description, String editResolution,
+                            List<String> pages, String currentPage, Map<String, PageData> pageContents,
+                            Map<String, List<ComponentData>> pageComponents) {
+        this.version = version;
+        this.name = name;
+        this.description = description;
+        this.editResolution = editResolution;
+        this.pages = pages;
+        this.currentPage = currentPage;
+        this.pageContents = pageContents;
+        this.pageComponents = pageComponents;
+    }
+
+    /**
+     * 创建项目的只读视图（调用方需保证创建期间项目不被修改）
+     * @param project 项目数据，可以为null
+     * @param currentPage 当前页面名称
+     * @param version 视图版本，每次发布递增
+     */
+    public static ProjectSnapshot of(ProjectData project, String currentPage, long version) {
+        if (project == null) {
+            return EMPTY;
+        }
+        Map<String, PageData> contents = new HashMap<>();
+        Map<String, List<ComponentData>> components = new HashMap<>();
+        for (String pageName : project.getPages()) {
+            if (!project.isPageLoaded(pageName)) {
+                continue;
+            }
+            PageData page = project.getPageData(pageName);
+            if (page != null) {
+                PageData pageSnapshot = page.viewSnapshot();
+                contents.put(pageName, pageSnapshot);
+                components.put(pageName, Collections.unmodifiableList(pageSnapshot.getComponents()));
+            }
+        }
+        return new ProjectSnapshot(version, project.getName(), project.getDescription(), project.getEditResolution(),
+                Collections.unmodifiableList(new ArrayList<>(project.getPages())), currentPage,
+                Collections.unmodifiableMap(contents), Collections.unmodifiableMap(components));
+    }
+
+    /**
+     * 替换一个页面的内容，其余页面沿用当前视图
+     * @param page 页面（调用方需保证创建期间页面不被修改）
+     * @param version 新视图的版本
+     */
+    public ProjectSnapshot withPage(PageData page, long version) {
+        if (this == EMPTY || !pages.contains(page.getName())) {
+            return this;
+        }
+        PageData pageSnapshot = page.viewSnapshot();
+        Map<String, PageData> contents = new HashMap<>(pageContents);
+        Map<String, List<ComponentData>> components = new HashMap<>(pageComponents);
+        contents.put(page.getName(), pageSnapshot);
+        components.put(page.getName(), Collections.unmodifiableList(pageSnapshot.getComponents()));
+        return new ProjectSnapshot(version, name, description, editResolution, pages, currentPage,
+                Collections.unmodifiableMap(contents), Collections.unmodifiableMap(components));
+    }
+
+    /**
+     * 视图版本，版本越大视图越新
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * 检查是否有项目
+     */
+    public boolean hasProject() { return this != EMPTY; }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public String getEditResolution() { return editResolution; }
+
+    /**
+     * 获取页面名称（按项目中的顺序，只读）
+     */
+    public List<String> getPages() { return pages; }
+
+    public String getCurrentPage() { return currentPage; }
+
+    public boolean hasPage(String pageName) {
+        return pages.contains(pageName);
+    }
+
+    /**
+     * 检查页面内容是否在视图中（尚未加载的分片页面不在视图中）
+     */
+    public boolean containsPageContent(String pageName) {
+        return pageContents.containsKey(pageName);
+    }
+
+    /**
+     * 获取页面快照（只读）
+     * @return 页面不存在或尚未加载时返回null
+     */
+    public PageData getPage(String pageName) {
+        return pageContents.get(pageName);
+    }
+
+    /**
+     * 获取页面的组件列表（只读）
+     * @return 页面不存在或尚未加载时返回null
+     */
+    public List<ComponentData> getComponents(String pageName) {
+        return pageComponents.get(pageName);
+    }
+
+    /**
+     * 获取当前页面的组件列表（只读）
+     */
+    public List<ComponentData> getCurrentPageComponents() {
+        List<ComponentData> components = currentPage != null ? pageComponents.get(currentPage) : null;
+        return components != null ? components : Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectSnapshot{" +
+                "version=" + version +
+                ", name='" + name + '\'' +
+                ", pageCount=" + pages.size() +
+                ", loadedPages=" + pageContents.size() +
+                ", currentPage='" + currentPage + '\'' +
+                '}';
+    }
+}
@@ -21,6 +21,9 @@ public class RelativePosition implements Serializable {
     private int maxWidth = Integer.MAX_VALUE;
     private int maxHeight = Integer.MAX_VALUE;
     
+    // 所属组件已被页面快照引用 (不参与序列化)：只读
+    private transient volatile boolean frozen;
+    
     // 构造函数
     public RelativePosition() {
     }
@@ -96,35 +99,39 @@ public class RelativePosition implements Serializable {
     // Getter和Setter方法
     public double getRelativeX() { return relativeX; }
     public void setRelativeX(double relativeX) {
+        checkMutable();
         this.relativeX = Math.max(0.0, Math.min(1.0, relativeX));
     }
     
     public double getRelativeY() { return relativeY; }
     public void setRelativeY(double relativeY) {
+        checkMutable();
         this.relativeY = Math.max(0.0, Math.min(1.0, relativeY));
     }
     
     public double getRelativeWidth() { return relativeWidth; }
     public void setRelativeWidth(double relativeWidth) {
+        checkMutable();
         this.relativeWidth = Math.max(0.0, Math.min(1.0, relativeWidth));
     }
     
     public double getRelativeHeight() { return relativeHeight; }
     public void setRelativeHeight(double relativeHeight) {
+        checkMutable();
         this.relativeHeight = Math.max(0.0, Math.min(1.0, relativeHeight));
     }
     
     public int getMinWidth() { return minWidth; }
-    public void setMinWidth(int minWidth) { this.minWidth = minWidth; }
+    public void setMinWidth(int minWidth) { checkMutable(); this.minWidth = minWidth; }
     
     public int getMinHeight() { return minHeight; }
-    public void setMinHeight(int minHeight) { this.minHeight = minHeight; }
+    public void setMinHeight(int minHeight) { checkMutable(); this.minHeight = minHeight; }
     
     public int getMaxWidth() { return maxWidth; }
-    public void setMaxWidth(int maxWidth) { this.maxWidth = maxWidth; }
+    public void setMaxWidth(int maxWidth) { checkMutable(); this.maxWidth = maxWidth; }
     
     public int getMaxHeight() { return maxHeight; }
-    public void setMaxHeight(int maxHeight) { this.maxHeight = maxHeight; }
+    public void setMaxHeight(int maxHeight) { checkMutable(); this.maxHeight = maxHeight; }
     
     /**
      * 检查位置是否有效
@@ -142,6 +149,7 @@ public class RelativePosition implements Serializable {
      * 修复无效的位置数据
      */
     public void repair() {
+        checkMutable();
         relativeX = Math.max(0.0, Math.min(1.0, relativeX));
         relativeY = Math.max(0.0, Math.min(1.0, relativeY));
         relativeWidth = Math.max(0.001, Math.min(1.0, relativeWidth));
@@ -156,6 +164,23 @@ public class RelativePosition implements Serializable {
         }
     }
     
+    /**
+     * 检查是否已随所属组件被页面快照引用（只读）
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    void freeze() {
+        this.frozen = true;
+    }
+    
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("相对位置已随组件被页面快照引用，不能修改");
+        }
+    }
+    
     /**
      * 创建副本
      */
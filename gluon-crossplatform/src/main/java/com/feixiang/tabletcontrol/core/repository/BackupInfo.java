@@ -0,0 +1,56 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.util.Date;
+
+/**
+ * 备份信息
+ * 保存在备份目录的目录文件中，列出备份时无需打开备份文件
+ */
+public class BackupInfo {
+
+    private String fileName;        // 备份文件名
+    private String backupName;      // 用户指定的备份名称
+    private long timestamp;         // 备份时间
+    private long size;              // 备份占用的字节数（含与其他备份共享的数据块）
+    private int pageCount;
+    private int componentCount;
+
+    public BackupInfo() {
+    }
+
+    public BackupInfo(String fileName, String backupName, long timestamp, long size,
+                      int pageCount, int componentCount) {
+        this.fileName = fileName;
+        this.backupName = backupName;
+        this.timestamp = timestamp;
+        this.size = size;
+        this.pageCount = pageCount;
+        this.componentCount = componentCount;
+    }
+
+    public String getFileName() { return fileName; }
+    public String getBackupName() { return backupName; }
+    public long getTimestamp() { return timestamp; }
+    public long getSize() { return size; }
+    public int getPageCount() { return pageCount; }
+    public int getComponentCount() { return componentCount; }
+
+    /**
+     * 获取备份摘要信息
+     */
+    public String getSummary() {
+        return String.format("%s  %tF %<tT  %d页面 %d组件  %.1fKB",
+                backupName, new Date(timestamp), pageCount, componentCount, size / 1024.0);
+    }
+
+    @Override
+    public String toString() {
+        return "BackupInfo{" +
+                "fileName='" + fileName + '\'' +
+                ", timestamp=" + timestamp +
+                ", size=" + size +
+                ", pageCount=" + pageCount +
+                ", componentCount=" + componentCount +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 备份保留策略
+ * 保留最近的 N 个备份，另外每小时保留最新的一个（最近 H 个小时）、每天保留最新的一个（最近 D 天），
+ * 其余备份在新备份写入后被清理。各项为0表示不按该规则保留
+ */
+public class BackupRetentionPolicy {
+
+    private final int keepLast;
+    private final int keepHourly;
+    private final int keepDaily;
+
+    public BackupRetentionPolicy(int keepLast, int keepHourly, int keepDaily) {
+        if (keepLast < 0 || keepHourly < 0 || keepDaily < 0) {
+            throw new IllegalArgumentException("保留数量不能为负数");
+        }
+        this.keepLast = keepLast;
+        this.keepHourly = keepHourly;
+        this.keepDaily = keepDaily;
+    }
+
+    /**
+     * 保留所有备份（默认策略）
+     */
+    public static BackupRetentionPolicy keepAll() {
+        return new BackupRetentionPolicy(0, 0, 0);
+    }
+
+    public int getKeepLast() { return keepLast; }
+    public int getKeepHourly() { return keepHourly; }
+    public int getKeepDaily() { return keepDaily; }
+
+    /**
+     * 检查策略是否保留所有备份
+     */
+    public boolean isKeepAll() {
+        return keepLast == 0 && keepHourly == 0 && keepDaily == 0;
+    }
+
+    /**
+     * 选择需要清理的备份
+     * @param backupTimes 备份名称到备份时间戳的映射
+     * @return 不被任何规则保留的备份名称
+     */
+    public Set<String> selectBackupsToPrune(Map<String, Long> backupTimes) {
+        Set<String> prune = new HashSet<>();
+        if (isKeepAll()) {
+            return prune;
+        }
+
+        // 从新到旧
+        List<Map.Entry<String, Long>> backups = new ArrayList<>(backupTimes.entrySet());
+        backups.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        Set<LocalDateTime> hours = new HashSet<>();
+        Set<LocalDateTime> days = new HashSet<>();
+        for (int i = 0; i < backups.size(); i++) {
+            Map.Entry<String, Long> backup = backups.get(i);
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(backup.getValue()),
+                    ZoneId.systemDefault());
+
+            boolean keep = i < keepLast;
+            LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+            if (hours.size() < keepHourly && hours.add(hour)) {
+                keep = true;
+            }
+            LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+            if (days.size() < keepDaily && days.add(day)) {
+                keep = true;
+            }
+
+            if (!keep) {
+                prune.add(backup.getKey());
+            }
+        }
+        return prune;
+    }
+
+    @Override
+    public String toString() {
+        return "BackupRetentionPolicy{keepLast=" + keepLast + ", keepHourly=" + keepHourly
+                + ", keepDaily=" + keepDaily + "}";
+    }
+}
@@ -0,0 +1,9 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+/**
+ * 批量导入方式
+ */
+public enum BulkImportMode {
+    MERGE,      // 所有文件的页面合并到一个项目中
+    SEPARATE    // 每个文件作为独立的项目
+}
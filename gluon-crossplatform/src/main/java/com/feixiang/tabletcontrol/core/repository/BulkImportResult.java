@@ -0,0 +1,93 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量导入结果
+ * 包含成功导入的项目（按文件名排序）、每个失败文件的错误信息和整体吞吐量
+ */
+public class BulkImportResult {
+
+    private final BulkImportMode mode;
+    private final Map<String, ProjectData> projects;
+    private final Map<String, String> errors;
+    private final ProjectData mergedProject;
+    private final long totalBytes;
+    private final long elapsedMillis;
+
+    public BulkImportResult(BulkImportMode mode, Map<String, ProjectData> projects, Map<String, String> errors,
+                            ProjectData mergedProject, long totalBytes, long elapsedMillis) {
+        this.mode = mode;
+        this.projects = Collections.unmodifiableMap(new LinkedHashMap<>(projects));
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+        this.mergedProject = mergedProject;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public BulkImportMode getMode() { return mode; }
+
+    /**
+     * 获取成功导入的项目：文件名 -> 项目数据
+     */
+    public Map<String, ProjectData> getProjects() { return projects; }
+
+    /**
+     * 获取导入失败的文件：文件名 -> 错误信息
+     */
+    public Map<String, String> getErrors() { return errors; }
+
+    /**
+     * 获取合并后的项目，SEPARATE 方式或没有成功导入的文件时为null
+     */
+    public ProjectData getMergedProject() { return mergedProject; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public int getFileCount() {
+        return projects.size() + errors.size();
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * 获取吞吐量（MB/s，按成功导入的文件大小计算）
+     */
+    public double getThroughputMbPerSecond() {
+        return totalBytes / (1024.0 * 1024.0) / Math.max(elapsedMillis, 1) * 1000.0;
+    }
+
+    /**
+     * 获取每秒导入的文件数
+     */
+    public double getFilesPerSecond() {
+        return projects.size() * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    /**
+     * 获取导入摘要信息
+     */
+    public String getSummary() {
+        return String.format("导入 %d/%d 个文件, %.1fMB, 耗时 %dms (%.1fMB/s, %.1f 文件/s)",
+                projects.size(), getFileCount(), totalBytes / (1024.0 * 1024.0), elapsedMillis,
+                getThroughputMbPerSecond(), getFilesPerSecond());
+    }
+
+    @Override
+    public String toString() {
+        return "BulkImportResult{" +
+                "mode=" + mode +
+                ", imported=" + projects.size() +
+                ", failed=" + errors.size() +
+                ", totalBytes=" + totalBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
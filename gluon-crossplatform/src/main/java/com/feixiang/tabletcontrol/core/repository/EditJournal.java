@@ -0,0 +1,58 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+
+import java.io.IOException;
+
+/**
+ * 编辑日志接口
+ * 以追加方式记录每次修改，保存时只需刷新日志，定期压缩为完整快照
+ */
+public interface EditJournal {
+
+    /**
+     * 追加一条记录
+     * @param entry 日志记录
+     * @throws IOException 写入失败时抛出异常
+     */
+    void append(JournalEntry entry) throws IOException;
+
+    /**
+     * 将已追加的记录写入存储
+     * @throws IOException 写入失败时抛出异常
+     */
+    void flush() throws IOException;
+
+    /**
+     * 将已追加的记录写入存储并强制同步到磁盘
+     * 多个线程同时调用时合并为一次同步，同步开始前追加的记录都由这一次同步覆盖
+     * @throws IOException 写入或同步失败时抛出异常
+     */
+    void sync() throws IOException;
+
+    /**
+     * 获取日志大小
+     * @return 日志字节数
+     */
+    long size();
+
+    /**
+     * 将日志重放到项目数据上
+     * @param projectData 从快照加载的项目数据
+     * @return 应用的记录数量
+     * @throws IOException 读取失败时抛出异常
+     */
+    int replay(ProjectData projectData) throws IOException;
+
+    /**
+     * 清空日志（快照已包含全部记录后调用）
+     * @throws IOException 删除失败时抛出异常
+     */
+    void reset() throws IOException;
+
+    /**
+     * 关闭日志
+     * @throws IOException 关闭失败时抛出异常
+     */
+    void close() throws IOException;
+}
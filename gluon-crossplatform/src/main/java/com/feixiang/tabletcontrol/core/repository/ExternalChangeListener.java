@@ -0,0 +1,16 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+
+/**
+ * 项目文件外部修改监听器
+ * 项目文件被其他程序（如部署脚本）替换后，在监视线程上回调
+ */
+public interface ExternalChangeListener {
+
+    /**
+     * 项目文件已被外部修改
+     * @param externalProject 从修改后的文件读取的项目数据
+     */
+    void onProjectFileChanged(ProjectData externalProject);
+}
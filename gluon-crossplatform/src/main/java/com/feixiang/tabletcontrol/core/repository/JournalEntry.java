@@ -0,0 +1,248 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编辑日志记录
+ * 描述一次项目修改操作，重放时按操作类型应用到项目数据上。
+ * 所有操作都是幂等的：快照已包含的记录被再次重放不会改变结果
+ */
+public class JournalEntry {
+
+    /**
+     * 操作类型
+     */
+    public enum Operation {
+        CREATE_PAGE,
+        DELETE_PAGE,
+        RENAME_PAGE,
+        SET_CURRENT_PAGE,
+        ADD_COMPONENT,
+        REMOVE_COMPONENT,
+        UPDATE_COMPONENT,
+        CLEAR_PAGE,
+        PUT_PAGE,
+        UPDATE_PROJECT
+    }
+
+    private Operation op;
+    private long time;
+    private String page;
+    private String newPage;
+    private String componentId;
+    private ComponentData component;
+    private PageData pageData;
+    private String name;
+    private String description;
+    private String editResolution;
+    private List<String> pages;
+
+    public JournalEntry() {
+    }
+
+    private JournalEntry(Operation op, String page) {
+        this.op = op;
+        this.page = page;
+        this.time = System.currentTimeMillis();
+    }
+
+    // 工厂方法
+
+    public static JournalEntry createPage(String pageName) {
+        return new JournalEntry(Operation.CREATE_PAGE, pageName);
+    }
+
+    public static JournalEntry deletePage(String pageName) {
+        return new JournalEntry(Operation.DELETE_PAGE, pageName);
+    }
+
+    public static JournalEntry renamePage(String oldName, String newName) {
+        JournalEntry entry = new JournalEntry(Operation.RENAME_PAGE, oldName);
+        entry.newPage = newName;
+        return entry;
+    }
+
+    public static JournalEntry setCurrentPage(String pageName) {
+        return new JournalEntry(Operation.SET_CURRENT_PAGE, pageName);
+    }
+
+    public static JournalEntry addComponent(String pageName, ComponentData component) {
+        JournalEntry entry = new JournalEntry(Operation.ADD_COMPONENT, pageName);
+        entry.component = component;
+        return entry;
+    }
+
+    public static JournalEntry removeComponent(String pageName, String componentId) {
+        JournalEntry entry = new JournalEntry(Operation.REMOVE_COMPONENT, pageName);
+        entry.componentId = componentId;
+        return entry;
+    }
+
+    public static JournalEntry updateComponent(String pageName, String oldComponentId, ComponentData newComponent) {
+        JournalEntry entry = new JournalEntry(Operation.UPDATE_COMPONENT, pageName);
+        entry.componentId = oldComponentId;
+        entry.component = newComponent;
+        return entry;
+    }
+
+    public static JournalEntry clearPage(String pageName) {
+        return new JournalEntry(Operation.CLEAR_PAGE, pageName);
+    }
+
+    public static JournalEntry putPage(PageData pageData) {
+        JournalEntry entry = new JournalEntry(Operation.PUT_PAGE, pageData.getName());
+        entry.pageData = pageData;
+        return entry;
+    }
+
+    public static JournalEntry updateProject(ProjectData projectData) {
+        JournalEntry entry = new JournalEntry(Operation.UPDATE_PROJECT, projectData.getCurrentPage());
+        entry.name = projectData.getName();
+        entry.description = projectData.getDescription();
+        entry.editResolution = projectData.getEditResolution();
+        entry.pages = new ArrayList<>(projectData.getPages());
+        return entry;
+    }
+
+    public Operation getOp() { return op; }
+    public long getTime() { return time; }
+    public String getPage() { return page; }
+
+    /**
+     * 将记录应用到项目数据
+     * @param projectData 项目数据
+     * @return 如果记录有效并已应用则返回true
+     */
+    public boolean apply(ProjectData projectData) {
+        if (op == null) {
+            return false;
+        }
+
+        switch (op) {
+            case CREATE_PAGE:
+                if (page != null && !projectData.hasPage(page)) {
+                    projectData.addPage(new PageData(page));
+                }
+                return true;
+
+            case DELETE_PAGE:
+                projectData.removePage(page);
+                return true;
+
+            case RENAME_PAGE:
+                if (projectData.hasPage(page) && !projectData.hasPage(newPage)) {
+                    projectData.renamePage(page, newPage);
+                }
+                return true;
+
+            case SET_CURRENT_PAGE:
+                if (projectData.hasPage(page)) {
+                    projectData.setCurrentPage(page);
+                }
+                return true;
+
+            case ADD_COMPONENT: {
+                PageData target = projectData.getPage(page);
+                if (target == null || component == null) {
+                    return false;
+                }
+                int index = indexOf(target, component.getComponentId());
+                if (index >= 0) {
+                    target.replaceComponent(index, component);
+                } else {
+                    target.addComponent(component);
+                }
+                return true;
+            }
+
+            case REMOVE_COMPONENT: {
+                PageData target = projectData.getPage(page);
+                if (target == null) {
+                    return false;
+                }
+                int index = indexOf(target, componentId);
+                if (index >= 0) {
+                    target.removeComponent(index);
+                }
+                return true;
+            }
+
+            case UPDATE_COMPONENT: {
+                PageData target = projectData.getPage(page);
+                if (target == null || component == null) {
+                    return false;
+                }
+                int index = indexOf(target, componentId);
+                if (index < 0) {
+                    // 已经应用过的记录：新组件已在页面中
+                    index = indexOf(target, component.getComponentId());
+                }
+                if (index >= 0) {
+                    target.replaceComponent(index, component);
+                }
+                return true;
+            }
+
+            case CLEAR_PAGE: {
+                PageData target = projectData.getPage(page);
+                if (target != null) {
+                    target.clearComponents();
+                }
+                return true;
+            }
+
+            case PUT_PAGE:
+                if (pageData == null || pageData.getName() == null) {
+                    return false;
+                }
+                projectData.addPage(pageData);
+                return true;
+
+            case UPDATE_PROJECT:
+                if (pages != null) {
+                    // 同步页面集合和顺序，新页面由之前的 PUT_PAGE 记录提供
+                    for (String existing : new ArrayList<>(projectData.getPages())) {
+                        if (!pages.contains(existing)) {
+                            projectData.removePage(existing);
+                        }
+                    }
+                    List<String> ordered = new ArrayList<>();
+                    for (String pageName : pages) {
+                        if (projectData.hasPage(pageName)) {
+                            ordered.add(pageName);
+                        }
+                    }
+                    projectData.setPages(ordered);
+                }
+                projectData.setName(name);
+                projectData.setDescription(description);
+                if (editResolution != null) {
+                    projectData.setEditResolution(editResolution);
+                }
+                if (page != null && projectData.hasPage(page)) {
+                    projectData.setCurrentPage(page);
+                }
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 按组件ID查找组件位置
+     */
+    private static int indexOf(PageData pageData, String componentId) {
+        return pageData.findComponentIndexById(componentId);
+    }
+
+    @Override
+    public String toString() {
+        return "JournalEntry{op=" + op + ", page='" + page + "'}";
+    }
+}
@@ -0,0 +1,16 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+/**
+ * 项目加载进度监听器
+ * 流式加载时每读取完一个页面回调一次
+ */
+public interface LoadProgressListener {
+
+    /**
+     * 页面加载完成
+     * @param pageName 页面名称
+     * @param loadedPages 已加载的页面数量
+     * @param totalPages 页面总数，未知时为-1
+     */
+    void onPageLoaded(String pageName, int loadedPages, int totalPages);
+}
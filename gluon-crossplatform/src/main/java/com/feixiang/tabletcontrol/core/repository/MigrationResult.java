@@ -0,0 +1,74 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量迁移结果
+ * 包含已迁移的文件（及迁移前的版本）、已是当前版本的文件和每个失败文件的错误信息
+ */
+public class MigrationResult {
+
+    private final String targetVersion;
+    private final Map<String, String> migratedFiles;
+    private final List<String> upToDateFiles;
+    private final Map<String, String> errors;
+    private final long elapsedMillis;
+
+    public MigrationResult(String targetVersion, Map<String, String> migratedFiles, List<String> upToDateFiles,
+                           Map<String, String> errors, long elapsedMillis) {
+        this.targetVersion = targetVersion;
+        this.migratedFiles = Collections.unmodifiableMap(new LinkedHashMap<>(migratedFiles));
+        this.upToDateFiles = Collections.unmodifiableList(upToDateFiles);
+        this.errors = Collections.unmodifiableMap(new LinkedHashMap<>(errors));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getTargetVersion() { return targetVersion; }
+
+    /**
+     * 获取已迁移的文件：文件名 -> 迁移前的版本
+     */
+    public Map<String, String> getMigratedFiles() { return migratedFiles; }
+
+    /**
+     * 获取无需迁移的文件名
+     */
+    public List<String> getUpToDateFiles() { return upToDateFiles; }
+
+    /**
+     * 获取迁移失败的文件：文件名 -> 错误信息
+     */
+    public Map<String, String> getErrors() { return errors; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public int getFileCount() {
+        return migratedFiles.size() + upToDateFiles.size() + errors.size();
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * 获取迁移摘要信息
+     */
+    public String getSummary() {
+        return String.format("迁移到 %s: %d 个文件已迁移, %d 个无需迁移, %d 个失败, 耗时 %dms",
+                targetVersion, migratedFiles.size(), upToDateFiles.size(), errors.size(), elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "MigrationResult{" +
+                "targetVersion='" + targetVersion + '\'' +
+                ", migrated=" + migratedFiles.size() +
+                ", upToDate=" + upToDateFiles.size() +
+                ", failed=" + errors.size() +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
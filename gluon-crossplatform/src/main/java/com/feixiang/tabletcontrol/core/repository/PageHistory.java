@@ -0,0 +1,53 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import com.feixiang.tabletcontrol.core.model.PageData;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 页面版本历史接口
+ * 按页面名称记录每次保存的页面内容，可以列出和取回任意历史版本
+ */
+public interface PageHistory {
+
+    /**
+     * 记录页面的新版本，内容与最新版本相同时不记录
+     * @param page 已保存的页面
+     * @return 新版本的信息，没有变化时返回null
+     * @throws IOException 写入失败时抛出异常
+     */
+    PageVersionInfo recordVersion(PageData page) throws IOException;
+
+    /**
+     * 列出页面的所有历史版本
+     * @param pageName 页面名称
+     * @return 按版本号升序排列的版本信息，没有历史时返回空列表
+     * @throws IOException 读取失败时抛出异常
+     */
+    List<PageVersionInfo> listVersions(String pageName) throws IOException;
+
+    /**
+     * 取回页面的历史版本
+     * @param pageName 页面名称
+     * @param version 版本号
+     * @return 该版本的页面内容，版本不存在时返回null
+     * @throws IOException 读取失败时抛出异常
+     */
+    PageData loadVersion(String pageName, int version) throws IOException;
+
+    /**
+     * 删除页面的所有历史版本
+     * @param pageName 页面名称
+     * @throws IOException 删除失败时抛出异常
+     */
+    void deleteHistory(String pageName) throws IOException;
+
+    /**
+     * 页面重命名后将历史版本转到新名称下
+     * @param oldName 原页面名称
+     * @param newName 新页面名称，已有的历史被替换
+     * @throws IOException 移动失败时抛出异常
+     */
+    void renameHistory(String oldName, String newName) throws IOException;
+}
@@ -0,0 +1,58 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.util.Date;
+
+/**
+ * 页面历史版本信息
+ */
+public class PageVersionInfo {
+
+    private String pageName;
+    private int version;            // 版本号，从1开始递增
+    private long timestamp;         // 记录时间
+    private int componentCount;
+    private boolean keyframe;       // 是否为完整关键帧（否则为相对上一版本的增量）
+    private int changedComponents;  // 本版本新增或修改的组件数量（关键帧为全部组件）
+    private int removedComponents;  // 本版本删除的组件数量
+
+    public PageVersionInfo() {
+    }
+
+    public PageVersionInfo(String pageName, int version, long timestamp, int componentCount, boolean keyframe,
+                           int changedComponents, int removedComponents) {
+        this.pageName = pageName;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.componentCount = componentCount;
+        this.keyframe = keyframe;
+        this.changedComponents = changedComponents;
+        this.removedComponents = removedComponents;
+    }
+
+    public String getPageName() { return pageName; }
+    public int getVersion() { return version; }
+    public long getTimestamp() { return timestamp; }
+    public int getComponentCount() { return componentCount; }
+    public boolean isKeyframe() { return keyframe; }
+    public int getChangedComponents() { return changedComponents; }
+    public int getRemovedComponents() { return removedComponents; }
+
+    /**
+     * 获取版本摘要信息
+     */
+    public String getSummary() {
+        return String.format("v%d  %tF %<tT  %d组件  +%d -%d", version, new Date(timestamp),
+                componentCount, changedComponents, removedComponents);
+    }
+
+    @Override
+    public String toString() {
+        return "PageVersionInfo{" +
+                "pageName='" + pageName + '\'' +
+                ", version=" + version +
+                ", timestamp=" + timestamp +
+                ", componentCount=" + componentCount +
+                ", keyframe=" + keyframe +
+                '}';
+    }
+}
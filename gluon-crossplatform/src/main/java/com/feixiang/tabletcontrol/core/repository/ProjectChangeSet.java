@@ -0,0 +1,71 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 项目外部修改的差异
+ * 按页面记录新增或内容变化的页面、被删除的页面，以及页面顺序和项目属性是否变化。
+ * 有未保存修改的页面与外部版本不同时保留本地版本，记录为冲突页面
+ */
+public class ProjectChangeSet {
+
+    private final Set<String> changedPages;
+    private final Set<String> removedPages;
+    private final Set<String> conflictPages;
+    private final boolean pageOrderChanged;
+    private final boolean propertiesChanged;
+
+    public ProjectChangeSet(Set<String> changedPages, Set<String> removedPages, Set<String> conflictPages,
+                            boolean pageOrderChanged, boolean propertiesChanged) {
+        this.changedPages = Collections.unmodifiableSet(new LinkedHashSet<>(changedPages));
+        this.removedPages = Collections.unmodifiableSet(new LinkedHashSet<>(removedPages));
+        this.conflictPages = Collections.unmodifiableSet(new LinkedHashSet<>(conflictPages));
+        this.pageOrderChanged = pageOrderChanged;
+        this.propertiesChanged = propertiesChanged;
+    }
+
+    /**
+     * 获取新增或内容变化的页面（按外部文件中的页面顺序）
+     */
+    public Set<String> getChangedPages() { return changedPages; }
+
+    /**
+     * 获取外部文件中已删除的页面
+     */
+    public Set<String> getRemovedPages() { return removedPages; }
+
+    /**
+     * 获取与外部版本不同但有未保存修改、保留本地版本的页面
+     */
+    public Set<String> getConflictPages() { return conflictPages; }
+
+    /**
+     * 页面列表（顺序或成员）是否变化
+     */
+    public boolean isPageOrderChanged() { return pageOrderChanged; }
+
+    /**
+     * 项目名称、描述、版本或编辑分辨率是否变化
+     */
+    public boolean isPropertiesChanged() { return propertiesChanged; }
+
+    /**
+     * 检查是否没有需要应用的修改（冲突页面保留本地版本，不计入）
+     */
+    public boolean isEmpty() {
+        return changedPages.isEmpty() && removedPages.isEmpty() && !pageOrderChanged && !propertiesChanged;
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectChangeSet{" +
+                "changedPages=" + changedPages +
+                ", removedPages=" + removedPages +
+                ", conflictPages=" + conflictPages +
+                ", pageOrderChanged=" + pageOrderChanged +
+                ", propertiesChanged=" + propertiesChanged +
+                '}';
+    }
+}
@@ -18,6 +18,14 @@ public interface ProjectRepository {
      */
     ProjectData loadProject() throws IOException;
     
+    /**
+     * 流式加载项目数据，逐页构建数据模型并报告进度
+     * @param listener 进度监听器，可以为null
+     * @return 项目数据，如果不存在则返回null
+     * @throws IOException 加载失败时抛出异常
+     */
+    ProjectData loadProject(LoadProgressListener listener) throws IOException;
+    
     /**
      * 保存项目数据
      * @param projectData 要保存的项目数据
@@ -60,6 +68,13 @@ public interface ProjectRepository {
      */
     List<String> listBackups() throws IOException;
     
+    /**
+     * 获取所有备份的元数据（名称、时间、大小、页面和组件数量），无需打开备份文件
+     * @return 按文件名排序的备份信息列表
+     * @throws IOException 获取失败时抛出异常
+     */
+    List<BackupInfo> listBackupInfos() throws IOException;
+    
     /**
      * 删除备份
      * @param backupName 备份名称
@@ -83,15 +98,74 @@ public interface ProjectRepository {
      */
     ProjectData importProject(String importPath) throws IOException;
     
+    /**
+     * 导出项目资源包：项目数据和引用的资源文件（背景图、图标）打包为一个zip文件
+     * 相同内容的资源只打包一次
+     * @param projectData 要导出的项目数据
+     * @param bundlePath 资源包路径
+     * @throws IOException 导出失败时抛出异常
+     */
+    void exportBundle(ProjectData projectData, String bundlePath) throws IOException;
+    
+    /**
+     * 导入项目资源包，资源解压到数据目录，项目中的资源路径改写为相对数据目录的路径
+     * @param bundlePath 资源包路径
+     * @return 导入的项目数据
+     * @throws IOException 导入失败时抛出异常
+     */
+    ProjectData importBundle(String bundlePath) throws IOException;
+    
+    /**
+     * 并行导入目录中的所有项目文件（JSON导出文件或二进制快照）
+     * 单个文件失败不影响其他文件，错误记录在结果中
+     * @param directoryPath 目录路径
+     * @param mode 合并为一个项目或保持独立
+     * @return 导入结果
+     * @throws IOException 目录无法读取时抛出异常
+     */
+    BulkImportResult importProjects(String directoryPath, BulkImportMode mode) throws IOException;
+    
     /**
      * 获取项目文件路径
      * @return 项目文件路径
      */
     String getProjectFilePath();
     
+    /**
+     * 检查项目文件是否就是项目的存储（单文件布局）
+     * 否则项目文件只是外部交换用的文件，从中重新加载的内容需要写回存储
+     */
+    boolean isProjectFileStorage();
+    
     /**
      * 获取备份目录路径
      * @return 备份目录路径
      */
     String getBackupDirectoryPath();
+    
+    /**
+     * 设置备份保留策略，每次备份后按策略清理过期备份
+     * @param policy 保留策略，null表示保留所有备份
+     */
+    void setBackupRetentionPolicy(BackupRetentionPolicy policy);
+    
+    /**
+     * 获取备份保留策略
+     * @return 保留策略
+     */
+    BackupRetentionPolicy getBackupRetentionPolicy();
+    
+    /**
+     * 获取编辑日志
+     * 加载时会重放日志中的记录，完整保存后日志被清空
+     * @return 编辑日志，不支持时返回null
+     */
+    EditJournal getEditJournal();
+    
+    /**
+     * 获取页面版本历史
+     * 保存后记录有修改的页面，可以列出和恢复页面的历史版本
+     * @return 页面版本历史，不支持时返回null
+     */
+    PageHistory getPageHistory();
 }
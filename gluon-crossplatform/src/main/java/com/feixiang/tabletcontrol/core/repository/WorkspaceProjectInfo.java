@@ -0,0 +1,63 @@
+package com.feixiang.tabletcontrol.core.repository;
+
+import java.util.Date;
+
+/**
+ * 工作区项目信息
+ * 保存在工作区索引文件中，列出项目时无需加载项目数据
+ */
+public class WorkspaceProjectInfo {
+
+    private String projectId;       // 项目标识，同时是项目目录名
+    private String name;            // 项目名称
+    private long size;              // 项目文件占用的字节数
+    private int pageCount;
+    private int componentCount;
+    private long createdTime;
+    private long lastModifiedTime;  // 项目最后修改时间
+    private long lastOpenedTime;    // 最后一次打开（切换到）项目的时间
+
+    public WorkspaceProjectInfo() {
+    }
+
+    public WorkspaceProjectInfo(String projectId, String name, long size, int pageCount, int componentCount,
+                                long createdTime, long lastModifiedTime, long lastOpenedTime) {
+        this.projectId = projectId;
+        this.name = name;
+        this.size = size;
+        this.pageCount = pageCount;
+        this.componentCount = componentCount;
+        this.createdTime = createdTime;
+        this.lastModifiedTime = lastModifiedTime;
+        this.lastOpenedTime = lastOpenedTime;
+    }
+
+    public String getProjectId() { return projectId; }
+    public String getName() { return name; }
+    public long getSize() { return size; }
+    public int getPageCount() { return pageCount; }
+    public int getComponentCount() { return componentCount; }
+    public long getCreatedTime() { return createdTime; }
+    public long getLastModifiedTime() { return lastModifiedTime; }
+    public long getLastOpenedTime() { return lastOpenedTime; }
+
+    /**
+     * 获取项目摘要信息
+     */
+    public String getSummary() {
+        return String.format("%s  %tF %<tT  %d页面 %d组件  %.1fKB",
+                name, new Date(lastModifiedTime), pageCount, componentCount, size / 1024.0);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkspaceProjectInfo{" +
+                "projectId='" + projectId + '\'' +
+                ", name='" + name + '\'' +
+                ", size=" + size +
+                ", pageCount=" + pageCount +
+                ", componentCount=" + componentCount +
+                ", lastOpenedTime=" + lastOpenedTime +
+                '}';
+    }
+}
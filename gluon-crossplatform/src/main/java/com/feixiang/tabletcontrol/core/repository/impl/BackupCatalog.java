@@ -0,0 +1,178 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 备份目录文件
+ * 在备份目录中持久化每个备份的元数据，按文件名排序保存在内存中，
+ * 列出和查找备份不再需要扫描目录或打开备份文件
+ */
+public class BackupCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupCatalog.class);
+
+    public static final String CATALOG_FILE_NAME = "catalog.json";
+    private static final int CATALOG_VERSION = 1;
+
+    private final Path catalogFile;
+    private final Gson gson;
+
+    // 文件名 -> 备份信息，未加载时为null
+    private TreeMap<String, BackupInfo> entries;
+
+    public BackupCatalog(Path backupDirectory, Gson gson) {
+        this.catalogFile = backupDirectory.resolve(CATALOG_FILE_NAME);
+        this.gson = gson;
+    }
+
+    /**
+     * 检查目录是否已加载到内存
+     */
+    public synchronized boolean isLoaded() {
+        return entries != null;
+    }
+
+    /**
+     * 从磁盘加载目录文件
+     * @return 如果目录文件存在且有效则返回true
+     */
+    public synchronized boolean load() {
+        if (!Files.exists(catalogFile)) {
+            return false;
+        }
+        try (Reader reader = Files.newBufferedReader(catalogFile, StandardCharsets.UTF_8)) {
+            CatalogFile file = gson.fromJson(reader, CatalogFile.class);
+            if (file == null || file.backups == null) {
+                return false;
+            }
+            TreeMap<String, BackupInfo> loaded = new TreeMap<>();
+            for (BackupInfo info : file.backups) {
+                if (info != null && info.getFileName() != null) {
+                    loaded.put(info.getFileName(), info);
+                }
+            }
+            entries = loaded;
+            logger.debug("备份目录加载完成: {} 个备份", entries.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("备份目录文件损坏，将重建: {}", catalogFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * 用扫描得到的备份信息替换目录内容并保存
+     */
+    public synchronized void reset(Collection<BackupInfo> backups) throws IOException {
+        TreeMap<String, BackupInfo> rebuilt = new TreeMap<>();
+        for (BackupInfo info : backups) {
+            rebuilt.put(info.getFileName(), info);
+        }
+        entries = rebuilt;
+        save();
+    }
+
+    /**
+     * 添加或更新备份信息
+     */
+    public synchronized void put(BackupInfo info) throws IOException {
+        entries.put(info.getFileName(), info);
+        save();
+    }
+
+    /**
+     * 移除备份信息
+     * @return 如果备份在目录中则返回true
+     */
+    public synchronized boolean remove(String fileName) throws IOException {
+        if (entries.remove(fileName) == null) {
+            return false;
+        }
+        save();
+        return true;
+    }
+
+    /**
+     * 按文件名获取备份信息
+     */
+    public synchronized BackupInfo get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    /**
+     * 查找按文件名排序后第一个以指定前缀开头的备份
+     * @return 备份文件名，不存在时返回null
+     */
+    public synchronized String findFirstWithPrefix(String prefix) {
+        String candidate = entries.ceilingKey(prefix);
+        return candidate != null && candidate.startsWith(prefix) ? candidate : null;
+    }
+
+    /**
+     * 获取按文件名排序的备份文件名
+     */
+    public synchronized List<String> fileNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * 获取按文件名排序的备份信息
+     */
+    public synchronized List<BackupInfo> list() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * 获取备份文件名到备份时间的映射
+     */
+    public synchronized Map<String, Long> timestamps() {
+        Map<String, Long> times = new HashMap<>();
+        for (BackupInfo info : entries.values()) {
+            times.put(info.getFileName(), info.getTimestamp());
+        }
+        return times;
+    }
+
+    private void save() throws IOException {
+        CatalogFile file = new CatalogFile();
+        file.version = CATALOG_VERSION;
+        file.backups = new ArrayList<>(entries.values());
+
+        Path tempFile = Paths.get(catalogFile.toString() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                gson.toJson(file, writer);
+            }
+            Files.move(tempFile, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 目录文件格式
+     */
+    private static class CatalogFile {
+        int version;
+        List<BackupInfo> backups;
+    }
+}
@@ -0,0 +1,432 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.LabelData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.model.RelativePosition;
+import com.feixiang.tabletcontrol.core.repository.LoadProgressListener;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制项目编解码器
+ * 文件以魔数和格式版本开头，之后按固定字段顺序写入项目、页面和组件。
+ * 整数使用变长编码，字符串在首次出现时写入内容，之后只写入序号，
+ * 重复的字体名、功能类型等只占一两个字节
+ *
+ * 格式（版本1）：
+ * <pre>
+ * "TCPB" 版本(u16) 项目
+ * 项目 = name description version editResolution currentPage createdTime lastModifiedTime
+ *        页面数 页面名* 页面内容数 (页面名 页面)*
+ * 页面 = name backgroundImage backgroundColor createdTime lastModifiedTime 组件数 组件*
+ * 组件 = componentId functionType tooltip cssClass x y width height originalWidth originalHeight
+ *        positionMode 标志 [相对位置] [标签]
+ * </pre>
+ */
+public final class BinaryProjectCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'T', 'C', 'P', 'B'};
+
+    // 字符串标记：0 为null，1 为新字符串，n>=2 引用第 n-2 个已出现的字符串
+    private static final int STRING_NULL = 0;
+    private static final int STRING_LITERAL = 1;
+    private static final int STRING_REFERENCE_BASE = 2;
+
+    // 组件标志位
+    private static final int FLAG_VISIBLE = 1;
+    private static final int FLAG_ENABLED = 1 << 1;
+    private static final int FLAG_RELATIVE_POSITION = 1 << 2;
+    private static final int FLAG_LABEL = 1 << 3;
+    private static final int FLAG_AUTO_SCALE_FONT = 1 << 4;
+
+    private static final ComponentData.PositionMode[] POSITION_MODES = ComponentData.PositionMode.values();
+
+    private BinaryProjectCodec() {
+    }
+
+    /**
+     * 检查流是否以二进制格式魔数开头（不消耗数据）
+     * @param in 支持 mark/reset 的输入流
+     */
+    public static boolean isBinary(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        byte[] header = new byte[MAGIC.length];
+        int read = 0;
+        try {
+            while (read < header.length) {
+                int n = in.read(header, read, header.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+        } finally {
+            in.reset();
+        }
+        return Arrays.equals(header, MAGIC);
+    }
+
+    /**
+     * 写入项目数据（调用方负责缓冲和关闭输出流）
+     * @param projectData 页面已全部加载的项目数据
+     * @param out 输出流
+     * @throws IOException 写入失败时抛出异常
+     */
+    public static void write(ProjectData projectData, OutputStream out) throws IOException {
+        new Encoder(new DataOutputStream(out)).writeProject(projectData);
+    }
+
+    /**
+     * 读取项目数据（调用方负责缓冲和关闭输入流）
+     * @param in 输入流
+     * @param listener 进度监听器，可以为null
+     * @return 项目数据
+     * @throws IOException 读取失败、魔数不匹配或版本不支持时抛出异常
+     */
+    public static ProjectData read(InputStream in, LoadProgressListener listener) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] header = new byte[MAGIC.length];
+        data.readFully(header);
+        if (!Arrays.equals(header, MAGIC)) {
+            throw new IOException("不是二进制项目文件");
+        }
+        int version = data.readUnsignedShort();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("不支持的二进制格式版本: " + version);
+        }
+        return new Decoder(data).readProject(listener);
+    }
+
+    /**
+     * 编码器，每次写入使用独立的字符串表
+     */
+    private static class Encoder {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeProject(ProjectData projectData) throws IOException {
+            out.write(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+
+            writeString(projectData.getName());
+            writeString(projectData.getDescription());
+            writeString(projectData.getVersion());
+            writeString(projectData.getEditResolution());
+            writeString(projectData.getCurrentPage());
+            out.writeLong(projectData.getCreatedTime());
+            out.writeLong(projectData.getLastModifiedTime());
+
+            List<String> pages = projectData.getPages();
+            writeVarInt(pages.size());
+            for (String pageName : pages) {
+                writeString(pageName);
+            }
+
+            Map<String, PageData> pageContents = projectData.getPageContents();
+            writeVarInt(pageContents.size());
+            for (Map.Entry<String, PageData> entry : pageContents.entrySet()) {
+                writeString(entry.getKey());
+                writePage(entry.getValue());
+            }
+            out.flush();
+        }
+
+        private void writePage(PageData pageData) throws IOException {
+            writeString(pageData.getName());
+            writeString(pageData.getBackgroundImage());
+            writeString(pageData.getBackgroundColor());
+            out.writeLong(pageData.getCreatedTime());
+            out.writeLong(pageData.getLastModifiedTime());
+
+            List<ComponentData> components = pageData.getComponents();
+            writeVarInt(components.size());
+            for (ComponentData component : components) {
+                writeComponent(component);
+            }
+        }
+
+        private void writeComponent(ComponentData component) throws IOException {
+            writeString(component.getComponentId());
+            writeString(component.getFunctionType());
+            writeString(component.getTooltip());
+            writeString(component.getCssClass());
+            writeSignedVarInt(component.getX());
+            writeSignedVarInt(component.getY());
+            writeSignedVarInt(component.getWidth());
+            writeSignedVarInt(component.getHeight());
+            writeSignedVarInt(component.getOriginalWidth());
+            writeSignedVarInt(component.getOriginalHeight());
+            ComponentData.PositionMode positionMode = component.getPositionMode();
+            out.writeByte(positionMode != null ? positionMode.ordinal() + 1 : 0);
+
+            RelativePosition position = component.getRelativePosition();
+            LabelData label = component.getLabelData();
+            int flags = 0;
+            if (component.isVisible()) {
+                flags |= FLAG_VISIBLE;
+            }
+            if (component.isEnabled()) {
+                flags |= FLAG_ENABLED;
+            }
+            if (position != null) {
+                flags |= FLAG_RELATIVE_POSITION;
+            }
+            if (label != null) {
+                flags |= FLAG_LABEL;
+                if (label.isAutoScaleFont()) {
+                    flags |= FLAG_AUTO_SCALE_FONT;
+                }
+            }
+            out.writeByte(flags);
+
+            if (position != null) {
+                out.writeDouble(position.getRelativeX());
+                out.writeDouble(position.getRelativeY());
+                out.writeDouble(position.getRelativeWidth());
+                out.writeDouble(position.getRelativeHeight());
+                writeSignedVarInt(position.getMinWidth());
+                writeSignedVarInt(position.getMinHeight());
+                writeSignedVarInt(position.getMaxWidth());
+                writeSignedVarInt(position.getMaxHeight());
+            }
+            if (label != null) {
+                writeLabel(label);
+            }
+        }
+
+        private void writeLabel(LabelData label) throws IOException {
+            writeString(label.getText());
+            writeString(label.getFontName());
+            writeString(label.getFontFamily());
+            writeString(label.getIconPath());
+            writeSignedVarInt(label.getFontSize());
+            writeSignedVarInt(label.getFontStyle());
+            out.writeInt(label.getColorRGB());
+            writeSignedVarInt(label.getOriginalFontSize());
+            writeSignedVarInt(label.getHorizontalAlignment());
+            writeSignedVarInt(label.getVerticalAlignment());
+            writeSignedVarInt(label.getHorizontalTextPosition());
+            writeSignedVarInt(label.getVerticalTextPosition());
+            out.writeDouble(label.getFontScaleFactor());
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(STRING_NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarInt(STRING_REFERENCE_BASE + index);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(STRING_LITERAL);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeSignedVarInt(int value) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    /**
+     * 解码器，字符串表与编码时的写入顺序一致
+     */
+    private static class Decoder {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        ProjectData readProject(LoadProgressListener listener) throws IOException {
+            ProjectData projectData = new ProjectData();
+            projectData.setName(readString());
+            projectData.setDescription(readString());
+            projectData.setVersion(readString());
+            projectData.setEditResolution(readString());
+            projectData.setCurrentPage(readString());
+            long createdTime = in.readLong();
+            long lastModifiedTime = in.readLong();
+
+            int pageCount = readCount();
+            List<String> pages = new ArrayList<>(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                pages.add(readString());
+            }
+            projectData.setPages(pages);
+
+            int contentCount = readCount();
+            Map<String, PageData> pageContents = projectData.getPageContents();
+            for (int i = 0; i < contentCount; i++) {
+                String pageName = readString();
+                pageContents.put(pageName, readPage());
+                if (listener != null) {
+                    listener.onPageLoaded(pageName, i + 1, contentCount);
+                }
+            }
+
+            // 时间最后设置，避免被各个setter覆盖
+            projectData.setCreatedTime(createdTime);
+            projectData.setLastModifiedTime(lastModifiedTime);
+            return projectData;
+        }
+
+        private PageData readPage() throws IOException {
+            PageData pageData = new PageData();
+            pageData.setName(readString());
+            pageData.setBackgroundImage(readString());
+            pageData.setBackgroundColor(readString());
+            long createdTime = in.readLong();
+            long lastModifiedTime = in.readLong();
+
+            int componentCount = readCount();
+            List<ComponentData> components = pageData.getComponents();
+            for (int i = 0; i < componentCount; i++) {
+                components.add(readComponent());
+            }
+
+            pageData.setCreatedTime(createdTime);
+            pageData.setLastModifiedTime(lastModifiedTime);
+            return pageData;
+        }
+
+        private ComponentData readComponent() throws IOException {
+            ComponentData component = new ComponentData();
+            component.setComponentId(readString());
+            component.setFunctionType(readString());
+            component.setTooltip(readString());
+            component.setCssClass(readString());
+            component.setX(readSignedVarInt());
+            component.setY(readSignedVarInt());
+            component.setWidth(readSignedVarInt());
+            component.setHeight(readSignedVarInt());
+            component.setOriginalWidth(readSignedVarInt());
+            component.setOriginalHeight(readSignedVarInt());
+            int positionMode = in.readUnsignedByte();
+            if (positionMode > POSITION_MODES.length) {
+                throw new IOException("无效的定位模式: " + positionMode);
+            }
+
+            int flags = in.readUnsignedByte();
+            component.setVisible((flags & FLAG_VISIBLE) != 0);
+            component.setEnabled((flags & FLAG_ENABLED) != 0);
+            if ((flags & FLAG_RELATIVE_POSITION) != 0) {
+                RelativePosition position = new RelativePosition();
+                position.setRelativeX(in.readDouble());
+                position.setRelativeY(in.readDouble());
+                position.setRelativeWidth(in.readDouble());
+                position.setRelativeHeight(in.readDouble());
+                position.setMinWidth(readSignedVarInt());
+                position.setMinHeight(readSignedVarInt());
+                position.setMaxWidth(readSignedVarInt());
+                position.setMaxHeight(readSignedVarInt());
+                component.setRelativePosition(position);
+            }
+            if ((flags & FLAG_LABEL) != 0) {
+                component.setLabelData(readLabel((flags & FLAG_AUTO_SCALE_FONT) != 0));
+            }
+            // 定位模式在相对位置之后设置，setRelativePosition 会修改定位模式
+            component.setPositionMode(positionMode > 0 ? POSITION_MODES[positionMode - 1] : null);
+            return component;
+        }
+
+        private LabelData readLabel(boolean autoScaleFont) throws IOException {
+            LabelData label = new LabelData();
+            label.setText(readString());
+            label.setFontName(readString());
+            // 字体族在字体名之后设置，保留文件中的值
+            label.setFontFamily(readString());
+            label.setIconPath(readString());
+            label.setFontSize(readSignedVarInt());
+            label.setFontStyle(readSignedVarInt());
+            label.setColorRGB(in.readInt());
+            label.setOriginalFontSize(readSignedVarInt());
+            label.setHorizontalAlignment(readSignedVarInt());
+            label.setVerticalAlignment(readSignedVarInt());
+            label.setHorizontalTextPosition(readSignedVarInt());
+            label.setVerticalTextPosition(readSignedVarInt());
+            label.setFontScaleFactor(in.readDouble());
+            label.setAutoScaleFont(autoScaleFont);
+            return label;
+        }
+
+        private String readString() throws IOException {
+            int tag = readVarInt();
+            if (tag == STRING_NULL) {
+                return null;
+            }
+            if (tag == STRING_LITERAL) {
+                byte[] bytes = new byte[readCount()];
+                in.readFully(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(value);
+                return value;
+            }
+            int index = tag - STRING_REFERENCE_BASE;
+            if (index >= strings.size()) {
+                throw new IOException("无效的字符串引用: " + index);
+            }
+            return strings.get(index);
+        }
+
+        private int readCount() throws IOException {
+            int count = readVarInt();
+            if (count < 0) {
+                throw new IOException("无效的数量: " + count);
+            }
+            return count;
+        }
+
+        private int readSignedVarInt() throws IOException {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("二进制项目文件不完整");
+                }
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("变长整数格式错误");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 二进制项目存储库
+ * 项目快照以 {@link BinaryProjectCodec} 格式保存在 project_data.bin 中，
+ * 文件更小、冷启动加载更快；已有的 project_data.json 在首次加载时读取，下次保存后转换为二进制。
+ * 编辑日志、备份和导出仍使用JSON格式
+ */
+public class BinaryProjectRepository extends JsonProjectRepository {
+
+    public BinaryProjectRepository(CrossPlatformPathManager pathManager) {
+        super(pathManager, StorageLayout.SINGLE_FILE, BINARY_PROJECT_FILE_NAME);
+    }
+
+    @Override
+    protected void writeProjectFile(ProjectData projectData, Path file) throws IOException {
+        SnapshotFiles.writeDurably(file, out -> BinaryProjectCodec.write(projectData, out));
+    }
+}
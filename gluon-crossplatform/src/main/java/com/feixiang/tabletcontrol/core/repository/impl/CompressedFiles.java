@@ -0,0 +1,60 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 压缩文件读取工具
+ * 按文件头魔数识别 GZIP 格式，压缩和未压缩的文件使用同一读取路径
+ */
+public final class CompressedFiles {
+
+    private static final int GZIP_MAGIC_0 = 0x1f;
+    private static final int GZIP_MAGIC_1 = 0x8b;
+
+    private CompressedFiles() {
+    }
+
+    /**
+     * 打开文件，GZIP 格式时自动解压
+     * @param file 文件路径
+     * @return 解压后的输入流
+     * @throws IOException 打开失败时抛出异常
+     */
+    public static InputStream openDecompressed(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        try {
+            return isGzip(in) ? new GZIPInputStream(in) : in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 以UTF-8打开文本文件，GZIP 格式时自动解压
+     */
+    public static Reader newReader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(openDecompressed(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 检查流是否以 GZIP 魔数开头（不消耗数据）
+     * @param in 支持 mark/reset 的输入流
+     */
+    public static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == GZIP_MAGIC_0 && second == GZIP_MAGIC_1;
+    }
+}
@@ -0,0 +1,410 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 内容寻址备份存储
+ * 每个页面序列化为一个以 SHA-256 命名的数据块，备份本身只是指向数据块的清单文件，
+ * 未修改的页面在新备份中不占用额外空间。数据块和清单以 GZIP 流式写入，读取时按魔数识别，
+ * 未压缩的旧文件同样可读。删除备份时按引用计数回收不再引用的数据块
+ */
+public class ContentAddressedBackupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedBackupStore.class);
+
+    public static final String MANIFEST_EXTENSION = ".manifest";
+    private static final String BLOBS_DIR_NAME = "blobs";
+    private static final String BLOB_EXTENSION = ".gz";
+    private static final String LEGACY_BLOB_EXTENSION = ".json";
+
+    private final Path backupDirectory;
+    private final Path blobsDirectory;
+    private final Gson gson;
+    private final Gson blobGson;
+
+    // 引用索引（首次删除时从清单构建，之后随备份和删除增量维护）
+    private Map<String, Set<String>> manifestBlobs;
+    private Map<String, Integer> blobReferences;
+
+    public ContentAddressedBackupStore(Path backupDirectory, Gson gson) {
+        this.backupDirectory = backupDirectory;
+        this.blobsDirectory = backupDirectory.resolve(BLOBS_DIR_NAME);
+        this.gson = gson;
+        // 数据块使用紧凑格式，相同内容总是得到相同的字节和哈希
+        this.blobGson = ModelTypeAdapters.createGson();
+    }
+
+    /**
+     * 检查文件名是否为备份清单
+     */
+    public static boolean isManifest(String fileName) {
+        return fileName.endsWith(MANIFEST_EXTENSION);
+    }
+
+    /**
+     * 写入备份
+     * @param projectData 项目数据
+     * @param manifestFileName 备份清单文件名
+     * @return 备份占用的字节数（清单和引用的全部数据块，压缩后）
+     * @throws IOException 写入失败时抛出异常
+     */
+    public synchronized long writeBackup(ProjectData projectData, String manifestFileName) throws IOException {
+        Files.createDirectories(blobsDirectory);
+
+        long writtenBytes = 0;
+        long totalBytes = 0;
+        int reusedPages = 0;
+        ProjectManifest manifest = ProjectManifest.fromProject(projectData);
+        for (String pageName : projectData.getPages()) {
+            PageData pageData = projectData.getPageData(pageName);
+            if (pageData == null) {
+                continue;
+            }
+            BlobWrite blob = writeBlob(pageData);
+            if (blob.created) {
+                writtenBytes += blob.size;
+            } else {
+                reusedPages++;
+            }
+            totalBytes += blob.size;
+            manifest.putPageFile(pageName, blob.hash, pageData.getComponentCount());
+        }
+
+        // 清单最后写入，之前写入的数据块在清单出现前不被任何备份引用
+        Path manifestFile = backupDirectory.resolve(manifestFileName);
+        Path tempFile = Paths.get(manifestFile.toString() + ".tmp");
+        try {
+            try (Writer writer = newGzipWriter(tempFile)) {
+                gson.toJson(manifest, writer);
+            }
+            Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        if (manifestBlobs != null) {
+            removeReferences(manifestFileName);
+            addReferences(manifestFileName, new HashSet<>(manifest.getPageFiles().values()));
+        }
+
+        logger.info("备份写入完成: {}，新数据块 {} 字节，复用 {} 个页面", manifestFileName, writtenBytes, reusedPages);
+        return totalBytes + Files.size(manifestFile);
+    }
+
+    /**
+     * 读取备份清单中的元数据（不读取数据块内容）
+     * @param manifestFileName 备份清单文件名
+     * @param backupName 备份名称
+     * @param timestamp 备份时间
+     * @return 备份信息
+     * @throws IOException 读取失败时抛出异常
+     */
+    public BackupInfo describeBackup(String manifestFileName, String backupName, long timestamp) throws IOException {
+        Path manifestFile = backupDirectory.resolve(manifestFileName);
+        ProjectManifest manifest = readManifest(manifestFile);
+        if (manifest == null) {
+            throw new IOException("备份清单格式错误: " + manifestFileName);
+        }
+        long size = Files.size(manifestFile);
+        for (String hash : new HashSet<>(manifest.getPageFiles().values())) {
+            Path blobFile = Files.exists(blobPath(hash)) ? blobPath(hash) : legacyBlobPath(hash);
+            if (Files.exists(blobFile)) {
+                size += Files.size(blobFile);
+            }
+        }
+        return new BackupInfo(manifestFileName, backupName, timestamp, size,
+                manifest.getPages().size(), manifest.getTotalComponentCount());
+    }
+
+    /**
+     * 读取备份
+     * @param manifestFileName 备份清单文件名
+     * @return 项目数据
+     * @throws IOException 读取失败或数据块损坏时抛出异常
+     */
+    public ProjectData readBackup(String manifestFileName) throws IOException {
+        ProjectManifest manifest = readManifest(backupDirectory.resolve(manifestFileName));
+        if (manifest == null) {
+            throw new IOException("备份清单格式错误: " + manifestFileName);
+        }
+
+        ProjectData projectData = manifest.toProject();
+        for (String pageName : manifest.getPages()) {
+            String hash = manifest.getPageFile(pageName);
+            if (hash == null) {
+                continue;
+            }
+            // 直接放入页面内容，不改变清单中的修改时间
+            projectData.getPageContents().put(pageName, readBlob(hash));
+        }
+        return projectData;
+    }
+
+    /**
+     * 删除备份并回收不再引用的数据块
+     * @param manifestFileName 备份清单文件名
+     * @return 如果备份存在并已删除则返回true
+     * @throws IOException 删除失败时抛出异常
+     */
+    public synchronized boolean deleteBackup(String manifestFileName) throws IOException {
+        ensureReferenceIndex();
+        if (!Files.deleteIfExists(backupDirectory.resolve(manifestFileName))) {
+            return false;
+        }
+
+        int removed = 0;
+        for (String hash : removeReferences(manifestFileName)) {
+            if (deleteBlob(hash)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("回收备份数据块: {} 个", removed);
+        }
+        return true;
+    }
+
+    /**
+     * 标记-清除：删除所有备份清单都不再引用的数据块，并重建引用索引
+     * @return 删除的数据块数量
+     * @throws IOException 读取清单失败时抛出异常
+     */
+    public synchronized int collectGarbage() throws IOException {
+        manifestBlobs = null;
+        ensureReferenceIndex();
+        if (!Files.exists(blobsDirectory)) {
+            return 0;
+        }
+
+        int removed = 0;
+        List<Path> blobFiles;
+        try (Stream<Path> files = Files.walk(blobsDirectory)) {
+            blobFiles = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path blobFile : blobFiles) {
+            String hash = hashOf(blobFile.getFileName().toString());
+            if (!blobReferences.containsKey(hash)) {
+                Files.deleteIfExists(blobFile);
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            logger.info("回收备份数据块: {} 个", removed);
+        }
+        return removed;
+    }
+
+    /**
+     * 流式写入数据块：边序列化边计算未压缩内容的哈希并压缩到临时文件，
+     * 相同内容的数据块已存在时丢弃临时文件
+     */
+    private BlobWrite writeBlob(PageData pageData) throws IOException {
+        MessageDigest digest = newDigest();
+        Path tempFile = Files.createTempFile(blobsDirectory, "blob", ".tmp");
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(Files.newOutputStream(tempFile));
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new DigestOutputStream(gzip, digest), StandardCharsets.UTF_8))) {
+                blobGson.toJson(pageData, writer);
+            }
+
+            String hash = toHex(digest.digest());
+            Path blobFile = blobPath(hash);
+            if (!Files.exists(blobFile)) {
+                blobFile = legacyBlobPath(hash);
+            }
+            if (Files.exists(blobFile)) {
+                Files.delete(tempFile);
+                return new BlobWrite(hash, Files.size(blobFile), false);
+            }
+            blobFile = blobPath(hash);
+            Files.createDirectories(blobFile.getParent());
+            Files.move(tempFile, blobFile, StandardCopyOption.REPLACE_EXISTING);
+            return new BlobWrite(hash, Files.size(blobFile), true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private PageData readBlob(String hash) throws IOException {
+        Path blobFile = blobPath(hash);
+        if (!Files.exists(blobFile)) {
+            blobFile = legacyBlobPath(hash);
+        }
+        if (!Files.exists(blobFile)) {
+            throw new IOException("备份数据块不存在: " + hash);
+        }
+
+        // 解压后的内容参与校验
+        MessageDigest digest = newDigest();
+        PageData pageData;
+        try (InputStream in = new DigestInputStream(CompressedFiles.openDecompressed(blobFile), digest);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            pageData = blobGson.fromJson(reader, PageData.class);
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // 读完剩余内容，保证摘要覆盖整个数据块
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("备份数据块格式错误: " + hash, e);
+        }
+        if (!hash.equals(toHex(digest.digest()))) {
+            throw new IOException("备份数据块校验失败: " + hash);
+        }
+        if (pageData == null) {
+            throw new IOException("备份数据块格式错误: " + hash);
+        }
+        return pageData;
+    }
+
+    private boolean deleteBlob(String hash) throws IOException {
+        boolean deleted = Files.deleteIfExists(blobPath(hash));
+        return Files.deleteIfExists(legacyBlobPath(hash)) || deleted;
+    }
+
+    private ProjectManifest readManifest(Path manifestFile) throws IOException {
+        try (Reader reader = CompressedFiles.newReader(manifestFile)) {
+            return gson.fromJson(reader, ProjectManifest.class);
+        } catch (RuntimeException e) {
+            throw new IOException("备份清单格式错误: " + manifestFile, e);
+        }
+    }
+
+    /**
+     * 首次需要时读取全部清单构建引用索引
+     */
+    private void ensureReferenceIndex() throws IOException {
+        if (manifestBlobs != null) {
+            return;
+        }
+        manifestBlobs = new HashMap<>();
+        blobReferences = new HashMap<>();
+
+        List<Path> manifests;
+        try (Stream<Path> files = Files.list(backupDirectory)) {
+            manifests = files.filter(Files::isRegularFile)
+                    .filter(path -> isManifest(path.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+        for (Path manifestFile : manifests) {
+            ProjectManifest manifest = readManifest(manifestFile);
+            if (manifest != null) {
+                addReferences(manifestFile.getFileName().toString(),
+                        new HashSet<>(manifest.getPageFiles().values()));
+            }
+        }
+    }
+
+    private void addReferences(String manifestFileName, Set<String> hashes) {
+        manifestBlobs.put(manifestFileName, hashes);
+        for (String hash : hashes) {
+            blobReferences.merge(hash, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 移除清单的引用
+     * @return 引用计数降为零的数据块
+     */
+    private Set<String> removeReferences(String manifestFileName) {
+        Set<String> unreferenced = new HashSet<>();
+        Set<String> hashes = manifestBlobs.remove(manifestFileName);
+        if (hashes == null) {
+            return unreferenced;
+        }
+        for (String hash : hashes) {
+            Integer remaining = blobReferences.merge(hash, -1, Integer::sum);
+            if (remaining != null && remaining <= 0) {
+                blobReferences.remove(hash);
+                unreferenced.add(hash);
+            }
+        }
+        return unreferenced;
+    }
+
+    /**
+     * 数据块按哈希前两位分目录存放，避免单个目录文件过多
+     */
+    private Path blobPath(String hash) {
+        return blobsDirectory.resolve(hash.substring(0, 2)).resolve(hash + BLOB_EXTENSION);
+    }
+
+    private Path legacyBlobPath(String hash) {
+        return blobsDirectory.resolve(hash.substring(0, 2)).resolve(hash + LEGACY_BLOB_EXTENSION);
+    }
+
+    private static String hashOf(String blobFileName) {
+        int dot = blobFileName.indexOf('.');
+        return dot >= 0 ? blobFileName.substring(0, dot) : blobFileName;
+    }
+
+    private static Writer newGzipWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 数据块写入结果
+     */
+    private static class BlobWrite {
+        final String hash;
+        final long size;
+        final boolean created;
+
+        BlobWrite(String hash, long size, boolean created) {
+            this.hash = hash;
+            this.size = size;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.EditJournal;
+import com.feixiang.tabletcontrol.core.repository.JournalEntry;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * JSON行格式编辑日志
+ * 每条记录占一行紧凑JSON，追加写入；重放时遇到不完整的尾部记录（写入中断）即停止，并截断该部分。
+ * 同步采用组提交：一个线程执行fsync时，其他线程追加的记录等待下一次同步一并落盘
+ */
+public class JsonEditJournal implements EditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonEditJournal.class);
+
+    private final Path journalFile;
+    private final Gson gson;
+
+    private Writer writer;
+    private FileChannel channel;
+    private long size = -1;
+
+    // 组提交：已追加的记录数、已同步到磁盘的记录数
+    private long appendedCount;
+    private long syncedCount;
+    private boolean syncing;
+    private long syncOperations;
+
+    public JsonEditJournal(Path journalFile) {
+        this.journalFile = journalFile;
+        this.gson = ModelTypeAdapters.createGson();
+    }
+
+    @Override
+    public synchronized void append(JournalEntry entry) throws IOException {
+        String line = gson.toJson(entry) + "\n";
+        if (writer == null) {
+            FileOutputStream out = new FileOutputStream(journalFile.toFile(), true);
+            channel = out.getChannel();
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+        writer.write(line);
+        appendedCount++;
+        size = size() + line.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        FileChannel target;
+        long covered;
+        synchronized (this) {
+            flush();
+            long ticket = appendedCount;
+            while (syncing && syncedCount < ticket) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待编辑日志同步时被中断");
+                }
+            }
+            if (syncedCount >= ticket) {
+                return;
+            }
+            // 由当前线程同步，覆盖到目前为止追加的全部记录
+            syncing = true;
+            covered = appendedCount;
+            target = channel;
+        }
+
+        IOException failure = null;
+        try {
+            if (target != null) {
+                target.force(false);
+            } else if (Files.exists(journalFile)) {
+                // 写入器已关闭（重放后），记录已在文件中但可能尚未落盘
+                try (FileChannel reopened = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                    reopened.force(false);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        synchronized (this) {
+            syncing = false;
+            notifyAll();
+            if (failure != null && syncedCount < covered) {
+                // 同步期间日志被清空时记录已由快照覆盖，否则同步失败
+                throw failure;
+            }
+            syncedCount = Math.max(syncedCount, covered);
+            syncOperations++;
+        }
+    }
+
+    /**
+     * 获取实际执行的同步次数
+     */
+    public synchronized long getSyncCount() {
+        return syncOperations;
+    }
+
+    @Override
+    public synchronized long size() {
+        if (size < 0) {
+            try {
+                size = Files.exists(journalFile) ? Files.size(journalFile) : 0;
+            } catch (IOException e) {
+                logger.warn("读取编辑日志大小失败: {}", journalFile, e);
+                return 0;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized int replay(ProjectData projectData) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+        closeWriter();
+
+        int applied = 0;
+        long validBytes = 0;
+        boolean torn = false;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    continue;
+                }
+
+                JournalEntry entry;
+                try {
+                    entry = gson.fromJson(line, JournalEntry.class);
+                } catch (RuntimeException e) {
+                    entry = null;
+                }
+                if (entry == null || entry.getOp() == null) {
+                    torn = true;
+                    break;
+                }
+
+                if (entry.apply(projectData)) {
+                    applied++;
+                } else {
+                    logger.debug("跳过无法应用的日志记录: {}", entry);
+                }
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+
+        // 最后一行可能没有换行符
+        validBytes = Math.min(validBytes, Files.size(journalFile));
+        if (torn) {
+            logger.warn("编辑日志尾部记录不完整，截断到 {} 字节: {}", validBytes, journalFile);
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+            }
+        }
+        size = validBytes;
+
+        logger.info("编辑日志重放完成，应用 {} 条记录", applied);
+        return applied;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        closeWriter();
+        Files.deleteIfExists(journalFile);
+        size = 0;
+        // 快照已包含全部记录
+        syncedCount = appendedCount;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeWriter();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * 获取日志文件路径
+     */
+    public Path getJournalFile() {
+        return journalFile;
+    }
+}
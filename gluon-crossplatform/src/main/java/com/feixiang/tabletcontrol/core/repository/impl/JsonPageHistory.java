@@ -0,0 +1,514 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.repository.PageHistory;
+import com.feixiang.tabletcontrol.core.repository.PageVersionInfo;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JSON行格式页面版本历史
+ * 每个页面一个历史文件，每个版本占一行。版本记录为相对上一版本的增量：按组件ID记录新增或修改的组件、
+ * 删除的组件ID，以及顺序变化时的组件ID顺序；每隔 {@link #KEYFRAME_INTERVAL} 个版本写入一次完整关键帧，
+ * 取回任意版本最多重放一个关键帧和其后不足一个间隔的增量；重建最新版本时从文件末尾向前读到最后一个关键帧为止。
+ * 组件ID缺失或重复的页面无法按ID计算增量，直接写入关键帧
+ */
+public class JsonPageHistory implements PageHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonPageHistory.class);
+
+    public static final int KEYFRAME_INTERVAL = 10;
+    static final String HISTORY_FILE_EXTENSION = ".history";
+    private static final int MAX_CACHED_PAGES = 16;
+    private static final int TAIL_CHUNK_SIZE = 64 * 1024;
+
+    private final Path historyDirectory;
+    private final Gson gson;
+
+    // 页面名称 -> 最新版本的状态，计算下一个增量时使用；只保留最近使用的页面
+    private final Map<String, PageState> latestStates = new LinkedHashMap<String, PageState>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PageState> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    public JsonPageHistory(Path historyDirectory) {
+        this.historyDirectory = historyDirectory;
+        this.gson = ModelTypeAdapters.createGson();
+    }
+
+    @Override
+    public synchronized PageVersionInfo recordVersion(PageData page) throws IOException {
+        if (page == null || page.getName() == null) {
+            return null;
+        }
+        String pageName = page.getName();
+        PageState previous = latestState(pageName);
+        PageState current = PageState.fromPage(page, gson);
+
+        int version = previous != null ? previous.version + 1 : 1;
+        boolean keyframe = previous == null || current.componentTrees == null
+                || previous.componentTrees == null || (version - 1) % KEYFRAME_INTERVAL == 0;
+
+        VersionRecord record = keyframe
+                ? VersionRecord.keyframe(current)
+                : VersionRecord.delta(previous, current);
+        if (!keyframe && record.isEmpty() && current.hasSameProperties(previous)) {
+            return null;
+        }
+        if (keyframe && previous != null && current.hasSameContent(previous)) {
+            return null;
+        }
+        record.version = version;
+        record.timestamp = System.currentTimeMillis();
+
+        Files.createDirectories(historyDirectory);
+        Path file = historyFile(pageName);
+        boolean terminated = endsWithNewline(file);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!terminated) {
+                // 上次写入中断，不完整的记录单独成行
+                writer.write('\n');
+            }
+            writer.write(gson.toJson(record));
+            writer.write('\n');
+        }
+
+        current.version = version;
+        latestStates.put(pageName, current);
+        logger.debug("记录页面版本: {} v{} ({})", pageName, version, keyframe ? "关键帧" : "增量");
+        return record.toInfo(pageName);
+    }
+
+    @Override
+    public synchronized List<PageVersionInfo> listVersions(String pageName) throws IOException {
+        List<PageVersionInfo> versions = new ArrayList<>();
+        for (VersionRecord record : readRecords(pageName, 0)) {
+            versions.add(record.toInfo(pageName));
+        }
+        return versions;
+    }
+
+    @Override
+    public synchronized PageData loadVersion(String pageName, int version) throws IOException {
+        if (version < 1) {
+            return null;
+        }
+        // 版本号与行号一一对应，从该版本之前最近的定期关键帧开始重放
+        int keyframeLine = (version - 1) - (version - 1) % KEYFRAME_INTERVAL;
+        PageState state = replay(readRecords(pageName, keyframeLine), version);
+        if (state == null && keyframeLine > 0) {
+            // 关键帧间隔与写入时不同，从头重放
+            state = replay(readRecords(pageName, 0), version);
+        }
+        return state != null ? state.toPage(gson) : null;
+    }
+
+    @Override
+    public synchronized void deleteHistory(String pageName) throws IOException {
+        latestStates.remove(pageName);
+        Files.deleteIfExists(historyFile(pageName));
+    }
+
+    @Override
+    public synchronized void renameHistory(String oldName, String newName) throws IOException {
+        Path source = historyFile(oldName);
+        PageState state = latestStates.remove(oldName);
+        latestStates.remove(newName);
+        if (!Files.exists(source)) {
+            return;
+        }
+        Path target = historyFile(newName);
+        if (Files.exists(target)) {
+            logger.warn("页面 {} 已有历史版本，被重命名页面的历史替换", newName);
+        }
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (state != null) {
+            latestStates.put(newName, state);
+        }
+        logger.debug("页面历史已重命名: {} -> {}", oldName, newName);
+    }
+
+    /**
+     * 获取页面历史文件路径（文件名为页面名称的哈希，页面名称可以包含任意字符）
+     */
+    Path historyFile(String pageName) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        byte[] hash = digest.digest(pageName.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            sb.append(String.format("%02x", hash[i]));
+        }
+        return historyDirectory.resolve(sb + HISTORY_FILE_EXTENSION);
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return true;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1);
+            channel.read(last);
+            return last.get(0) == '\n';
+        }
+    }
+
+    /**
+     * 获取页面最新版本的状态，不在缓存中时从历史文件重建
+     */
+    private PageState latestState(String pageName) throws IOException {
+        PageState state = latestStates.get(pageName);
+        if (state == null) {
+            state = replay(readRecordsFromLastKeyframe(pageName), Integer.MAX_VALUE);
+            if (state != null) {
+                latestStates.put(pageName, state);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 从关键帧开始依次应用版本记录，直到目标版本
+     * @return 目标版本（或最后一个版本）的状态，记录不以关键帧开始或目标版本不存在时返回null
+     */
+    private PageState replay(List<VersionRecord> records, int targetVersion) {
+        PageState state = null;
+        for (VersionRecord record : records) {
+            if (record.version > targetVersion) {
+                break;
+            }
+            if (record.keyframe) {
+                state = new PageState();
+            } else if (state == null) {
+                return null;
+            }
+            record.applyTo(state);
+            state.version = record.version;
+        }
+        if (state == null || (targetVersion != Integer.MAX_VALUE && state.version != targetVersion)) {
+            return null;
+        }
+        return state;
+    }
+
+    /**
+     * 读取历史文件中从指定行开始的版本记录
+     * 不完整的记录（写入中断）被跳过
+     */
+    private List<VersionRecord> readRecords(String pageName, int firstLine) throws IOException {
+        List<VersionRecord> records = new ArrayList<>();
+        Path file = historyFile(pageName);
+        if (!Files.exists(file)) {
+            return records;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                if (lineNumber++ < firstLine || line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    VersionRecord record = gson.fromJson(line, VersionRecord.class);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                } catch (JsonParseException e) {
+                    logger.warn("页面历史记录不完整，已跳过: {} 第{}行", file, lineNumber);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 从文件末尾向前读取版本记录，直到最后一个关键帧（含）
+     * 读取量与最后一个关键帧之后的记录数成正比，与历史文件长度无关；没有关键帧时返回全部记录
+     * @return 按文件顺序排列的版本记录
+     */
+    private List<VersionRecord> readRecordsFromLastKeyframe(String pageName) throws IOException {
+        LinkedList<VersionRecord> records = new LinkedList<>();
+        Path file = historyFile(pageName);
+        if (!Files.exists(file)) {
+            return records;
+        }
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            long end = channel.size();
+            // 跨越读取块边界的行在当前块之后的部分
+            byte[] carry = new byte[0];
+            while (end > 0) {
+                int length = (int) Math.min(TAIL_CHUNK_SIZE, end);
+                long start = end - length;
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                channel.position(start);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("页面历史文件被截断: " + file);
+                    }
+                }
+                byte[] chunk = buffer.array();
+                int lineEnd = length;
+                for (int i = length - 1; i >= 0; i--) {
+                    if (chunk[i] != '\n') {
+                        continue;
+                    }
+                    VersionRecord record = parseRecord(file, join(chunk, i + 1, lineEnd, carry));
+                    carry = new byte[0];
+                    lineEnd = i;
+                    if (record != null) {
+                        records.addFirst(record);
+                        if (record.keyframe) {
+                            return records;
+                        }
+                    }
+                }
+                carry = join(chunk, 0, lineEnd, carry);
+                end = start;
+            }
+            VersionRecord first = parseRecord(file, carry);
+            if (first != null) {
+                records.addFirst(first);
+            }
+        }
+        return records;
+    }
+
+    private VersionRecord parseRecord(Path file, byte[] line) {
+        if (line.length == 0) {
+            return null;
+        }
+        try {
+            return gson.fromJson(new String(line, StandardCharsets.UTF_8), VersionRecord.class);
+        } catch (JsonParseException e) {
+            logger.warn("页面历史记录不完整，已跳过: {}", file);
+            return null;
+        }
+    }
+
+    private static byte[] join(byte[] chunk, int from, int to, byte[] tail) {
+        byte[] line = new byte[to - from + tail.length];
+        System.arraycopy(chunk, from, line, 0, to - from);
+        System.arraycopy(tail, 0, line, to - from, tail.length);
+        return line;
+    }
+
+    /**
+     * 页面某个版本的状态：页面属性和按组件ID保存的组件JSON
+     */
+    private static class PageState {
+        int version;
+        String name;
+        long createdTime;
+        long lastModifiedTime;
+        String backgroundImage;
+        String backgroundColor;
+        // 组件ID -> 组件JSON，按页面中的顺序；组件ID缺失或重复时为null
+        LinkedHashMap<String, JsonElement> componentTrees;
+        // 无法按ID索引时的完整组件列表
+        List<JsonElement> componentList;
+
+        static PageState fromPage(PageData page, Gson gson) {
+            PageState state = new PageState();
+            state.name = page.getName();
+            state.createdTime = page.getCreatedTime();
+            state.lastModifiedTime = page.getLastModifiedTime();
+            state.backgroundImage = page.getBackgroundImage();
+            state.backgroundColor = page.getBackgroundColor();
+            LinkedHashMap<String, JsonElement> trees = new LinkedHashMap<>();
+            List<JsonElement> list = new ArrayList<>(page.getComponentCount());
+            boolean indexable = true;
+            for (ComponentData component : page.getComponents()) {
+                JsonElement tree = gson.toJsonTree(component, ComponentData.class);
+                list.add(tree);
+                String id = component != null ? component.getComponentId() : null;
+                if (id == null || trees.put(id, tree) != null) {
+                    indexable = false;
+                }
+            }
+            if (indexable) {
+                state.componentTrees = trees;
+            } else {
+                state.componentList = list;
+            }
+            return state;
+        }
+
+        List<JsonElement> components() {
+            return componentTrees != null ? new ArrayList<>(componentTrees.values()) : componentList;
+        }
+
+        boolean hasSameProperties(PageState other) {
+            return Objects.equals(name, other.name)
+                    && Objects.equals(backgroundImage, other.backgroundImage)
+                    && Objects.equals(backgroundColor, other.backgroundColor);
+        }
+
+        boolean hasSameContent(PageState other) {
+            return hasSameProperties(other) && components().equals(other.components());
+        }
+
+        PageData toPage(Gson gson) {
+            PageData page = new PageData(name);
+            for (JsonElement tree : components()) {
+                page.addComponent(gson.fromJson(tree, ComponentData.class));
+            }
+            page.setBackgroundImage(backgroundImage);
+            page.setBackgroundColor(backgroundColor);
+            page.setCreatedTime(createdTime);
+            page.setLastModifiedTime(lastModifiedTime);
+            return page;
+        }
+    }
+
+    /**
+     * 历史文件中的一行：关键帧包含全部组件，增量只包含变化的组件
+     */
+    private static class VersionRecord {
+        int version;
+        long timestamp;
+        boolean keyframe;
+        String name;
+        long createdTime;
+        long lastModifiedTime;
+        String backgroundImage;
+        String backgroundColor;
+        int componentCount;
+        // 关键帧：按顺序的全部组件；增量：新增或修改的组件
+        List<JsonElement> components;
+        // 增量：删除的组件ID
+        List<String> removed;
+        // 增量：顺序与按上一版本顺序追加新组件的结果不同时，完整的组件ID顺序
+        List<String> order;
+        // 关键帧中的组件无法按ID索引
+        boolean unindexed;
+
+        static VersionRecord keyframe(PageState state) {
+            VersionRecord record = withProperties(state);
+            record.keyframe = true;
+            record.components = state.components();
+            record.unindexed = state.componentTrees == null;
+            return record;
+        }
+
+        static VersionRecord delta(PageState previous, PageState current) {
+            VersionRecord record = withProperties(current);
+            record.components = new ArrayList<>();
+            record.removed = new ArrayList<>();
+            List<String> expectedOrder = new ArrayList<>();
+            for (Map.Entry<String, JsonElement> entry : previous.componentTrees.entrySet()) {
+                if (current.componentTrees.containsKey(entry.getKey())) {
+                    expectedOrder.add(entry.getKey());
+                } else {
+                    record.removed.add(entry.getKey());
+                }
+            }
+            for (Map.Entry<String, JsonElement> entry : current.componentTrees.entrySet()) {
+                JsonElement previousTree = previous.componentTrees.get(entry.getKey());
+                if (previousTree == null) {
+                    expectedOrder.add(entry.getKey());
+                }
+                if (!entry.getValue().equals(previousTree)) {
+                    record.components.add(entry.getValue());
+                }
+            }
+            List<String> currentOrder = new ArrayList<>(current.componentTrees.keySet());
+            if (!currentOrder.equals(expectedOrder)) {
+                record.order = currentOrder;
+            }
+            return record;
+        }
+
+        private static VersionRecord withProperties(PageState state) {
+            VersionRecord record = new VersionRecord();
+            record.name = state.name;
+            record.createdTime = state.createdTime;
+            record.lastModifiedTime = state.lastModifiedTime;
+            record.backgroundImage = state.backgroundImage;
+            record.backgroundColor = state.backgroundColor;
+            record.componentCount = state.components().size();
+            return record;
+        }
+
+        boolean isEmpty() {
+            return components.isEmpty() && removed.isEmpty() && order == null;
+        }
+
+        void applyTo(PageState state) {
+            state.name = name;
+            state.createdTime = createdTime;
+            state.lastModifiedTime = lastModifiedTime;
+            state.backgroundImage = backgroundImage;
+            state.backgroundColor = backgroundColor;
+            List<JsonElement> trees = components != null ? components : new ArrayList<>();
+            if (keyframe) {
+                state.componentTrees = unindexed ? null : new LinkedHashMap<>();
+                state.componentList = unindexed ? new ArrayList<>(trees) : null;
+                if (unindexed) {
+                    return;
+                }
+            }
+            if (removed != null) {
+                for (String id : removed) {
+                    state.componentTrees.remove(id);
+                }
+            }
+            for (JsonElement tree : trees) {
+                state.componentTrees.put(componentId(tree), tree);
+            }
+            if (order != null) {
+                LinkedHashMap<String, JsonElement> reordered = new LinkedHashMap<>();
+                for (String id : order) {
+                    JsonElement tree = state.componentTrees.get(id);
+                    if (tree != null) {
+                        reordered.put(id, tree);
+                    }
+                }
+                state.componentTrees = reordered;
+            }
+        }
+
+        PageVersionInfo toInfo(String pageName) {
+            int changed = components != null ? components.size() : 0;
+            int removedCount = removed != null ? removed.size() : 0;
+            return new PageVersionInfo(pageName, version, timestamp, componentCount, keyframe,
+                    changed, removedCount);
+        }
+
+        private static String componentId(JsonElement tree) {
+            JsonElement id = tree.getAsJsonObject().get("componentId");
+            return id != null && !id.isJsonNull() ? id.getAsString() : null;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.feixiang.tabletcontrol.core.repository.impl;
 
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.PageLoader;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.BackupRetentionPolicy;
+import com.feixiang.tabletcontrol.core.repository.BulkImportMode;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.EditJournal;
+import com.feixiang.tabletcontrol.core.repository.LoadProgressListener;
+import com.feixiang.tabletcontrol.core.repository.PageHistory;
 import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
 import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,44 +22,121 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * JSON格式项目数据存储库实现
  * 使用JSON格式存储项目数据，支持跨平台文件系统
+ * 支持单文件布局和分片布局（清单文件 + 每页一个文件，页面按需加载）
  */
 public class JsonProjectRepository implements ProjectRepository {
     
     private static final Logger logger = LoggerFactory.getLogger(JsonProjectRepository.class);
     
     private static final String PROJECT_FILE_NAME = "project_data.json";
-    private static final String BACKUP_DIR_NAME = "backups";
+    protected static final String BINARY_PROJECT_FILE_NAME = "project_data.bin";
+    private static final String MANIFEST_FILE_NAME = "project_manifest.json";
+    private static final String PAGES_DIR_NAME = "pages";
+    private static final String PAGE_FILE_PREFIX = "page_";
+    private static final String JOURNAL_FILE_NAME = "project_data.journal";
+    static final String BACKUP_DIR_NAME = "backups";
+    static final String HISTORY_DIR_NAME = "history";
     private static final String EXPORT_FILE_EXTENSION = ".json";
+    private static final String BACKUP_TIMESTAMP_FORMAT = "yyyyMMdd_HHmmss";
+    private static final long DEFAULT_MAPPED_IMPORT_THRESHOLD = 32L * 1024 * 1024;
+    private static final String BINARY_FILE_EXTENSION = ".bin";
+    // 批量导入的最大并行度，每个线程同时持有一个完整项目，并行度同时限制内存占用
+    private static final int MAX_BULK_IMPORT_PARALLELISM = 8;
+    private static final Pattern BACKUP_TIMESTAMP_PATTERN = Pattern.compile("_(\\d{8}_\\d{6})\\.[^.]+$");
+    
+    /**
+     * 存储布局
+     */
+    public enum StorageLayout {
+        SINGLE_FILE,    // 整个项目保存在 project_data.json 中
+        SHARDED         // 清单文件 + 每页一个文件，页面按需加载
+    }
     
     private final CrossPlatformPathManager pathManager;
     private final Gson gson;
+    private final StreamingProjectReader streamingReader;
+    private final StorageLayout storageLayout;
     private final String projectFilePath;
+    private final String alternateProjectFilePath;
+    private final String manifestFilePath;
+    private final String pagesDirectoryPath;
     private final String backupDirectoryPath;
+    private final JsonEditJournal editJournal;
+    private final ContentAddressedBackupStore backupStore;
+    private final BackupCatalog backupCatalog;
+    private final JsonPageHistory pageHistory;
+    private final ProjectMigrator migrator = new ProjectMigrator();
+    
+    // 备份保留策略
+    private volatile BackupRetentionPolicy retentionPolicy = BackupRetentionPolicy.keepAll();
+    
+    // 不小于该大小的导入文件通过内存映射读取
+    private volatile long mappedImportThreshold = DEFAULT_MAPPED_IMPORT_THRESHOLD;
+    
+    // 批量导入的并行度
+    private volatile int bulkImportParallelism =
+            Math.min(Runtime.getRuntime().availableProcessors(), MAX_BULK_IMPORT_PARALLELISM);
+    
+    // 当前分片清单对应的延迟加载器
+    private final ShardedPageLoader pageLoader = new ShardedPageLoader();
     
     public JsonProjectRepository(CrossPlatformPathManager pathManager) {
+        this(pathManager, StorageLayout.SINGLE_FILE);
+    }
+    
+    public JsonProjectRepository(CrossPlatformPathManager pathManager, StorageLayout storageLayout) {
+        this(pathManager, storageLayout, PROJECT_FILE_NAME);
+    }
+    
+    /**
+     * @param projectFileName 单文件布局的项目文件名，另一种格式的项目文件在加载时作为迁移来源
+     */
+    protected JsonProjectRepository(CrossPlatformPathManager pathManager, StorageLayout storageLayout,
+                                    String projectFileName) {
         this.pathManager = pathManager;
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .setDateFormat("yyyy-MM-dd HH:mm:ss")
-                .create();
+        this.storageLayout = storageLayout != null ? storageLayout : StorageLayout.SINGLE_FILE;
+        this.gson = ModelTypeAdapters.createPrettyGson();
+        this.streamingReader = new StreamingProjectReader(gson);
         
         // 初始化路径
-        this.projectFilePath = pathManager.getDataDirectory() + File.separator + PROJECT_FILE_NAME;
+        this.projectFilePath = pathManager.getDataDirectory() + File.separator + projectFileName;
+        this.alternateProjectFilePath = pathManager.getDataDirectory() + File.separator
+                + (PROJECT_FILE_NAME.equals(projectFileName) ? BINARY_PROJECT_FILE_NAME : PROJECT_FILE_NAME);
+        this.manifestFilePath = pathManager.getDataDirectory() + File.separator + MANIFEST_FILE_NAME;
+        this.pagesDirectoryPath = pathManager.getDataDirectory() + File.separator + PAGES_DIR_NAME;
         this.backupDirectoryPath = pathManager.getDataDirectory() + File.separator + BACKUP_DIR_NAME;
+        this.editJournal = new JsonEditJournal(
+                Paths.get(pathManager.getDataDirectory(), JOURNAL_FILE_NAME));
+        this.backupStore = new ContentAddressedBackupStore(Paths.get(backupDirectoryPath), gson);
+        this.backupCatalog = new BackupCatalog(Paths.get(backupDirectoryPath), gson);
+        this.pageHistory = new JsonPageHistory(Paths.get(pathManager.getDataDirectory(), HISTORY_DIR_NAME));
         
         // 确保目录存在
         ensureDirectoriesExist();
         
-        logger.info("JSON项目存储库初始化完成");
+        logger.info("项目存储库初始化完成，存储布局: {}", this.storageLayout);
         logger.info("项目文件路径: {}", projectFilePath);
         logger.info("备份目录路径: {}", backupDirectoryPath);
     }
@@ -83,19 +168,94 @@ public class JsonProjectRepository implements ProjectRepository {
     
     @Override
     public ProjectData loadProject() throws IOException {
-        logger.info("加载项目数据: {}", projectFilePath);
+        return loadProject(null);
+    }
+    
+    @Override
+    public ProjectData loadProject(LoadProgressListener listener) throws IOException {
+        // 存在分片清单时优先按分片布局加载
+        ProjectData projectData = SnapshotFiles.existsWithPrevious(Paths.get(manifestFilePath))
+                ? loadShardedProject(listener)
+                : loadSingleFileProject(listener);
         
+        if (projectData == null) {
+            return null;
+        }
+        
+        // 以磁盘快照为基准，加载时修复的页面和日志重放的修改仍视为未保存
+        projectData.markLoaded();
+        
+        // 快照之后的修改记录在编辑日志中
+        if (editJournal.size() > 0) {
+            logger.info("重放编辑日志: {}", editJournal.getJournalFile());
+            editJournal.replay(projectData);
+        }
+        return projectData;
+    }
+    
+    /**
+     * 流式读取单文件项目，按文件头识别二进制或JSON格式
+     */
+    private ProjectData loadSingleFileProject(LoadProgressListener listener) throws IOException {
         Path projectFile = Paths.get(projectFilePath);
+        if (!SnapshotFiles.existsWithPrevious(projectFile)) {
+            // 另一种格式的项目文件，下次保存时转换为当前格式
+            Path alternateFile = Paths.get(alternateProjectFilePath);
+            if (!SnapshotFiles.existsWithPrevious(alternateFile)) {
+                logger.info("项目文件不存在: {}", projectFilePath);
+                return null;
+            }
+            logger.info("从另一种格式的项目文件迁移: {}", alternateProjectFilePath);
+            projectFile = alternateFile;
+        }
+        
+        Path previousFile = SnapshotFiles.previousOf(projectFile);
+        if (Files.exists(projectFile)) {
+            migrateProjectFile(projectFile);
+        }
         if (!Files.exists(projectFile)) {
-            logger.info("项目文件不存在: {}", projectFilePath);
-            return null;
+            // 替换快照时中断，新版本尚未就位
+            logger.warn("项目文件缺失，使用上一版本: {}", previousFile);
+            return readSnapshotFile(previousFile, listener);
+        }
+        try {
+            return readSnapshotFile(projectFile, listener);
+        } catch (IOException e) {
+            if (!Files.exists(previousFile)) {
+                throw e;
+            }
+            logger.warn("项目文件损坏，回退到上一版本: {}", previousFile, e);
+            return readSnapshotFile(previousFile, listener);
+        }
+    }
+    
+    /**
+     * 将旧版本的项目文件原地迁移到当前版本，原文件保留为上一版本
+     * 迁移失败时按原文件加载
+     */
+    private void migrateProjectFile(Path projectFile) {
+        try {
+            String version = migrator.migrateInPlace(projectFile);
+            if (version != null) {
+                logger.info("项目文件已从版本 {} 迁移到 {}", version, ProjectMigrator.CURRENT_VERSION);
+            }
+        } catch (IOException e) {
+            logger.warn("迁移项目文件失败，按原文件加载: {}", projectFile, e);
         }
+    }
+    
+    /**
+     * 读取并校验单文件项目快照
+     */
+    private ProjectData readSnapshotFile(Path projectFile, LoadProgressListener listener) throws IOException {
+        logger.info("加载项目数据: {}", projectFile);
         
-        try (Reader reader = Files.newBufferedReader(projectFile, StandardCharsets.UTF_8)) {
-            ProjectData projectData = gson.fromJson(reader, ProjectData.class);
+        try (SnapshotFiles.VerifiedInputStream verified = SnapshotFiles.openVerified(projectFile)) {
+            ProjectData projectData = readProjectStream(new BufferedInputStream(verified), listener);
+            verified.verify();
             
             if (projectData == null) {
-                logger.warn("项目文件为空或格式错误: {}", projectFilePath);
+                logger.warn("项目文件为空或格式错误: {}", projectFile);
                 return null;
             }
             
@@ -104,43 +264,74 @@ public class JsonProjectRepository implements ProjectRepository {
                 logger.warn("项目数据完整性检查失败，正在修复");
                 projectData.repairIntegrity();
             }
+            for (PageData pageData : projectData.getPageContents().values()) {
+                if (pageData != null && !pageData.validateIntegrity()) {
+                    logger.warn("页面数据完整性检查失败，正在修复: {}", pageData.getName());
+                    pageData.repairIntegrity();
+                }
+            }
             
             logger.info("项目数据加载完成: {}", projectData.getProjectSummary());
             return projectData;
             
         } catch (Exception e) {
-            logger.error("加载项目数据失败: {}", projectFilePath, e);
+            logger.error("加载项目数据失败: {}", projectFile, e);
             throw new IOException("加载项目数据失败: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 按文件头选择解码方式：二进制快照直接解码，否则作为JSON流式读取
+     */
+    private ProjectData readProjectStream(InputStream in, LoadProgressListener listener) throws IOException {
+        if (BinaryProjectCodec.isBinary(in)) {
+            return BinaryProjectCodec.read(in, listener);
+        }
+        return streamingReader.read(new InputStreamReader(in, StandardCharsets.UTF_8), listener);
+    }
+    
     @Override
     public void saveProject(ProjectData projectData) throws IOException {
         if (projectData == null) {
             throw new IllegalArgumentException("项目数据不能为null");
         }
         
-        logger.info("保存项目数据: {}", projectFilePath);
-        
         // 验证数据完整性
         if (!projectData.validateIntegrity()) {
             logger.warn("项目数据完整性检查失败，正在修复");
             projectData.repairIntegrity();
         }
         
+        if (storageLayout == StorageLayout.SHARDED) {
+            saveShardedProject(projectData);
+            // 快照已包含日志中的全部修改
+            editJournal.reset();
+            return;
+        }
+        
+        logger.info("保存项目数据: {}", projectFilePath);
+        
+        // 单文件布局需要完整的页面数据
+        projectData.loadAllPages();
+        
         // 创建临时文件
         Path projectFile = Paths.get(projectFilePath);
         Path tempFile = Paths.get(projectFilePath + ".tmp");
         
         try {
             // 写入临时文件
-            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
-                gson.toJson(projectData, writer);
-                writer.flush();
-            }
+            writeProjectFile(projectData, tempFile);
             
-            // 原子性替换
-            Files.move(tempFile, projectFile, StandardCopyOption.REPLACE_EXISTING);
+            // 原子性替换，原文件保留为上一版本
+            SnapshotFiles.commit(tempFile, projectFile, true);
+            
+            // 单文件已包含全部页面，移除旧的分片数据和另一种格式的项目文件
+            deleteShardedFiles();
+            SnapshotFiles.deleteWithPrevious(Paths.get(alternateProjectFilePath));
+            projectData.markClean();
+            
+            // 快照已包含日志中的全部修改
+            editJournal.reset();
             
             logger.info("项目数据保存完成: {}", projectData.getProjectSummary());
             
@@ -159,7 +350,9 @@ public class JsonProjectRepository implements ProjectRepository {
     
     @Override
     public boolean projectExists() {
-        return Files.exists(Paths.get(projectFilePath));
+        return SnapshotFiles.existsWithPrevious(Paths.get(projectFilePath))
+                || SnapshotFiles.existsWithPrevious(Paths.get(manifestFilePath))
+                || SnapshotFiles.existsWithPrevious(Paths.get(alternateProjectFilePath));
     }
     
     @Override
@@ -167,14 +360,251 @@ public class JsonProjectRepository implements ProjectRepository {
         logger.info("删除项目文件: {}", projectFilePath);
         
         Path projectFile = Paths.get(projectFilePath);
-        if (Files.exists(projectFile)) {
-            Files.delete(projectFile);
+        Path alternateFile = Paths.get(alternateProjectFilePath);
+        boolean shardedExists = SnapshotFiles.existsWithPrevious(Paths.get(manifestFilePath));
+        if (SnapshotFiles.existsWithPrevious(projectFile) || SnapshotFiles.existsWithPrevious(alternateFile)
+                || shardedExists) {
+            SnapshotFiles.deleteWithPrevious(projectFile);
+            SnapshotFiles.deleteWithPrevious(alternateFile);
+            deleteShardedFiles();
+            editJournal.reset();
             logger.info("项目文件删除完成");
         } else {
             logger.info("项目文件不存在，无需删除");
         }
     }
     
+    /**
+     * 按分片布局加载项目：只读取清单和当前页面，其余页面在首次访问时加载
+     */
+    private ProjectData loadShardedProject(LoadProgressListener listener) throws IOException {
+        logger.info("加载分片项目清单: {}", manifestFilePath);
+        
+        try {
+            ProjectManifest manifest = readManifest();
+            if (manifest == null) {
+                logger.warn("项目清单为空或格式错误: {}", manifestFilePath);
+                return null;
+            }
+            
+            pageLoader.setManifest(manifest);
+            ProjectData projectData = manifest.toProject();
+            projectData.setPageLoader(pageLoader);
+            
+            // 只加载当前页面
+            PageData currentPage = projectData.getCurrentPageData();
+            if (listener != null && currentPage != null) {
+                listener.onPageLoaded(currentPage.getName(), 1, projectData.getPageCount());
+            }
+            
+            if (!projectData.validateIntegrity()) {
+                logger.warn("项目数据完整性检查失败，正在修复");
+                projectData.repairIntegrity();
+            }
+            
+            logger.info("分片项目加载完成: {}", projectData.getProjectSummary());
+            return projectData;
+            
+        } catch (Exception e) {
+            logger.error("加载分片项目失败: {}", manifestFilePath, e);
+            throw new IOException("加载项目数据失败: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 按分片布局增量保存项目：只重写有修改的页面和清单
+     * 修改过的页面写入新文件，从不覆盖当前清单引用的文件；清单替换是唯一的提交点，
+     * 崩溃时磁盘上要么是完整的旧版本，要么是完整的新版本
+     */
+    private void saveShardedProject(ProjectData projectData) throws IOException {
+        logger.info("保存分片项目数据: {}", manifestFilePath);
+        
+        // 页面来自其他清单时无法复用原有页面文件，先全部加载
+        ProjectManifest previous = projectData.getPageLoader() == pageLoader ? pageLoader.getManifest() : null;
+        if (previous == null) {
+            projectData.loadAllPages();
+        }
+        
+        Path pagesDir = Paths.get(pagesDirectoryPath);
+        Files.createDirectories(pagesDir);
+        
+        long projectModCount = projectData.getModCount();
+        boolean manifestChanged = previous == null || projectData.isDirty();
+        Map<PageData, Long> writtenPages = new IdentityHashMap<>();
+        List<String> newFiles = new ArrayList<>();
+        
+        ProjectManifest manifest = ProjectManifest.fromProject(projectData);
+        try {
+            for (String pageName : projectData.getPages()) {
+                if (projectData.isPageLoaded(pageName)) {
+                    PageData pageData = projectData.getPageData(pageName);
+                    String fileName = previous != null ? previous.getPageFile(pageName) : null;
+                    if (fileName == null || pageData.isDirty()) {
+                        long pageModCount = pageData.getModCount();
+                        fileName = newPageFileName();
+                        newFiles.add(fileName);
+                        writeJsonAtomically(pageData, pagesDir.resolve(fileName), false);
+                        writtenPages.put(pageData, pageModCount);
+                        manifestChanged = true;
+                    }
+                    manifest.putPageFile(pageName, fileName, pageData.getComponentCount());
+                } else {
+                    manifest.putPageFile(pageName, previous.getPageFile(pageName),
+                            previous.getPageComponentCount(pageName));
+                }
+            }
+            
+            if (!manifestChanged) {
+                logger.info("分片项目没有未保存的修改");
+                return;
+            }
+            
+            // 清单最后写入，替换完成即提交；原清单保留为上一版本
+            writeJsonAtomically(manifest, Paths.get(manifestFilePath), true);
+            
+        } catch (Exception e) {
+            // 未提交的新页面文件不会被任何清单引用
+            for (String fileName : newFiles) {
+                Files.deleteIfExists(pagesDir.resolve(fileName));
+            }
+            logger.error("保存分片项目失败: {}", manifestFilePath, e);
+            throw new IOException("保存项目数据失败: " + e.getMessage(), e);
+        }
+        
+        pageLoader.setManifest(manifest);
+        projectData.setPageLoader(pageLoader);
+        for (Map.Entry<PageData, Long> entry : writtenPages.entrySet()) {
+            entry.getKey().markSaved(entry.getValue());
+        }
+        projectData.markSaved(projectModCount);
+        
+        // 清理上一版本的页面文件和旧的单文件数据
+        deleteUnreferencedPageFiles(manifest);
+        SnapshotFiles.deleteWithPrevious(Paths.get(projectFilePath));
+        
+        logger.info("分片项目保存完成，重写 {} 个页面: {}", writtenPages.size(), projectData.getProjectSummary());
+    }
+    
+    /**
+     * 读取分片清单，当前清单缺失或损坏时回退到上一版本
+     */
+    private ProjectManifest readManifest() throws IOException {
+        Path manifestFile = Paths.get(manifestFilePath);
+        Path previousFile = SnapshotFiles.previousOf(manifestFile);
+        if (!Files.exists(manifestFile)) {
+            logger.warn("项目清单缺失，使用上一版本: {}", previousFile);
+            return readJsonSnapshot(previousFile, ProjectManifest.class);
+        }
+        try {
+            return readJsonSnapshot(manifestFile, ProjectManifest.class);
+        } catch (IOException | RuntimeException e) {
+            if (!Files.exists(previousFile)) {
+                throw e;
+            }
+            logger.warn("项目清单损坏，回退到上一版本: {}", previousFile, e);
+            return readJsonSnapshot(previousFile, ProjectManifest.class);
+        }
+    }
+    
+    /**
+     * 读取并校验JSON快照文件
+     */
+    private <T> T readJsonSnapshot(Path file, Class<T> type) throws IOException {
+        try (SnapshotFiles.VerifiedInputStream verified = SnapshotFiles.openVerified(file)) {
+            T value = gson.fromJson(new InputStreamReader(verified, StandardCharsets.UTF_8), type);
+            verified.verify();
+            return value;
+        }
+    }
+    
+    /**
+     * 通过临时文件原子性写入JSON
+     * @param keepPrevious 为true时原文件保留为上一版本
+     */
+    private void writeJsonAtomically(Object value, Path target, boolean keepPrevious) throws IOException {
+        Path tempFile = Paths.get(target.toString() + ".tmp");
+        try {
+            writeJsonDurably(value, tempFile);
+            SnapshotFiles.commit(tempFile, target, keepPrevious);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+    
+    /**
+     * 写入单文件布局的项目快照，子类可替换为其他编码
+     * @param projectData 页面已全部加载的项目数据
+     * @param file 目标文件（临时文件，写入后原子性替换项目文件），通过 {@link SnapshotFiles#writeDurably} 写入以附加校验尾
+     * @throws IOException 写入失败时抛出异常
+     */
+    protected void writeProjectFile(ProjectData projectData, Path file) throws IOException {
+        writeJsonDurably(projectData, file);
+    }
+    
+    /**
+     * 写入带校验尾的JSON并同步到磁盘，保证替换目标文件前内容已落盘
+     */
+    private void writeJsonDurably(Object value, Path file) throws IOException {
+        SnapshotFiles.writeDurably(file, out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            gson.toJson(value, writer);
+            writer.flush();
+        });
+    }
+    
+    /**
+     * 生成新的页面文件名（页面名称可能包含文件系统不支持的字符，因此不直接使用）
+     */
+    private String newPageFileName() {
+        return PAGE_FILE_PREFIX + UUID.randomUUID().toString().replace("-", "") + ".json";
+    }
+    
+    /**
+     * 删除清单中没有引用的页面文件
+     */
+    private void deleteUnreferencedPageFiles(ProjectManifest manifest) {
+        Set<String> referenced = new HashSet<>(manifest.getPageFiles().values());
+        // 上一版本清单引用的页面文件保留，供当前清单损坏时回退
+        Path previousManifest = SnapshotFiles.previousOf(Paths.get(manifestFilePath));
+        if (Files.exists(previousManifest)) {
+            try {
+                ProjectManifest previous = readJsonSnapshot(previousManifest, ProjectManifest.class);
+                if (previous != null) {
+                    referenced.addAll(previous.getPageFiles().values());
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("上一版本清单无法读取，不再保留其页面文件: {}", previousManifest, e);
+            }
+        }
+        try (Stream<Path> files = Files.list(Paths.get(pagesDirectoryPath))) {
+            for (Path file : files.collect(Collectors.toList())) {
+                if (!referenced.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("清理页面文件失败: {}", pagesDirectoryPath, e);
+        }
+    }
+    
+    /**
+     * 删除分片布局的清单和页面文件
+     */
+    private void deleteShardedFiles() throws IOException {
+        SnapshotFiles.deleteWithPrevious(Paths.get(manifestFilePath));
+        Path pagesDir = Paths.get(pagesDirectoryPath);
+        if (Files.exists(pagesDir)) {
+            try (Stream<Path> files = Files.list(pagesDir)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(pagesDir);
+        }
+        pageLoader.setManifest(null);
+    }
+    
     @Override
     public void backupProject(ProjectData projectData, String backupName) throws IOException {
         if (projectData == null) {
@@ -185,20 +615,24 @@ public class JsonProjectRepository implements ProjectRepository {
         }
         
         logger.info("备份项目数据: {}", backupName);
+        projectData.loadAllPages();
         
-        // 生成备份文件名
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String backupFileName = String.format("%s_%s.json", backupName, timestamp);
-        String backupFilePath = backupDirectoryPath + File.separator + backupFileName;
+        // 生成备份清单文件名
+        Date backupTime = new Date();
+        String timestamp = new SimpleDateFormat(BACKUP_TIMESTAMP_FORMAT).format(backupTime);
+        String backupFileName = String.format("%s_%s%s", backupName, timestamp,
+                ContentAddressedBackupStore.MANIFEST_EXTENSION);
         
-        // 保存备份
-        Path backupFile = Paths.get(backupFilePath);
-        try (Writer writer = Files.newBufferedWriter(backupFile, StandardCharsets.UTF_8)) {
-            gson.toJson(projectData, writer);
-            writer.flush();
-        }
+        // 页面按内容寻址保存，未修改的页面复用已有数据块
+        long size = backupStore.writeBackup(projectData, backupFileName);
+        
+        logger.info("项目备份完成: {}", backupFileName);
         
-        logger.info("项目备份完成: {}", backupFilePath);
+        synchronized (backupStore) {
+            ensureBackupCatalog().put(new BackupInfo(backupFileName, backupName, backupTime.getTime(), size,
+                    projectData.getPages().size(), countComponents(projectData)));
+            enforceRetentionPolicy();
+        }
     }
     
     @Override
@@ -210,21 +644,23 @@ public class JsonProjectRepository implements ProjectRepository {
         logger.info("从备份恢复项目数据: {}", backupName);
         
         // 查找备份文件
-        List<String> backups = listBackups();
-        String matchingBackup = backups.stream()
-                .filter(backup -> backup.startsWith(backupName))
-                .findFirst()
-                .orElse(null);
+        String matchingBackup;
+        synchronized (backupStore) {
+            matchingBackup = ensureBackupCatalog().findFirstWithPrefix(backupName);
+            if (matchingBackup == null) {
+                // 备份可能是手动放入备份目录的，与目录同步后再查找一次
+                matchingBackup = rebuildBackupCatalog().findFirstWithPrefix(backupName);
+            }
+        }
         
         if (matchingBackup == null) {
             throw new IOException("备份不存在: " + backupName);
         }
         
         String backupFilePath = backupDirectoryPath + File.separator + matchingBackup;
-        Path backupFile = Paths.get(backupFilePath);
         
-        try (Reader reader = Files.newBufferedReader(backupFile, StandardCharsets.UTF_8)) {
-            ProjectData projectData = gson.fromJson(reader, ProjectData.class);
+        try {
+            ProjectData projectData = readBackupFile(matchingBackup);
             
             if (projectData == null) {
                 throw new IOException("备份文件格式错误: " + backupFilePath);
@@ -245,26 +681,31 @@ public class JsonProjectRepository implements ProjectRepository {
         }
     }
     
+    /**
+     * 读取备份：清单格式从数据块组装，旧版本的完整JSON备份直接解析
+     */
+    private ProjectData readBackupFile(String backupFileName) throws IOException {
+        if (ContentAddressedBackupStore.isManifest(backupFileName)) {
+            return backupStore.readBackup(backupFileName);
+        }
+        try (Reader reader = CompressedFiles.newReader(Paths.get(backupDirectoryPath, backupFileName))) {
+            return gson.fromJson(reader, ProjectData.class);
+        }
+    }
+    
     @Override
     public List<String> listBackups() throws IOException {
         logger.debug("获取备份列表: {}", backupDirectoryPath);
         
-        Path backupDir = Paths.get(backupDirectoryPath);
-        if (!Files.exists(backupDir)) {
-            return new ArrayList<>();
+        synchronized (backupStore) {
+            return ensureBackupCatalog().fileNames();
         }
-        
-        try {
-            return Files.list(backupDir)
-                    .filter(Files::isRegularFile)
-                    .filter(path -> path.toString().endsWith(".json"))
-                    .map(path -> path.getFileName().toString())
-                    .sorted()
-                    .collect(Collectors.toList());
-                    
-        } catch (IOException e) {
-            logger.error("获取备份列表失败", e);
-            throw new IOException("获取备份列表失败: " + e.getMessage(), e);
+    }
+    
+    @Override
+    public List<BackupInfo> listBackupInfos() throws IOException {
+        synchronized (backupStore) {
+            return ensureBackupCatalog().list();
         }
     }
     
@@ -279,7 +720,18 @@ public class JsonProjectRepository implements ProjectRepository {
         String backupFilePath = backupDirectoryPath + File.separator + backupName;
         Path backupFile = Paths.get(backupFilePath);
         
-        if (Files.exists(backupFile)) {
+        synchronized (backupStore) {
+            ensureBackupCatalog().remove(backupName);
+        }
+        
+        if (ContentAddressedBackupStore.isManifest(backupName)) {
+            // 删除清单后回收不再被任何备份引用的数据块
+            if (backupStore.deleteBackup(backupName)) {
+                logger.info("备份删除完成: {}", backupName);
+            } else {
+                logger.warn("备份文件不存在: {}", backupName);
+            }
+        } else if (Files.exists(backupFile)) {
             Files.delete(backupFile);
             logger.info("备份删除完成: {}", backupName);
         } else {
@@ -297,6 +749,7 @@ public class JsonProjectRepository implements ProjectRepository {
         }
         
         logger.info("导出项目数据到: {}", exportPath);
+        projectData.loadAllPages();
         
         // 确保导出路径以.json结尾
         String finalExportPath = exportPath.endsWith(EXPORT_FILE_EXTENSION) ? 
@@ -331,8 +784,18 @@ public class JsonProjectRepository implements ProjectRepository {
             throw new IOException("导入文件不存在: " + importPath);
         }
         
-        try (Reader reader = Files.newBufferedReader(importFile, StandardCharsets.UTF_8)) {
-            ProjectData projectData = gson.fromJson(reader, ProjectData.class);
+        Path migratedFile = null;
+        try {
+            // 旧版本的导入文件先迁移到临时文件，原文件保持不变
+            if (migrator.needsMigration(importFile)) {
+                migratedFile = Files.createTempFile("import-", EXPORT_FILE_EXTENSION);
+                migrator.migrate(importFile, migratedFile);
+                importFile = migratedFile;
+            }
+            
+            ProjectData projectData = Files.size(importFile) >= mappedImportThreshold
+                    ? readImportFileMapped(importFile)
+                    : readImportFileBuffered(importFile);
             
             if (projectData == null) {
                 throw new IOException("导入文件格式错误: " + importPath);
@@ -350,7 +813,233 @@ public class JsonProjectRepository implements ProjectRepository {
         } catch (Exception e) {
             logger.error("导入项目数据失败: {}", importPath, e);
             throw new IOException("导入项目数据失败: " + e.getMessage(), e);
+        } finally {
+            if (migratedFile != null) {
+                try {
+                    Files.deleteIfExists(migratedFile);
+                } catch (IOException e) {
+                    logger.warn("删除迁移临时文件失败: {}", migratedFile, e);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void exportBundle(ProjectData projectData, String bundlePath) throws IOException {
+        if (projectData == null) {
+            throw new IllegalArgumentException("项目数据不能为null");
+        }
+        if (bundlePath == null || bundlePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("导出路径不能为空");
+        }
+        
+        logger.info("导出项目资源包到: {}", bundlePath);
+        projectData.loadAllPages();
+        
+        String finalBundlePath = bundlePath.endsWith(ProjectBundle.BUNDLE_EXTENSION) ?
+                                 bundlePath : bundlePath + ProjectBundle.BUNDLE_EXTENSION;
+        newBundle().export(projectData, Paths.get(finalBundlePath));
+    }
+    
+    @Override
+    public ProjectData importBundle(String bundlePath) throws IOException {
+        if (bundlePath == null || bundlePath.trim().isEmpty()) {
+            throw new IllegalArgumentException("导入路径不能为空");
+        }
+        
+        logger.info("从资源包导入项目: {}", bundlePath);
+        
+        Path bundleFile = Paths.get(bundlePath);
+        if (!Files.exists(bundleFile)) {
+            throw new IOException("资源包不存在: " + bundlePath);
+        }
+        
+        try {
+            ProjectData projectData = newBundle().importBundle(bundleFile);
+            if (!projectData.validateIntegrity()) {
+                logger.warn("导入数据完整性检查失败，正在修复");
+                projectData.repairIntegrity();
+            }
+            return projectData;
+        } catch (IOException e) {
+            logger.error("导入项目资源包失败: {}", bundlePath, e);
+            throw e;
+        } catch (Exception e) {
+            logger.error("导入项目资源包失败: {}", bundlePath, e);
+            throw new IOException("导入项目资源包失败: " + e.getMessage(), e);
+        }
+    }
+    
+    private ProjectBundle newBundle() {
+        return new ProjectBundle(Paths.get(pathManager.getDataDirectory()), gson);
+    }
+    
+    /**
+     * 通过缓冲流读取导入文件，二进制快照和JSON导出文件都可以导入（项目快照的校验尾不作为内容读取）
+     */
+    private ProjectData readImportFileBuffered(Path importFile) throws IOException {
+        try (InputStream in = new BufferedInputStream(SnapshotFiles.openVerified(importFile))) {
+            return BinaryProjectCodec.isBinary(in)
+                    ? BinaryProjectCodec.read(in, null)
+                    : gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), ProjectData.class);
+        }
+    }
+    
+    /**
+     * 通过内存映射读取导入文件，JSON按UTF-8直接从映射区解码到解析器的缓冲区
+     */
+    private ProjectData readImportFileMapped(Path importFile) throws IOException {
+        logger.info("使用内存映射导入大文件: {} ({} 字节)", importFile, Files.size(importFile));
+        try (MappedFileSource source = new MappedFileSource(importFile)) {
+            source.limit(SnapshotFiles.contentLength(importFile));
+            InputStream in = source.newInputStream();
+            if (BinaryProjectCodec.isBinary(in)) {
+                return BinaryProjectCodec.read(in, null);
+            }
+            try (Reader reader = source.newReader()) {
+                return gson.fromJson(reader, ProjectData.class);
+            }
+        }
+    }
+    
+    @Override
+    public BulkImportResult importProjects(String directoryPath, BulkImportMode mode) throws IOException {
+        if (directoryPath == null || directoryPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("导入目录不能为空");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("导入方式不能为null");
+        }
+        
+        Path directory = Paths.get(directoryPath);
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("导入目录不存在: " + directoryPath);
+        }
+        
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.filter(Files::isRegularFile)
+                    .filter(JsonProjectRepository::isImportFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        
+        int parallelism = Math.max(1, Math.min(bulkImportParallelism, files.size()));
+        logger.info("批量导入 {} 个文件，并行度 {}: {}", files.size(), parallelism, directoryPath);
+        
+        long startTime = System.nanoTime();
+        Map<String, ProjectData> projects = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        long totalBytes = 0;
+        
+        // 解析和完整性检查在有界的线程池中并行执行，结果按文件名顺序收集
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<ProjectData>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(pool.submit(() -> importProject(file.toString())));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                String fileName = file.getFileName().toString();
+                try {
+                    projects.put(fileName, tasks.get(i).get());
+                    totalBytes += Files.size(file);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.warn("导入文件失败: {}", file, cause);
+                    errors.put(fileName, cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("批量导入被中断");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        ProjectData mergedProject = null;
+        if (mode == BulkImportMode.MERGE && !projects.isEmpty()) {
+            mergedProject = mergeProjects(directory.getFileName().toString(), projects);
+        }
+        
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        BulkImportResult result = new BulkImportResult(mode, projects, errors, mergedProject,
+                totalBytes, elapsedMillis);
+        logger.info("批量导入完成: {}", result.getSummary());
+        return result;
+    }
+    
+    /**
+     * 将多个项目的页面合并到一个新项目中
+     * 页面名称加上来源文件名前缀，重名时追加序号；页面内容复制，来源项目不受影响
+     */
+    private ProjectData mergeProjects(String projectName, Map<String, ProjectData> projects) {
+        ProjectData merged = new ProjectData();
+        merged.setName(projectName);
+        merged.setEditResolution(projects.values().iterator().next().getEditResolution());
+        
+        for (Map.Entry<String, ProjectData> entry : projects.entrySet()) {
+            String prefix = stripExtension(entry.getKey());
+            ProjectData source = entry.getValue();
+            for (String pageName : source.getPages()) {
+                PageData sourcePage = source.getPageData(pageName);
+                PageData page = sourcePage != null ? sourcePage.copy() : new PageData(pageName);
+                String mergedName = prefix + " - " + pageName;
+                for (int n = 2; merged.hasPage(mergedName); n++) {
+                    mergedName = prefix + " - " + pageName + " (" + n + ")";
+                }
+                page.setName(mergedName);
+                merged.addPage(page);
+            }
+        }
+        
+        logger.info("合并 {} 个项目: {}", projects.size(), merged.getProjectSummary());
+        return merged;
+    }
+    
+    private static boolean isImportFile(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        return !fileName.startsWith(".")
+                && (fileName.endsWith(EXPORT_FILE_EXTENSION) || fileName.endsWith(BINARY_FILE_EXTENSION));
+    }
+    
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+    
+    /**
+     * 设置批量导入的并行度
+     * @param parallelism 同时解析的文件数，至少为1
+     */
+    public void setBulkImportParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行度至少为1");
+        }
+        this.bulkImportParallelism = parallelism;
+    }
+    
+    /**
+     * 获取批量导入的并行度
+     */
+    public int getBulkImportParallelism() {
+        return bulkImportParallelism;
+    }
+    
+    /**
+     * 设置使用内存映射导入的文件大小阈值
+     * @param threshold 字节数，0表示总是使用内存映射，Long.MAX_VALUE表示从不使用
+     */
+    public void setMappedImportThreshold(long threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("阈值不能为负数");
         }
+        this.mappedImportThreshold = threshold;
+    }
+    
+    public long getMappedImportThreshold() {
+        return mappedImportThreshold;
     }
     
     @Override
@@ -358,8 +1047,211 @@ public class JsonProjectRepository implements ProjectRepository {
         return projectFilePath;
     }
     
+    @Override
+    public boolean isProjectFileStorage() {
+        // 分片布局的存储为清单和页面文件，保存时删除项目文件
+        return storageLayout == StorageLayout.SINGLE_FILE;
+    }
+    
     @Override
     public String getBackupDirectoryPath() {
         return backupDirectoryPath;
     }
+    
+    @Override
+    public void setBackupRetentionPolicy(BackupRetentionPolicy policy) {
+        this.retentionPolicy = policy != null ? policy : BackupRetentionPolicy.keepAll();
+        logger.info("备份保留策略: {}", this.retentionPolicy);
+    }
+    
+    @Override
+    public BackupRetentionPolicy getBackupRetentionPolicy() {
+        return retentionPolicy;
+    }
+    
+    /**
+     * 按保留策略清理备份，只使用备份目录文件中的备份时间
+     */
+    private void enforceRetentionPolicy() throws IOException {
+        BackupRetentionPolicy policy = retentionPolicy;
+        if (policy.isKeepAll()) {
+            return;
+        }
+        for (String backupName : policy.selectBackupsToPrune(backupCatalog.timestamps())) {
+            logger.info("按保留策略清理备份: {}", backupName);
+            deleteBackup(backupName);
+        }
+    }
+    
+    /**
+     * 获取备份目录文件，首次调用时从磁盘加载；目录文件缺失或损坏时扫描备份目录重建
+     * 调用方需持有 backupStore 锁
+     */
+    private BackupCatalog ensureBackupCatalog() throws IOException {
+        if (backupCatalog.isLoaded() || backupCatalog.load()) {
+            return backupCatalog;
+        }
+        return rebuildBackupCatalog();
+    }
+    
+    /**
+     * 扫描备份目录重建目录文件，已在目录中的备份沿用原有信息，只读取新出现的备份
+     * 调用方需持有 backupStore 锁
+     */
+    private BackupCatalog rebuildBackupCatalog() throws IOException {
+        logger.info("重建备份目录文件: {}", backupDirectoryPath);
+        List<BackupInfo> backups = new ArrayList<>();
+        Path backupDir = Paths.get(backupDirectoryPath);
+        if (Files.exists(backupDir)) {
+            List<String> fileNames;
+            try (Stream<Path> files = Files.list(backupDir)) {
+                fileNames = files
+                        .filter(Files::isRegularFile)
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> !BackupCatalog.CATALOG_FILE_NAME.equals(name))
+                        .filter(name -> ContentAddressedBackupStore.isManifest(name) || name.endsWith(".json"))
+                        .collect(Collectors.toList());
+            } catch (IOException e) {
+                logger.error("获取备份列表失败", e);
+                throw new IOException("获取备份列表失败: " + e.getMessage(), e);
+            }
+            for (String fileName : fileNames) {
+                BackupInfo known = backupCatalog.isLoaded() ? backupCatalog.get(fileName) : null;
+                if (known != null) {
+                    backups.add(known);
+                    continue;
+                }
+                try {
+                    backups.add(describeBackupFile(fileName));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("无法读取备份元数据，跳过: {}", fileName, e);
+                }
+            }
+        }
+        backupCatalog.reset(backups);
+        return backupCatalog;
+    }
+    
+    /**
+     * 读取备份文件的元数据（仅在重建目录文件时使用）
+     */
+    private BackupInfo describeBackupFile(String fileName) throws IOException {
+        long timestamp = parseBackupTime(fileName);
+        String backupName = parseBackupName(fileName);
+        if (ContentAddressedBackupStore.isManifest(fileName)) {
+            return backupStore.describeBackup(fileName, backupName, timestamp);
+        }
+        ProjectData projectData = readBackupFile(fileName);
+        if (projectData == null) {
+            throw new IOException("备份文件格式错误: " + fileName);
+        }
+        return new BackupInfo(fileName, backupName, timestamp,
+                Files.size(Paths.get(backupDirectoryPath, fileName)),
+                projectData.getPages().size(), countComponents(projectData));
+    }
+    
+    /**
+     * 从备份文件名中去掉时间戳和扩展名，得到备份名称
+     */
+    private String parseBackupName(String fileName) {
+        Matcher matcher = BACKUP_TIMESTAMP_PATTERN.matcher(fileName);
+        if (matcher.find()) {
+            return fileName.substring(0, matcher.start());
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+    
+    private int countComponents(ProjectData projectData) {
+        int count = 0;
+        for (String pageName : projectData.getPages()) {
+            PageData pageData = projectData.getPageData(pageName);
+            if (pageData != null) {
+                count += pageData.getComponentCount();
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 从备份文件名解析备份时间，无法解析时使用文件修改时间
+     */
+    private long parseBackupTime(String backupName) throws IOException {
+        Matcher matcher = BACKUP_TIMESTAMP_PATTERN.matcher(backupName);
+        if (matcher.find()) {
+            try {
+                return new SimpleDateFormat(BACKUP_TIMESTAMP_FORMAT).parse(matcher.group(1)).getTime();
+            } catch (ParseException e) {
+                logger.debug("备份时间格式错误: {}", backupName);
+            }
+        }
+        return Files.getLastModifiedTime(Paths.get(backupDirectoryPath, backupName)).toMillis();
+    }
+    
+    @Override
+    public EditJournal getEditJournal() {
+        return editJournal;
+    }
+    
+    @Override
+    public PageHistory getPageHistory() {
+        return pageHistory;
+    }
+    
+    /**
+     * 获取存储布局
+     */
+    public StorageLayout getStorageLayout() {
+        return storageLayout;
+    }
+    
+    /**
+     * 分片页面延迟加载器，按当前清单读取页面文件
+     */
+    private class ShardedPageLoader implements PageLoader {
+        
+        private volatile ProjectManifest manifest;
+        
+        ProjectManifest getManifest() {
+            return manifest;
+        }
+        
+        void setManifest(ProjectManifest manifest) {
+            this.manifest = manifest;
+        }
+        
+        @Override
+        public boolean containsPage(String pageName) {
+            ProjectManifest current = manifest;
+            return current != null && current.getPageFile(pageName) != null;
+        }
+        
+        @Override
+        public PageData loadPage(String pageName) throws IOException {
+            ProjectManifest current = manifest;
+            String fileName = current != null ? current.getPageFile(pageName) : null;
+            if (fileName == null) {
+                return null;
+            }
+            
+            Path pageFile = Paths.get(pagesDirectoryPath, fileName);
+            logger.debug("加载页面: {} ({})", pageName, pageFile);
+            PageData pageData = readJsonSnapshot(pageFile, PageData.class);
+            if (pageData == null) {
+                throw new IOException("页面文件为空或格式错误: " + pageFile);
+            }
+            if (!pageData.validateIntegrity()) {
+                logger.warn("页面数据完整性检查失败，正在修复: {}", pageName);
+                pageData.repairIntegrity();
+            }
+            pageData.markLoaded();
+            return pageData;
+        }
+        
+        @Override
+        public int getComponentCount(String pageName) {
+            ProjectManifest current = manifest;
+            return current != null ? current.getPageComponentCount(pageName) : 0;
+        }
+    }
 }
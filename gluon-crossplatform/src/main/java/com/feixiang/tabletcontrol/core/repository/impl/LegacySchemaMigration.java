@@ -0,0 +1,162 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.RelativePosition;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 旧版编辑器（Swing版本）项目文件迁移到 1.0.0
+ * 旧文件没有版本号，组件只有像素坐标，文字对齐和位置可能保存为 SwingConstants 名称：
+ * 补充原始尺寸、组件ID和按编辑分辨率计算的相对位置，对齐和位置名称转换为常量值
+ */
+public class LegacySchemaMigration implements SchemaMigration {
+
+    public static final String LEGACY_VERSION = "0";
+    public static final String TARGET_VERSION = "1.0.0";
+
+    private static final String DEFAULT_EDIT_RESOLUTION = "1366x768";
+    private static final String[] SWING_POSITION_FIELDS = {
+            "horizontalAlignment", "verticalAlignment", "horizontalTextPosition", "verticalTextPosition"
+    };
+    private static final Map<String, Integer> SWING_CONSTANTS = new HashMap<>();
+
+    static {
+        SWING_CONSTANTS.put("CENTER", 0);
+        SWING_CONSTANTS.put("TOP", 1);
+        SWING_CONSTANTS.put("LEFT", 2);
+        SWING_CONSTANTS.put("BOTTOM", 3);
+        SWING_CONSTANTS.put("RIGHT", 4);
+        SWING_CONSTANTS.put("LEADING", 10);
+        SWING_CONSTANTS.put("TRAILING", 11);
+    }
+
+    private final Gson gson = ModelTypeAdapters.createGson();
+    private final String idPrefix = "comp_" + System.currentTimeMillis() + "_m";
+    private int containerWidth;
+    private int containerHeight;
+    private int nextId;
+
+    @Override
+    public String getSourceVersion() {
+        return LEGACY_VERSION;
+    }
+
+    @Override
+    public String getTargetVersion() {
+        return TARGET_VERSION;
+    }
+
+    @Override
+    public void begin(JsonObject projectProperties) {
+        String resolution = stringValue(projectProperties, "editResolution");
+        if (!parseResolution(resolution) && !parseResolution(DEFAULT_EDIT_RESOLUTION)) {
+            containerWidth = 0;
+            containerHeight = 0;
+        }
+    }
+
+    @Override
+    public void migrateComponent(JsonObject component) {
+        int width = intValue(component, "width", 0);
+        int height = intValue(component, "height", 0);
+        if (!component.has("originalWidth")) {
+            component.addProperty("originalWidth", width);
+        }
+        if (!component.has("originalHeight")) {
+            component.addProperty("originalHeight", height);
+        }
+        if (!hasValue(component, "componentId")) {
+            // 同一文件内唯一
+            component.addProperty("componentId", idPrefix + (nextId++));
+        }
+
+        // 只有像素坐标的组件按编辑分辨率补充相对位置
+        if (!hasValue(component, "relativePosition") && containerWidth > 0 && containerHeight > 0) {
+            RelativePosition position = RelativePosition.fromAbsolute(intValue(component, "x", 0),
+                    intValue(component, "y", 0), width, height, containerWidth, containerHeight);
+            component.add("relativePosition", gson.toJsonTree(position, RelativePosition.class));
+            component.addProperty("positionMode", "RELATIVE");
+        } else if (!hasValue(component, "positionMode")) {
+            component.addProperty("positionMode", hasValue(component, "relativePosition") ? "RELATIVE" : "ABSOLUTE");
+        }
+
+        JsonElement labelData = component.get("labelData");
+        if (labelData != null && labelData.isJsonObject()) {
+            migrateLabel(labelData.getAsJsonObject());
+        }
+    }
+
+    @Override
+    public void migratePage(JsonObject pageProperties) {
+        // 页面属性格式未变化
+    }
+
+    @Override
+    public void migrateProject(JsonObject projectProperties) {
+        if (!hasValue(projectProperties, "editResolution")) {
+            projectProperties.addProperty("editResolution", DEFAULT_EDIT_RESOLUTION);
+        }
+    }
+
+    private void migrateLabel(JsonObject label) {
+        for (String field : SWING_POSITION_FIELDS) {
+            JsonElement value = label.get(field);
+            if (value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+                Integer constant = SWING_CONSTANTS.get(value.getAsString().trim().toUpperCase());
+                if (constant != null) {
+                    label.addProperty(field, constant);
+                } else {
+                    // 无法识别的名称使用默认值
+                    label.remove(field);
+                }
+            }
+        }
+        if (intValue(label, "originalFontSize", 0) <= 0 && label.has("fontSize")) {
+            label.add("originalFontSize", label.get("fontSize"));
+        }
+    }
+
+    private boolean parseResolution(String resolution) {
+        if (resolution == null) {
+            return false;
+        }
+        String[] parts = resolution.toLowerCase().split("x");
+        if (parts.length != 2) {
+            return false;
+        }
+        try {
+            containerWidth = Integer.parseInt(parts[0].trim());
+            containerHeight = Integer.parseInt(parts[1].trim());
+            return containerWidth > 0 && containerHeight > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasValue(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && !value.isJsonNull();
+    }
+
+    private static String stringValue(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static int intValue(JsonObject object, String field, int defaultValue) {
+        JsonElement value = object.get(field);
+        if (value == null || !value.isJsonPrimitive()) {
+            return defaultValue;
+        }
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (!primitive.isNumber()) {
+            return defaultValue;
+        }
+        return primitive.getAsInt();
+    }
+}
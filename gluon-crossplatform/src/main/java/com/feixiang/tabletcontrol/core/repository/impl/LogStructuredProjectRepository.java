@@ -0,0 +1,542 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.PageLoader;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.BackupRetentionPolicy;
+import com.feixiang.tabletcontrol.core.repository.BulkImportMode;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.EditJournal;
+import com.feixiang.tabletcontrol.core.repository.LoadProgressListener;
+import com.feixiang.tabletcontrol.core.repository.PageHistory;
+import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志结构键值存储库
+ * 项目保存在单个 {@link LogStructuredStore} 文件中，按页面和组件ID分键存储：
+ * 页面按需加载，保存时只追加内容有变化的组件记录，单个组件可以直接按ID读写。
+ * 存储为空时从已有的JSON/二进制项目文件迁移；备份、导入导出仍使用JSON格式
+ *
+ * 键布局:
+ *   project                       项目清单（元数据、页面顺序和保存时的组件数量）
+ *   page\0{页面名}                 页面属性和组件键顺序（页面整体写入时）
+ *   component\0{页面名}\0{组件键}   组件数据，组件键为组件ID（缺失或重复时附加序号）
+ *   order\0{页面名}\0{组件键}       单独写入的新组件的追加序号，页面整体写入时并入页面记录
+ * 组件是否存在由组件键决定，单独读写组件只访问该组件的键，不读取或重写页面记录和清单
+ */
+public class LogStructuredProjectRepository implements ProjectRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredProjectRepository.class);
+
+    private static final String STORE_FILE_NAME = "project_data.kvlog";
+    private static final String JOURNAL_FILE_NAME = "project_data.kvlog.journal";
+    private static final String PROJECT_KEY = "project";
+    private static final String PAGE_KEY_PREFIX = "page\0";
+    private static final String COMPONENT_KEY_PREFIX = "component\0";
+    private static final String ORDER_KEY_PREFIX = "order\0";
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final Gson gson;
+    private final LogStructuredStore store;
+    private final JsonEditJournal editJournal;
+
+    // 备份、导入导出和旧项目文件迁移
+    private final JsonProjectRepository fileRepository;
+
+    private final StorePageLoader pageLoader = new StorePageLoader();
+    // 单独写入组件的追加序号
+    private final AtomicLong appendSequence = new AtomicLong();
+
+    public LogStructuredProjectRepository(CrossPlatformPathManager pathManager) {
+        this.fileRepository = new JsonProjectRepository(pathManager);
+        this.gson = ModelTypeAdapters.createGson();
+        Path storeFile = Paths.get(pathManager.getDataDirectory(), STORE_FILE_NAME);
+        try {
+            this.store = new LogStructuredStore(storeFile);
+        } catch (IOException e) {
+            logger.error("打开项目存储文件失败: {}", storeFile, e);
+            throw new RuntimeException("无法打开项目存储文件", e);
+        }
+        this.editJournal = new JsonEditJournal(Paths.get(pathManager.getDataDirectory(), JOURNAL_FILE_NAME));
+
+        logger.info("键值存储库初始化完成: {} ({} 个键)", storeFile, store.size());
+    }
+
+    @Override
+    public ProjectData loadProject() throws IOException {
+        return loadProject(null);
+    }
+
+    @Override
+    public ProjectData loadProject(LoadProgressListener listener) throws IOException {
+        ProjectManifest manifest = readValue(PROJECT_KEY, ProjectManifest.class);
+        if (manifest == null) {
+            if (fileRepository.projectExists()) {
+                // 旧项目文件在下次保存时写入键值存储
+                logger.info("键值存储为空，从项目文件迁移: {}", fileRepository.getProjectFilePath());
+                return fileRepository.loadProject(listener);
+            }
+            logger.info("项目数据不存在: {}", store.getFile());
+            return null;
+        }
+
+        pageLoader.setManifest(manifest);
+        ProjectData projectData = manifest.toProject();
+        projectData.setPageLoader(pageLoader);
+
+        // 只加载当前页面
+        PageData currentPage = projectData.getCurrentPageData();
+        if (listener != null && currentPage != null) {
+            listener.onPageLoaded(currentPage.getName(), 1, projectData.getPageCount());
+        }
+
+        if (!projectData.validateIntegrity()) {
+            logger.warn("项目数据完整性检查失败，正在修复");
+            projectData.repairIntegrity();
+        }
+
+        // 以存储内容为基准，加载时修复的页面和日志重放的修改仍视为未保存
+        projectData.markLoaded();
+        if (editJournal.size() > 0) {
+            logger.info("重放编辑日志: {}", editJournal.getJournalFile());
+            editJournal.replay(projectData);
+        }
+
+        logger.info("项目加载完成: {}", projectData.getProjectSummary());
+        return projectData;
+    }
+
+    @Override
+    public void saveProject(ProjectData projectData) throws IOException {
+        if (projectData == null) {
+            throw new IllegalArgumentException("项目数据不能为null");
+        }
+
+        if (!projectData.validateIntegrity()) {
+            logger.warn("项目数据完整性检查失败，正在修复");
+            projectData.repairIntegrity();
+        }
+
+        logger.info("保存项目数据: {}", store.getFile());
+
+        // 页面来自其他存储时无法复用已有记录，先全部加载
+        ProjectManifest previous = projectData.getPageLoader() == pageLoader ? pageLoader.getManifest() : null;
+        if (previous == null) {
+            projectData.loadAllPages();
+        }
+
+        long projectModCount = projectData.getModCount();
+        Map<PageData, Long> writtenPages = new IdentityHashMap<>();
+        LogStructuredStore.Batch batch = store.newBatch();
+        ProjectManifest manifest = ProjectManifest.fromProject(projectData);
+
+        try {
+            synchronized (store) {
+                Set<String> pageNames = new HashSet<>(projectData.getPages());
+                for (String pageName : projectData.getPages()) {
+                    if (projectData.isPageLoaded(pageName)) {
+                        PageData pageData = projectData.getPageData(pageName);
+                        if (previous == null || pageData.isDirty() || !store.contains(pageKey(pageName))) {
+                            writtenPages.put(pageData, pageData.getModCount());
+                            writePage(batch, pageName, pageData);
+                        }
+                        manifest.putPageFile(pageName, pageKey(pageName), pageData.getComponentCount());
+                    } else {
+                        // 未加载的页面可能有单独写入的组件，按存储中的组件键计数
+                        manifest.putPageFile(pageName, pageKey(pageName), pageLoader.getComponentCount(pageName));
+                    }
+                }
+
+                // 已删除或重命名的页面
+                for (String key : store.keysWithPrefix(PAGE_KEY_PREFIX)) {
+                    String pageName = key.substring(PAGE_KEY_PREFIX.length());
+                    if (!pageNames.contains(pageName)) {
+                        batch.delete(key);
+                        for (String componentKey : store.keysWithPrefix(componentKeyPrefix(pageName))) {
+                            batch.delete(componentKey);
+                        }
+                        for (String orderKey : store.keysWithPrefix(orderKeyPrefix(pageName))) {
+                            batch.delete(orderKey);
+                        }
+                    }
+                }
+
+                batch.put(PROJECT_KEY, toBytes(manifest));
+                int records = store.commit(batch);
+                logger.info("项目数据保存完成，写入 {} 条记录: {}", records, projectData.getProjectSummary());
+            }
+        } catch (Exception e) {
+            logger.error("保存项目数据失败: {}", store.getFile(), e);
+            throw new IOException("保存项目数据失败: " + e.getMessage(), e);
+        }
+
+        pageLoader.setManifest(manifest);
+        projectData.setPageLoader(pageLoader);
+        for (Map.Entry<PageData, Long> entry : writtenPages.entrySet()) {
+            entry.getKey().markSaved(entry.getValue());
+        }
+        projectData.markSaved(projectModCount);
+
+        // 存储已包含日志中的全部修改
+        editJournal.reset();
+    }
+
+    /**
+     * 将页面属性和全部组件加入写入批次，内容未变化的组件由存储跳过
+     */
+    private void writePage(LogStructuredStore.Batch batch, String pageName, PageData pageData) {
+        PageRecord record = new PageRecord();
+        record.name = pageData.getName();
+        record.createdTime = pageData.getCreatedTime();
+        record.lastModifiedTime = pageData.getLastModifiedTime();
+        record.backgroundImage = pageData.getBackgroundImage();
+        record.backgroundColor = pageData.getBackgroundColor();
+        record.components = new ArrayList<>();
+
+        Set<String> componentKeys = new HashSet<>();
+        List<ComponentData> components = pageData.getComponents();
+        for (int i = 0; i < components.size(); i++) {
+            ComponentData component = components.get(i);
+            String slot = component.getComponentId();
+            if (slot == null || componentKeys.contains(componentKey(pageName, slot))) {
+                slot = (slot != null ? slot : "") + "#" + i;
+            }
+            String key = componentKey(pageName, slot);
+            componentKeys.add(key);
+            record.components.add(slot);
+            batch.put(key, toBytes(component));
+        }
+
+        for (String key : store.keysWithPrefix(componentKeyPrefix(pageName))) {
+            if (!componentKeys.contains(key)) {
+                batch.delete(key);
+            }
+        }
+        // 单独写入的组件顺序已并入页面记录
+        for (String key : store.keysWithPrefix(orderKeyPrefix(pageName))) {
+            batch.delete(key);
+        }
+        batch.put(pageKey(pageName), toBytes(record));
+    }
+
+    /**
+     * 直接从存储读取单个组件，不加载整个页面
+     * @param pageName 页面名称
+     * @param componentId 组件ID
+     * @return 组件数据，不存在时返回null
+     */
+    public ComponentData loadComponent(String pageName, String componentId) throws IOException {
+        return readValue(componentKey(pageName, componentId), ComponentData.class);
+    }
+
+    /**
+     * 直接向存储写入单个组件（按组件ID新增或替换），不重写页面其他组件
+     * 新组件排在页面末尾；只修改存储中的数据，已加载到内存的项目不会同步更新
+     * @param pageName 页面名称，必须已保存在存储中
+     * @param component 组件数据，必须有组件ID
+     */
+    public void saveComponent(String pageName, ComponentData component) throws IOException {
+        if (component == null || component.getComponentId() == null) {
+            throw new IllegalArgumentException("组件及组件ID不能为null");
+        }
+        synchronized (store) {
+            if (!store.contains(pageKey(pageName))) {
+                throw new IOException("页面不存在: " + pageName);
+            }
+            String slot = component.getComponentId();
+            String key = componentKey(pageName, slot);
+            LogStructuredStore.Batch batch = store.newBatch();
+            if (!store.contains(key)) {
+                batch.put(orderKey(pageName, slot), toBytes(nextAppendSequence()));
+            }
+            store.commit(batch.put(key, toBytes(component)));
+        }
+    }
+
+    /**
+     * 直接从存储删除单个组件
+     * 只修改存储中的数据，已加载到内存的项目不会同步更新
+     * @return 如果组件存在并被删除则返回true
+     */
+    public boolean deleteComponent(String pageName, String componentId) throws IOException {
+        synchronized (store) {
+            String key = componentKey(pageName, componentId);
+            if (!store.contains(key)) {
+                return false;
+            }
+            LogStructuredStore.Batch batch = store.newBatch().delete(key);
+            String orderKey = orderKey(pageName, componentId);
+            if (store.contains(orderKey)) {
+                batch.delete(orderKey);
+            }
+            store.commit(batch);
+            return true;
+        }
+    }
+
+    /**
+     * 追加序号按时间递增，重新打开存储后仍排在之前写入的组件之后
+     */
+    private long nextAppendSequence() {
+        long now = System.currentTimeMillis();
+        return appendSequence.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    @Override
+    public boolean projectExists() {
+        return store.contains(PROJECT_KEY) || fileRepository.projectExists();
+    }
+
+    @Override
+    public void deleteProject() throws IOException {
+        logger.info("删除项目数据: {}", store.getFile());
+        store.clear();
+        editJournal.reset();
+        pageLoader.setManifest(null);
+        fileRepository.deleteProject();
+    }
+
+    @Override
+    public void backupProject(ProjectData projectData, String backupName) throws IOException {
+        fileRepository.backupProject(projectData, backupName);
+    }
+
+    @Override
+    public ProjectData restoreProject(String backupName) throws IOException {
+        return fileRepository.restoreProject(backupName);
+    }
+
+    @Override
+    public List<String> listBackups() throws IOException {
+        return fileRepository.listBackups();
+    }
+
+    @Override
+    public List<BackupInfo> listBackupInfos() throws IOException {
+        return fileRepository.listBackupInfos();
+    }
+
+    @Override
+    public void deleteBackup(String backupName) throws IOException {
+        fileRepository.deleteBackup(backupName);
+    }
+
+    @Override
+    public void exportProject(ProjectData projectData, String exportPath) throws IOException {
+        fileRepository.exportProject(projectData, exportPath);
+    }
+
+    @Override
+    public ProjectData importProject(String importPath) throws IOException {
+        return fileRepository.importProject(importPath);
+    }
+
+    @Override
+    public void exportBundle(ProjectData projectData, String bundlePath) throws IOException {
+        fileRepository.exportBundle(projectData, bundlePath);
+    }
+
+    @Override
+    public ProjectData importBundle(String bundlePath) throws IOException {
+        return fileRepository.importBundle(bundlePath);
+    }
+
+    @Override
+    public BulkImportResult importProjects(String directoryPath, BulkImportMode mode) throws IOException {
+        return fileRepository.importProjects(directoryPath, mode);
+    }
+
+    @Override
+    public String getProjectFilePath() {
+        return store.getFile().toString();
+    }
+
+    @Override
+    public boolean isProjectFileStorage() {
+        // 存储文件中是键值记录，外部写入的项目需要重新保存为记录
+        return false;
+    }
+
+    @Override
+    public String getBackupDirectoryPath() {
+        return fileRepository.getBackupDirectoryPath();
+    }
+
+    @Override
+    public void setBackupRetentionPolicy(BackupRetentionPolicy policy) {
+        fileRepository.setBackupRetentionPolicy(policy);
+    }
+
+    @Override
+    public BackupRetentionPolicy getBackupRetentionPolicy() {
+        return fileRepository.getBackupRetentionPolicy();
+    }
+
+    @Override
+    public EditJournal getEditJournal() {
+        return editJournal;
+    }
+
+    @Override
+    public PageHistory getPageHistory() {
+        return fileRepository.getPageHistory();
+    }
+
+    /**
+     * 获取底层键值存储
+     */
+    public LogStructuredStore getStore() {
+        return store;
+    }
+
+    private <T> T readValue(String key, Class<T> type) throws IOException {
+        byte[] value = store.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return gson.fromJson(new String(value, StandardCharsets.UTF_8), type);
+        } catch (RuntimeException e) {
+            throw new IOException("存储记录格式错误: " + key.replace(KEY_SEPARATOR, '/'), e);
+        }
+    }
+
+    private byte[] toBytes(Object value) {
+        return gson.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String pageKey(String pageName) {
+        return PAGE_KEY_PREFIX + pageName;
+    }
+
+    private static String componentKeyPrefix(String pageName) {
+        return COMPONENT_KEY_PREFIX + pageName + KEY_SEPARATOR;
+    }
+
+    private static String componentKey(String pageName, String slot) {
+        return componentKeyPrefix(pageName) + slot;
+    }
+
+    private static String orderKeyPrefix(String pageName) {
+        return ORDER_KEY_PREFIX + pageName + KEY_SEPARATOR;
+    }
+
+    private static String orderKey(String pageName, String slot) {
+        return orderKeyPrefix(pageName) + slot;
+    }
+
+    /**
+     * 按存储中的页面记录逐个读取组件
+     */
+    private class StorePageLoader implements PageLoader {
+
+        private volatile ProjectManifest manifest;
+
+        ProjectManifest getManifest() {
+            return manifest;
+        }
+
+        void setManifest(ProjectManifest manifest) {
+            this.manifest = manifest;
+        }
+
+        @Override
+        public boolean containsPage(String pageName) {
+            ProjectManifest current = manifest;
+            return current != null && current.getPageFile(pageName) != null;
+        }
+
+        @Override
+        public PageData loadPage(String pageName) throws IOException {
+            PageRecord record = readValue(pageKey(pageName), PageRecord.class);
+            if (record == null) {
+                return null;
+            }
+
+            logger.debug("加载页面: {} ({} 个组件)", pageName, record.components.size());
+            PageData pageData = new PageData(record.name);
+            for (String slot : componentOrder(pageName, record)) {
+                ComponentData component = readValue(componentKey(pageName, slot), ComponentData.class);
+                if (component == null) {
+                    // 页面记录之后单独删除的组件
+                    logger.debug("组件记录已删除: {} / {}", pageName, slot);
+                    continue;
+                }
+                pageData.addComponent(component);
+            }
+            pageData.setBackgroundImage(record.backgroundImage);
+            pageData.setBackgroundColor(record.backgroundColor);
+            pageData.setCreatedTime(record.createdTime);
+            pageData.setLastModifiedTime(record.lastModifiedTime);
+
+            if (!pageData.validateIntegrity()) {
+                logger.warn("页面数据完整性检查失败，正在修复: {}", pageName);
+                pageData.repairIntegrity();
+            }
+            pageData.markLoaded();
+            return pageData;
+        }
+
+        /**
+         * 页面记录中的组件顺序，之后单独写入的新组件按追加序号排在末尾
+         */
+        private Collection<String> componentOrder(String pageName, PageRecord record) throws IOException {
+            List<String> orderKeys = store.keysWithPrefix(orderKeyPrefix(pageName));
+            if (orderKeys.isEmpty()) {
+                return record.components;
+            }
+            Map<String, Long> appended = new HashMap<>();
+            for (String key : orderKeys) {
+                Long sequence = readValue(key, Long.class);
+                appended.put(key.substring(orderKeyPrefix(pageName).length()), sequence != null ? sequence : 0L);
+            }
+            Set<String> order = new LinkedHashSet<>(record.components);
+            appended.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue())
+                    .forEach(entry -> {
+                        order.remove(entry.getKey());
+                        order.add(entry.getKey());
+                    });
+            return order;
+        }
+
+        @Override
+        public int getComponentCount(String pageName) {
+            // 单独读写组件不更新清单，按存储中的组件键计数
+            return containsPage(pageName) ? store.countWithPrefix(componentKeyPrefix(pageName)) : 0;
+        }
+    }
+
+    /**
+     * 页面记录：页面属性和整体写入时的组件键顺序，组件数据单独存放
+     */
+    private static class PageRecord {
+        String name;
+        long createdTime;
+        long lastModifiedTime;
+        String backgroundImage;
+        String backgroundColor;
+        List<String> components = new ArrayList<>();
+    }
+}
@@ -0,0 +1,453 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * 单文件日志结构键值存储
+ * 所有写入追加到文件末尾，内存中的有序索引记录每个键最新值的位置：
+ * 按键读取是一次索引查找加一次定位读，写入只追加变化的记录，不重写整个文件。
+ * 一批写入以提交记录结尾，打开时丢弃最后一个提交记录之后的不完整数据；
+ * 失效记录超过有效数据量时整理为新文件
+ *
+ * 记录格式: [crc32:4][类型:1][键长度:4][值长度:4][键][值]，crc 覆盖类型之后的全部字节
+ */
+public class LogStructuredStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStructuredStore.class);
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_COMMIT = 3;
+    private static final int HEADER_SIZE = 13;
+    private static final int MAX_KEY_LENGTH = 64 * 1024;
+
+    // 失效数据至少达到该大小且超过有效数据量时整理
+    private static final long COMPACTION_MIN_DEAD_BYTES = 1024 * 1024;
+
+    private final Path file;
+    private FileChannel channel;
+
+    // 键 -> 最新值的位置
+    private final TreeMap<String, ValuePointer> index = new TreeMap<>();
+    private long end;
+    private long liveBytes;
+
+    public LogStructuredStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * 获取存储文件路径
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 读取键的值
+     * @return 值，键不存在时返回null
+     */
+    public synchronized byte[] get(String key) throws IOException {
+        ValuePointer pointer = index.get(key);
+        return pointer != null ? read(pointer) : null;
+    }
+
+    /**
+     * 检查键是否存在
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * 获取以指定前缀开头的键（按键排序）
+     */
+    public synchronized List<String> keysWithPrefix(String prefix) {
+        return new ArrayList<>(index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+    }
+
+    /**
+     * 统计以指定前缀开头的键数量（只遍历内存索引）
+     */
+    public synchronized int countWithPrefix(String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).size();
+    }
+
+    /**
+     * 获取键数量
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * 获取存储文件当前大小（含失效记录）
+     */
+    public synchronized long fileSize() {
+        return end;
+    }
+
+    /**
+     * 创建写入批次
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * 写入单个键值
+     */
+    public void put(String key, byte[] value) throws IOException {
+        commit(newBatch().put(key, value));
+    }
+
+    /**
+     * 删除单个键
+     */
+    public void delete(String key) throws IOException {
+        commit(newBatch().delete(key));
+    }
+
+    /**
+     * 原子提交一批写入，提交记录落盘后才返回
+     * 与当前值相同的写入和不存在的键的删除会被跳过（长度和校验和一致时逐字节比较确认）
+     * @return 实际追加的记录数
+     */
+    public synchronized int commit(Batch batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, ValuePointer> applied = new LinkedHashMap<>();
+        int records = 0;
+
+        for (Map.Entry<String, byte[]> entry : batch.operations.entrySet()) {
+            String key = entry.getKey();
+            byte[] value = entry.getValue();
+            ValuePointer current = index.get(key);
+            if (value == null) {
+                if (current == null) {
+                    continue;
+                }
+                writeRecord(out, TYPE_DELETE, key, null);
+                applied.put(key, null);
+            } else {
+                int checksum = checksum(value);
+                if (current != null && current.length == value.length && current.checksum == checksum
+                        && Arrays.equals(read(current), value)) {
+                    continue;
+                }
+                int keyLength = writeRecord(out, TYPE_PUT, key, value);
+                long offset = end + bytes.size() - value.length;
+                applied.put(key, new ValuePointer(offset, value.length, checksum,
+                        HEADER_SIZE + keyLength + value.length));
+            }
+            records++;
+        }
+        if (records == 0) {
+            return 0;
+        }
+        writeRecord(out, TYPE_COMMIT, "", null);
+        out.flush();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        try {
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // 未写完的批次没有提交记录，截断后存储仍为提交前的状态
+            channel.truncate(end);
+            throw e;
+        }
+        end += buffer.capacity();
+
+        for (Map.Entry<String, ValuePointer> entry : applied.entrySet()) {
+            ValuePointer previous = entry.getValue() != null
+                    ? index.put(entry.getKey(), entry.getValue())
+                    : index.remove(entry.getKey());
+            if (previous != null) {
+                liveBytes -= previous.recordSize;
+            }
+            if (entry.getValue() != null) {
+                liveBytes += entry.getValue().recordSize;
+            }
+        }
+
+        compactIfNeeded();
+        return records;
+    }
+
+    /**
+     * 清空存储
+     */
+    public synchronized void clear() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+        index.clear();
+        end = 0;
+        liveBytes = 0;
+    }
+
+    /**
+     * 将有效记录重写到新文件，丢弃被覆盖和删除的记录
+     */
+    public synchronized void compact() throws IOException {
+        Path tempFile = Paths.get(file.toString() + ".compact");
+        TreeMap<String, ValuePointer> compacted = new TreeMap<>();
+        long position = 0;
+
+        try (FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, ValuePointer> entry : index.entrySet()) {
+                byte[] value = get(entry.getKey());
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + value.length + 32);
+                DataOutputStream out = new DataOutputStream(bytes);
+                int keyLength = writeRecord(out, TYPE_PUT, entry.getKey(), value);
+                out.flush();
+                position += writeFully(target, ByteBuffer.wrap(bytes.toByteArray()), position);
+                compacted.put(entry.getKey(), new ValuePointer(position - value.length, value.length,
+                        entry.getValue().checksum, HEADER_SIZE + keyLength + value.length));
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeRecord(out, TYPE_COMMIT, "", null);
+            out.flush();
+            position += writeFully(target, ByteBuffer.wrap(bytes.toByteArray()), position);
+            target.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        long before = end;
+        channel.close();
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        } finally {
+            // 移动失败时原文件不变，重新打开后存储仍按原索引使用
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        index.clear();
+        index.putAll(compacted);
+        end = position;
+        liveBytes = position - HEADER_SIZE;
+        SnapshotFiles.syncDirectory(file.toAbsolutePath().getParent());
+        logger.info("存储整理完成: {} -> {} 字节, {} 个键", before, end, index.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long deadBytes = end - liveBytes;
+        if (deadBytes >= COMPACTION_MIN_DEAD_BYTES && deadBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * 扫描存储文件重建索引，截断最后一个提交记录之后的数据
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        long committedEnd = 0;
+        Map<String, ValuePointer> pending = new LinkedHashMap<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int expected = header.getInt();
+            byte type = header.get();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            if (type < TYPE_PUT || type > TYPE_COMMIT || keyLength < 0 || keyLength > MAX_KEY_LENGTH
+                    || valueLength < 0 || position + HEADER_SIZE + keyLength + valueLength > size) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(keyLength + valueLength);
+            readFully(body, position + HEADER_SIZE);
+            crc.reset();
+            crc.update(header.array(), 4, HEADER_SIZE - 4);
+            crc.update(body.array(), 0, body.capacity());
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+
+            long recordSize = HEADER_SIZE + keyLength + valueLength;
+            String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            if (type == TYPE_PUT) {
+                int checksum = checksum(body.array(), keyLength, valueLength);
+                pending.put(key, new ValuePointer(position + HEADER_SIZE + keyLength, valueLength, checksum,
+                        recordSize));
+            } else if (type == TYPE_DELETE) {
+                pending.put(key, null);
+            }
+            position += recordSize;
+
+            if (type == TYPE_COMMIT) {
+                for (Map.Entry<String, ValuePointer> entry : pending.entrySet()) {
+                    ValuePointer previous = entry.getValue() != null
+                            ? index.put(entry.getKey(), entry.getValue())
+                            : index.remove(entry.getKey());
+                    if (previous != null) {
+                        liveBytes -= previous.recordSize;
+                    }
+                    if (entry.getValue() != null) {
+                        liveBytes += entry.getValue().recordSize;
+                    }
+                }
+                pending.clear();
+                committedEnd = position;
+            }
+        }
+
+        if (committedEnd < size) {
+            logger.warn("存储文件末尾有未提交或损坏的数据，截断 {} 字节: {}", size - committedEnd, file);
+            channel.truncate(committedEnd);
+            channel.force(true);
+        }
+        end = committedEnd;
+        logger.debug("存储文件加载完成: {} 个键, {} 字节", index.size(), end);
+    }
+
+    private byte[] read(ValuePointer pointer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(pointer.length);
+        readFully(buffer, pointer.offset);
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("存储文件被截断: " + file);
+            }
+        }
+    }
+
+    private static long writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            target.write(buffer, position + buffer.position());
+        }
+        return length;
+    }
+
+    /**
+     * 写入一条记录
+     * @return 键的字节长度
+     */
+    private static int writeRecord(DataOutputStream out, byte type, String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("键过长: " + keyBytes.length + " 字节");
+        }
+        int valueLength = value != null ? value.length : 0;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0).put(type).putInt(keyBytes.length).putInt(valueLength);
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 4, HEADER_SIZE - 4);
+        crc.update(keyBytes);
+        if (value != null) {
+            crc.update(value);
+        }
+        header.putInt(0, (int) crc.getValue());
+
+        out.write(header.array());
+        out.write(keyBytes);
+        if (value != null) {
+            out.write(value);
+        }
+        return keyBytes.length;
+    }
+
+    private static int checksum(byte[] value) {
+        return checksum(value, 0, value.length);
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 写入批次，同一个键以最后一次操作为准
+     */
+    public static class Batch {
+        // 键 -> 新值，null 表示删除
+        private final Map<String, byte[]> operations = new LinkedHashMap<>();
+
+        public Batch put(String key, byte[] value) {
+            if (value == null) {
+                throw new IllegalArgumentException("值不能为null");
+            }
+            operations.remove(key);
+            operations.put(key, value);
+            return this;
+        }
+
+        public Batch delete(String key) {
+            operations.remove(key);
+            operations.put(key, null);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return operations.isEmpty();
+        }
+    }
+
+    /**
+     * 值在存储文件中的位置
+     */
+    private static class ValuePointer {
+        final long offset;
+        final int length;
+        final int checksum;
+        final long recordSize;
+
+        ValuePointer(long offset, int length, int checksum, long recordSize) {
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+            this.recordSize = recordSize;
+        }
+    }
+}
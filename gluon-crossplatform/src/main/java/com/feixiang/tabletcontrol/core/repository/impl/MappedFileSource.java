@@ -0,0 +1,209 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射文件输入
+ * 按窗口将文件映射到内存，字节直接从映射区读取，UTF-8 解码直接写入调用方的字符数组，
+ * 不经过流缓冲区和整文件字符缓冲区，适合导入数百MB的大文件。
+ * 映射区在缓冲区被回收时才释放（Windows 上回收前文件不能被删除）
+ */
+public class MappedFileSource implements Closeable {
+
+    // 单个映射窗口大小，超过窗口的文件按顺序滑动映射
+    static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private long size;
+    private final long windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public MappedFileSource(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedFileSource(Path file, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * 获取文件大小
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 只读取文件的前 length 字节（用于忽略快照校验尾），需在创建流之前调用
+     */
+    public void limit(long length) {
+        size = Math.min(size, Math.max(0, length));
+    }
+
+    /**
+     * 创建从文件开头读取的 UTF-8 字符流（格式错误的字节按 InputStreamReader 的方式替换）
+     */
+    public Reader newReader() {
+        return new MappedReader();
+    }
+
+    /**
+     * 创建从文件开头读取的字节流，支持 mark/reset
+     */
+    public InputStream newInputStream() {
+        return new MappedInputStream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * 获取包含指定位置的映射窗口，缓冲区位置设置到该位置
+     */
+    private ByteBuffer windowAt(long position) throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.capacity()) {
+            long length = Math.min(windowSize, size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            windowStart = position;
+        }
+        window.position((int) (position - windowStart));
+        return window;
+    }
+
+    /**
+     * 当前窗口是否已覆盖到文件末尾
+     */
+    private boolean windowReachesEnd() {
+        return windowStart + window.capacity() >= size;
+    }
+
+    /**
+     * UTF-8 字符流
+     */
+    private class MappedReader extends Reader {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private long position;
+        private boolean flushed;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+            while (out.position() == off) {
+                if (position >= size) {
+                    if (!flushed) {
+                        decoder.decode(ByteBuffer.allocate(0), out, true);
+                        decoder.flush(out);
+                        flushed = true;
+                    }
+                    break;
+                }
+
+                ByteBuffer in = windowAt(position);
+                boolean endOfInput = windowReachesEnd();
+                CoderResult result = decoder.decode(in, out, endOfInput);
+                long consumed = windowStart + in.position() - position;
+                position += consumed;
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (consumed == 0 && out.position() == off && !endOfInput) {
+                    // 多字节字符跨越窗口边界，从该字符开始重新映射
+                    window = null;
+                }
+            }
+            int read = out.position() - off;
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+            position = size;
+            flushed = true;
+        }
+    }
+
+    /**
+     * 字节流
+     */
+    private class MappedInputStream extends InputStream {
+        private long position;
+        private long mark;
+
+        @Override
+        public int read() throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+            int b = windowAt(position).get() & 0xFF;
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            ByteBuffer in = windowAt(position);
+            int read = Math.min(len, in.remaining());
+            in.get(b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+    }
+}
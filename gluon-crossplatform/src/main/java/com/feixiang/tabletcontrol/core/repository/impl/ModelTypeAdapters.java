@@ -0,0 +1,624 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.LabelData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.model.RelativePosition;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据模型的手写类型适配器
+ * 不依赖反射逐字段读写，字段顺序和空值处理与 Gson 反射输出一致，
+ * 原生镜像中模型类不再需要反射配置。读取时未知字段被跳过，缺失字段保留构造函数中的默认值
+ */
+public final class ModelTypeAdapters {
+
+    private ModelTypeAdapters() {
+    }
+
+    /**
+     * 创建注册了模型适配器的 GsonBuilder
+     */
+    public static GsonBuilder newGsonBuilder() {
+        RelativePositionAdapter positionAdapter = new RelativePositionAdapter();
+        LabelDataAdapter labelAdapter = new LabelDataAdapter();
+        ComponentDataAdapter componentAdapter = new ComponentDataAdapter(positionAdapter, labelAdapter);
+        PageDataAdapter pageAdapter = new PageDataAdapter(componentAdapter);
+        ProjectDataAdapter projectAdapter = new ProjectDataAdapter(pageAdapter);
+
+        return new GsonBuilder()
+                .registerTypeAdapter(RelativePosition.class, positionAdapter.nullSafe())
+                .registerTypeAdapter(LabelData.class, labelAdapter.nullSafe())
+                .registerTypeAdapter(ComponentData.class, componentAdapter.nullSafe())
+                .registerTypeAdapter(PageData.class, pageAdapter.nullSafe())
+                .registerTypeAdapter(ProjectData.class, projectAdapter.nullSafe());
+    }
+
+    /**
+     * 创建紧凑格式的 Gson（编辑日志、备份数据块）
+     */
+    public static Gson createGson() {
+        return newGsonBuilder().create();
+    }
+
+    /**
+     * 创建带缩进的 Gson（项目文件、导出文件）
+     */
+    public static Gson createPrettyGson() {
+        return newGsonBuilder()
+                .setPrettyPrinting()
+                .setDateFormat("yyyy-MM-dd HH:mm:ss")
+                .create();
+    }
+
+    /**
+     * 项目适配器
+     */
+    private static class ProjectDataAdapter extends TypeAdapter<ProjectData> {
+        private final PageDataAdapter pageAdapter;
+
+        ProjectDataAdapter(PageDataAdapter pageAdapter) {
+            this.pageAdapter = pageAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ProjectData value) throws IOException {
+            out.beginObject();
+            out.name("name").value(value.getName());
+            out.name("description").value(value.getDescription());
+            out.name("pages");
+            writeStringList(out, value.getPages());
+            out.name("currentPage").value(value.getCurrentPage());
+            out.name("pageContents");
+            Map<String, PageData> pageContents = value.getPageContents();
+            if (pageContents == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<String, PageData> entry : pageContents.entrySet()) {
+                    out.name(entry.getKey());
+                    writeNullable(out, pageAdapter, entry.getValue());
+                }
+                out.endObject();
+            }
+            out.name("createdTime").value(value.getCreatedTime());
+            out.name("lastModifiedTime").value(value.getLastModifiedTime());
+            out.name("version").value(value.getVersion());
+            out.name("editResolution").value(value.getEditResolution());
+            out.endObject();
+        }
+
+        @Override
+        public ProjectData read(JsonReader in) throws IOException {
+            ProjectData projectData = new ProjectData();
+            long lastModifiedTime = projectData.getLastModifiedTime();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                switch (field) {
+                    case "name":
+                        projectData.setName(nextString(in));
+                        break;
+                    case "description":
+                        projectData.setDescription(nextString(in));
+                        break;
+                    case "pages":
+                        if (!skipNull(in)) {
+                            projectData.setPages(readStringList(in));
+                        }
+                        break;
+                    case "currentPage":
+                        projectData.setCurrentPage(nextString(in));
+                        break;
+                    case "pageContents":
+                        if (skipNull(in)) {
+                            break;
+                        }
+                        Map<String, PageData> pageContents = projectData.getPageContents();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String pageName = in.nextName();
+                            pageContents.put(pageName, readNullable(in, pageAdapter));
+                        }
+                        in.endObject();
+                        break;
+                    case "createdTime":
+                        if (!skipNull(in)) {
+                            projectData.setCreatedTime(in.nextLong());
+                        }
+                        break;
+                    case "lastModifiedTime":
+                        if (!skipNull(in)) {
+                            lastModifiedTime = in.nextLong();
+                        }
+                        break;
+                    case "version":
+                        projectData.setVersion(nextString(in));
+                        break;
+                    case "editResolution":
+                        projectData.setEditResolution(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            // 修改时间最后设置，避免被各个setter覆盖
+            projectData.setLastModifiedTime(lastModifiedTime);
+            return projectData;
+        }
+    }
+
+    /**
+     * 页面适配器
+     */
+    private static class PageDataAdapter extends TypeAdapter<PageData> {
+        private final ComponentDataAdapter componentAdapter;
+
+        PageDataAdapter(ComponentDataAdapter componentAdapter) {
+            this.componentAdapter = componentAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, PageData value) throws IOException {
+            out.beginObject();
+            out.name("name").value(value.getName());
+            out.name("components");
+            List<ComponentData> components = value.getComponents();
+            if (components == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (ComponentData component : components) {
+                    writeNullable(out, componentAdapter, component);
+                }
+                out.endArray();
+            }
+            out.name("createdTime").value(value.getCreatedTime());
+            out.name("lastModifiedTime").value(value.getLastModifiedTime());
+            out.name("backgroundImage").value(value.getBackgroundImage());
+            out.name("backgroundColor").value(value.getBackgroundColor());
+            out.endObject();
+        }
+
+        @Override
+        public PageData read(JsonReader in) throws IOException {
+            PageData pageData = new PageData();
+            long lastModifiedTime = pageData.getLastModifiedTime();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                switch (field) {
+                    case "name":
+                        pageData.setName(nextString(in));
+                        break;
+                    case "components":
+                        if (skipNull(in)) {
+                            break;
+                        }
+                        List<ComponentData> components = pageData.getComponents();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            components.add(readNullable(in, componentAdapter));
+                        }
+                        in.endArray();
+                        break;
+                    case "createdTime":
+                        if (!skipNull(in)) {
+                            pageData.setCreatedTime(in.nextLong());
+                        }
+                        break;
+                    case "lastModifiedTime":
+                        if (!skipNull(in)) {
+                            lastModifiedTime = in.nextLong();
+                        }
+                        break;
+                    case "backgroundImage":
+                        pageData.setBackgroundImage(nextString(in));
+                        break;
+                    case "backgroundColor":
+                        pageData.setBackgroundColor(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            pageData.setLastModifiedTime(lastModifiedTime);
+            return pageData;
+        }
+    }
+
+    /**
+     * 组件适配器
+     */
+    private static class ComponentDataAdapter extends TypeAdapter<ComponentData> {
+        private final RelativePositionAdapter positionAdapter;
+        private final LabelDataAdapter labelAdapter;
+
+        ComponentDataAdapter(RelativePositionAdapter positionAdapter, LabelDataAdapter labelAdapter) {
+            this.positionAdapter = positionAdapter;
+            this.labelAdapter = labelAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ComponentData value) throws IOException {
+            out.beginObject();
+            out.name("x").value(value.getX());
+            out.name("y").value(value.getY());
+            out.name("width").value(value.getWidth());
+            out.name("height").value(value.getHeight());
+            out.name("originalWidth").value(value.getOriginalWidth());
+            out.name("originalHeight").value(value.getOriginalHeight());
+            out.name("relativePosition");
+            writeNullable(out, positionAdapter, value.getRelativePosition());
+            ComponentData.PositionMode positionMode = value.getPositionMode();
+            out.name("positionMode").value(positionMode != null ? positionMode.name() : null);
+            out.name("functionType").value(value.getFunctionType());
+            out.name("labelData");
+            writeNullable(out, labelAdapter, value.getLabelData());
+            out.name("componentId").value(value.getComponentId());
+            out.name("visible").value(value.isVisible());
+            out.name("enabled").value(value.isEnabled());
+            out.name("tooltip").value(value.getTooltip());
+            out.name("cssClass").value(value.getCssClass());
+            out.endObject();
+        }
+
+        @Override
+        public ComponentData read(JsonReader in) throws IOException {
+            ComponentData component = new ComponentData();
+            // setRelativePosition 会修改定位模式，读取完成后再设置
+            ComponentData.PositionMode positionMode = component.getPositionMode();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    // 引用类型字段显式为null时置空，基本类型字段保留默认值
+                    switch (field) {
+                        case "relativePosition":
+                            component.setRelativePosition(null);
+                            break;
+                        case "positionMode":
+                            positionMode = null;
+                            break;
+                        case "functionType":
+                            component.setFunctionType(null);
+                            break;
+                        case "labelData":
+                            component.setLabelData(null);
+                            break;
+                        case "componentId":
+                            component.setComponentId(null);
+                            break;
+                        case "tooltip":
+                            component.setTooltip(null);
+                            break;
+                        case "cssClass":
+                            component.setCssClass(null);
+                            break;
+                        default:
+                            break;
+                    }
+                    continue;
+                }
+                switch (field) {
+                    case "x":
+                        component.setX(in.nextInt());
+                        break;
+                    case "y":
+                        component.setY(in.nextInt());
+                        break;
+                    case "width":
+                        component.setWidth(in.nextInt());
+                        break;
+                    case "height":
+                        component.setHeight(in.nextInt());
+                        break;
+                    case "originalWidth":
+                        component.setOriginalWidth(in.nextInt());
+                        break;
+                    case "originalHeight":
+                        component.setOriginalHeight(in.nextInt());
+                        break;
+                    case "relativePosition":
+                        component.setRelativePosition(positionAdapter.read(in));
+                        break;
+                    case "positionMode":
+                        positionMode = parsePositionMode(in.nextString());
+                        break;
+                    case "functionType":
+                        component.setFunctionType(in.nextString());
+                        break;
+                    case "labelData":
+                        component.setLabelData(labelAdapter.read(in));
+                        break;
+                    case "componentId":
+                        component.setComponentId(in.nextString());
+                        break;
+                    case "visible":
+                        component.setVisible(in.nextBoolean());
+                        break;
+                    case "enabled":
+                        component.setEnabled(in.nextBoolean());
+                        break;
+                    case "tooltip":
+                        component.setTooltip(in.nextString());
+                        break;
+                    case "cssClass":
+                        component.setCssClass(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            component.setPositionMode(positionMode);
+            return component;
+        }
+
+        private static ComponentData.PositionMode parsePositionMode(String name) {
+            for (ComponentData.PositionMode mode : ComponentData.PositionMode.values()) {
+                if (mode.name().equals(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 标签适配器
+     */
+    private static class LabelDataAdapter extends TypeAdapter<LabelData> {
+
+        @Override
+        public void write(JsonWriter out, LabelData value) throws IOException {
+            out.beginObject();
+            out.name("text").value(value.getText());
+            out.name("fontName").value(value.getFontName());
+            out.name("fontSize").value(value.getFontSize());
+            out.name("fontStyle").value(value.getFontStyle());
+            out.name("colorRGB").value(value.getColorRGB());
+            out.name("iconPath").value(value.getIconPath());
+            out.name("originalFontSize").value(value.getOriginalFontSize());
+            out.name("horizontalAlignment").value(value.getHorizontalAlignment());
+            out.name("verticalAlignment").value(value.getVerticalAlignment());
+            out.name("horizontalTextPosition").value(value.getHorizontalTextPosition());
+            out.name("verticalTextPosition").value(value.getVerticalTextPosition());
+            out.name("fontFamily").value(value.getFontFamily());
+            out.name("autoScaleFont").value(value.isAutoScaleFont());
+            out.name("fontScaleFactor").value(value.getFontScaleFactor());
+            out.endObject();
+        }
+
+        @Override
+        public LabelData read(JsonReader in) throws IOException {
+            LabelData label = new LabelData();
+            // setFontName 会重新推导字体族，读取完成后再设置
+            String fontFamily = label.getFontFamily();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    switch (field) {
+                        case "text":
+                            label.setText(null);
+                            break;
+                        case "fontName":
+                            label.setFontName(null);
+                            break;
+                        case "iconPath":
+                            label.setIconPath(null);
+                            break;
+                        case "fontFamily":
+                            fontFamily = null;
+                            break;
+                        default:
+                            break;
+                    }
+                    continue;
+                }
+                switch (field) {
+                    case "text":
+                        label.setText(in.nextString());
+                        break;
+                    case "fontName":
+                        label.setFontName(in.nextString());
+                        break;
+                    case "fontSize":
+                        label.setFontSize(in.nextInt());
+                        break;
+                    case "fontStyle":
+                        label.setFontStyle(in.nextInt());
+                        break;
+                    case "colorRGB":
+                        label.setColorRGB(in.nextInt());
+                        break;
+                    case "iconPath":
+                        label.setIconPath(in.nextString());
+                        break;
+                    case "originalFontSize":
+                        label.setOriginalFontSize(in.nextInt());
+                        break;
+                    case "horizontalAlignment":
+                        label.setHorizontalAlignment(in.nextInt());
+                        break;
+                    case "verticalAlignment":
+                        label.setVerticalAlignment(in.nextInt());
+                        break;
+                    case "horizontalTextPosition":
+                        label.setHorizontalTextPosition(in.nextInt());
+                        break;
+                    case "verticalTextPosition":
+                        label.setVerticalTextPosition(in.nextInt());
+                        break;
+                    case "fontFamily":
+                        fontFamily = in.nextString();
+                        break;
+                    case "autoScaleFont":
+                        label.setAutoScaleFont(in.nextBoolean());
+                        break;
+                    case "fontScaleFactor":
+                        label.setFontScaleFactor(in.nextDouble());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            label.setFontFamily(fontFamily);
+            return label;
+        }
+    }
+
+    /**
+     * 相对位置适配器
+     */
+    private static class RelativePositionAdapter extends TypeAdapter<RelativePosition> {
+
+        @Override
+        public void write(JsonWriter out, RelativePosition value) throws IOException {
+            out.beginObject();
+            out.name("relativeX").value(value.getRelativeX());
+            out.name("relativeY").value(value.getRelativeY());
+            out.name("relativeWidth").value(value.getRelativeWidth());
+            out.name("relativeHeight").value(value.getRelativeHeight());
+            out.name("minWidth").value(value.getMinWidth());
+            out.name("minHeight").value(value.getMinHeight());
+            out.name("maxWidth").value(value.getMaxWidth());
+            out.name("maxHeight").value(value.getMaxHeight());
+            out.endObject();
+        }
+
+        @Override
+        public RelativePosition read(JsonReader in) throws IOException {
+            RelativePosition position = new RelativePosition();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (field) {
+                    case "relativeX":
+                        position.setRelativeX(in.nextDouble());
+                        break;
+                    case "relativeY":
+                        position.setRelativeY(in.nextDouble());
+                        break;
+                    case "relativeWidth":
+                        position.setRelativeWidth(in.nextDouble());
+                        break;
+                    case "relativeHeight":
+                        position.setRelativeHeight(in.nextDouble());
+                        break;
+                    case "minWidth":
+                        position.setMinWidth(in.nextInt());
+                        break;
+                    case "minHeight":
+                        position.setMinHeight(in.nextInt());
+                        break;
+                    case "maxWidth":
+                        position.setMaxWidth(in.nextInt());
+                        break;
+                    case "maxHeight":
+                        position.setMaxHeight(in.nextInt());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return position;
+        }
+    }
+
+    // 工具方法
+
+    /**
+     * 跳过显式的null值（字段保留默认值）
+     * @return 如果跳过了null值则返回true
+     */
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    private static <T> void writeNullable(JsonWriter out, TypeAdapter<T> adapter, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            adapter.write(out, value);
+        }
+    }
+
+    private static <T> T readNullable(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return adapter.read(in);
+    }
+
+    private static void writeStringList(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStringList(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(null);
+            } else {
+                values.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+}
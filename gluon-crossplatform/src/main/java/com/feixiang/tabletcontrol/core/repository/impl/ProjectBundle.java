@@ -0,0 +1,346 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 项目资源包
+ * 将项目和引用的资源文件（页面背景图、标签图标）打包为一个zip文件，便于在设备之间迁移。
+ * 资源按内容的SHA-256去重，包内路径为 assets/{哈希}.{扩展名}；导入时资源解压到数据目录的 assets 下，
+ * 项目中的路径改写为相对数据目录的同名路径。
+ * 资源文件通过 FileChannel 直接传输，不把整张图片读入内存
+ */
+public class ProjectBundle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectBundle.class);
+
+    public static final String BUNDLE_EXTENSION = ".zip";
+    public static final String ASSETS_DIR_NAME = "assets";
+
+    private static final String PROJECT_ENTRY_NAME = "project.json";
+    private static final Pattern ASSET_ENTRY_PATTERN =
+            Pattern.compile("^" + ASSETS_DIR_NAME + "/[0-9a-f]{64}(\\.[A-Za-z0-9]{1,10})?$");
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path dataDirectory;
+    private final Gson gson;
+
+    /**
+     * @param dataDirectory 数据目录，相对资源路径以此为基准，导入的资源解压到其中的 assets 目录
+     */
+    public ProjectBundle(Path dataDirectory, Gson gson) {
+        this.dataDirectory = dataDirectory;
+        this.gson = gson;
+    }
+
+    /**
+     * 导出项目和引用的资源，项目本身不被修改
+     * @param projectData 页面已全部加载的项目数据
+     * @param bundleFile 资源包文件
+     * @return 打包的资源文件数（去重后）
+     */
+    public int export(ProjectData projectData, Path bundleFile) throws IOException {
+        // 源路径 -> 包内路径，同一内容只打包一次
+        Map<String, String> entryNames = new LinkedHashMap<>();
+        Map<String, Asset> assets = new LinkedHashMap<>();
+        for (String assetPath : collectAssetPaths(projectData).keySet()) {
+            Path source = resolveAsset(assetPath);
+            if (!Files.isRegularFile(source)) {
+                logger.warn("资源文件不存在，保留原路径: {}", assetPath);
+                continue;
+            }
+            Asset asset = hashAsset(source);
+            String entryName = ASSETS_DIR_NAME + "/" + asset.hash + extensionOf(source);
+            assets.putIfAbsent(entryName, asset);
+            entryNames.put(assetPath, entryName);
+        }
+
+        ProjectData bundled = rewriteAssetPaths(projectData, entryNames);
+
+        Path parentDir = bundleFile.toAbsolutePath().getParent();
+        if (parentDir != null) {
+            Files.createDirectories(parentDir);
+        }
+        Path tempFile = Paths.get(bundleFile.toString() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile));
+                 ZipOutputStream zip = new ZipOutputStream(out)) {
+                zip.putNextEntry(new ZipEntry(PROJECT_ENTRY_NAME));
+                Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+                gson.toJson(bundled, writer);
+                writer.flush();
+                zip.closeEntry();
+
+                // 图片本身已压缩，资源按原样存储
+                WritableByteChannel target = Channels.newChannel(zip);
+                for (Map.Entry<String, Asset> entry : assets.entrySet()) {
+                    Asset asset = entry.getValue();
+                    ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(asset.size);
+                    zipEntry.setCompressedSize(asset.size);
+                    zipEntry.setCrc(asset.crc);
+                    zip.putNextEntry(zipEntry);
+                    try (FileChannel source = FileChannel.open(asset.file, StandardOpenOption.READ)) {
+                        long position = 0;
+                        while (position < asset.size) {
+                            position += source.transferTo(position, asset.size - position, target);
+                        }
+                    }
+                    zip.closeEntry();
+                }
+            }
+            Files.move(tempFile, bundleFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        logger.info("资源包导出完成: {} ({} 个资源)", bundleFile, assets.size());
+        return assets.size();
+    }
+
+    /**
+     * 导入资源包，资源解压到数据目录的 assets 下（已存在的同名资源内容相同，直接复用）
+     * @return 项目数据，资源路径为相对数据目录的路径
+     */
+    public ProjectData importBundle(Path bundleFile) throws IOException {
+        Path assetsDir = dataDirectory.resolve(ASSETS_DIR_NAME);
+        Files.createDirectories(assetsDir);
+
+        ProjectData projectData = null;
+        int extracted = 0;
+        try (ZipFile zip = new ZipFile(bundleFile.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (PROJECT_ENTRY_NAME.equals(entry.getName())) {
+                    try (Reader reader = new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)) {
+                        projectData = gson.fromJson(reader, ProjectData.class);
+                    }
+                } else if (ASSET_ENTRY_PATTERN.matcher(entry.getName()).matches()) {
+                    if (extractAsset(zip, entry, assetsDir)) {
+                        extracted++;
+                    }
+                } else {
+                    logger.warn("忽略资源包中的未知条目: {}", entry.getName());
+                }
+            }
+        }
+
+        if (projectData == null) {
+            throw new IOException("资源包中没有项目数据: " + bundleFile);
+        }
+        for (String assetPath : collectAssetPaths(projectData).keySet()) {
+            if (ASSET_ENTRY_PATTERN.matcher(assetPath).matches() && !Files.exists(resolveAsset(assetPath))) {
+                logger.warn("资源包缺少项目引用的资源: {}", assetPath);
+            }
+        }
+
+        logger.info("资源包导入完成: {} (解压 {} 个资源)", bundleFile, extracted);
+        return projectData;
+    }
+
+    /**
+     * 解压单个资源并校验内容哈希
+     * @return 如果写入了新文件则返回true
+     */
+    private boolean extractAsset(ZipFile zip, ZipEntry entry, Path assetsDir) throws IOException {
+        String fileName = entry.getName().substring(ASSETS_DIR_NAME.length() + 1);
+        Path target = assetsDir.resolve(fileName);
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        String expectedHash = stripExtension(fileName);
+        Path tempFile = assetsDir.resolve(fileName + ".tmp");
+        MessageDigest digest = newDigest();
+        try {
+            try (InputStream in = new DigestInputStream(zip.getInputStream(entry), digest);
+                 ReadableByteChannel source = Channels.newChannel(in);
+                 FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = out.transferFrom(source, position, HASH_BUFFER_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
+            String actualHash = toHex(digest.digest());
+            if (!actualHash.equals(expectedHash)) {
+                throw new IOException("资源内容与哈希不一致: " + entry.getName());
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 收集项目引用的资源路径：资源路径 -> 引用次数
+     */
+    private static Map<String, Integer> collectAssetPaths(ProjectData projectData) {
+        Map<String, Integer> paths = new LinkedHashMap<>();
+        for (String pageName : projectData.getPages()) {
+            PageData page = projectData.getPageData(pageName);
+            if (page == null) {
+                continue;
+            }
+            addAssetPath(paths, page.getBackgroundImage());
+            for (ComponentData component : page.getComponents()) {
+                if (component != null && component.getLabelData() != null) {
+                    addAssetPath(paths, component.getLabelData().getIconPath());
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static void addAssetPath(Map<String, Integer> paths, String path) {
+        if (path != null && !path.trim().isEmpty()) {
+            paths.merge(path, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 创建资源路径改写后的项目副本
+     */
+    private static ProjectData rewriteAssetPaths(ProjectData projectData, Map<String, String> entryNames) {
+        ProjectData copy = ProjectManifest.fromProject(projectData).toProject();
+        for (String pageName : projectData.getPages()) {
+            PageData source = projectData.getPageData(pageName);
+            if (source == null) {
+                continue;
+            }
+            PageData page = source.copy();
+            if (page.getBackgroundImage() != null) {
+                page.setBackgroundImage(entryNames.getOrDefault(page.getBackgroundImage(), page.getBackgroundImage()));
+            }
+            for (ComponentData component : page.getComponents()) {
+                if (component != null && component.getLabelData() != null
+                        && component.getLabelData().getIconPath() != null) {
+                    String iconPath = component.getLabelData().getIconPath();
+                    component.getLabelData().setIconPath(entryNames.getOrDefault(iconPath, iconPath));
+                }
+            }
+            copy.addPage(page);
+        }
+        copy.setLastModifiedTime(projectData.getLastModifiedTime());
+        return copy;
+    }
+
+    /**
+     * 解析资源路径，相对路径以数据目录为基准
+     */
+    private Path resolveAsset(String assetPath) {
+        Path path = Paths.get(assetPath);
+        return path.isAbsolute() ? path : dataDirectory.resolve(path);
+    }
+
+    /**
+     * 流式计算资源的SHA-256和CRC32（存储条目需要预先知道CRC）
+     */
+    private static Asset hashAsset(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        CRC32 crc = new CRC32();
+        long size = 0;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                buffer.mark();
+                digest.update(buffer);
+                buffer.reset();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new Asset(file, toHex(digest.digest()), crc.getValue(), size);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String extensionOf(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String extension = dot > 0 ? fileName.substring(dot).toLowerCase() : "";
+        return extension.matches("\\.[a-z0-9]{1,10}") ? extension : "";
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.indexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    /**
+     * 待打包的资源文件
+     */
+    private static class Asset {
+        final Path file;
+        final String hash;
+        final long crc;
+        final long size;
+
+        Asset(Path file, String hash, long crc, long size) {
+            this.file = file;
+            this.hash = hash;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+}
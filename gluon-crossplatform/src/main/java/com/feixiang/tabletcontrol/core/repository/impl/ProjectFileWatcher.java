@@ -0,0 +1,333 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.ExternalChangeListener;
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
+import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 项目文件监视器
+ * 通过 WatchService 监视数据目录，项目文件被其他程序替换或修改后读取新文件并通知监听器。
+ * 连续的文件事件合并为一次检查；应用自身的保存在 {@link #beginOwnWrite()} 和 {@link #endOwnWrite()}
+ * 之间进行，结束时记录文件内容哈希，之后内容相同的事件被忽略
+ */
+public class ProjectFileWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectFileWatcher.class);
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    private static final Gson PAGE_GSON = ModelTypeAdapters.createGson();
+
+    private final ProjectRepository repository;
+    private final Path projectFile;
+    private final ExternalChangeListener listener;
+
+    // 保护自身写入计数和已知的文件哈希
+    private final Object stateLock = new Object();
+    private int ownWrites = 0;
+    private String knownHash;
+
+    private volatile long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    // 延迟检查
+    private final Object scheduleLock = new Object();
+    private ScheduledExecutorService checkExecutor;
+    private ScheduledFuture<?> pendingCheck;
+
+    public ProjectFileWatcher(ProjectRepository repository, ExternalChangeListener listener) {
+        this.repository = repository;
+        this.projectFile = Paths.get(repository.getProjectFilePath()).toAbsolutePath();
+        this.listener = listener;
+    }
+
+    /**
+     * 开始监视，以当前文件内容作为已知状态
+     * @throws IOException 无法监视数据目录时抛出异常
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        synchronized (stateLock) {
+            knownHash = hashProjectFile();
+        }
+
+        Path directory = projectFile.getParent();
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        synchronized (scheduleLock) {
+            checkExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "project-file-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        watchThread = new Thread(this::watchLoop, "project-file-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("开始监视项目文件: {}", projectFile);
+    }
+
+    /**
+     * 设置合并文件事件的等待时间
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = Math.max(0, debounceMillis);
+    }
+
+    /**
+     * 应用自身开始写入项目文件，写入期间的文件事件推迟处理
+     */
+    public void beginOwnWrite() {
+        synchronized (stateLock) {
+            ownWrites++;
+        }
+    }
+
+    /**
+     * 应用自身写入结束，记录写入后的文件内容
+     */
+    public void endOwnWrite() {
+        synchronized (stateLock) {
+            if (ownWrites > 0) {
+                ownWrites--;
+            }
+            if (ownWrites == 0) {
+                try {
+                    knownHash = hashProjectFile();
+                } catch (IOException e) {
+                    logger.warn("计算项目文件哈希失败: {}", projectFile, e);
+                    knownHash = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 立即检查项目文件是否被外部修改
+     * @return 发现外部修改并已通知监听器时返回true
+     */
+    public boolean checkForChanges() {
+        ProjectData externalProject;
+        synchronized (stateLock) {
+            if (ownWrites > 0) {
+                // 自身写入尚未结束，稍后再检查
+                scheduleCheck();
+                return false;
+            }
+            if (!Files.exists(projectFile)) {
+                return false;
+            }
+            String hash;
+            try {
+                hash = hashProjectFile();
+            } catch (IOException e) {
+                logger.warn("读取项目文件失败，等待下次修改: {}", projectFile, e);
+                return false;
+            }
+            if (hash == null || hash.equals(knownHash)) {
+                return false;
+            }
+
+            // 在状态锁内读取，读取期间自身的保存等待，不会把自己写入的内容当作外部修改
+            try {
+                externalProject = repository.importProject(projectFile.toString());
+            } catch (IOException e) {
+                // 外部程序可能尚未写完，下一次文件事件时重试
+                logger.warn("外部修改的项目文件无法读取，等待下次修改: {}", projectFile, e);
+                return false;
+            }
+            knownHash = hash;
+        }
+
+        logger.info("检测到项目文件外部修改: {}", projectFile);
+        listener.onProjectFileChanged(externalProject);
+        return true;
+    }
+
+    /**
+     * 按页面比较外部项目与内存中的项目
+     * 页面内容按序列化结果比较，尚未加载的页面会从存储中加载；
+     * 有未保存修改的页面不被外部版本覆盖或删除，记录为冲突
+     */
+    public static ProjectChangeSet diff(ProjectData current, ProjectData external) {
+        Set<String> changedPages = new LinkedHashSet<>();
+        Set<String> removedPages = new LinkedHashSet<>();
+        Set<String> conflictPages = new LinkedHashSet<>();
+
+        for (String pageName : external.getPages()) {
+            PageData externalPage = external.getPageData(pageName);
+            if (externalPage == null) {
+                continue;
+            }
+            PageData currentPage = current.hasPage(pageName) ? current.getPageData(pageName) : null;
+            if (currentPage == null) {
+                changedPages.add(pageName);
+            } else if (!PAGE_GSON.toJsonTree(currentPage).equals(PAGE_GSON.toJsonTree(externalPage))) {
+                (currentPage.isDirty() ? conflictPages : changedPages).add(pageName);
+            }
+        }
+        for (String pageName : current.getPages()) {
+            if (!external.hasPage(pageName)) {
+                PageData currentPage = current.isPageLoaded(pageName) ? current.getPageData(pageName) : null;
+                (currentPage != null && currentPage.isDirty() ? conflictPages : removedPages).add(pageName);
+            }
+        }
+
+        boolean pageOrderChanged = !current.getPages().equals(mergedPageOrder(external, conflictPages));
+        boolean propertiesChanged = !Objects.equals(current.getName(), external.getName())
+                || !Objects.equals(current.getDescription(), external.getDescription())
+                || !Objects.equals(current.getVersion(), external.getVersion())
+                || !Objects.equals(current.getEditResolution(), external.getEditResolution());
+        return new ProjectChangeSet(changedPages, removedPages, conflictPages, pageOrderChanged, propertiesChanged);
+    }
+
+    /**
+     * 应用外部修改后的页面顺序：外部文件的页面顺序，之后是外部已删除但保留本地版本的页面
+     */
+    public static List<String> mergedPageOrder(ProjectData external, Set<String> conflictPages) {
+        List<String> pages = new ArrayList<>(external.getPages());
+        for (String pageName : conflictPages) {
+            if (!pages.contains(pageName)) {
+                pages.add(pageName);
+            }
+        }
+        return pages;
+    }
+
+    public Path getProjectFile() {
+        return projectFile;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("关闭文件监视失败", e);
+        }
+        watchService = null;
+        watchThread = null;
+        synchronized (scheduleLock) {
+            checkExecutor.shutdownNow();
+            checkExecutor = null;
+            pendingCheck = null;
+        }
+        logger.info("停止监视项目文件: {}", projectFile);
+    }
+
+    /**
+     * 监视线程：项目文件的事件触发一次延迟检查
+     */
+    private void watchLoop() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        if (service == null) {
+            return;
+        }
+        Path fileName = projectFile.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                // 事件溢出时无法确定文件名，同样检查一次
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                    scheduleCheck();
+                }
+            }
+            if (!key.reset()) {
+                logger.warn("数据目录已无法监视: {}", projectFile.getParent());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 安排延迟检查，等待期间的新事件重新计时
+     */
+    private void scheduleCheck() {
+        synchronized (scheduleLock) {
+            if (checkExecutor == null) {
+                return;
+            }
+            if (pendingCheck != null) {
+                pendingCheck.cancel(false);
+            }
+            pendingCheck = checkExecutor.schedule(() -> {
+                try {
+                    checkForChanges();
+                } catch (RuntimeException e) {
+                    logger.error("处理项目文件外部修改失败", e);
+                }
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 计算项目文件内容的SHA-256
+     * @return 文件不存在时返回null
+     */
+    private String hashProjectFile() throws IOException {
+        if (!Files.exists(projectFile)) {
+            return null;
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(projectFile)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
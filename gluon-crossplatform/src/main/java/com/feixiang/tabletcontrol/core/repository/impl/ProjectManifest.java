@@ -0,0 +1,102 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片存储清单
+ * 只保存项目元数据和页面顺序，每个页面的内容单独存放在 pages 目录下
+ */
+public class ProjectManifest {
+
+    private String name;
+    private String description;
+    private String version;
+    private String editResolution;
+    private List<String> pages = new ArrayList<>();
+    private String currentPage;
+    private long createdTime;
+    private long lastModifiedTime;
+
+    // 页面名称 -> 页面文件名
+    private Map<String, String> pageFiles = new HashMap<>();
+
+    // 页面名称 -> 组件数量 (用于在不加载页面的情况下统计)
+    private Map<String, Integer> pageComponentCounts = new HashMap<>();
+
+    public ProjectManifest() {
+    }
+
+    /**
+     * 从项目数据创建清单（不包含页面文件映射）
+     */
+    public static ProjectManifest fromProject(ProjectData projectData) {
+        ProjectManifest manifest = new ProjectManifest();
+        manifest.name = projectData.getName();
+        manifest.description = projectData.getDescription();
+        manifest.version = projectData.getVersion();
+        manifest.editResolution = projectData.getEditResolution();
+        manifest.pages = new ArrayList<>(projectData.getPages());
+        manifest.currentPage = projectData.getCurrentPage();
+        manifest.createdTime = projectData.getCreatedTime();
+        manifest.lastModifiedTime = projectData.getLastModifiedTime();
+        return manifest;
+    }
+
+    /**
+     * 创建只包含元数据的项目对象，页面内容由延迟加载器提供
+     */
+    public ProjectData toProject() {
+        ProjectData projectData = new ProjectData();
+        projectData.setName(name);
+        projectData.setDescription(description);
+        projectData.setPages(pages);
+        projectData.setCurrentPage(currentPage);
+        if (editResolution != null) {
+            projectData.setEditResolution(editResolution);
+        }
+        if (version != null) {
+            projectData.setVersion(version);
+        }
+        projectData.setCreatedTime(createdTime);
+        projectData.setLastModifiedTime(lastModifiedTime);
+        return projectData;
+    }
+
+    public String getName() { return name; }
+    public List<String> getPages() { return pages; }
+    public String getCurrentPage() { return currentPage; }
+
+    public String getPageFile(String pageName) {
+        return pageFiles != null ? pageFiles.get(pageName) : null;
+    }
+
+    public void putPageFile(String pageName, String fileName, int componentCount) {
+        pageFiles.put(pageName, fileName);
+        pageComponentCounts.put(pageName, componentCount);
+    }
+
+    public int getPageComponentCount(String pageName) {
+        Integer count = pageComponentCounts != null ? pageComponentCounts.get(pageName) : null;
+        return count != null ? count : 0;
+    }
+
+    public int getTotalComponentCount() {
+        int count = 0;
+        if (pageComponentCounts == null) {
+            return 0;
+        }
+        for (Integer pageCount : pageComponentCounts.values()) {
+            count += pageCount != null ? pageCount : 0;
+        }
+        return count;
+    }
+    
+    public Map<String, String> getPageFiles() {
+        return pageFiles != null ? pageFiles : new HashMap<>();
+    }
+}
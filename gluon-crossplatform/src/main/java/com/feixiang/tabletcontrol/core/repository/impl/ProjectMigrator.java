@@ -0,0 +1,420 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.repository.MigrationResult;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 项目文件格式迁移器
+ * 按项目的 version 字段逐个版本升级JSON项目文件。迁移分两遍流式读取：第一遍跳过页面内容，只读取项目属性
+ * 确定版本；第二遍逐个记号复制，组件逐个读入、经过每一步迁移后立即写出，大型旧项目不会整体读入内存。
+ * 二进制快照始终是当前格式，不需要迁移；没有对应迁移步骤的版本保持原样
+ */
+public class ProjectMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectMigrator.class);
+
+    public static final String CURRENT_VERSION = LegacySchemaMigration.TARGET_VERSION;
+
+    private static final String MIGRATION_FILE_EXTENSION = ".json";
+    private static final int MAX_PARALLELISM = 8;
+    private static final int VERSION_TAIL_BYTES = 1024;
+    private static final Pattern CURRENT_VERSION_PATTERN =
+            Pattern.compile("\"version\"\\s*:\\s*\"" + Pattern.quote(CURRENT_VERSION) + "\"");
+
+    private final Gson gson;
+    // 迁移前的版本 -> 迁移步骤
+    private final Map<String, Supplier<SchemaMigration>> migrations = new LinkedHashMap<>();
+    private volatile int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLELISM);
+
+    public ProjectMigrator() {
+        this.gson = ModelTypeAdapters.createPrettyGson();
+        register(LegacySchemaMigration.LEGACY_VERSION, LegacySchemaMigration::new);
+    }
+
+    /**
+     * 注册一个迁移步骤
+     * @param sourceVersion 迁移前的版本
+     * @param migration 为每个文件创建迁移实例
+     */
+    public synchronized void register(String sourceVersion, Supplier<SchemaMigration> migration) {
+        migrations.put(sourceVersion, migration);
+    }
+
+    /**
+     * 设置批量迁移的并行度
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 读取项目文件的格式版本（只读取项目属性，跳过页面内容）
+     * @return 版本号，没有版本号的旧文件返回 {@link LegacySchemaMigration#LEGACY_VERSION}，二进制快照返回null
+     * @throws IOException 文件无法读取或不是JSON项目文件时抛出异常
+     */
+    public String readVersion(Path file) throws IOException {
+        JsonObject properties = readProjectProperties(file);
+        return properties != null ? versionOf(properties) : null;
+    }
+
+    /**
+     * 检查项目文件是否需要迁移
+     */
+    public boolean needsMigration(Path file) throws IOException {
+        if (endsWithCurrentVersion(file)) {
+            return false;
+        }
+        String version = readVersion(file);
+        return version != null && !planMigrations(version).isEmpty();
+    }
+
+    /**
+     * 将项目文件迁移到当前版本并写入目标文件
+     * @return 迁移前的版本，无需迁移时返回null（不写入目标文件）
+     * @throws IOException 读取或写入失败时抛出异常
+     */
+    public String migrate(Path source, Path target) throws IOException {
+        MigrationPlan plan = plan(source);
+        if (plan == null) {
+            return null;
+        }
+        try (OutputStream out = Files.newOutputStream(target)) {
+            write(source, plan, out);
+        }
+        return plan.version;
+    }
+
+    /**
+     * 原地迁移项目文件，原文件保留为上一版本（.prev）
+     * @return 迁移前的版本，无需迁移时返回null
+     */
+    public String migrateInPlace(Path file) throws IOException {
+        MigrationPlan plan = plan(file);
+        if (plan == null) {
+            return null;
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".migrating");
+        try {
+            // 写入校验尾并同步，替换中断时仍可回退到原文件
+            SnapshotFiles.writeDurably(tempFile, out -> write(file, plan, out));
+            SnapshotFiles.commit(tempFile, file, true);
+            return plan.version;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 并行迁移目录中的所有JSON项目文件（原地迁移）
+     * 单个文件失败不影响其他文件，错误记录在结果中
+     * @throws IOException 目录无法读取时抛出异常
+     */
+    public MigrationResult migrateDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("迁移目录不存在: " + directory);
+        }
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.filter(Files::isRegularFile)
+                    .filter(ProjectMigrator::isMigrationFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        int threads = Math.max(1, Math.min(parallelism, files.size()));
+        logger.info("批量迁移 {} 个文件，并行度 {}: {}", files.size(), threads, directory);
+
+        long startTime = System.nanoTime();
+        Map<String, String> migrated = new LinkedHashMap<>();
+        List<String> upToDate = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<String>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(pool.submit(() -> migrateInPlace(file)));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                String fileName = files.get(i).getFileName().toString();
+                try {
+                    String version = tasks.get(i).get();
+                    if (version != null) {
+                        migrated.put(fileName, version);
+                    } else {
+                        upToDate.add(fileName);
+                    }
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.warn("迁移文件失败: {}", files.get(i), cause);
+                    errors.put(fileName, cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("批量迁移被中断");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        MigrationResult result = new MigrationResult(CURRENT_VERSION, migrated, upToDate, errors, elapsedMillis);
+        logger.info("批量迁移完成: {}", result.getSummary());
+        return result;
+    }
+
+    /**
+     * 从文件版本到当前版本的迁移步骤
+     * @return 迁移步骤，已是当前版本或没有对应的迁移时返回空列表
+     */
+    synchronized List<SchemaMigration> planMigrations(String version) {
+        List<SchemaMigration> steps = new ArrayList<>();
+        String current = version;
+        while (!CURRENT_VERSION.equals(current)) {
+            Supplier<SchemaMigration> factory = migrations.get(current);
+            if (factory == null || steps.size() > migrations.size()) {
+                logger.debug("没有从版本 {} 开始的迁移，保持原样", current);
+                return Collections.emptyList();
+            }
+            SchemaMigration step = factory.get();
+            steps.add(step);
+            current = step.getTargetVersion();
+        }
+        return steps;
+    }
+
+    /**
+     * 确定文件的迁移步骤
+     * @return 迁移计划，二进制快照、已是当前版本或没有对应迁移时返回null
+     */
+    private MigrationPlan plan(Path file) throws IOException {
+        // 已是当前版本的文件只读取末尾，不再流式读取整个文件
+        if (endsWithCurrentVersion(file)) {
+            return null;
+        }
+        JsonObject properties = readProjectProperties(file);
+        if (properties == null) {
+            return null;
+        }
+        String version = versionOf(properties);
+        List<SchemaMigration> steps = planMigrations(version);
+        if (steps.isEmpty()) {
+            return null;
+        }
+        for (SchemaMigration step : steps) {
+            step.begin(properties);
+        }
+        return new MigrationPlan(version, steps);
+    }
+
+    /**
+     * 迁移文件内容并写入输出流（不关闭输出流）
+     */
+    private void write(Path source, MigrationPlan plan, OutputStream target) throws IOException {
+        logger.info("迁移项目文件 {} -> {}: {}", plan.version, CURRENT_VERSION, source);
+        try (SnapshotFiles.VerifiedInputStream verified = SnapshotFiles.openVerified(source);
+             JsonReader in = gson.newJsonReader(new InputStreamReader(
+                     new BufferedInputStream(verified), StandardCharsets.UTF_8))) {
+            Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+            JsonWriter out = gson.newJsonWriter(writer);
+            migrateProject(in, out, plan.steps);
+            out.flush();
+            verified.verify();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("项目文件格式错误: " + source, e);
+        }
+    }
+
+    /**
+     * 第一遍：读取项目属性，页面内容直接跳过
+     * @return 项目属性，二进制快照返回null
+     */
+    private JsonObject readProjectProperties(Path file) throws IOException {
+        try (SnapshotFiles.VerifiedInputStream verified = SnapshotFiles.openVerified(file);
+             BufferedInputStream buffered = new BufferedInputStream(verified)) {
+            if (BinaryProjectCodec.isBinary(buffered)) {
+                return null;
+            }
+            JsonReader in = gson.newJsonReader(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("不是项目文件: " + file);
+            }
+            JsonObject properties = new JsonObject();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if ("pageContents".equals(field)) {
+                    in.skipValue();
+                } else {
+                    properties.add(field, JsonParser.parseReader(in));
+                }
+            }
+            return properties;
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("项目文件格式错误: " + file, e);
+        }
+    }
+
+    /**
+     * 第二遍：逐个记号复制项目，页面内容逐页、组件逐个迁移
+     */
+    private void migrateProject(JsonReader in, JsonWriter out, List<SchemaMigration> steps) throws IOException {
+        JsonObject properties = new JsonObject();
+        in.beginObject();
+        out.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (!"pageContents".equals(field)) {
+                properties.add(field, JsonParser.parseReader(in));
+                continue;
+            }
+            out.name(field);
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                out.nullValue();
+                continue;
+            }
+            in.beginObject();
+            out.beginObject();
+            while (in.hasNext()) {
+                out.name(in.nextName());
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    out.nullValue();
+                } else {
+                    migratePage(in, out, steps);
+                }
+            }
+            in.endObject();
+            out.endObject();
+        }
+        in.endObject();
+
+        for (SchemaMigration step : steps) {
+            step.migrateProject(properties);
+            properties.addProperty("version", step.getTargetVersion());
+        }
+        writeProperties(out, properties);
+        out.endObject();
+    }
+
+    private void migratePage(JsonReader in, JsonWriter out, List<SchemaMigration> steps) throws IOException {
+        JsonObject properties = new JsonObject();
+        in.beginObject();
+        out.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (!"components".equals(field) || in.peek() != JsonToken.BEGIN_ARRAY) {
+                properties.add(field, JsonParser.parseReader(in));
+                continue;
+            }
+            out.name(field);
+            in.beginArray();
+            out.beginArray();
+            while (in.hasNext()) {
+                JsonElement component = JsonParser.parseReader(in);
+                if (component.isJsonObject()) {
+                    for (SchemaMigration step : steps) {
+                        step.migrateComponent(component.getAsJsonObject());
+                    }
+                }
+                gson.toJson(component, out);
+            }
+            in.endArray();
+            out.endArray();
+        }
+        in.endObject();
+
+        for (SchemaMigration step : steps) {
+            step.migratePage(properties);
+        }
+        writeProperties(out, properties);
+        out.endObject();
+    }
+
+    private void writeProperties(JsonWriter out, JsonObject properties) throws IOException {
+        for (Map.Entry<String, JsonElement> entry : properties.entrySet()) {
+            out.name(entry.getKey());
+            gson.toJson(entry.getValue(), out);
+        }
+    }
+
+    /**
+     * 快速检查：本程序写入的文件在末尾的项目属性中记录版本号，只读取文件末尾即可确认是当前版本
+     * 字符串值中的引号总是转义的，匹配到的只能是属性名
+     */
+    private static boolean endsWithCurrentVersion(Path file) throws IOException {
+        long length = SnapshotFiles.contentLength(file);
+        int tailSize = (int) Math.min(length, VERSION_TAIL_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate(tailSize);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, length - tailSize + tail.position()) < 0) {
+                    return false;
+                }
+            }
+        }
+        return CURRENT_VERSION_PATTERN.matcher(new String(tail.array(), StandardCharsets.UTF_8)).find();
+    }
+
+    private static String versionOf(JsonObject properties) {
+        JsonElement version = properties.get("version");
+        if (version == null || !version.isJsonPrimitive() || version.getAsString().trim().isEmpty()) {
+            return LegacySchemaMigration.LEGACY_VERSION;
+        }
+        return version.getAsString().trim();
+    }
+
+    /**
+     * 单个文件的迁移计划
+     */
+    private static class MigrationPlan {
+        final String version;
+        final List<SchemaMigration> steps;
+
+        MigrationPlan(String version, List<SchemaMigration> steps) {
+            this.version = version;
+            this.steps = steps;
+        }
+    }
+
+    private static boolean isMigrationFile(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        return !fileName.startsWith(".") && fileName.endsWith(MIGRATION_FILE_EXTENSION);
+    }
+}
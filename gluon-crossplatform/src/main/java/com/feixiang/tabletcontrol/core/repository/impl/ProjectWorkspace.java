@@ -0,0 +1,554 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.LabelData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.EditJournal;
+import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.WorkspaceProjectInfo;
+import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 项目工作区
+ * 管理多个项目（例如每个房间一个项目），每个项目在工作区目录下有独立的数据目录和存储库，
+ * 项目名称、大小和时间等信息保存在索引文件中。数据目录中原有的项目作为默认项目。
+ * 最近打开的项目保留在内存中（按估算的堆占用限制总量，超出时淘汰最久未使用的项目），
+ * 切换回最近的项目不需要重新加载。打开项目只在内存中更新打开时间，索引在保存、新建或删除项目时
+ * （或调用 {@link #flushIndex()} 时）一并写入；项目大小只在项目内容变化后重新统计
+ */
+public class ProjectWorkspace {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectWorkspace.class);
+
+    public static final String DEFAULT_PROJECT_ID = "default";
+    public static final String WORKSPACE_DIR_NAME = "workspace";
+    public static final String INDEX_FILE_NAME = "workspace_index.json";
+    private static final String PROJECTS_DIR_NAME = "projects";
+    private static final int INDEX_VERSION = 1;
+
+    private static final long DEFAULT_MAX_RESIDENT_BYTES =
+            Math.min(64L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+
+    // 堆占用估算：对象头、字段和集合开销的近似值
+    private static final long PROJECT_OVERHEAD_BYTES = 512;
+    private static final long PAGE_OVERHEAD_BYTES = 256;
+    private static final long COMPONENT_OVERHEAD_BYTES = 320;
+
+    private final CrossPlatformPathManager pathManager;
+    private final ProjectRepository defaultRepository;
+    private final Function<CrossPlatformPathManager, ProjectRepository> repositoryFactory;
+    private final Path workspaceDirectory;
+    private final Path indexFile;
+    private final Gson gson;
+
+    // 项目标识 -> 项目信息，按创建顺序
+    private final Map<String, WorkspaceProjectInfo> entries = new LinkedHashMap<>();
+    private final Map<String, ProjectRepository> repositories = new HashMap<>();
+
+    // 内存中的项目，按访问顺序排列（最久未使用的在前）
+    private final LinkedHashMap<String, ResidentProject> residents = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes = 0;
+    private long maxResidentBytes = DEFAULT_MAX_RESIDENT_BYTES;
+    // 内存中的索引有尚未写入文件的修改（打开时间）
+    private boolean indexDirty = false;
+
+    /**
+     * @param pathManager 路径管理器，工作区位于其数据目录下
+     * @param defaultRepository 数据目录中原有项目的存储库
+     * @param repositoryFactory 按项目数据目录创建存储库，与默认项目使用相同的存储格式
+     */
+    public ProjectWorkspace(CrossPlatformPathManager pathManager, ProjectRepository defaultRepository,
+                            Function<CrossPlatformPathManager, ProjectRepository> repositoryFactory) {
+        this.pathManager = pathManager;
+        this.defaultRepository = defaultRepository;
+        this.repositoryFactory = repositoryFactory;
+        this.workspaceDirectory = Paths.get(pathManager.getDataDirectory(), WORKSPACE_DIR_NAME);
+        this.indexFile = workspaceDirectory.resolve(INDEX_FILE_NAME);
+        this.gson = ModelTypeAdapters.createPrettyGson();
+
+        try {
+            Files.createDirectories(workspaceDirectory.resolve(PROJECTS_DIR_NAME));
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建工作区目录: " + workspaceDirectory, e);
+        }
+        loadIndex();
+        logger.info("项目工作区初始化完成: {} 个项目", entries.size());
+    }
+
+    public ProjectWorkspace(CrossPlatformPathManager pathManager) {
+        this(pathManager, new JsonProjectRepository(pathManager), JsonProjectRepository::new);
+    }
+
+    /**
+     * 获取工作区中的项目，最近打开的在前
+     */
+    public synchronized List<WorkspaceProjectInfo> listProjects() {
+        List<WorkspaceProjectInfo> projects = new ArrayList<>(entries.values());
+        projects.sort(Comparator.comparingLong(WorkspaceProjectInfo::getLastOpenedTime).reversed()
+                .thenComparing(WorkspaceProjectInfo::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return projects;
+    }
+
+    /**
+     * 获取项目信息
+     * @return 项目不在工作区中时返回null
+     */
+    public synchronized WorkspaceProjectInfo getProjectInfo(String projectId) {
+        return entries.get(projectId);
+    }
+
+    /**
+     * 检查项目是否存在（默认项目始终存在）
+     */
+    public synchronized boolean containsProject(String projectId) {
+        return DEFAULT_PROJECT_ID.equals(projectId) || entries.containsKey(projectId);
+    }
+
+    /**
+     * 获取项目的存储库
+     */
+    public synchronized ProjectRepository getRepository(String projectId) {
+        requireProject(projectId);
+        if (DEFAULT_PROJECT_ID.equals(projectId)) {
+            return defaultRepository;
+        }
+        return repositories.computeIfAbsent(projectId,
+                id -> repositoryFactory.apply(pathManager.forDataDirectory(projectDirectory(id).toString())));
+    }
+
+    /**
+     * 在工作区中新建项目并保存
+     * @return 新项目的信息
+     */
+    public synchronized WorkspaceProjectInfo createProject(ProjectData projectData) throws IOException {
+        String projectId = UUID.randomUUID().toString();
+        Files.createDirectories(projectDirectory(projectId));
+        entries.put(projectId, new WorkspaceProjectInfo(projectId, projectData.getName(), 0, 0, 0,
+                projectData.getCreatedTime(), projectData.getLastModifiedTime(), 0));
+        try {
+            getRepository(projectId).saveProject(projectData);
+        } catch (IOException e) {
+            entries.remove(projectId);
+            repositories.remove(projectId);
+            deleteDirectory(projectDirectory(projectId));
+            throw e;
+        }
+        retain(projectId, projectData);
+        WorkspaceProjectInfo info = updateInfo(projectId, projectData, 0);
+        logger.info("工作区新建项目: {} ({})", projectData.getName(), projectId);
+        return info;
+    }
+
+    /**
+     * 将批量导入的项目逐个加入工作区
+     * @return 新项目的信息，按导入文件名排序
+     */
+    public synchronized List<WorkspaceProjectInfo> addImportedProjects(BulkImportResult result) throws IOException {
+        List<WorkspaceProjectInfo> added = new ArrayList<>();
+        for (Map.Entry<String, ProjectData> entry : result.getProjects().entrySet()) {
+            ProjectData projectData = entry.getValue();
+            // 导入文件中的项目名称没有区分度时使用文件名（如"房间1.json"）
+            if (projectData.getName() == null || projectData.getName().trim().isEmpty()
+                    || "新建项目".equals(projectData.getName())) {
+                String fileName = entry.getKey();
+                int dot = fileName.lastIndexOf('.');
+                projectData.setName(dot > 0 ? fileName.substring(0, dot) : fileName);
+            }
+            added.add(createProject(projectData));
+        }
+        return added;
+    }
+
+    /**
+     * 打开项目：内存中已有时直接返回，否则从存储库加载
+     * @return 项目数据，默认项目尚未保存过时返回null
+     * @throws IOException 加载失败时抛出异常
+     */
+    public synchronized ProjectData openProject(String projectId) throws IOException {
+        requireProject(projectId);
+        ResidentProject resident = residents.get(projectId);
+        ProjectData projectData;
+        if (resident != null) {
+            logger.debug("项目已在内存中: {}", projectId);
+            projectData = resident.project;
+        } else {
+            projectData = getRepository(projectId).loadProject();
+            if (projectData == null) {
+                if (DEFAULT_PROJECT_ID.equals(projectId)) {
+                    return null;
+                }
+                throw new IOException("项目数据不存在: " + projectId);
+            }
+            retain(projectId, projectData);
+        }
+        touch(projectId, projectData, System.currentTimeMillis());
+        return projectData;
+    }
+
+    /**
+     * 将项目保留在内存中（切换到其他项目前调用），并按新的估算大小淘汰其他项目
+     */
+    public synchronized void retain(String projectId, ProjectData projectData) {
+        requireProject(projectId);
+        ResidentProject previous = residents.remove(projectId);
+        if (previous != null) {
+            residentBytes -= previous.estimatedBytes;
+        }
+        ResidentProject resident = new ResidentProject(projectData, estimateHeapBytes(projectData));
+        residents.put(projectId, resident);
+        residentBytes += resident.estimatedBytes;
+        evictIfNeeded();
+    }
+
+    /**
+     * 更新项目的索引信息（项目保存后调用）
+     */
+    public synchronized WorkspaceProjectInfo updateProject(String projectId, ProjectData projectData) {
+        requireProject(projectId);
+        WorkspaceProjectInfo info = entries.get(projectId);
+        return updateInfo(projectId, projectData, info != null ? info.getLastOpenedTime() : 0);
+    }
+
+    /**
+     * 删除工作区中的项目及其数据目录（默认项目不能删除）
+     * @return 如果项目存在则返回true
+     */
+    public synchronized boolean deleteProject(String projectId) throws IOException {
+        if (DEFAULT_PROJECT_ID.equals(projectId)) {
+            throw new IllegalArgumentException("默认项目不能从工作区删除");
+        }
+        if (!entries.containsKey(projectId)) {
+            return false;
+        }
+        ResidentProject resident = residents.remove(projectId);
+        if (resident != null) {
+            residentBytes -= resident.estimatedBytes;
+        }
+        closeRepository(repositories.remove(projectId));
+        entries.remove(projectId);
+        saveIndex();
+        indexDirty = false;
+        deleteDirectory(projectDirectory(projectId));
+        logger.info("工作区删除项目: {}", projectId);
+        return true;
+    }
+
+    /**
+     * 将内存中尚未写入的索引修改（打开时间）写入索引文件
+     */
+    public synchronized void flushIndex() throws IOException {
+        if (indexDirty) {
+            saveIndex();
+            indexDirty = false;
+        }
+    }
+
+    /**
+     * 设置内存中项目的总估算大小上限
+     */
+    public synchronized void setMaxResidentBytes(long maxResidentBytes) {
+        this.maxResidentBytes = Math.max(0, maxResidentBytes);
+        evictIfNeeded();
+    }
+
+    public synchronized long getMaxResidentBytes() {
+        return maxResidentBytes;
+    }
+
+    /**
+     * 获取内存中项目的总估算大小
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * 获取内存中的项目标识，最久未使用的在前
+     */
+    public synchronized List<String> getResidentProjectIds() {
+        return new ArrayList<>(residents.keySet());
+    }
+
+    /**
+     * 检查项目是否在内存中
+     */
+    public synchronized boolean isResident(String projectId) {
+        return residents.containsKey(projectId);
+    }
+
+    /**
+     * 估算项目在堆中占用的字节数
+     * 只统计已加载的页面；字符串按UTF-16计算
+     */
+    public static long estimateHeapBytes(ProjectData projectData) {
+        long bytes = PROJECT_OVERHEAD_BYTES + stringBytes(projectData.getName())
+                + stringBytes(projectData.getDescription());
+        for (String pageName : projectData.getPages()) {
+            bytes += stringBytes(pageName);
+            if (!projectData.isPageLoaded(pageName)) {
+                continue;
+            }
+            PageData page = projectData.getPageData(pageName);
+            if (page == null) {
+                continue;
+            }
+            bytes += PAGE_OVERHEAD_BYTES + stringBytes(page.getBackgroundImage())
+                    + stringBytes(page.getBackgroundColor());
+            for (ComponentData component : page.getComponents()) {
+                if (component == null) {
+                    continue;
+                }
+                bytes += COMPONENT_OVERHEAD_BYTES + stringBytes(component.getComponentId())
+                        + stringBytes(component.getFunctionType()) + stringBytes(component.getTooltip())
+                        + stringBytes(component.getCssClass());
+                LabelData label = component.getLabelData();
+                if (label != null) {
+                    bytes += stringBytes(label.getText()) + stringBytes(label.getFontName())
+                            + stringBytes(label.getFontFamily()) + stringBytes(label.getIconPath());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    /**
+     * 淘汰最久未使用的项目，直到总估算大小不超过上限
+     * 最近使用的项目和有未保存修改的项目不淘汰
+     */
+    private void evictIfNeeded() {
+        if (residentBytes <= maxResidentBytes) {
+            return;
+        }
+        Iterator<Map.Entry<String, ResidentProject>> iterator = residents.entrySet().iterator();
+        int remaining = residents.size();
+        while (iterator.hasNext() && residentBytes > maxResidentBytes && remaining > 1) {
+            Map.Entry<String, ResidentProject> entry = iterator.next();
+            remaining--;
+            ResidentProject resident = entry.getValue();
+            if (resident.project.hasUnsavedChanges()) {
+                logger.debug("项目有未保存的修改，保留在内存中: {}", entry.getKey());
+                continue;
+            }
+            iterator.remove();
+            residentBytes -= resident.estimatedBytes;
+            logger.info("从内存中移除最久未使用的项目: {} (约 {} KB)", entry.getKey(), resident.estimatedBytes / 1024);
+        }
+    }
+
+    /**
+     * 记录项目的打开时间，只修改内存中的索引
+     * 索引中还没有该项目（默认项目首次打开）时按项目当前状态登记
+     */
+    private void touch(String projectId, ProjectData projectData, long lastOpenedTime) {
+        WorkspaceProjectInfo previous = entries.get(projectId);
+        if (previous == null) {
+            updateInfo(projectId, projectData, lastOpenedTime);
+            return;
+        }
+        entries.put(projectId, new WorkspaceProjectInfo(projectId, previous.getName(), previous.getSize(),
+                previous.getPageCount(), previous.getComponentCount(), previous.getCreatedTime(),
+                previous.getLastModifiedTime(), lastOpenedTime));
+        indexDirty = true;
+    }
+
+    /**
+     * 按项目当前状态更新索引并写入索引文件
+     * 项目修改时间与索引一致时沿用索引中的大小，只在项目保存或新建后统计磁盘占用
+     */
+    private WorkspaceProjectInfo updateInfo(String projectId, ProjectData projectData, long lastOpenedTime) {
+        WorkspaceProjectInfo previous = entries.get(projectId);
+        int pageCount = projectData.getPageCount();
+        // 未加载的页面沿用索引中的组件数，避免为统计加载全部页面
+        boolean allLoaded = projectData.getPages().stream().allMatch(projectData::isPageLoaded);
+        int componentCount = allLoaded || previous == null
+                ? projectData.getTotalComponentCount() : previous.getComponentCount();
+        long size = previous != null ? previous.getSize() : 0;
+        if (previous == null || previous.getSize() == 0
+                || previous.getLastModifiedTime() != projectData.getLastModifiedTime()) {
+            try {
+                size = projectSize(projectId);
+            } catch (IOException e) {
+                logger.warn("统计项目大小失败: {}", projectId, e);
+            }
+        }
+        WorkspaceProjectInfo info = new WorkspaceProjectInfo(projectId, projectData.getName(), size,
+                pageCount, componentCount, projectData.getCreatedTime(), projectData.getLastModifiedTime(),
+                lastOpenedTime);
+        entries.put(projectId, info);
+        if (sameInfo(previous, info)) {
+            // 离开未修改的项目时不写文件，尚未写入的打开时间随下一次写入保存
+            return info;
+        }
+        try {
+            saveIndex();
+            indexDirty = false;
+        } catch (IOException e) {
+            logger.warn("保存工作区索引失败", e);
+        }
+        return info;
+    }
+
+    private static boolean sameInfo(WorkspaceProjectInfo a, WorkspaceProjectInfo b) {
+        return a != null && Objects.equals(a.getName(), b.getName()) && a.getSize() == b.getSize()
+                && a.getPageCount() == b.getPageCount() && a.getComponentCount() == b.getComponentCount()
+                && a.getCreatedTime() == b.getCreatedTime() && a.getLastModifiedTime() == b.getLastModifiedTime()
+                && a.getLastOpenedTime() == b.getLastOpenedTime();
+    }
+
+    /**
+     * 统计项目文件占用的字节数
+     * 默认项目位于数据目录，不统计工作区、备份和资源目录
+     */
+    private long projectSize(String projectId) throws IOException {
+        Path directory = DEFAULT_PROJECT_ID.equals(projectId)
+                ? Paths.get(pathManager.getDataDirectory()) : projectDirectory(projectId);
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        Set<String> excluded = Set.of(WORKSPACE_DIR_NAME, JsonProjectRepository.BACKUP_DIR_NAME,
+                ProjectBundle.ASSETS_DIR_NAME);
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        Path relative = directory.relativize(file);
+                        return relative.getNameCount() == 1 || !excluded.contains(relative.getName(0).toString());
+                    })
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        }
+    }
+
+    private Path projectDirectory(String projectId) {
+        return workspaceDirectory.resolve(PROJECTS_DIR_NAME).resolve(projectId);
+    }
+
+    private void requireProject(String projectId) {
+        if (!containsProject(projectId)) {
+            throw new IllegalArgumentException("工作区中不存在项目: " + projectId);
+        }
+    }
+
+    private static void closeRepository(ProjectRepository repository) {
+        if (repository == null) {
+            return;
+        }
+        EditJournal journal = repository.getEditJournal();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("关闭项目编辑日志失败", e);
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            List<Path> all = new ArrayList<>();
+            paths.forEach(all::add);
+            // 先删除子项再删除目录
+            for (int i = all.size() - 1; i >= 0; i--) {
+                Files.deleteIfExists(all.get(i));
+            }
+        }
+    }
+
+    /**
+     * 读取索引文件，当前版本损坏时回退到上一版本
+     */
+    private void loadIndex() {
+        for (Path file : new Path[] {indexFile, SnapshotFiles.previousOf(indexFile)}) {
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (SnapshotFiles.VerifiedInputStream in = SnapshotFiles.openVerified(file)) {
+                IndexFile index = gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), IndexFile.class);
+                in.verify();
+                if (index != null && index.projects != null) {
+                    for (WorkspaceProjectInfo info : index.projects) {
+                        if (info != null && info.getProjectId() != null) {
+                            entries.put(info.getProjectId(), info);
+                        }
+                    }
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("工作区索引损坏: {}", file, e);
+                entries.clear();
+            }
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        IndexFile index = new IndexFile();
+        index.version = INDEX_VERSION;
+        index.projects = new ArrayList<>(entries.values());
+
+        Path tempFile = Paths.get(indexFile.toString() + ".tmp");
+        try {
+            SnapshotFiles.writeDurably(tempFile, out -> {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                gson.toJson(index, writer);
+                writer.flush();
+            });
+            SnapshotFiles.commit(tempFile, indexFile, true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 内存中的项目及其估算大小
+     */
+    private static class ResidentProject {
+        final ProjectData project;
+        final long estimatedBytes;
+
+        ResidentProject(ProjectData project, long estimatedBytes) {
+            this.project = project;
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    /**
+     * 索引文件格式
+     */
+    private static class IndexFile {
+        int version;
+        List<WorkspaceProjectInfo> projects;
+    }
+}
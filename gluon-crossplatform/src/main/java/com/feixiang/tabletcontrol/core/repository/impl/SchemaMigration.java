@@ -0,0 +1,42 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.google.gson.JsonObject;
+
+/**
+ * 项目文件格式的单步迁移（一个版本升级到下一个版本）
+ * 迁移在流式读写项目文件时逐个对象调用：组件和页面、项目的属性各自作为一个小的JSON对象传入，
+ * 页面的组件列表和项目的页面内容不会整体读入内存。每个文件创建一个新实例，实例可以保存单个文件内的状态
+ */
+public interface SchemaMigration {
+
+    /**
+     * 迁移前的版本
+     */
+    String getSourceVersion();
+
+    /**
+     * 迁移后的版本
+     */
+    String getTargetVersion();
+
+    /**
+     * 开始迁移一个文件
+     * @param projectProperties 项目属性（不含页面内容），只读
+     */
+    void begin(JsonObject projectProperties);
+
+    /**
+     * 迁移一个组件（包括标签数据）
+     */
+    void migrateComponent(JsonObject component);
+
+    /**
+     * 迁移页面属性（不含组件列表）
+     */
+    void migratePage(JsonObject pageProperties);
+
+    /**
+     * 迁移项目属性（不含页面内容），版本号由迁移器更新
+     */
+    void migrateProject(JsonObject projectProperties);
+}
@@ -0,0 +1,266 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 带校验尾的快照文件
+ * 快照内容之后追加16字节的校验尾 "\n#CRC32:xxxxxxxx"（内容的CRC32，8位十六进制），
+ * 加载时边读边计算校验值，不需要额外读取一遍文件；没有校验尾的旧文件按原样读取。
+ * 替换快照时可以保留上一版本（.prev），当前版本损坏或缺失时回退到上一版本
+ */
+public final class SnapshotFiles {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotFiles.class);
+
+    public static final int TRAILER_SIZE = 16;
+    public static final String PREVIOUS_SUFFIX = ".prev";
+
+    private static final byte[] TRAILER_PREFIX = "\n#CRC32:".getBytes(StandardCharsets.US_ASCII);
+
+    private SnapshotFiles() {
+    }
+
+    /**
+     * 快照内容写入器
+     */
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 写入快照内容和校验尾，并同步到磁盘
+     */
+    public static void writeDurably(Path file, ContentWriter content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(out);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            content.write(checked);
+            checked.flush();
+            buffered.write(trailer(checked.getChecksum().getValue()));
+            buffered.flush();
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * 用临时文件替换目标文件并同步目录，保证重命名本身也已落盘
+     * @param keepPrevious 为true时先将原文件保留为上一版本
+     */
+    public static void commit(Path tempFile, Path target, boolean keepPrevious) throws IOException {
+        if (keepPrevious && Files.exists(target)) {
+            Files.move(target, previousOf(target), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * 获取文件的上一版本路径
+     */
+    public static Path previousOf(Path file) {
+        return Paths.get(file.toString() + PREVIOUS_SUFFIX);
+    }
+
+    /**
+     * 检查文件或其上一版本是否存在
+     */
+    public static boolean existsWithPrevious(Path file) {
+        return Files.exists(file) || Files.exists(previousOf(file));
+    }
+
+    /**
+     * 删除文件及其上一版本
+     */
+    public static void deleteWithPrevious(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(previousOf(file));
+    }
+
+    /**
+     * 同步目录项，使文件创建和重命名在断电后保留
+     * 部分平台（如Windows）不支持打开目录，此时忽略
+     */
+    public static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("当前平台不支持同步目录: {}", directory);
+        }
+    }
+
+    /**
+     * 获取快照内容长度（不含校验尾）
+     */
+    public static long contentLength(Path file) throws IOException {
+        long size = Files.size(file);
+        return readTrailer(file, size) != null ? size - TRAILER_SIZE : size;
+    }
+
+    /**
+     * 打开快照内容，读取完毕后调用 {@link VerifiedInputStream#verify()} 校验
+     */
+    public static VerifiedInputStream openVerified(Path file) throws IOException {
+        long size = Files.size(file);
+        Long expected = readTrailer(file, size);
+        long length = expected != null ? size - TRAILER_SIZE : size;
+        return new VerifiedInputStream(file, new BufferedInputStream(Files.newInputStream(file)), length, expected);
+    }
+
+    /**
+     * 读取校验尾
+     * @return 记录的CRC32，没有校验尾时返回null
+     */
+    private static Long readTrailer(Path file, long size) throws IOException {
+        if (size < TRAILER_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(TRAILER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, size - TRAILER_SIZE + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+        }
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < TRAILER_PREFIX.length; i++) {
+            if (bytes[i] != TRAILER_PREFIX[i]) {
+                return null;
+            }
+        }
+        try {
+            String hex = new String(bytes, TRAILER_PREFIX.length, TRAILER_SIZE - TRAILER_PREFIX.length,
+                    StandardCharsets.US_ASCII);
+            return Long.parseLong(hex, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static byte[] trailer(long crc) {
+        String hex = String.format("%08x", crc);
+        byte[] trailer = new byte[TRAILER_SIZE];
+        System.arraycopy(TRAILER_PREFIX, 0, trailer, 0, TRAILER_PREFIX.length);
+        System.arraycopy(hex.getBytes(StandardCharsets.US_ASCII), 0, trailer, TRAILER_PREFIX.length, 8);
+        return trailer;
+    }
+
+    /**
+     * 快照内容输入流：只读到校验尾之前，读取的同时计算CRC32
+     * 不支持 mark/reset，需要识别文件头时在外层包装缓冲流
+     */
+    public static class VerifiedInputStream extends FilterInputStream {
+
+        private final Path file;
+        private final Long expected;
+        private final CRC32 crc = new CRC32();
+        private long remaining;
+
+        VerifiedInputStream(Path file, InputStream in, long length, Long expected) {
+            super(in);
+            this.file = file;
+            this.remaining = length;
+            this.expected = expected;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                crc.update(b);
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                crc.update(b, off, read);
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的字节也要计入校验值
+            byte[] buffer = new byte[8192];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("不支持重置: " + file);
+        }
+
+        /**
+         * 读完剩余内容并校验，没有校验尾的旧文件直接通过
+         * @throws IOException 校验值不一致时抛出异常
+         */
+        public void verify() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) >= 0) {
+                // 解析器不一定读到内容末尾
+            }
+            if (expected != null && crc.getValue() != expected) {
+                throw new IOException(String.format("快照校验失败: %s (记录 %08x, 实际 %08x)",
+                        file, expected, crc.getValue()));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.feixiang.tabletcontrol.core.repository.impl;
+
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.LoadProgressListener;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式项目读取器
+ * 基于 JsonReader 按词法单元读取项目文件，逐页填充 ProjectData/PageData，
+ * 页面通过 Gson 的类型适配器直接从同一个读取器中构建，不生成中间的JSON树
+ */
+public class StreamingProjectReader {
+
+    private final TypeAdapter<PageData> pageAdapter;
+
+    public StreamingProjectReader(Gson gson) {
+        this.pageAdapter = gson.getAdapter(PageData.class);
+    }
+
+    /**
+     * 读取项目数据
+     * @param reader 字符输入
+     * @param listener 进度监听器，可以为null
+     * @return 项目数据，输入为空时返回null
+     * @throws IOException 读取或格式错误时抛出异常
+     */
+    public ProjectData read(Reader reader, LoadProgressListener listener) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        if (in.peek() == JsonToken.END_DOCUMENT) {
+            return null;
+        }
+        return readProject(in, listener);
+    }
+
+    /**
+     * 读取项目对象
+     */
+    public ProjectData readProject(JsonReader in, LoadProgressListener listener) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ProjectData projectData = new ProjectData();
+        Long lastModifiedTime = null;
+        int totalPages = -1;
+        int loadedPages = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            switch (field) {
+                case "name":
+                    projectData.setName(nextString(in));
+                    break;
+                case "description":
+                    projectData.setDescription(nextString(in));
+                    break;
+                case "pages":
+                    List<String> pages = readStringList(in);
+                    projectData.setPages(pages);
+                    totalPages = pages.size();
+                    break;
+                case "currentPage":
+                    projectData.setCurrentPage(nextString(in));
+                    break;
+                case "pageContents":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        break;
+                    }
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String pageName = in.nextName();
+                        PageData pageData = readPage(in);
+                        projectData.getPageContents().put(pageName, pageData);
+                        loadedPages++;
+                        if (listener != null) {
+                            listener.onPageLoaded(pageName, loadedPages, totalPages);
+                        }
+                    }
+                    in.endObject();
+                    break;
+                case "createdTime":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        projectData.setCreatedTime(in.nextLong());
+                    }
+                    break;
+                case "lastModifiedTime":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        lastModifiedTime = in.nextLong();
+                    }
+                    break;
+                case "version":
+                    projectData.setVersion(nextString(in));
+                    break;
+                case "editResolution":
+                    projectData.setEditResolution(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        // 修改时间最后设置，避免被各个setter覆盖
+        if (lastModifiedTime != null) {
+            projectData.setLastModifiedTime(lastModifiedTime);
+        }
+        return projectData;
+    }
+
+    /**
+     * 读取页面对象
+     */
+    public PageData readPage(JsonReader in) throws IOException {
+        return pageAdapter.read(in);
+    }
+
+    private String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private List<String> readStringList(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return values;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(nextString(in));
+        }
+        in.endArray();
+        return values;
+    }
+}
@@ -0,0 +1,16 @@
+package com.feixiang.tabletcontrol.core.service;
+
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
+
+/**
+ * 当前项目变化监听器
+ * 外部修改的页面重新加载到当前项目后回调，界面只需刷新变化的页面
+ */
+public interface ProjectChangeListener {
+
+    /**
+     * 外部修改已应用到当前项目
+     * @param changes 重新加载或删除的页面
+     */
+    void onExternalChangesApplied(ProjectChangeSet changes);
+}
@@ -3,9 +3,18 @@ package com.feixiang.tabletcontrol.core.service;
 import com.feixiang.tabletcontrol.core.model.ComponentData;
 import com.feixiang.tabletcontrol.core.model.PageData;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.model.ProjectSnapshot;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.BulkImportMode;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.MigrationResult;
+import com.feixiang.tabletcontrol.core.repository.PageVersionInfo;
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
+import com.feixiang.tabletcontrol.core.repository.WorkspaceProjectInfo;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 项目服务接口 - 跨平台版本
@@ -41,12 +50,26 @@ public interface ProjectService {
      */
     void saveCurrentProject() throws IOException;
     
+    /**
+     * 异步保存当前项目
+     * 在调用线程上只捕获项目快照，序列化和写入在后台I/O线程执行；
+     * 短时间内的多次请求合并为一次写入
+     * @return 写入完成时结束的Future，失败时以异常结束
+     */
+    CompletableFuture<Void> saveCurrentProjectAsync();
+    
     /**
      * 获取当前项目
      * @return 当前项目数据
      */
     ProjectData getCurrentProject();
     
+    /**
+     * 获取最近一次提交修改后发布的项目只读视图，读取不需要加锁
+     * @return 项目视图，没有当前项目时返回 {@link ProjectSnapshot#EMPTY}
+     */
+    ProjectSnapshot getProjectSnapshot();
+    
     /**
      * 设置当前项目
      * @param projectData 项目数据
@@ -78,7 +101,7 @@ public interface ProjectService {
     boolean renamePage(String oldName, String newName);
     
     /**
-     * 获取页面数据
+     * 获取页面数据（项目中的页面，已发布过的组件为只读，直接修改前需通过 PageData.getComponentForUpdate 取得）
      * @param pageName 页面名称
      * @return 页面数据，如果不存在则返回null
      */
@@ -103,7 +126,7 @@ public interface ProjectService {
     String getCurrentPageName();
     
     /**
-     * 获取当前页面数据
+     * 获取当前页面数据（已发布视图中的页面快照，只读；修改页面使用组件操作方法）
      * @return 当前页面数据
      */
     PageData getCurrentPage();
@@ -147,16 +170,75 @@ public interface ProjectService {
      */
     boolean updateComponent(String pageName, ComponentData oldComponent, ComponentData newComponent);
     
+    /**
+     * 根据组件ID获取组件
+     * @param pageName 页面名称
+     * @param componentId 组件ID
+     * @return 组件数据（来自已发布的项目视图），不存在时返回null
+     */
+    ComponentData getComponentById(String pageName, String componentId);
+    
+    /**
+     * 根据组件ID移除组件
+     * @param pageName 页面名称
+     * @param componentId 组件ID
+     * @return 如果移除成功则返回true
+     */
+    boolean removeComponentById(String pageName, String componentId);
+    
+    /**
+     * 根据组件ID替换组件
+     * @param pageName 页面名称
+     * @param componentId 要替换的组件ID
+     * @param newComponent 新组件数据
+     * @return 如果更新成功则返回true
+     */
+    boolean updateComponentById(String pageName, String componentId, ComponentData newComponent);
+    
+    /**
+     * 查找包含指定点的组件（触摸命中测试）
+     * @param pageName 页面名称
+     * @param x 点的横坐标
+     * @param y 点的纵坐标
+     * @param containerWidth 容器宽度
+     * @param containerHeight 容器高度
+     * @return 按层次从上到下排列的组件
+     */
+    List<ComponentData> findComponentsAt(String pageName, int x, int y, int containerWidth, int containerHeight);
+    
+    /**
+     * 查找与区域相交或完全位于区域内的组件（框选）
+     * @param pageName 页面名称
+     * @param region 查询区域
+     * @param containedOnly 为true时只返回完全位于区域内的组件
+     * @param containerWidth 容器宽度
+     * @param containerHeight 容器高度
+     * @return 按层次从下到上排列的组件
+     */
+    List<ComponentData> findComponentsInRegion(String pageName, ComponentData.AbsolutePosition region,
+                                               boolean containedOnly, int containerWidth, int containerHeight);
+    
+    /**
+     * 查找与指定组件重叠的其他组件
+     * @param pageName 页面名称
+     * @param componentId 组件ID
+     * @param containerWidth 容器宽度
+     * @param containerHeight 容器高度
+     * @return 按层次从下到上排列的组件，组件不存在时返回空列表
+     */
+    List<ComponentData> findOverlappingComponents(String pageName, String componentId,
+                                                  int containerWidth, int containerHeight);
+    
     /**
      * 获取页面的所有组件
      * @param pageName 页面名称
-     * @return 组件数据列表
+     * @return 组件数据列表（只读，来自已发布的项目视图）
      */
     List<ComponentData> getPageComponents(String pageName);
     
     /**
      * 获取当前页面的所有组件
-     * @return 组件数据列表
+     * @return 组件数据列表（只读，来自已发布的项目视图）
      */
     List<ComponentData> getCurrentPageComponents();
     
@@ -188,6 +270,38 @@ public interface ProjectService {
      */
     ProjectData restoreProject(String backupName) throws IOException;
     
+    /**
+     * 获取所有备份的元数据
+     * @return 按文件名排序的备份信息列表
+     * @throws IOException 获取失败时抛出异常
+     */
+    List<BackupInfo> getBackupInfos() throws IOException;
+    
+    /**
+     * 删除备份
+     * @param backupFileName 备份文件名
+     * @throws IOException 删除失败时抛出异常
+     */
+    void deleteBackup(String backupFileName) throws IOException;
+    
+    /**
+     * 列出页面的历史版本（每次保存有修改的页面记录一个版本）
+     * @param pageName 页面名称
+     * @return 按版本号升序排列的版本信息，没有历史时返回空列表
+     * @throws IOException 读取失败时抛出异常
+     */
+    List<PageVersionInfo> listPageVersions(String pageName) throws IOException;
+    
+    /**
+     * 将当前项目的页面恢复为历史版本，页面已删除时重新添加到页面列表末尾并立即写入编辑日志
+     * 恢复后的页面为未保存状态
+     * @param pageName 页面名称
+     * @param version 版本号
+     * @return 恢复后的页面
+     * @throws IOException 读取失败或版本不存在时抛出异常
+     */
+    PageData restorePageVersion(String pageName, int version) throws IOException;
+    
     /**
      * 检查项目是否有未保存的更改
      * @return 如果有未保存的更改则返回true
@@ -245,6 +359,39 @@ public interface ProjectService {
      */
     ProjectData importProject(String importPath) throws IOException;
     
+    /**
+     * 导出项目资源包（项目数据和引用的图片资源）
+     * @param bundlePath 资源包路径
+     * @throws IOException 导出失败时抛出异常
+     */
+    void exportProjectBundle(String bundlePath) throws IOException;
+    
+    /**
+     * 导入项目资源包并设为当前项目
+     * @param bundlePath 资源包路径
+     * @return 导入的项目数据
+     * @throws IOException 导入失败时抛出异常
+     */
+    ProjectData importProjectBundle(String bundlePath) throws IOException;
+    
+    /**
+     * 并行导入目录中的所有项目文件
+     * MERGE 方式下合并后的项目成为当前项目；SEPARATE 方式不改变当前项目，各项目在结果中返回
+     * @param directoryPath 目录路径
+     * @param mode 导入方式
+     * @return 导入结果，包含每个文件的错误信息和吞吐量
+     * @throws IOException 目录无法读取时抛出异常
+     */
+    BulkImportResult importProjects(String directoryPath, BulkImportMode mode) throws IOException;
+    
+    /**
+     * 并行将目录中旧版本的JSON项目文件原地迁移到当前格式版本，原文件保留为上一版本（.prev）
+     * @param directoryPath 目录路径
+     * @return 迁移结果，包含每个文件迁移前的版本和错误信息
+     * @throws IOException 目录无法读取时抛出异常
+     */
+    MigrationResult migrateProjectFiles(String directoryPath) throws IOException;
+    
     /**
      * 获取最后保存时间
      * @return 最后保存时间戳
@@ -262,4 +409,115 @@ public interface ProjectService {
      * @return 最后修改时间戳
      */
     long getProjectLastModifiedTime();
+    
+    // 持久化
+    
+    /**
+     * 启用或关闭编辑日志模式
+     * 启用后每次修改追加到编辑日志，保存时只需刷新日志，日志超过阈值后在后台压缩为完整快照
+     * @param enabled 是否启用
+     */
+    void setJournalingEnabled(boolean enabled);
+    
+    /**
+     * 检查是否启用了编辑日志模式
+     * @return 如果启用则返回true
+     */
+    boolean isJournalingEnabled();
+    
+    /**
+     * 启用或关闭持久写入模式
+     * 启用后编辑日志模式的保存在记录同步到磁盘后才返回；同时进行的保存共享一次同步，
+     * 异步保存先合并再写入，连续编辑只产生一次同步
+     * @param enabled 是否启用
+     */
+    void setDurableWritesEnabled(boolean enabled);
+    
+    /**
+     * 检查是否启用了持久写入模式
+     * @return 如果启用则返回true
+     */
+    boolean isDurableWritesEnabled();
+    
+    /**
+     * 开始监视项目文件的外部修改
+     * 文件被其他程序替换后只重新加载变化的页面，不重新加载整个项目
+     * @throws IOException 无法监视数据目录时抛出异常
+     */
+    void startExternalChangeWatch() throws IOException;
+    
+    /**
+     * 停止监视项目文件的外部修改
+     */
+    void stopExternalChangeWatch();
+    
+    /**
+     * 将外部修改的项目按页面应用到当前项目
+     * 新增或内容变化的页面替换为外部版本，外部已删除的页面被移除，其他页面（包括未保存的修改）保持不变
+     * @param externalProject 从外部修改的文件读取的项目数据
+     * @return 应用的修改
+     */
+    ProjectChangeSet applyExternalChanges(ProjectData externalProject);
+    
+    /**
+     * 添加当前项目变化监听器
+     * @param listener 监听器
+     */
+    void addProjectChangeListener(ProjectChangeListener listener);
+    
+    /**
+     * 移除当前项目变化监听器
+     * @param listener 监听器
+     */
+    void removeProjectChangeListener(ProjectChangeListener listener);
+    
+    /**
+     * 获取工作区中的项目，最近打开的在前
+     * @return 项目信息列表
+     */
+    List<WorkspaceProjectInfo> listWorkspaceProjects();
+    
+    /**
+     * 获取当前项目在工作区中的标识
+     * @return 项目标识，未启用工作区时返回null
+     */
+    String getCurrentWorkspaceProjectId();
+    
+    /**
+     * 切换到工作区中的另一个项目
+     * 先保存当前项目的未保存修改，最近打开过的项目直接从内存中取得
+     * @param projectId 项目标识
+     * @return 切换后的当前项目
+     * @throws IOException 保存当前项目或加载目标项目失败时抛出异常
+     */
+    ProjectData switchProject(String projectId) throws IOException;
+    
+    /**
+     * 在工作区中新建项目并切换到该项目
+     * @param name 项目名称
+     * @return 新项目的信息
+     * @throws IOException 保存失败时抛出异常
+     */
+    WorkspaceProjectInfo createWorkspaceProject(String name) throws IOException;
+    
+    /**
+     * 从工作区删除项目（不能删除当前项目和默认项目）
+     * @param projectId 项目标识
+     * @return 如果项目存在则返回true
+     * @throws IOException 删除失败时抛出异常
+     */
+    boolean deleteWorkspaceProject(String projectId) throws IOException;
+    
+    /**
+     * 导入目录中的所有项目文件，每个文件作为工作区中的一个独立项目
+     * @param directoryPath 目录路径
+     * @return 新项目的信息，按文件名排序
+     * @throws IOException 目录无法读取或保存失败时抛出异常
+     */
+    List<WorkspaceProjectInfo> importProjectsToWorkspace(String directoryPath) throws IOException;
+    
+    /**
+     * 关闭服务，等待进行中的保存和后台任务完成并释放资源
+     */
+    void shutdown();
 }
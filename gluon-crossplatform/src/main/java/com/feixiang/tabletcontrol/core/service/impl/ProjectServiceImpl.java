@@ -3,15 +3,50 @@ package com.feixiang.tabletcontrol.core.service.impl;
 import com.feixiang.tabletcontrol.core.model.ComponentData;
 import com.feixiang.tabletcontrol.core.model.PageData;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.model.ProjectSnapshot;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.BulkImportMode;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.MigrationResult;
+import com.feixiang.tabletcontrol.core.repository.EditJournal;
+import com.feixiang.tabletcontrol.core.repository.JournalEntry;
+import com.feixiang.tabletcontrol.core.repository.PageHistory;
+import com.feixiang.tabletcontrol.core.repository.PageVersionInfo;
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
 import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.WorkspaceProjectInfo;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectFileWatcher;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectMigrator;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectWorkspace;
+import com.feixiang.tabletcontrol.core.service.ProjectChangeListener;
 import com.feixiang.tabletcontrol.core.service.ProjectService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * 项目服务实现类 - 完整功能版本
@@ -21,20 +56,67 @@ public class ProjectServiceImpl implements ProjectService {
     
     private static final Logger logger = LoggerFactory.getLogger(ProjectServiceImpl.class);
     
-    private final ProjectRepository projectRepository;
+    // 编辑日志超过该大小后在后台压缩为完整快照
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 256 * 1024;
+    
+    // 异步保存合并该时间窗口内的重复请求
+    private static final long SAVE_DEBOUNCE_MILLIS = 300;
+    
+    // 页面锁分段数量（2的幂）
+    private static final int PAGE_LOCK_STRIPES = 16;
+    
+    // 切换工作区项目时替换为目标项目的存储库
+    private volatile ProjectRepository projectRepository;
+    // 项目锁：写锁用于页面增删、重命名等结构修改和替换当前项目，页面内的操作只持有读锁
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 页面锁：页面内的组件操作在项目读锁内再持有页面所在分段的写锁，不同页面的操作可以并行
+    private final StampedLock[] pageLocks = new StampedLock[PAGE_LOCK_STRIPES];
+    
+    // 当前状态（页面操作只持有读锁，状态字段需要对其他线程可见）
+    private volatile ProjectData currentProject;
+    private volatile String currentPageName;
+    private volatile boolean hasUnsavedChanges = false;
+    private volatile long lastSavedTime = 0;
     
-    // 当前状态
-    private ProjectData currentProject;
-    private String currentPageName;
-    private boolean hasUnsavedChanges = false;
-    private long lastSavedTime = 0;
+    // 已发布的只读视图：结构修改在释放项目写锁前重建，页面修改提交后替换该页面
+    private final AtomicReference<ProjectSnapshot> publishedSnapshot = new AtomicReference<>(ProjectSnapshot.EMPTY);
+    private final AtomicLong snapshotVersion = new AtomicLong();
     
     // 缓存
     private final Object cacheLock = new Object();
     
+    // 编辑日志
+    private final Object journalLock = new Object();
+    private volatile boolean journalingEnabled = false;
+    // 持久写入：日志记录同步到磁盘后保存才返回
+    private volatile boolean durableWritesEnabled = false;
+    private volatile long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    // 日志与磁盘快照衔接时才能增量保存，否则下次保存写入完整快照
+    private volatile boolean journalInSync = false;
+    // 日志中记录的每个页面的修改计数，用于发现绕过服务修改的页面
+    private final Map<String, Long> journaledModCounts = new ConcurrentHashMap<>();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private ExecutorService compactionExecutor;
+    
+    // 异步保存
+    private final Object saveLock = new Object();
+    private ScheduledExecutorService saveExecutor;
+    private CompletableFuture<Void> pendingSave;
+    
+    // 外部修改监视
+    private final Object watcherLock = new Object();
+    private volatile ProjectFileWatcher fileWatcher;
+    private final List<ProjectChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    
+    // 项目工作区
+    private volatile ProjectWorkspace workspace;
+    private volatile String currentWorkspaceProjectId;
+    
     public ProjectServiceImpl(ProjectRepository projectRepository) {
         this.projectRepository = projectRepository;
+        for (int i = 0; i < pageLocks.length; i++) {
+            pageLocks[i] = new StampedLock();
+        }
         logger.info("项目服务初始化完成");
     }
     
@@ -42,34 +124,43 @@ public class ProjectServiceImpl implements ProjectService {
     
     @Override
     public ProjectData createNewProject() {
-        lock.writeLock().lock();
+        lockProject();
         try {
             logger.info("创建新项目");
             
-            ProjectData newProject = new ProjectData();
-            newProject.setName("新项目");
-            newProject.setDescription("跨平台中控项目");
-            
-            // 创建默认页面
-            PageData defaultPage = new PageData("主页面");
-            newProject.addPage(defaultPage);
-            newProject.setCurrentPage("主页面");
+            ProjectData newProject = newProjectData("新项目");
             
             this.currentProject = newProject;
             this.currentPageName = "主页面";
             this.hasUnsavedChanges = true;
+            this.journalInSync = false;
             
             logger.info("新项目创建完成: {}", newProject.getProjectSummary());
             return newProject;
             
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
+    /**
+     * 创建带默认页面的项目数据
+     */
+    private static ProjectData newProjectData(String name) {
+        ProjectData newProject = new ProjectData();
+        newProject.setName(name);
+        newProject.setDescription("跨平台中控项目");
+        
+        // 创建默认页面
+        PageData defaultPage = new PageData("主页面");
+        newProject.addPage(defaultPage);
+        newProject.setCurrentPage("主页面");
+        return newProject;
+    }
+    
     @Override
     public ProjectData loadProject() throws IOException {
-        lock.writeLock().lock();
+        lockProject();
         try {
             logger.info("加载项目");
             
@@ -86,8 +177,11 @@ public class ProjectServiceImpl implements ProjectService {
                 
                 this.currentProject = project;
                 this.currentPageName = project.getCurrentPage();
-                this.hasUnsavedChanges = false;
+                // 加载时修复的页面需要写回
+                this.hasUnsavedChanges = project.hasUnsavedRepairs();
                 this.lastSavedTime = System.currentTimeMillis();
+                // 存储库加载时已重放编辑日志
+                resetJournalBaseline(project);
                 
                 logger.info("项目加载完成: {}", project.getProjectSummary());
             }
@@ -95,13 +189,23 @@ public class ProjectServiceImpl implements ProjectService {
             return project;
             
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
     @Override
     public void saveProject(ProjectData projectData) throws IOException {
+        if (isSnapshotSave(projectData)) {
+            // 当前项目写入完整快照时在锁外序列化，保存期间不阻塞编辑
+            writeCurrentProject();
+            return;
+        }
+        
+        // 记录增量期间锁定所有页面，日志增量与页面内容一致；同步和记录历史版本在锁外进行
+        List<PageData> journaledPages = null;
+        ProjectRepository repository = null;
         lock.readLock().lock();
+        long[] pageStamps = lockAllPages();
         try {
             logger.info("保存项目: {}", projectData.getProjectSummary());
             
@@ -114,8 +218,14 @@ public class ProjectServiceImpl implements ProjectService {
             // 更新时间戳
             projectData.setLastModifiedTime(System.currentTimeMillis());
             
-            // 保存到存储库
-            projectRepository.saveProject(projectData);
+            if (journalingEnabled && projectData == this.currentProject && journalInSync) {
+                // 日志模式：只追加本次保存前的增量
+                repository = this.projectRepository;
+                journaledPages = appendJournalDeltas(projectData);
+            } else {
+                // 保存到存储库
+                saveSnapshot(projectData);
+            }
             
             // 更新状态
             if (projectData == this.currentProject) {
@@ -123,8 +233,25 @@ public class ProjectServiceImpl implements ProjectService {
                 this.lastSavedTime = System.currentTimeMillis();
             }
             
-            logger.info("项目保存完成");
-            
+        } finally {
+            unlockAllPages(pageStamps);
+            lock.readLock().unlock();
+        }
+        
+        if (journaledPages != null) {
+            syncJournal(repository, journaledPages);
+        }
+        logger.info("项目保存完成");
+    }
+    
+    /**
+     * 检查保存是否为当前项目的完整快照写入（日志模式下在读锁内追加增量，同步在锁外完成）
+     */
+    private boolean isSnapshotSave(ProjectData projectData) {
+        lock.readLock().lock();
+        try {
+            return projectData != null && projectData == this.currentProject
+                    && !(journalingEnabled && journalInSync);
         } finally {
             lock.readLock().unlock();
         }
@@ -140,27 +267,160 @@ public class ProjectServiceImpl implements ProjectService {
     }
     
     @Override
-    public ProjectData getCurrentProject() {
+    public CompletableFuture<Void> saveCurrentProjectAsync() {
+        synchronized (saveLock) {
+            // 尚未开始的保存会包含本次请求之前的所有修改
+            if (pendingSave != null) {
+                return pendingSave;
+            }
+            
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            if (saveExecutor == null) {
+                saveExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("project-save-io"));
+            }
+            pendingSave = future;
+            saveExecutor.schedule(() -> runPendingSave(future), SAVE_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            return future;
+        }
+    }
+    
+    /**
+     * 在I/O线程上执行合并后的保存请求
+     */
+    private void runPendingSave(CompletableFuture<Void> future) {
+        synchronized (saveLock) {
+            if (pendingSave == future) {
+                pendingSave = null;
+            }
+        }
+        try {
+            writeCurrentProject();
+            future.complete(null);
+        } catch (Throwable e) {
+            logger.error("后台保存项目失败", e);
+            future.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * 捕获当前项目快照并写入存储库
+     * 读锁内只创建写时复制快照（页面共享组件列表，代价与组件数量无关），
+     * 序列化和写入在锁外进行，不阻塞编辑操作
+     */
+    private void writeCurrentProject() throws IOException {
+        writeCurrentProject(false);
+    }
+    
+    /**
+     * 捕获当前项目快照并写入存储库
+     * @param fullSnapshot 日志模式下也写入完整快照（日志压缩）
+     */
+    private void writeCurrentProject(boolean fullSnapshot) throws IOException {
+        ProjectData project;
+        ProjectData snapshot;
+        ProjectRepository repository;
+        Map<PageData, PageData> sourcePages = new IdentityHashMap<>();
+        Map<String, Long> capturedModCounts = new HashMap<>();
+        
+        if (!fullSnapshot && !isSnapshotSave(this.currentProject)) {
+            // 日志模式下保存只追加增量记录，本身代价很小
+            saveCurrentProject();
+            return;
+        }
+        
         lock.readLock().lock();
+        long[] pageStamps = lockAllPages();
         try {
-            return currentProject;
+            project = this.currentProject;
+            if (project == null) {
+                logger.warn("没有当前项目需要保存");
+                return;
+            }
+            
+            if (!project.validateIntegrity()) {
+                logger.warn("项目数据完整性检查失败，正在修复");
+                project.repairIntegrity();
+            }
+            project.setLastModifiedTime(System.currentTimeMillis());
+            repository = this.projectRepository;
+            snapshot = project.snapshot();
+            for (Map.Entry<String, PageData> entry : snapshot.getPageContents().entrySet()) {
+                sourcePages.put(entry.getValue(), project.getPageContents().get(entry.getKey()));
+            }
+            for (String pageName : project.getPages()) {
+                if (project.isPageLoaded(pageName)) {
+                    capturedModCounts.put(pageName, project.getPageData(pageName).getModCount());
+                }
+            }
+            // 写入完成前存储库会清空日志，期间的修改不再追加，写入后按修改计数补记
+            this.journalInSync = false;
         } finally {
+            unlockAllPages(pageStamps);
             lock.readLock().unlock();
         }
+        
+        logger.info("保存项目快照: {}", snapshot.getProjectSummary());
+        List<String> savedPages = snapshot.getDirtyPageNames();
+        synchronized (journalLock) {
+            writeToRepository(repository, snapshot);
+        }
+        recordPageVersions(repository, snapshot, savedPages);
+        
+        lockProject();
+        try {
+            if (project != this.currentProject) {
+                return;
+            }
+            
+            // 按快照时的修改计数标记已保存，快照之后的修改仍为未保存
+            for (Map.Entry<PageData, PageData> entry : sourcePages.entrySet()) {
+                if (entry.getValue() != null && !entry.getKey().isDirty()) {
+                    entry.getValue().markSaved(entry.getKey().getModCount());
+                }
+            }
+            if (!snapshot.isDirty()) {
+                project.markSaved(snapshot.getModCount());
+            }
+            if (project.getPageLoader() == null) {
+                project.setPageLoader(snapshot.getPageLoader());
+            }
+            
+            // 存储库已清空编辑日志，快照之后的修改在下次保存时通过修改计数补记
+            journaledModCounts.clear();
+            journaledModCounts.putAll(capturedModCounts);
+            this.journalInSync = true;
+            
+            this.hasUnsavedChanges = project.hasUnsavedChanges();
+            this.lastSavedTime = System.currentTimeMillis();
+        } finally {
+            unlockProject();
+        }
+        logger.info("项目快照保存完成");
+    }
+    
+    @Override
+    public ProjectData getCurrentProject() {
+        return currentProject;
+    }
+    
+    @Override
+    public ProjectSnapshot getProjectSnapshot() {
+        return publishedSnapshot.get();
     }
     
     @Override
     public void setCurrentProject(ProjectData projectData) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             this.currentProject = projectData;
             if (projectData != null) {
                 this.currentPageName = projectData.getCurrentPage();
             }
             this.hasUnsavedChanges = true;
+            this.journalInSync = false;
             logger.info("设置当前项目: {}", projectData != null ? projectData.getProjectSummary() : "null");
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
@@ -168,10 +428,10 @@ public class ProjectServiceImpl implements ProjectService {
     
     @Override
     public PageData createPage(String pageName) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject == null) {
-                currentProject = createNewProject();
+                createNewProject();
             }
             
             logger.info("创建页面: {}", pageName);
@@ -184,18 +444,19 @@ public class ProjectServiceImpl implements ProjectService {
             PageData newPage = new PageData(pageName);
             currentProject.addPage(newPage);
             this.hasUnsavedChanges = true;
+            journal(JournalEntry.createPage(pageName), newPage);
             
             logger.info("页面创建完成: {}", pageName);
             return newPage;
             
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
     @Override
     public boolean deletePage(String pageName) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject == null) {
                 return false;
@@ -219,19 +480,21 @@ public class ProjectServiceImpl implements ProjectService {
                     }
                 }
                 this.hasUnsavedChanges = true;
+                journaledModCounts.remove(pageName);
+                journal(JournalEntry.deletePage(pageName), null);
                 logger.info("页面删除完成: {}", pageName);
             }
             
             return removed;
             
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
     @Override
     public boolean renamePage(String oldName, String newName) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject == null) {
                 return false;
@@ -252,13 +515,16 @@ public class ProjectServiceImpl implements ProjectService {
                     this.currentPageName = newName;
                 }
                 this.hasUnsavedChanges = true;
+                journaledModCounts.remove(oldName);
+                journal(JournalEntry.renamePage(oldName, newName), currentProject.getPage(newName));
+                renamePageHistory(oldName, newName);
                 logger.info("页面重命名完成: {} -> {}", oldName, newName);
             }
             
             return renamed;
             
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
@@ -290,40 +556,50 @@ public class ProjectServiceImpl implements ProjectService {
     
     @Override
     public void setCurrentPage(String pageName) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject != null && currentProject.hasPage(pageName)) {
                 this.currentPageName = pageName;
                 currentProject.setCurrentPage(pageName);
+                journal(JournalEntry.setCurrentPage(pageName), null);
                 logger.info("切换到页面: {}", pageName);
             } else {
                 logger.warn("页面不存在: {}", pageName);
             }
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
     
     @Override
     public String getCurrentPageName() {
-        lock.readLock().lock();
-        try {
-            return currentPageName;
-        } finally {
-            lock.readLock().unlock();
-        }
+        // 单个volatile字段，读取不需要加锁
+        return currentPageName;
     }
     
     @Override
     public PageData getCurrentPage() {
-        lock.readLock().lock();
+        // 从已发布的视图读取，不加锁也不访问存储
+        ProjectSnapshot snapshot = publishedSnapshot.get();
+        String pageName = snapshot.getCurrentPage();
+        if (pageName == null) {
+            return null;
+        }
+        PageData page = snapshot.getPage(pageName);
+        if (page != null || !snapshot.hasPage(pageName)) {
+            return page;
+        }
+
+        // 尚未加载的分片页面：加锁加载并发布
+        long pageStamp = lockPage(pageName);
         try {
-            if (currentProject != null && currentPageName != null) {
-                return currentProject.getPage(currentPageName);
+            if (currentProject == null || !currentProject.hasPage(pageName)) {
+                return null;
             }
-            return null;
+            PageData loaded = currentProject.getPage(pageName);
+            return loaded != null ? publishPage(loaded).getPage(pageName) : null;
         } finally {
-            lock.readLock().unlock();
+            unlockPage(pageName, pageStamp);
         }
     }
 
@@ -331,22 +607,26 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public void addComponent(String pageName, ComponentData component) {
-        lock.writeLock().lock();
+        ensureCurrentProject();
+        long pageStamp = lockPage(pageName);
         try {
             if (currentProject == null) {
-                currentProject = createNewProject();
+                logger.warn("没有当前项目");
+                return;
             }
 
             PageData page = currentProject.getPage(pageName);
             if (page != null) {
                 page.addComponent(component);
                 this.hasUnsavedChanges = true;
+                journal(JournalEntry.addComponent(pageName, component), page);
+                publishPage(page);
                 logger.info("添加组件到页面 {}: {}", pageName, component.getComponentSummary());
             } else {
                 logger.warn("页面不存在: {}", pageName);
             }
         } finally {
-            lock.writeLock().unlock();
+            unlockPage(pageName, pageStamp);
         }
     }
 
@@ -361,7 +641,7 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public boolean removeComponent(String pageName, ComponentData component) {
-        lock.writeLock().lock();
+        long pageStamp = lockPage(pageName);
         try {
             if (currentProject == null) {
                 return false;
@@ -372,13 +652,15 @@ public class ProjectServiceImpl implements ProjectService {
                 boolean removed = page.removeComponent(component);
                 if (removed) {
                     this.hasUnsavedChanges = true;
+                    journal(JournalEntry.removeComponent(pageName, component.getComponentId()), page);
+                    publishPage(page);
                     logger.info("从页面 {} 移除组件: {}", pageName, component.getComponentSummary());
                 }
                 return removed;
             }
             return false;
         } finally {
-            lock.writeLock().unlock();
+            unlockPage(pageName, pageStamp);
         }
     }
 
@@ -392,7 +674,7 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public boolean updateComponent(String pageName, ComponentData oldComponent, ComponentData newComponent) {
-        lock.writeLock().lock();
+        long pageStamp = lockPage(pageName);
         try {
             if (currentProject == null) {
                 return false;
@@ -403,6 +685,8 @@ public class ProjectServiceImpl implements ProjectService {
                 boolean updated = page.replaceComponent(oldComponent, newComponent);
                 if (updated) {
                     this.hasUnsavedChanges = true;
+                    journal(JournalEntry.updateComponent(pageName, oldComponent.getComponentId(), newComponent), page);
+                    publishPage(page);
                     logger.info("更新页面 {} 的组件: {} -> {}", pageName,
                               oldComponent.getComponentSummary(), newComponent.getComponentSummary());
                 }
@@ -410,25 +694,140 @@ public class ProjectServiceImpl implements ProjectService {
             }
             return false;
         } finally {
-            lock.writeLock().unlock();
+            unlockPage(pageName, pageStamp);
         }
     }
 
     @Override
-    public List<ComponentData> getPageComponents(String pageName) {
-        lock.readLock().lock();
+    public ComponentData getComponentById(String pageName, String componentId) {
+        PageData page = publishedSnapshot.get().getPage(pageName);
+        if (page != null) {
+            return page.getComponentById(componentId);
+        }
+
+        // 尚未加载的分片页面
+        long pageStamp = lockPage(pageName);
+        try {
+            page = currentProject != null ? currentProject.getPage(pageName) : null;
+            return page != null ? page.getComponentById(componentId) : null;
+        } finally {
+            unlockPage(pageName, pageStamp);
+        }
+    }
+
+    @Override
+    public boolean removeComponentById(String pageName, String componentId) {
+        long pageStamp = lockPage(pageName);
         try {
             if (currentProject == null) {
-                return new ArrayList<>();
+                return false;
             }
 
             PageData page = currentProject.getPage(pageName);
             if (page != null) {
-                return new ArrayList<>(page.getComponents());
+                ComponentData removed = page.removeComponentById(componentId);
+                if (removed != null) {
+                    this.hasUnsavedChanges = true;
+                    journal(JournalEntry.removeComponent(pageName, componentId), page);
+                    publishPage(page);
+                    logger.info("从页面 {} 移除组件: {}", pageName, removed.getComponentSummary());
+                    return true;
+                }
             }
-            return new ArrayList<>();
+            return false;
         } finally {
-            lock.readLock().unlock();
+            unlockPage(pageName, pageStamp);
+        }
+    }
+
+    @Override
+    public boolean updateComponentById(String pageName, String componentId, ComponentData newComponent) {
+        long pageStamp = lockPage(pageName);
+        try {
+            if (currentProject == null) {
+                return false;
+            }
+
+            PageData page = currentProject.getPage(pageName);
+            if (page != null) {
+                boolean updated = page.replaceComponentById(componentId, newComponent);
+                if (updated) {
+                    this.hasUnsavedChanges = true;
+                    journal(JournalEntry.updateComponent(pageName, componentId, newComponent), page);
+                    publishPage(page);
+                    logger.info("更新页面 {} 的组件 {}: {}", pageName, componentId, newComponent.getComponentSummary());
+                }
+                return updated;
+            }
+            return false;
+        } finally {
+            unlockPage(pageName, pageStamp);
+        }
+    }
+
+    // 空间查询：索引按需建立和更新，查询持有页面锁
+
+    @Override
+    public List<ComponentData> findComponentsAt(String pageName, int x, int y,
+                                                int containerWidth, int containerHeight) {
+        long pageStamp = lockPageForRead(pageName);
+        try {
+            PageData page = currentProject != null ? currentProject.getPage(pageName) : null;
+            return page != null ? page.findComponentsAt(x, y, containerWidth, containerHeight) : new ArrayList<>();
+        } finally {
+            unlockPageForRead(pageName, pageStamp);
+        }
+    }
+
+    @Override
+    public List<ComponentData> findComponentsInRegion(String pageName, ComponentData.AbsolutePosition region,
+                                                      boolean containedOnly, int containerWidth, int containerHeight) {
+        long pageStamp = lockPageForRead(pageName);
+        try {
+            PageData page = currentProject != null ? currentProject.getPage(pageName) : null;
+            return page != null
+                    ? page.findComponentsInRegion(region, containedOnly, containerWidth, containerHeight)
+                    : new ArrayList<>();
+        } finally {
+            unlockPageForRead(pageName, pageStamp);
+        }
+    }
+
+    @Override
+    public List<ComponentData> findOverlappingComponents(String pageName, String componentId,
+                                                         int containerWidth, int containerHeight) {
+        long pageStamp = lockPageForRead(pageName);
+        try {
+            PageData page = currentProject != null ? currentProject.getPage(pageName) : null;
+            ComponentData component = page != null ? page.getComponentById(componentId) : null;
+            if (component == null) {
+                return new ArrayList<>();
+            }
+            return page.findOverlappingComponents(component, containerWidth, containerHeight);
+        } finally {
+            unlockPageForRead(pageName, pageStamp);
+        }
+    }
+
+    @Override
+    public List<ComponentData> getPageComponents(String pageName) {
+        // 已发布的视图中直接返回只读列表，不加锁也不复制
+        List<ComponentData> components = publishedSnapshot.get().getComponents(pageName);
+        if (components != null) {
+            return components;
+        }
+
+        // 尚未加载的分片页面：加锁加载后加入视图
+        long pageStamp = lockPage(pageName);
+        try {
+            PageData page = currentProject != null ? currentProject.getPage(pageName) : null;
+            if (page == null) {
+                return Collections.emptyList();
+            }
+            components = publishPage(page).getComponents(pageName);
+            return components != null ? components : Collections.emptyList();
+        } finally {
+            unlockPage(pageName, pageStamp);
         }
     }
 
@@ -442,7 +841,7 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public void clearPageComponents(String pageName) {
-        lock.writeLock().lock();
+        long pageStamp = lockPage(pageName);
         try {
             if (currentProject == null) {
                 return;
@@ -452,10 +851,12 @@ public class ProjectServiceImpl implements ProjectService {
             if (page != null) {
                 page.clearComponents();
                 this.hasUnsavedChanges = true;
+                journal(JournalEntry.clearPage(pageName), page);
+                publishPage(page);
                 logger.info("清空页面 {} 的所有组件", pageName);
             }
         } finally {
-            lock.writeLock().unlock();
+            unlockPage(pageName, pageStamp);
         }
     }
 
@@ -470,23 +871,20 @@ public class ProjectServiceImpl implements ProjectService {
 
     @Override
     public void backupProject(String backupName) throws IOException {
-        lock.readLock().lock();
-        try {
-            if (currentProject == null) {
-                throw new IllegalStateException("没有项目需要备份");
-            }
-
-            logger.info("备份项目: {}", backupName);
-            projectRepository.backupProject(currentProject, backupName);
-            logger.info("项目备份完成: {}", backupName);
-        } finally {
-            lock.readLock().unlock();
+        // 备份写入快照，不阻塞编辑
+        ProjectData snapshot = snapshotCurrentProject();
+        if (snapshot == null) {
+            throw new IllegalStateException("没有项目需要备份");
         }
+
+        logger.info("备份项目: {}", backupName);
+        projectRepository.backupProject(snapshot, backupName);
+        logger.info("项目备份完成: {}", backupName);
     }
 
     @Override
     public ProjectData restoreProject(String backupName) throws IOException {
-        lock.writeLock().lock();
+        lockProject();
         try {
             logger.info("从备份恢复项目: {}", backupName);
             ProjectData restoredProject = projectRepository.restoreProject(backupName);
@@ -495,75 +893,121 @@ public class ProjectServiceImpl implements ProjectService {
                 this.currentProject = restoredProject;
                 this.currentPageName = restoredProject.getCurrentPage();
                 this.hasUnsavedChanges = true;
+                this.journalInSync = false;
                 logger.info("项目恢复完成: {}", restoredProject.getProjectSummary());
             }
 
             return restoredProject;
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
-    public boolean hasUnsavedChanges() {
-        lock.readLock().lock();
+    public List<BackupInfo> getBackupInfos() throws IOException {
+        return projectRepository.listBackupInfos();
+    }
+
+    @Override
+    public void deleteBackup(String backupFileName) throws IOException {
+        logger.info("删除备份: {}", backupFileName);
+        projectRepository.deleteBackup(backupFileName);
+    }
+
+    @Override
+    public List<PageVersionInfo> listPageVersions(String pageName) throws IOException {
+        PageHistory history = projectRepository.getPageHistory();
+        return history != null ? history.listVersions(pageName) : Collections.emptyList();
+    }
+
+    @Override
+    public PageData restorePageVersion(String pageName, int version) throws IOException {
+        PageHistory history = projectRepository.getPageHistory();
+        if (history == null) {
+            throw new IOException("存储库不支持页面历史");
+        }
+        // 在锁外读取历史文件
+        PageData restored = history.loadVersion(pageName, version);
+        if (restored == null) {
+            throw new IOException("页面历史版本不存在: " + pageName + " v" + version);
+        }
+
+        lockProject();
         try {
-            return hasUnsavedChanges;
+            if (currentProject == null) {
+                throw new IllegalStateException("没有项目需要恢复页面");
+            }
+            boolean deleted = !currentProject.hasPage(pageName);
+            restored.setName(pageName);
+            restored.markDirty();
+            currentProject.addPage(restored);
+            if (deleted) {
+                // 已删除的页面重新加入项目：与新建页面一样立即写入日志
+                journal(JournalEntry.putPage(restored), restored);
+                logger.info("已删除的页面从历史版本重新添加: {} v{}", pageName, version);
+            } else {
+                // 下次日志保存时写入完整页面
+                journaledModCounts.remove(pageName);
+                logger.info("页面已恢复到历史版本: {} v{}", pageName, version);
+            }
+            this.hasUnsavedChanges = true;
+            return restored;
         } finally {
-            lock.readLock().unlock();
+            unlockProject();
         }
     }
 
+    @Override
+    public boolean hasUnsavedChanges() {
+        return hasUnsavedChanges;
+    }
+
     @Override
     public void markAsSaved() {
-        lock.writeLock().lock();
+        lockProject();
         try {
             this.hasUnsavedChanges = false;
             this.lastSavedTime = System.currentTimeMillis();
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
     public void markAsModified() {
-        lock.writeLock().lock();
+        lockProject();
         try {
             this.hasUnsavedChanges = true;
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
     public String getProjectStatistics() {
         lock.readLock().lock();
+        long[] pageStamps = lockAllPages();
         try {
             if (currentProject == null) {
                 return "无项目数据";
             }
 
             int pageCount = currentProject.getPageCount();
-            int totalComponents = 0;
-
-            for (String pageName : currentProject.getPages()) {
-                PageData page = currentProject.getPage(pageName);
-                if (page != null) {
-                    totalComponents += page.getComponentCount();
-                }
-            }
+            // 未加载的分片页面使用清单中的统计，避免为统计而加载所有页面
+            int totalComponents = currentProject.getTotalComponentCount();
 
             return String.format("项目统计: %d个页面, %d个组件, 最后修改: %s",
                                pageCount, totalComponents,
                                new java.util.Date(currentProject.getLastModifiedTime()));
         } finally {
+            unlockAllPages(pageStamps);
             lock.readLock().unlock();
         }
     }
 
     @Override
     public void adaptProjectToResolution(int targetWidth, int targetHeight) {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject == null) {
                 return;
@@ -574,104 +1018,172 @@ public class ProjectServiceImpl implements ProjectService {
             for (String pageName : currentProject.getPages()) {
                 PageData page = currentProject.getPage(pageName);
                 if (page != null) {
-                    for (ComponentData component : page.getComponents()) {
-                        // 更新相对位置
-                        component.updateRelativePosition(targetWidth, targetHeight);
+                    for (int i = 0; i < page.getComponentCount(); i++) {
+                        // 更新相对位置（组件仍被保存中的快照引用时先复制）
+                        ComponentData component = page.getComponentForUpdate(i);
+                        if (component != null) {
+                            component.updateRelativePosition(targetWidth, targetHeight);
+                        }
                     }
+                    page.markDirty();
                 }
             }
 
             this.hasUnsavedChanges = true;
+            // 涉及所有页面的修改直接写入完整快照
+            this.journalInSync = false;
             logger.info("项目分辨率适配完成");
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
     public boolean validateProjectIntegrity() {
         lock.readLock().lock();
+        long[] pageStamps = lockAllPages();
         try {
             if (currentProject == null) {
                 return false;
             }
             return currentProject.validateIntegrity();
         } finally {
+            unlockAllPages(pageStamps);
             lock.readLock().unlock();
         }
     }
 
     @Override
     public void repairProjectIntegrity() {
-        lock.writeLock().lock();
+        lockProject();
         try {
             if (currentProject != null) {
                 logger.info("修复项目数据完整性");
                 currentProject.repairIntegrity();
                 this.hasUnsavedChanges = true;
+                this.journalInSync = false;
                 logger.info("项目数据完整性修复完成");
             }
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
     public void exportProject(String exportPath) throws IOException {
-        lock.readLock().lock();
-        try {
-            if (currentProject == null) {
-                throw new IllegalStateException("没有项目需要导出");
-            }
-
-            logger.info("导出项目到: {}", exportPath);
-            projectRepository.exportProject(currentProject, exportPath);
-            logger.info("项目导出完成");
-        } finally {
-            lock.readLock().unlock();
+        ProjectData snapshot = snapshotCurrentProject();
+        if (snapshot == null) {
+            throw new IllegalStateException("没有项目需要导出");
         }
+
+        logger.info("导出项目到: {}", exportPath);
+        projectRepository.exportProject(snapshot, exportPath);
+        logger.info("项目导出完成");
     }
 
     @Override
     public ProjectData importProject(String importPath) throws IOException {
-        lock.writeLock().lock();
-        try {
-            logger.info("从文件导入项目: {}", importPath);
-            ProjectData importedProject = projectRepository.importProject(importPath);
-
-            if (importedProject != null) {
-                this.currentProject = importedProject;
-                this.currentPageName = importedProject.getCurrentPage();
-                this.hasUnsavedChanges = true;
-                logger.info("项目导入完成: {}", importedProject.getProjectSummary());
-            }
+        // 在锁外读取和解析导入文件，只在替换当前项目时持有写锁
+        logger.info("从文件导入项目: {}", importPath);
+        ProjectData importedProject = projectRepository.importProject(importPath);
+        if (importedProject == null) {
+            return null;
+        }
 
+        lockProject();
+        try {
+            this.currentProject = importedProject;
+            this.currentPageName = importedProject.getCurrentPage();
+            this.hasUnsavedChanges = true;
+            this.journalInSync = false;
+            logger.info("项目导入完成: {}", importedProject.getProjectSummary());
             return importedProject;
         } finally {
-            lock.writeLock().unlock();
+            unlockProject();
         }
     }
 
     @Override
-    public long getLastSavedTime() {
-        lock.readLock().lock();
-        try {
-            return lastSavedTime;
-        } finally {
-            lock.readLock().unlock();
+    public void exportProjectBundle(String bundlePath) throws IOException {
+        ProjectData snapshot = snapshotCurrentProject();
+        if (snapshot == null) {
+            throw new IllegalStateException("没有项目需要导出");
         }
+
+        logger.info("导出项目资源包到: {}", bundlePath);
+        projectRepository.exportBundle(snapshot, bundlePath);
+        logger.info("项目资源包导出完成");
     }
 
     @Override
-    public long getProjectCreatedTime() {
-        lock.readLock().lock();
+    public ProjectData importProjectBundle(String bundlePath) throws IOException {
+        // 在锁外读取和解析导入文件，只在替换当前项目时持有写锁
+        logger.info("从资源包导入项目: {}", bundlePath);
+        ProjectData importedProject = projectRepository.importBundle(bundlePath);
+        if (importedProject == null) {
+            return null;
+        }
+
+        lockProject();
         try {
-            if (currentProject != null) {
-                return currentProject.getCreatedTime();
-            }
-            return 0;
+            this.currentProject = importedProject;
+            this.currentPageName = importedProject.getCurrentPage();
+            this.hasUnsavedChanges = true;
+            this.journalInSync = false;
+            logger.info("项目资源包导入完成: {}", importedProject.getProjectSummary());
+            return importedProject;
         } finally {
-            lock.readLock().unlock();
+            unlockProject();
+        }
+    }
+
+    @Override
+    public MigrationResult migrateProjectFiles(String directoryPath) throws IOException {
+        if (directoryPath == null || directoryPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("迁移目录不能为空");
+        }
+        logger.info("批量迁移项目文件: {}", directoryPath);
+        return new ProjectMigrator().migrateDirectory(Paths.get(directoryPath));
+    }
+
+    @Override
+    public BulkImportResult importProjects(String directoryPath, BulkImportMode mode) throws IOException {
+        // 解析耗时较长，在锁外进行，不阻塞编辑操作
+        logger.info("批量导入项目: {} ({})", directoryPath, mode);
+        BulkImportResult result = projectRepository.importProjects(directoryPath, mode);
+
+        ProjectData mergedProject = result.getMergedProject();
+        if (mergedProject != null) {
+            lockProject();
+            try {
+                this.currentProject = mergedProject;
+                this.currentPageName = mergedProject.getCurrentPage();
+                this.hasUnsavedChanges = true;
+                this.journalInSync = false;
+            } finally {
+                unlockProject();
+            }
+        }
+
+        logger.info("批量导入完成: {}", result.getSummary());
+        return result;
+    }
+
+    @Override
+    public long getLastSavedTime() {
+        return lastSavedTime;
+    }
+
+    @Override
+    public long getProjectCreatedTime() {
+        lock.readLock().lock();
+        try {
+            if (currentProject != null) {
+                return currentProject.getCreatedTime();
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
@@ -687,4 +1199,713 @@ public class ProjectServiceImpl implements ProjectService {
             lock.readLock().unlock();
         }
     }
+
+    // 编辑日志
+
+    @Override
+    public void setJournalingEnabled(boolean enabled) {
+        lockProject();
+        try {
+            if (enabled && projectRepository.getEditJournal() == null) {
+                logger.warn("存储库不支持编辑日志，保持完整快照保存");
+                return;
+            }
+            this.journalingEnabled = enabled;
+            // 下一次保存先写入完整快照，日志从该快照开始记录
+            this.journalInSync = false;
+            logger.info("编辑日志模式: {}", enabled ? "启用" : "关闭");
+        } finally {
+            unlockProject();
+        }
+    }
+
+    @Override
+    public boolean isJournalingEnabled() {
+        return journalingEnabled;
+    }
+
+    @Override
+    public void setDurableWritesEnabled(boolean enabled) {
+        this.durableWritesEnabled = enabled;
+        logger.info("持久写入模式: {}", enabled ? "启用" : "关闭");
+    }
+
+    @Override
+    public boolean isDurableWritesEnabled() {
+        return durableWritesEnabled;
+    }
+
+    /**
+     * 设置日志压缩阈值
+     * @param thresholdBytes 日志超过该字节数后在后台写入完整快照
+     */
+    public void setCompactionThreshold(long thresholdBytes) {
+        this.compactionThreshold = thresholdBytes;
+    }
+
+    // 外部修改
+
+    @Override
+    public void startExternalChangeWatch() throws IOException {
+        synchronized (watcherLock) {
+            if (fileWatcher != null) {
+                return;
+            }
+            ProjectFileWatcher watcher = new ProjectFileWatcher(projectRepository, this::applyExternalChanges);
+            watcher.start();
+            this.fileWatcher = watcher;
+        }
+    }
+
+    @Override
+    public void stopExternalChangeWatch() {
+        synchronized (watcherLock) {
+            if (fileWatcher != null) {
+                fileWatcher.close();
+                fileWatcher = null;
+            }
+        }
+    }
+
+    @Override
+    public ProjectChangeSet applyExternalChanges(ProjectData externalProject) {
+        ProjectChangeSet changes;
+        lockProject();
+        try {
+            if (currentProject == null) {
+                this.currentProject = externalProject;
+                this.currentPageName = externalProject.getCurrentPage();
+                this.hasUnsavedChanges = !projectRepository.isProjectFileStorage();
+                this.journalInSync = false;
+                changes = new ProjectChangeSet(new LinkedHashSet<>(externalProject.getPages()),
+                        Collections.emptySet(), Collections.emptySet(), true, true);
+            } else {
+                changes = ProjectFileWatcher.diff(currentProject, externalProject);
+                if (!changes.getConflictPages().isEmpty()) {
+                    logger.warn("以下页面有未保存的修改，保留本地版本: {}", changes.getConflictPages());
+                }
+                if (changes.isEmpty()) {
+                    logger.info("外部修改与当前项目一致，无需重新加载");
+                    return changes;
+                }
+                applyChanges(currentProject, externalProject, changes);
+                
+                if (currentPageName == null || !currentProject.hasPage(currentPageName)) {
+                    this.currentPageName = currentProject.getCurrentPage();
+                }
+                // 日志中的记录基于替换前的文件，下次保存写入完整快照；项目文件不是存储时重新加载的内容也需要写回
+                EditJournal journal = projectRepository.getEditJournal();
+                if (journalingEnabled && journal != null && journal.size() > 0
+                        || !projectRepository.isProjectFileStorage()) {
+                    this.hasUnsavedChanges = true;
+                }
+                this.journalInSync = false;
+            }
+            logger.info("已应用外部修改: {}", changes);
+        } finally {
+            unlockProject();
+        }
+        
+        for (ProjectChangeListener listener : changeListeners) {
+            try {
+                listener.onExternalChangesApplied(changes);
+            } catch (RuntimeException e) {
+                logger.error("项目变化监听器处理失败", e);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 按差异替换页面和项目属性（在写锁内调用）
+     * 项目文件就是存储时重新加载的页面与磁盘一致，标记为已保存；否则（如分片布局）保持未保存，
+     * 下次保存时写入存储，不会沿用存储中的旧页面。其他页面的未保存修改保留
+     */
+    private void applyChanges(ProjectData project, ProjectData externalProject, ProjectChangeSet changes) {
+        boolean projectWasDirty = project.isDirty();
+        boolean reloadedFromStorage = projectRepository.isProjectFileStorage();
+        for (String pageName : changes.getRemovedPages()) {
+            project.removePage(pageName);
+            journaledModCounts.remove(pageName);
+        }
+        for (String pageName : changes.getChangedPages()) {
+            PageData page = externalProject.getPageData(pageName);
+            if (reloadedFromStorage) {
+                page.markSaved();
+            }
+            project.addPage(page);
+            journaledModCounts.remove(pageName);
+        }
+        if (changes.isPageOrderChanged()) {
+            project.setPages(ProjectFileWatcher.mergedPageOrder(externalProject, changes.getConflictPages()));
+        }
+        if (changes.isPropertiesChanged()) {
+            project.setName(externalProject.getName());
+            project.setDescription(externalProject.getDescription());
+            project.setVersion(externalProject.getVersion());
+            project.setEditResolution(externalProject.getEditResolution());
+        }
+        if (!projectWasDirty && reloadedFromStorage) {
+            project.markSaved(project.getModCount());
+        }
+    }
+
+    @Override
+    public void addProjectChangeListener(ProjectChangeListener listener) {
+        if (listener != null) {
+            changeListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeProjectChangeListener(ProjectChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // 项目工作区
+
+    /**
+     * 启用项目工作区，当前存储库作为工作区的默认项目
+     * @param workspace 以当前存储库为默认项目存储库的工作区
+     */
+    public void setWorkspace(ProjectWorkspace workspace) {
+        lockProject();
+        try {
+            this.workspace = workspace;
+            this.currentWorkspaceProjectId = workspace != null ? ProjectWorkspace.DEFAULT_PROJECT_ID : null;
+        } finally {
+            unlockProject();
+        }
+    }
+
+    @Override
+    public List<WorkspaceProjectInfo> listWorkspaceProjects() {
+        return requireWorkspace().listProjects();
+    }
+
+    @Override
+    public String getCurrentWorkspaceProjectId() {
+        return currentWorkspaceProjectId;
+    }
+
+    @Override
+    public ProjectData switchProject(String projectId) throws IOException {
+        ProjectWorkspace ws = requireWorkspace();
+        if (!ws.containsProject(projectId)) {
+            throw new IllegalArgumentException("工作区中不存在项目: " + projectId);
+        }
+        // 切换过程中不重新启动文件监视，同一时间只进行一次切换
+        synchronized (watcherLock) {
+            String previousId = this.currentWorkspaceProjectId;
+            ProjectData previous = getCurrentProject();
+            if (projectId.equals(previousId) && previous != null) {
+                return previous;
+            }
+            logger.info("切换项目: {} -> {}", previousId, projectId);
+            
+            // 当前项目的修改先写入它自己的存储库
+            awaitPendingSave();
+            if (previous != null && hasUnsavedChanges()) {
+                saveCurrentProject();
+            }
+            if (previous != null && previousId != null) {
+                ws.retain(previousId, previous);
+                ws.updateProject(previousId, previous);
+            }
+            
+            // 目标项目成为最近使用的项目
+            ProjectData target = ws.openProject(projectId);
+            if (target == null) {
+                // 默认项目尚未保存过
+                target = newProjectData("新项目");
+            }
+            ProjectRepository targetRepository = ws.getRepository(projectId);
+            
+            boolean watching = fileWatcher != null;
+            stopExternalChangeWatch();
+            
+            lockProject();
+            try {
+                this.projectRepository = targetRepository;
+                this.currentWorkspaceProjectId = projectId;
+                this.currentProject = target;
+                this.currentPageName = target.getCurrentPage();
+                this.hasUnsavedChanges = target.hasUnsavedChanges();
+                // 目标存储库的日志可能包含加载时重放的记录，下次保存写入完整快照
+                this.journaledModCounts.clear();
+                this.journalInSync = false;
+            } finally {
+                unlockProject();
+            }
+            
+            if (watching) {
+                startExternalChangeWatch();
+            }
+            logger.info("项目切换完成: {}", target.getProjectSummary());
+            return target;
+        }
+    }
+
+    @Override
+    public WorkspaceProjectInfo createWorkspaceProject(String name) throws IOException {
+        ProjectWorkspace ws = requireWorkspace();
+        WorkspaceProjectInfo info = ws.createProject(newProjectData(name));
+        switchProject(info.getProjectId());
+        return info;
+    }
+
+    @Override
+    public boolean deleteWorkspaceProject(String projectId) throws IOException {
+        ProjectWorkspace ws = requireWorkspace();
+        if (projectId.equals(currentWorkspaceProjectId)) {
+            throw new IllegalStateException("不能删除当前项目");
+        }
+        return ws.deleteProject(projectId);
+    }
+
+    @Override
+    public List<WorkspaceProjectInfo> importProjectsToWorkspace(String directoryPath) throws IOException {
+        ProjectWorkspace ws = requireWorkspace();
+        BulkImportResult result = projectRepository.importProjects(directoryPath, BulkImportMode.SEPARATE);
+        if (result.hasErrors()) {
+            logger.warn("部分项目文件导入失败: {}", result.getErrors().keySet());
+        }
+        return ws.addImportedProjects(result);
+    }
+
+    private ProjectWorkspace requireWorkspace() {
+        ProjectWorkspace ws = this.workspace;
+        if (ws == null) {
+            throw new IllegalStateException("未启用项目工作区");
+        }
+        return ws;
+    }
+
+    /**
+     * 等待已排队的后台保存完成
+     */
+    private void awaitPendingSave() throws IOException {
+        CompletableFuture<Void> pending;
+        synchronized (saveLock) {
+            pending = pendingSave;
+        }
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            throw new IOException("后台保存项目失败", e.getCause());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        stopExternalChangeWatch();
+        
+        // 已排队的延迟保存在关闭后仍会执行
+        ScheduledExecutorService saver;
+        synchronized (saveLock) {
+            saver = saveExecutor;
+            saveExecutor = null;
+        }
+        awaitTermination(saver, "后台保存");
+        
+        ExecutorService executor;
+        synchronized (journalLock) {
+            executor = compactionExecutor;
+            compactionExecutor = null;
+        }
+        awaitTermination(executor, "日志压缩");
+
+        EditJournal journal = projectRepository.getEditJournal();
+        if (journal != null) {
+            try {
+                journal.flush();
+                journal.close();
+            } catch (IOException e) {
+                logger.error("关闭编辑日志失败", e);
+            }
+        }
+        
+        ProjectWorkspace ws = this.workspace;
+        ProjectData project = this.currentProject;
+        if (ws != null && project != null && currentWorkspaceProjectId != null) {
+            ws.updateProject(currentWorkspaceProjectId, project);
+        }
+        if (ws != null) {
+            try {
+                ws.flushIndex();
+            } catch (IOException e) {
+                logger.warn("保存工作区索引失败", e);
+            }
+        }
+        logger.info("项目服务已关闭");
+    }
+
+    /**
+     * 关闭执行器并等待已提交的任务完成
+     */
+    private void awaitTermination(ExecutorService executor, String taskName) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("等待{}任务超时", taskName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 创建后台守护线程工厂
+     */
+    private static ThreadFactory daemonThreadFactory(String threadName) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 确保存在当前项目（在获取读锁之前调用，读锁不能升级为写锁）
+     */
+    private void ensureCurrentProject() {
+        if (currentProject != null) {
+            return;
+        }
+        lockProject();
+        try {
+            if (currentProject == null) {
+                createNewProject();
+            }
+        } finally {
+            unlockProject();
+        }
+    }
+
+    /**
+     * 获取项目写锁（可重入）
+     */
+    private void lockProject() {
+        lock.writeLock().lock();
+    }
+
+    /**
+     * 释放项目写锁，最外层释放前重新发布只读视图
+     */
+    private void unlockProject() {
+        try {
+            if (lock.getWriteHoldCount() == 1) {
+                publishProject();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重建并发布整个项目的只读视图（在项目写锁内调用）
+     */
+    private void publishProject() {
+        publishedSnapshot.set(ProjectSnapshot.of(currentProject, currentPageName, snapshotVersion.incrementAndGet()));
+    }
+
+    /**
+     * 在已发布的视图中替换一个页面（持有该页面的锁时调用），不同页面的发布通过CAS合并
+     * @return 新发布的视图
+     */
+    private ProjectSnapshot publishPage(PageData page) {
+        return publishedSnapshot.updateAndGet(snapshot -> snapshot.withPage(page, snapshotVersion.incrementAndGet()));
+    }
+
+    /**
+     * 获取页面所在分段的锁
+     */
+    private StampedLock pageLock(String pageName) {
+        int hash = pageName != null ? pageName.hashCode() : 0;
+        return pageLocks[(hash ^ (hash >>> 16)) & (PAGE_LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 锁定单个页面用于修改：项目读锁保证页面结构不变，分段写锁保证同一页面的操作互斥
+     * 分段锁不可重入，持有期间不能再锁定页面
+     * @return 需要传给 {@link #unlockPage(String, long)} 的戳记
+     */
+    private long lockPage(String pageName) {
+        lock.readLock().lock();
+        return pageLock(pageName).writeLock();
+    }
+
+    private void unlockPage(String pageName, long stamp) {
+        pageLock(pageName).unlockWrite(stamp);
+        lock.readLock().unlock();
+    }
+
+    /**
+     * 锁定单个页面用于查询：同一页面的查询可以并行，与该页面的修改互斥
+     * @return 需要传给 {@link #unlockPageForRead(String, long)} 的戳记
+     */
+    private long lockPageForRead(String pageName) {
+        lock.readLock().lock();
+        return pageLock(pageName).readLock();
+    }
+
+    private void unlockPageForRead(String pageName, long stamp) {
+        pageLock(pageName).unlockRead(stamp);
+        lock.readLock().unlock();
+    }
+
+    /**
+     * 锁定所有页面（在项目读锁内调用），按分段顺序获取避免死锁
+     * 持有页面锁时不能调用
+     * @return 各分段的戳记
+     */
+    private long[] lockAllPages() {
+        long[] stamps = new long[pageLocks.length];
+        for (int i = 0; i < pageLocks.length; i++) {
+            stamps[i] = pageLocks[i].writeLock();
+        }
+        return stamps;
+    }
+
+    private void unlockAllPages(long[] stamps) {
+        for (int i = pageLocks.length - 1; i >= 0; i--) {
+            pageLocks[i].unlockWrite(stamps[i]);
+        }
+    }
+
+    /**
+     * 创建当前项目的写时复制快照，供锁外的导出和备份使用
+     * @return 没有当前项目时返回null
+     */
+    private ProjectData snapshotCurrentProject() {
+        lock.readLock().lock();
+        long[] pageStamps = lockAllPages();
+        try {
+            return currentProject != null ? currentProject.snapshot() : null;
+        } finally {
+            unlockAllPages(pageStamps);
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 追加一条日志记录（在写锁或页面锁内调用）
+     * @param entry 日志记录
+     * @param page 被修改的页面，可以为null
+     */
+    private void journal(JournalEntry entry, PageData page) {
+        if (!journalingEnabled || !journalInSync) {
+            return;
+        }
+        try {
+            projectRepository.getEditJournal().append(entry);
+            if (page != null) {
+                journaledModCounts.put(page.getName(), page.getModCount());
+            }
+        } catch (IOException e) {
+            logger.warn("写入编辑日志失败，下次保存将写入完整快照", e);
+            this.journalInSync = false;
+        }
+    }
+
+    /**
+     * 写入完整快照（存储库保存成功后会清空编辑日志）
+     */
+    private void saveSnapshot(ProjectData projectData) throws IOException {
+        synchronized (journalLock) {
+            writeToRepository(projectRepository, projectData);
+            if (projectData == this.currentProject) {
+                resetJournalBaseline(projectData);
+            }
+        }
+    }
+
+    /**
+     * 写入存储库，监视外部修改时标记为自身的写入
+     */
+    private void writeToRepository(ProjectRepository repository, ProjectData projectData) throws IOException {
+        ProjectFileWatcher watcher = this.fileWatcher;
+        if (watcher == null) {
+            repository.saveProject(projectData);
+            return;
+        }
+        watcher.beginOwnWrite();
+        try {
+            repository.saveProject(projectData);
+        } finally {
+            watcher.endOwnWrite();
+        }
+    }
+
+    /**
+     * 日志模式保存：补记绕过服务修改的页面和项目属性，然后刷新日志（在页面锁内调用）
+     * @return 本次补记的页面快照，用于锁外记录历史版本；日志写入失败改为写入完整快照时返回null
+     */
+    private List<PageData> appendJournalDeltas(ProjectData projectData) throws IOException {
+        EditJournal journal = projectRepository.getEditJournal();
+        List<PageData> savedPages = new ArrayList<>();
+        synchronized (journalLock) {
+            try {
+                for (String pageName : projectData.getPages()) {
+                    if (!projectData.isPageLoaded(pageName)) {
+                        continue;
+                    }
+                    PageData page = projectData.getPageData(pageName);
+                    if (page == null) {
+                        continue;
+                    }
+                    // 日志之后才加载的页面与快照一致，除非已被修改
+                    Long journaledModCount = journaledModCounts.get(pageName);
+                    boolean changed = journaledModCount != null
+                            ? page.getModCount() != journaledModCount
+                            : page.isDirty();
+                    if (changed) {
+                        journal.append(JournalEntry.putPage(page));
+                        journaledModCounts.put(pageName, page.getModCount());
+                        savedPages.add(page.snapshot());
+                    }
+                }
+                journal.append(JournalEntry.updateProject(projectData));
+                journal.flush();
+            } catch (IOException e) {
+                logger.warn("写入编辑日志失败，改为写入完整快照", e);
+                this.journalInSync = false;
+                saveSnapshot(projectData);
+                return null;
+            }
+        }
+        return savedPages;
+    }
+
+    /**
+     * 日志模式保存的后半部分（在项目锁和页面锁之外调用）：同步日志并记录历史版本
+     * 同步期间编辑可以继续追加日志，同步开始前追加的记录由这一次同步一并落盘
+     * @param repository 追加日志时的存储库
+     * @param savedPages 本次补记的页面快照
+     */
+    private void syncJournal(ProjectRepository repository, List<PageData> savedPages) throws IOException {
+        EditJournal journal = repository.getEditJournal();
+        if (durableWritesEnabled) {
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                // 无法确认日志已落盘，下次保存写入完整快照
+                this.journalInSync = false;
+                this.hasUnsavedChanges = true;
+                throw e;
+            }
+        }
+
+        recordPageVersions(repository, savedPages);
+
+        if (journal.size() > compactionThreshold) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * 页面历史随页面重命名，失败不影响重命名结果
+     */
+    private void renamePageHistory(String oldName, String newName) {
+        PageHistory history = projectRepository.getPageHistory();
+        if (history == null) {
+            return;
+        }
+        try {
+            history.renameHistory(oldName, newName);
+        } catch (IOException e) {
+            logger.warn("重命名页面历史失败: {} -> {}", oldName, newName, e);
+        }
+    }
+
+    /**
+     * 为已保存的页面记录历史版本，记录失败不影响保存结果
+     */
+    private void recordPageVersions(ProjectRepository repository, ProjectData projectData,
+                                    Collection<String> pageNames) {
+        List<PageData> pages = new ArrayList<>();
+        for (String pageName : pageNames) {
+            PageData page = projectData.getPageContents().get(pageName);
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+        recordPageVersions(repository, pages);
+    }
+
+    private void recordPageVersions(ProjectRepository repository, Collection<PageData> pages) {
+        PageHistory history = repository.getPageHistory();
+        if (history == null) {
+            return;
+        }
+        for (PageData page : pages) {
+            try {
+                history.recordVersion(page);
+            } catch (IOException e) {
+                logger.warn("记录页面历史版本失败: {}", page.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 以当前项目作为日志的起点
+     */
+    private void resetJournalBaseline(ProjectData projectData) {
+        journaledModCounts.clear();
+        for (String pageName : projectData.getPages()) {
+            if (projectData.isPageLoaded(pageName)) {
+                PageData page = projectData.getPageData(pageName);
+                // 修复尚未写回的页面不在日志中，下次保存时写入
+                if (page != null && !page.isRepairUnsaved()) {
+                    journaledModCounts.put(pageName, page.getModCount());
+                }
+            }
+        }
+        this.journalInSync = true;
+    }
+
+    /**
+     * 安排后台日志压缩，同一时间最多一个任务
+     */
+    private void scheduleCompaction() {
+        if (!compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (journalLock) {
+            if (compactionExecutor == null) {
+                compactionExecutor = Executors.newSingleThreadExecutor(
+                        daemonThreadFactory("project-journal-compaction"));
+            }
+            compactionExecutor.execute(() -> {
+                try {
+                    compactJournal();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 将编辑日志压缩为完整快照
+     * 与后台保存相同，只在捕获快照时锁定页面，写入期间的修改在下次保存时按修改计数补记
+     */
+    private void compactJournal() {
+        try {
+            if (this.currentProject == null || !journalingEnabled || !journalInSync) {
+                return;
+            }
+            logger.info("压缩编辑日志: {} 字节", projectRepository.getEditJournal().size());
+            writeCurrentProject(true);
+            logger.info("编辑日志压缩完成");
+        } catch (IOException | RuntimeException e) {
+            logger.error("编辑日志压缩失败", e);
+        }
+    }
 }
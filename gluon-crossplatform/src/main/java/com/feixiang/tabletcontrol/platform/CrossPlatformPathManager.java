@@ -42,6 +42,30 @@ public class CrossPlatformPathManager {
         logger.info("跨平台路径管理器初始化完成");
     }
     
+    /**
+     * 复制路径配置并替换数据目录（工作区中每个项目使用独立的数据目录）
+     */
+    private CrossPlatformPathManager(CrossPlatformPathManager base, String dataDirectory) {
+        this.platformManager = base.platformManager;
+        this.userHomeDirectory = base.getUserHomeDirectory();
+        this.appDataDirectory = base.getAppDataDirectory();
+        this.configDirectory = base.getConfigDirectory();
+        this.logDirectory = base.getLogDirectory();
+        this.tempDirectory = base.getTempDirectory();
+        this.dataDirectory = dataDirectory;
+        this.backupDirectory = dataDirectory + File.separator + backupDirectoryName;
+        createDirectoryIfNotExists(dataDirectory);
+    }
+    
+    /**
+     * 创建以指定目录为数据目录的路径管理器，其他路径保持不变
+     * @param dataDirectory 数据目录
+     * @return 新的路径管理器
+     */
+    public CrossPlatformPathManager forDataDirectory(String dataDirectory) {
+        return new CrossPlatformPathManager(this, dataDirectory);
+    }
+    
     /**
      * 初始化所有路径
      */
@@ -3,6 +3,9 @@ package com.feixiang.tabletcontrol.ui;
 import com.feixiang.tabletcontrol.core.model.ComponentData;
 import com.feixiang.tabletcontrol.core.model.PageData;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
+import com.feixiang.tabletcontrol.core.service.ProjectChangeListener;
 import com.feixiang.tabletcontrol.core.service.ProjectService;
 import com.feixiang.tabletcontrol.platform.PlatformManager;
 import com.feixiang.tabletcontrol.ui.theme.ThemeManager;
@@ -21,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 /**
  * 主视图控制器 - 完整功能版本
@@ -74,6 +78,10 @@ public class MainViewController {
     private String currentPageName;
     private ComponentData selectedComponent;
 
+    // 外部修改在监视线程上回调，转到界面线程刷新
+    private final ProjectChangeListener projectChangeListener =
+        changes -> Platform.runLater(() -> handleExternalChanges(changes));
+
     public MainViewController(ProjectService projectService, PlatformManager platformManager, ThemeManager themeManager) {
         this.projectService = projectService;
         this.platformManager = platformManager;
@@ -83,6 +91,7 @@ public class MainViewController {
         setupEventHandlers();
         loadInitialData();
         updateUI();
+        projectService.addProjectChangeListener(projectChangeListener);
 
         logger.info("主视图控制器初始化完成");
     }
@@ -550,6 +559,39 @@ public class MainViewController {
         }
     }
 
+    /**
+     * 刷新外部修改的页面
+     * 只更新页面列表和受影响的当前页面，不重建整个界面
+     */
+    private void handleExternalChanges(ProjectChangeSet changes) {
+        logger.info("刷新外部修改: {}", changes);
+        currentProject = projectService.getCurrentProject();
+        String previousPageName = currentPageName;
+        currentPageName = projectService.getCurrentPageName();
+
+        if (projectInfoLabel != null && currentProject != null) {
+            projectInfoLabel.setText(currentProject.getProjectSummary());
+        }
+        if (pageListView != null && changes.isPageOrderChanged() && currentProject != null) {
+            pageListView.getItems().setAll(currentProject.getPages());
+            if (currentPageName != null) {
+                pageListView.getSelectionModel().select(currentPageName);
+            }
+        }
+        if (currentPageName == null || !currentPageName.equals(previousPageName)
+                || changes.getChangedPages().contains(currentPageName)) {
+            updatePageContent();
+        }
+
+        updateUI();
+        String status = "已加载外部修改: " + changes.getChangedPages().size() + " 个页面更新, "
+            + changes.getRemovedPages().size() + " 个页面删除";
+        if (!changes.getConflictPages().isEmpty()) {
+            status += "，保留本地未保存的页面: " + String.join(", ", changes.getConflictPages());
+        }
+        updateStatus(status);
+    }
+
     /**
      * 更新组件属性
      */
@@ -675,19 +717,27 @@ public class MainViewController {
 
     private void handleSaveProject() {
         logger.info("处理保存项目");
-        try {
-            if (currentProject != null) {
-                updateStatus("正在保存项目...");
-                projectService.saveProject(currentProject);
+        if (currentProject == null) {
+            updateStatus("没有项目需要保存");
+            return;
+        }
+        
+        // 序列化和写入在后台线程执行，完成后回到界面线程更新状态
+        updateStatus("正在保存项目...");
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        progressBar.setVisible(true);
+        projectService.saveCurrentProjectAsync().whenComplete((result, error) -> Platform.runLater(() -> {
+            progressBar.setVisible(false);
+            if (error == null) {
                 updateStatus("项目保存完成");
             } else {
-                updateStatus("没有项目需要保存");
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                logger.error("保存项目失败", cause);
+                updateStatus("保存项目失败: " + cause.getMessage());
+                showErrorDialog("保存失败", "保存项目时发生错误: " + cause.getMessage());
             }
-        } catch (Exception e) {
-            logger.error("保存项目失败", e);
-            updateStatus("保存项目失败: " + e.getMessage());
-            showErrorDialog("保存失败", "保存项目时发生错误: " + e.getMessage());
-        }
+        }));
     }
 
     private void handleSaveAsProject() {
@@ -821,7 +871,62 @@ public class MainViewController {
     private void handleZoom() { showInfoDialog("功能提示", "缩放功能正在开发中"); }
     private void handleSettings() { showInfoDialog("功能提示", "设置功能正在开发中"); }
     private void handleThemeSettings() { showInfoDialog("功能提示", "主题设置功能正在开发中"); }
-    private void handleBackupManager() { showInfoDialog("功能提示", "备份管理功能正在开发中"); }
+    private void handleBackupManager() {
+        logger.info("处理备份管理");
+        try {
+            List<BackupInfo> backups = projectService.getBackupInfos();
+            if (backups.isEmpty()) {
+                showInfoDialog("备份管理", "暂无备份");
+                return;
+            }
+
+            // 备份信息来自目录文件，打开对话框时不读取备份内容
+            ListView<BackupInfo> backupList = new ListView<>();
+            backupList.getItems().addAll(backups);
+            backupList.setCellFactory(list -> new ListCell<BackupInfo>() {
+                @Override
+                protected void updateItem(BackupInfo item, boolean empty) {
+                    super.updateItem(item, empty);
+                    setText(empty || item == null ? null : item.getSummary());
+                }
+            });
+            backupList.getSelectionModel().selectLast();
+            backupList.setPrefSize(480, 300);
+
+            ButtonType restoreButton = new ButtonType("恢复", ButtonBar.ButtonData.OK_DONE);
+            ButtonType deleteButton = new ButtonType("删除", ButtonBar.ButtonData.OTHER);
+            Dialog<ButtonType> dialog = new Dialog<>();
+            dialog.setTitle("备份管理");
+            dialog.setHeaderText("共 " + backups.size() + " 个备份");
+            dialog.getDialogPane().setContent(backupList);
+            dialog.getDialogPane().getButtonTypes().addAll(restoreButton, deleteButton, ButtonType.CLOSE);
+
+            Optional<ButtonType> result = dialog.showAndWait();
+            BackupInfo selected = backupList.getSelectionModel().getSelectedItem();
+            if (!result.isPresent() || selected == null) {
+                return;
+            }
+
+            if (result.get() == restoreButton) {
+                if (showConfirmDialog("恢复备份",
+                        "确定要从备份 \"" + selected.getBackupName() + "\" 恢复吗？\n当前未保存的修改将丢失。")) {
+                    ProjectData restoredProject = projectService.restoreProject(selected.getFileName());
+                    displayProject(restoredProject);
+                    updateStatus("项目已从备份恢复: " + selected.getFileName());
+                }
+            } else if (result.get() == deleteButton) {
+                if (showConfirmDialog("删除备份",
+                        "确定要删除备份 \"" + selected.getFileName() + "\" 吗？\n此操作不可撤销。")) {
+                    projectService.deleteBackup(selected.getFileName());
+                    updateStatus("备份删除完成: " + selected.getFileName());
+                    handleBackupManager();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("备份管理操作失败", e);
+            showErrorDialog("备份管理失败", "备份管理操作时发生错误: " + e.getMessage());
+        }
+    }
     private void handleDataValidation() {
         boolean valid = projectService.validateProjectIntegrity();
         showInfoDialog("数据验证", valid ? "项目数据完整性验证通过" : "项目数据存在问题，建议修复");
@@ -885,6 +990,7 @@ public class MainViewController {
      */
     public void cleanup() {
         logger.info("清理主视图控制器资源");
+        projectService.removeProjectChangeListener(projectChangeListener);
         // 清理资源...
     }
 }
@@ -3,14 +3,34 @@ package com.feixiang.tabletcontrol;
 import com.feixiang.tabletcontrol.core.model.ComponentData;
 import com.feixiang.tabletcontrol.core.model.LabelData;
 import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.PageLoader;
 import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.model.ProjectSnapshot;
 import com.feixiang.tabletcontrol.core.model.RelativePosition;
+import com.feixiang.tabletcontrol.core.repository.BackupInfo;
+import com.feixiang.tabletcontrol.core.repository.BackupRetentionPolicy;
+import com.feixiang.tabletcontrol.core.repository.BulkImportMode;
+import com.feixiang.tabletcontrol.core.repository.BulkImportResult;
+import com.feixiang.tabletcontrol.core.repository.MigrationResult;
+import com.feixiang.tabletcontrol.core.repository.PageVersionInfo;
+import com.feixiang.tabletcontrol.core.repository.ProjectChangeSet;
 import com.feixiang.tabletcontrol.core.repository.ProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.WorkspaceProjectInfo;
+import com.feixiang.tabletcontrol.core.repository.impl.BinaryProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.JsonEditJournal;
+import com.feixiang.tabletcontrol.core.repository.impl.JsonPageHistory;
+import com.feixiang.tabletcontrol.core.repository.impl.LegacySchemaMigration;
 import com.feixiang.tabletcontrol.core.repository.impl.JsonProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.LogStructuredProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.ModelTypeAdapters;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectMigrator;
+import com.feixiang.tabletcontrol.core.repository.impl.ProjectWorkspace;
 import com.feixiang.tabletcontrol.core.service.ProjectService;
 import com.feixiang.tabletcontrol.core.service.impl.ProjectServiceImpl;
 import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
 import com.feixiang.tabletcontrol.platform.PlatformManager;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -18,8 +38,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -266,7 +301,1328 @@ public class CrossPlatformIntegrationTest {
         
         logger.info("备份和恢复功能测试通过");
     }
-    
+
+    @Test
+    void testBackupDeduplication() throws IOException {
+        logger.info("测试备份数据块去重");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("不变页面");
+        projectService.addComponent("不变页面", createTestComponent("不变按钮", 10, 10, 80, 30));
+        projectService.addComponent("主页面", createTestComponent("主按钮", 20, 20, 80, 30));
+
+        Path blobsDir = Path.of(projectRepository.getBackupDirectoryPath(), "blobs");
+        projectService.backupProject("去重备份A");
+        long blobsAfterFirst = countFiles(blobsDir);
+        assertEquals(2, blobsAfterFirst);
+
+        // 只修改一个页面，新备份只增加一个数据块
+        projectService.addComponent("主页面", createTestComponent("新按钮", 30, 30, 80, 30));
+        projectService.backupProject("去重备份B");
+        assertEquals(3, countFiles(blobsDir));
+
+        List<String> backups = projectRepository.listBackups();
+        assertEquals(2, backups.size());
+        assertTrue(backups.stream().allMatch(name -> name.endsWith(".manifest")));
+
+        ProjectData restored = projectRepository.restoreProject("去重备份A");
+        assertEquals(1, restored.getPage("主页面").getComponentCount());
+        assertEquals(1, restored.getPage("不变页面").getComponentCount());
+
+        // 删除备份后回收只被它引用的数据块
+        projectRepository.deleteBackup(backups.get(0));
+        assertEquals(2, countFiles(blobsDir));
+        assertEquals(2, projectRepository.restoreProject("去重备份B").getPage("主页面").getComponentCount());
+
+        // 旧版本的完整JSON备份仍可恢复
+        projectRepository.exportProject(project, projectRepository.getBackupDirectoryPath() + "/旧备份_20240101_000000.json");
+        assertEquals(2, projectRepository.restoreProject("旧备份").getPageCount());
+
+        logger.info("备份数据块去重测试通过");
+    }
+
+    @Test
+    void testCompressedBackupsWithRetention() throws Exception {
+        logger.info("测试压缩备份和保留策略");
+
+        projectService.createNewProject();
+        projectRepository.setBackupRetentionPolicy(new BackupRetentionPolicy(2, 0, 0));
+
+        for (int i = 1; i <= 4; i++) {
+            projectService.addComponent("主页面", createTestComponent("保留按钮" + i, i * 10, 10, 80, 30));
+            projectService.backupProject("保留备份" + i);
+            Thread.sleep(5);
+        }
+
+        // 只保留最近两个备份，被清理备份独占的数据块同时回收
+        List<String> backups = projectRepository.listBackups();
+        assertEquals(2, backups.size());
+        assertTrue(backups.get(0).startsWith("保留备份3"));
+        assertTrue(backups.get(1).startsWith("保留备份4"));
+        assertEquals(2, countFiles(Path.of(projectRepository.getBackupDirectoryPath(), "blobs")));
+
+        // 备份清单以GZIP格式写入，恢复时透明解压
+        byte[] header = Files.readAllBytes(Path.of(projectRepository.getBackupDirectoryPath(), backups.get(1)));
+        assertEquals((byte) 0x1f, header[0]);
+        assertEquals((byte) 0x8b, header[1]);
+        assertEquals(4, projectRepository.restoreProject("保留备份4").getPage("主页面").getComponentCount());
+
+        logger.info("压缩备份和保留策略测试通过");
+    }
+
+    @Test
+    void testBackupCatalog() throws IOException {
+        logger.info("测试备份目录文件");
+
+        projectService.createNewProject();
+        projectService.createPage("目录页面");
+        projectService.addComponent("主页面", createTestComponent("目录按钮", 10, 10, 80, 30));
+        projectService.addComponent("目录页面", createTestComponent("目录标签", 20, 20, 80, 30));
+        projectService.backupProject("目录备份");
+
+        // 元数据随备份写入目录文件，新的存储库实例直接读取，无需打开备份
+        Path catalogFile = Path.of(projectRepository.getBackupDirectoryPath(), "catalog.json");
+        assertTrue(Files.exists(catalogFile));
+        JsonProjectRepository reopened = new JsonProjectRepository(pathManager);
+        List<BackupInfo> infos = reopened.listBackupInfos();
+        assertEquals(1, infos.size());
+        BackupInfo info = infos.get(0);
+        assertEquals("目录备份", info.getBackupName());
+        assertEquals(2, info.getPageCount());
+        assertEquals(2, info.getComponentCount());
+        assertTrue(info.getSize() > 0);
+        assertEquals(2, reopened.restoreProject("目录备份").getTotalComponentCount());
+
+        // 目录文件丢失时扫描备份重建
+        Files.delete(catalogFile);
+        infos = new JsonProjectRepository(pathManager).listBackupInfos();
+        assertEquals(1, infos.size());
+        assertEquals("目录备份", infos.get(0).getBackupName());
+        assertEquals(2, infos.get(0).getComponentCount());
+        assertEquals(info.getTimestamp() / 1000, infos.get(0).getTimestamp() / 1000);
+
+        // 删除备份同时更新目录文件
+        projectService.deleteBackup(info.getFileName());
+        assertTrue(projectService.getBackupInfos().isEmpty());
+        assertTrue(new JsonProjectRepository(pathManager).listBackups().isEmpty());
+
+        logger.info("备份目录文件测试通过");
+    }
+
+    @Test
+    void testBinaryProjectFormat() throws IOException {
+        logger.info("测试二进制项目格式");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("二进制页面");
+        ComponentData relative = new ComponentData(new RelativePosition(0.1, 0.2, 0.3, 0.4), "标签",
+            createTestComponent("相对标签", 0, 0, 0, 0).getLabelData());
+        relative.setTooltip("提示");
+        relative.setVisible(false);
+        projectService.addComponent("二进制页面", relative);
+        for (int i = 0; i < 20; i++) {
+            projectService.addComponent("主页面", createTestComponent("按钮" + i, i * 10, -i, 80, 30));
+        }
+        projectService.saveProject(project);
+        Path jsonFile = Path.of(projectRepository.getProjectFilePath());
+
+        // 已有的JSON项目文件在首次加载时读取，保存后转换为二进制
+        BinaryProjectRepository binaryRepository = new BinaryProjectRepository(pathManager);
+        ProjectData migrated = binaryRepository.loadProject();
+        assertEquals(21, migrated.getTotalComponentCount());
+        long jsonSize = Files.size(jsonFile);
+        binaryRepository.saveProject(migrated);
+        Path binaryFile = Path.of(binaryRepository.getProjectFilePath());
+        assertTrue(Files.exists(binaryFile));
+        assertFalse(Files.exists(jsonFile));
+        assertTrue(Files.size(binaryFile) * 3 < jsonSize);
+
+        ProjectData loaded = new BinaryProjectRepository(pathManager).loadProject();
+        assertEquals(project.getPages(), loaded.getPages());
+        assertEquals(project.getLastModifiedTime(), loaded.getLastModifiedTime());
+        ComponentData original = project.getPage("主页面").getComponent(5);
+        ComponentData decoded = loaded.getPage("主页面").getComponent(5);
+        assertEquals(original.getComponentId(), decoded.getComponentId());
+        assertEquals(-5, decoded.getY());
+        assertEquals("按钮5", decoded.getLabelData().getText());
+        assertEquals(original.getLabelData().getFontFamily(), decoded.getLabelData().getFontFamily());
+        ComponentData decodedRelative = loaded.getPage("二进制页面").getComponent(0);
+        assertEquals(ComponentData.PositionMode.RELATIVE, decodedRelative.getPositionMode());
+        assertEquals(0.3, decodedRelative.getRelativePosition().getRelativeWidth(), 1e-9);
+        assertEquals("提示", decodedRelative.getTooltip());
+        assertFalse(decodedRelative.isVisible());
+
+        // 导入按文件头识别格式，导出仍为JSON
+        ProjectData imported = projectRepository.importProject(binaryFile.toString());
+        assertEquals(21, imported.getTotalComponentCount());
+        Path exportFile = tempDir.resolve("binary_export.json");
+        binaryRepository.exportProject(loaded, exportFile.toString());
+        assertEquals('{', Files.readString(exportFile).trim().charAt(0));
+
+        logger.info("二进制项目格式测试通过");
+    }
+
+    @Test
+    void testMappedImport() throws IOException {
+        logger.info("测试内存映射导入");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("映射页面");
+        for (int i = 0; i < 50; i++) {
+            projectService.addComponent("映射页面", createTestComponent("映射按钮" + i, i, i, 80, 30));
+        }
+        Path exportFile = tempDir.resolve("mapped_export.json");
+        projectRepository.exportProject(project, exportFile.toString());
+        BinaryProjectRepository binaryRepository = new BinaryProjectRepository(pathManager);
+        binaryRepository.saveProject(project);
+
+        // 阈值为0时所有文件都通过内存映射读取，结果与缓冲读取一致
+        ProjectData buffered = projectRepository.importProject(exportFile.toString());
+        JsonProjectRepository mappedRepository = new JsonProjectRepository(pathManager);
+        mappedRepository.setMappedImportThreshold(0);
+        ProjectData mapped = mappedRepository.importProject(exportFile.toString());
+        assertEquals(buffered.getTotalComponentCount(), mapped.getTotalComponentCount());
+        assertEquals("映射按钮49", mapped.getPage("映射页面").getComponent(49).getLabelData().getText());
+
+        ProjectData mappedBinary = mappedRepository.importProject(binaryRepository.getProjectFilePath());
+        assertEquals(50, mappedBinary.getPage("映射页面").getComponentCount());
+
+        logger.info("内存映射导入测试通过");
+    }
+
+    @Test
+    void testLogStructuredRepository() throws IOException {
+        logger.info("测试日志结构键值存储库");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("第二页");
+        for (int i = 0; i < 20; i++) {
+            projectService.addComponent("主页面", createTestComponent("键值按钮" + i, i, i, 80, 30));
+            projectService.addComponent("第二页", createTestComponent("第二页按钮" + i, i, i, 80, 30));
+        }
+        LogStructuredProjectRepository kvRepository = new LogStructuredProjectRepository(pathManager);
+        kvRepository.saveProject(project);
+
+        // 重新打开时只加载当前页面，其余页面按需读取
+        LogStructuredProjectRepository reopened = new LogStructuredProjectRepository(pathManager);
+        ProjectData loaded = reopened.loadProject();
+        assertEquals(project.getPages(), loaded.getPages());
+        assertFalse(loaded.isPageLoaded("第二页"));
+        assertEquals(40, loaded.getTotalComponentCount());
+        assertEquals("第二页按钮7", loaded.getPage("第二页").getComponent(7).getLabelData().getText());
+
+        // 按组件ID直接读写
+        ComponentData original = project.getPage("主页面").getComponent(3);
+        assertEquals("键值按钮3", reopened.loadComponent("主页面", original.getComponentId())
+            .getLabelData().getText());
+
+        // 修改一个组件只追加该组件、页面记录和清单
+        long sizeBefore = reopened.getStore().fileSize();
+        ComponentData changed = createTestComponent("已修改", 1, 2, 80, 30);
+        changed.setComponentId(original.getComponentId());
+        loaded.getPage("主页面").replaceComponent(3, changed);
+        reopened.saveProject(loaded);
+        long appended = reopened.getStore().fileSize() - sizeBefore;
+        int componentSize = ModelTypeAdapters.createGson().toJson(changed).getBytes().length;
+        assertTrue(appended < 2 * componentSize + 2048, "追加字节数: " + appended);
+
+        // 单独写入组件只追加组件键，不重写页面记录和清单
+        ComponentData added = createTestComponent("单独写入", 5, 5, 80, 30);
+        sizeBefore = reopened.getStore().fileSize();
+        reopened.saveComponent("第二页", added);
+        appended = reopened.getStore().fileSize() - sizeBefore;
+        assertTrue(appended < componentSize + 512, "追加字节数: " + appended);
+        added.getLabelData().setText("单独写入");
+        reopened.saveComponent("第二页", added);
+        assertTrue(reopened.deleteComponent("第二页", loaded.getPage("第二页").getComponent(0).getComponentId()));
+        assertFalse(reopened.deleteComponent("第二页", "不存在的组件"));
+        assertEquals(40, new LogStructuredProjectRepository(pathManager).loadProject().getTotalComponentCount());
+        loaded.removePage("主页面");
+        reopened.saveProject(loaded);
+
+        // 末尾未提交的数据在打开时被丢弃
+        Files.write(Path.of(reopened.getProjectFilePath()), new byte[] {1, 2, 3, 4, 5, 6, 7},
+            StandardOpenOption.APPEND);
+        ProjectData recovered = new LogStructuredProjectRepository(pathManager).loadProject();
+        assertEquals(List.of("第二页"), recovered.getPages());
+        PageData secondPage = recovered.getPage("第二页");
+        assertEquals(20, secondPage.getComponentCount());
+        assertEquals("第二页按钮1", secondPage.getComponent(0).getLabelData().getText());
+        assertEquals("单独写入", secondPage.getComponent(19).getLabelData().getText());
+
+        // 长度和CRC32相同但内容不同的写入不能被当作未变化而跳过
+        byte[] value = "{\"text\":\"校验和碰撞\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] collision = crc32Collision(value);
+        assertFalse(Arrays.equals(value, collision));
+        assertEquals(crc32(value), crc32(collision));
+        reopened.getStore().put("test\0collision", value);
+        reopened.getStore().put("test\0collision", collision);
+        assertArrayEquals(collision, reopened.getStore().get("test\0collision"));
+        long unchangedSize = reopened.getStore().fileSize();
+        reopened.getStore().put("test\0collision", collision.clone());
+        assertEquals(unchangedSize, reopened.getStore().fileSize());
+
+        logger.info("日志结构键值存储库测试通过");
+    }
+
+    @Test
+    void testChecksummedSnapshotsAndGroupCommit() throws Exception {
+        logger.info("测试带校验的快照和组提交");
+
+        ProjectData project = projectService.createNewProject();
+        project.setDescription("版本1");
+        projectRepository.saveProject(project);
+        project.setDescription("版本2");
+        projectRepository.saveProject(project);
+
+        Path projectFile = Path.of(projectRepository.getProjectFilePath());
+        Path previousFile = Path.of(projectFile + ".prev");
+        assertTrue(Files.exists(previousFile));
+        assertTrue(Files.readString(projectFile).matches("(?s).*\\n#CRC32:[0-9a-f]{8}$"));
+        assertEquals("版本2", projectRepository.loadProject().getDescription());
+
+        // 内容被改动但仍是合法JSON，校验失败后回退到上一版本
+        Files.writeString(projectFile, Files.readString(projectFile).replace("版本2", "版本3"));
+        assertEquals("版本1", projectRepository.loadProject().getDescription());
+
+        // 替换快照时中断，新版本尚未就位
+        Files.delete(projectFile);
+        assertTrue(projectRepository.projectExists());
+        assertEquals("版本1", projectRepository.loadProject().getDescription());
+
+        // 持久写入模式：合并后的异步保存只同步一次日志
+        ProjectServiceImpl durableService = new ProjectServiceImpl(projectRepository);
+        durableService.setJournalingEnabled(true);
+        durableService.setDurableWritesEnabled(true);
+        ProjectData durableProject = durableService.createNewProject();
+        durableService.saveProject(durableProject);
+        JsonEditJournal journal = (JsonEditJournal) projectRepository.getEditJournal();
+        long syncsBefore = journal.getSyncCount();
+
+        CompletableFuture<Void> lastSave = null;
+        for (int i = 0; i < 20; i++) {
+            durableService.addComponent("主页面", createTestComponent("持久按钮" + i, i, i, 80, 30));
+            lastSave = durableService.saveCurrentProjectAsync();
+        }
+        lastSave.get(10, TimeUnit.SECONDS);
+        assertEquals(syncsBefore + 1, journal.getSyncCount());
+
+        ProjectData reloaded = projectRepository.loadProject();
+        assertEquals(20, reloaded.getPage("主页面").getComponentCount());
+        durableService.shutdown();
+
+        logger.info("带校验的快照和组提交测试通过");
+    }
+
+    @Test
+    void testBulkImportDirectory() throws IOException {
+        logger.info("测试批量导入目录");
+
+        Path importDir = tempDir.resolve("rooms");
+        Files.createDirectories(importDir);
+        for (int room = 1; room <= 6; room++) {
+            ProjectData roomProject = new ProjectData();
+            roomProject.addPage("主页面");
+            roomProject.addPage("灯光");
+            for (int i = 0; i < room; i++) {
+                roomProject.getPage("灯光").addComponent(createTestComponent("房间" + room + "灯" + i, i, i, 80, 30));
+            }
+            projectRepository.exportProject(roomProject, importDir.resolve("房间" + room + ".json").toString());
+        }
+        ProjectData binaryRoom = new ProjectData();
+        binaryRoom.addPage("主页面");
+        new BinaryProjectRepository(pathManager).saveProject(binaryRoom);
+        Files.copy(Path.of(pathManager.getDataDirectory(), "project_data.bin"), importDir.resolve("会议室.bin"));
+        Files.writeString(importDir.resolve("损坏.json"), "{\"name\": \"损坏\", \"pages\": [");
+        Files.writeString(importDir.resolve("说明.txt"), "不是项目文件");
+
+        // 合并为一个项目，单个文件的错误不影响其他文件
+        BulkImportResult merged = projectRepository.importProjects(importDir.toString(), BulkImportMode.MERGE);
+        assertEquals(8, merged.getFileCount());
+        assertEquals(7, merged.getProjects().size());
+        assertEquals(Set.of("损坏.json"), merged.getErrors().keySet());
+        assertTrue(merged.getTotalBytes() > 0);
+        ProjectData mergedProject = merged.getMergedProject();
+        assertEquals(13, mergedProject.getPageCount());
+        assertEquals(21, mergedProject.getTotalComponentCount());
+        assertTrue(mergedProject.hasPage("房间3 - 灯光"));
+        assertTrue(mergedProject.validateIntegrity());
+        assertEquals(3, merged.getProjects().get("房间3.json").getPage("灯光").getComponentCount());
+
+        // 服务层：合并结果成为当前项目，独立导入不改变当前项目
+        projectService.importProjects(importDir.toString(), BulkImportMode.MERGE);
+        assertEquals(13, projectService.getCurrentProject().getPageCount());
+        BulkImportResult separate = projectService.importProjects(importDir.toString(), BulkImportMode.SEPARATE);
+        assertNull(separate.getMergedProject());
+        assertEquals(7, separate.getProjects().size());
+        assertEquals(13, projectService.getCurrentProject().getPageCount());
+
+        logger.info("批量导入目录测试通过: {}", merged.getSummary());
+    }
+
+    @Test
+    void testProjectBundle() throws IOException {
+        logger.info("测试项目资源包导出导入");
+
+        // 同一图标被两个组件引用，背景图使用相对数据目录的路径
+        byte[] icon = new byte[300_000];
+        for (int i = 0; i < icon.length; i++) {
+            icon[i] = (byte) (i * 31);
+        }
+        Path iconFile = tempDir.resolve("外部图片/灯.png");
+        Files.createDirectories(iconFile.getParent());
+        Files.write(iconFile, icon);
+        Path backgroundFile = Path.of(pathManager.getDataDirectory(), "images", "背景.jpg");
+        Files.createDirectories(backgroundFile.getParent());
+        Files.writeString(backgroundFile, "背景图片");
+
+        ProjectData project = projectService.createNewProject();
+        ComponentData first = createTestComponent("灯1", 10, 10, 80, 30);
+        first.getLabelData().setIconPath(iconFile.toString());
+        ComponentData second = createTestComponent("灯2", 100, 10, 80, 30);
+        second.getLabelData().setIconPath(iconFile.toString());
+        projectService.addComponent("主页面", first);
+        projectService.addComponent("主页面", second);
+        projectService.addComponent("主页面", createTestComponent("无图标", 10, 100, 80, 30));
+        project.getPage("主页面").setBackgroundImage("images/背景.jpg");
+
+        Path bundleFile = tempDir.resolve("导出/项目");
+        projectService.exportProjectBundle(bundleFile.toString());
+        Path bundleZip = tempDir.resolve("导出/项目.zip");
+        assertTrue(Files.exists(bundleZip));
+        // 导出不修改当前项目
+        assertEquals(iconFile.toString(), first.getLabelData().getIconPath());
+        assertEquals("images/背景.jpg", project.getPage("主页面").getBackgroundImage());
+
+        // 在另一台设备的数据目录中导入
+        Path otherDevice = tempDir.resolve("另一台设备");
+        ProjectService otherService = new ProjectServiceImpl(
+            new JsonProjectRepository(new TestPathManager(otherDevice.toString())));
+        ProjectData imported = otherService.importProjectBundle(bundleZip.toString());
+        assertEquals(3, imported.getPage("主页面").getComponentCount());
+
+        String importedIcon = imported.getPage("主页面").getComponents().get(0).getLabelData().getIconPath();
+        assertEquals(importedIcon, imported.getPage("主页面").getComponents().get(1).getLabelData().getIconPath());
+        assertTrue(importedIcon.startsWith("assets/") && importedIcon.endsWith(".png"));
+        Path assetsDir = otherDevice.resolve("USERDATA/assets");
+        assertArrayEquals(icon, Files.readAllBytes(assetsDir.resolve(importedIcon.substring("assets/".length()))));
+        String importedBackground = imported.getPage("主页面").getBackgroundImage();
+        assertTrue(importedBackground.startsWith("assets/") && importedBackground.endsWith(".jpg"));
+        try (Stream<Path> assets = Files.list(assetsDir)) {
+            assertEquals(2, assets.count());
+        }
+
+        // 重复导入复用已有资源
+        otherService.importProjectBundle(bundleZip.toString());
+        try (Stream<Path> assets = Files.list(assetsDir)) {
+            assertEquals(2, assets.count());
+        }
+
+        logger.info("项目资源包测试通过");
+    }
+
+    @Test
+    void testModelTypeAdaptersMatchReflectiveJson() {
+        logger.info("测试手写类型适配器");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("适配器页面");
+        ComponentData relative = new ComponentData(new RelativePosition(0.1, 0.2, 0.3, 0.4), "标签",
+            createTestComponent("相对标签", 0, 0, 0, 0).getLabelData());
+        relative.setCssClass("highlight");
+        relative.setEnabled(false);
+        projectService.addComponent("适配器页面", relative);
+        projectService.addComponent("主页面", createTestComponent("按钮", 10, 20, 80, 30));
+        project.getPage("主页面").setBackgroundColor("#ffffff");
+
+        // 输出与反射序列化完全一致
+        Gson reflective = new GsonBuilder().setPrettyPrinting().create();
+        Gson adapters = ModelTypeAdapters.createPrettyGson();
+        String expected = reflective.toJson(project);
+        assertEquals(expected, adapters.toJson(project));
+
+        // 读取结果与反射读取等价（字体族、定位模式不被setter改写）
+        ProjectData decoded = adapters.fromJson(expected, ProjectData.class);
+        assertEquals(expected, reflective.toJson(decoded));
+        assertEquals(expected, adapters.toJson(reflective.fromJson(expected, ProjectData.class)));
+
+        logger.info("手写类型适配器测试通过");
+    }
+
+    @Test
+    void testShardedStorageLazyPageLoading() throws Exception {
+        logger.info("测试分片存储和页面延迟加载");
+
+        ProjectRepository shardedRepository =
+            new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED);
+        ProjectService shardedService = new ProjectServiceImpl(shardedRepository);
+
+        ProjectData project = shardedService.createNewProject();
+        shardedService.createPage("分片页面1");
+        shardedService.createPage("分片页面2");
+        shardedService.addComponent("分片页面1", createTestComponent("分片按钮", 10, 10, 80, 30));
+        shardedService.addComponent("分片页面2", createTestComponent("分片标签", 20, 20, 80, 30));
+        shardedService.saveProject(project);
+
+        // 重新加载：只有当前页面被加载
+        JsonProjectRepository reloadRepository =
+            new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED);
+        ProjectData loaded = reloadRepository.loadProject();
+        assertNotNull(loaded);
+        assertEquals(3, loaded.getPageCount());
+        assertTrue(loaded.isPageLoaded(loaded.getCurrentPage()));
+        assertFalse(loaded.isPageLoaded("分片页面2"));
+        assertEquals(2, loaded.getTotalComponentCount());
+        assertTrue(loaded.validateIntegrity());
+
+        // 首次访问时加载
+        PageData page2 = loaded.getPage("分片页面2");
+        assertNotNull(page2);
+        assertTrue(loaded.isPageLoaded("分片页面2"));
+        assertEquals(1, page2.getComponentCount());
+        assertEquals("分片标签", page2.getComponent(0).getLabelData().getText());
+        assertFalse(page2.isDirty());
+
+        // 增量保存：只重写修改过的页面，其余页面文件保持不变
+        Path pagesDir = Path.of(pathManager.getDataDirectory(), "pages");
+        Set<String> filesBefore = listFileNames(pagesDir);
+        page2.addComponent(createTestComponent("新增标签", 30, 30, 80, 30));
+        assertEquals(List.of("分片页面2"), loaded.getDirtyPageNames());
+        reloadRepository.saveProject(loaded);
+        assertFalse(page2.isDirty());
+
+        // 只新增一个页面文件；上一版本清单引用的页面文件保留，供当前清单损坏时回退
+        Set<String> filesAfter = listFileNames(pagesDir);
+        assertEquals(4, filesAfter.size());
+        assertTrue(filesAfter.containsAll(filesBefore));
+
+        ProjectData reloaded = new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED)
+            .loadProject();
+        assertEquals(3, reloaded.getTotalComponentCount());
+        assertEquals(1, reloaded.getPage("分片页面1").getComponentCount());
+
+        // 加载一个页面时其他页面仍可访问，同一页面被并发访问时只加载一次
+        ProjectData concurrent = new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED)
+            .loadProject();
+        PageLoader storeLoader = concurrent.getPageLoader();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        concurrent.setPageLoader(new PageLoader() {
+            @Override
+            public boolean containsPage(String pageName) {
+                return storeLoader.containsPage(pageName);
+            }
+
+            @Override
+            public PageData loadPage(String pageName) throws IOException {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return storeLoader.loadPage(pageName);
+            }
+
+            @Override
+            public int getComponentCount(String pageName) {
+                return storeLoader.getComponentCount(pageName);
+            }
+        });
+        CompletableFuture<PageData> first = CompletableFuture.supplyAsync(() -> concurrent.getPage("分片页面2"));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        CompletableFuture<PageData> second = CompletableFuture.supplyAsync(() -> concurrent.getPage("分片页面2"));
+        CompletableFuture<Integer> otherPages = CompletableFuture.supplyAsync(() -> {
+            assertNotNull(concurrent.getPage(concurrent.getCurrentPage()));
+            assertFalse(concurrent.isPageLoaded("分片页面2"));
+            return concurrent.getTotalComponentCount();
+        });
+        assertEquals(3, (int) otherPages.get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+        assertEquals(2, first.get().getComponentCount());
+        assertEquals(1, loads.get());
+
+        logger.info("分片存储和页面延迟加载测试通过");
+    }
+
+    @Test
+    void testJournaledSaveAndReplay() throws IOException {
+        logger.info("测试编辑日志保存和重放");
+
+        ProjectService journaledService = new ProjectServiceImpl(projectRepository);
+        journaledService.setJournalingEnabled(true);
+
+        // 第一次保存写入完整快照
+        ProjectData project = journaledService.createNewProject();
+        journaledService.createPage("日志页面");
+        journaledService.saveProject(project);
+        Path projectFile = Path.of(projectRepository.getProjectFilePath());
+        long snapshotModified = projectFile.toFile().lastModified();
+        long snapshotSize = projectFile.toFile().length();
+
+        // 之后的保存只追加日志
+        ComponentData button = createTestComponent("日志按钮", 10, 10, 80, 30);
+        ComponentData moved = createTestComponent("移动后的按钮", 50, 60, 80, 30);
+        journaledService.addComponent("日志页面", button);
+        journaledService.addComponent("日志页面", createTestComponent("待删除", 0, 0, 40, 20));
+        journaledService.updateComponent("日志页面", button, moved);
+        journaledService.removeComponent("日志页面", journaledService.getPageComponents("日志页面").get(1));
+        journaledService.renamePage("日志页面", "重命名的日志页面");
+        project.setDescription("绕过服务修改的描述");
+        journaledService.saveProject(project);
+
+        assertEquals(snapshotModified, projectFile.toFile().lastModified());
+        assertEquals(snapshotSize, projectFile.toFile().length());
+        assertTrue(projectRepository.getEditJournal().size() > 0);
+
+        // 重新加载时重放日志
+        ProjectData loaded = new JsonProjectRepository(pathManager).loadProject();
+        assertNotNull(loaded);
+        assertFalse(loaded.hasPage("日志页面"));
+        PageData renamed = loaded.getPage("重命名的日志页面");
+        assertNotNull(renamed);
+        assertEquals(1, renamed.getComponentCount());
+        assertEquals("移动后的按钮", renamed.getComponent(0).getLabelData().getText());
+        assertEquals(50, renamed.getComponent(0).getX());
+        assertEquals("绕过服务修改的描述", loaded.getDescription());
+
+        // 超过阈值后在后台压缩为快照
+        ((ProjectServiceImpl) journaledService).setCompactionThreshold(1);
+        journaledService.addComponent("重命名的日志页面", createTestComponent("触发压缩", 0, 0, 40, 20));
+        journaledService.saveProject(project);
+        journaledService.shutdown();
+        assertEquals(0, projectRepository.getEditJournal().size());
+
+        ProjectData compacted = new JsonProjectRepository(pathManager).loadProject();
+        assertEquals(2, compacted.getPage("重命名的日志页面").getComponentCount());
+
+        logger.info("编辑日志保存和重放测试通过");
+    }
+
+    @Test
+    void testAsyncSaveCoalescesRequests() throws Exception {
+        logger.info("测试异步保存");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.addComponent("主页面", createTestComponent("异步按钮", 10, 10, 80, 30));
+
+        // 尚未开始的保存请求被合并
+        CompletableFuture<Void> first = projectService.saveCurrentProjectAsync();
+        CompletableFuture<Void> second = projectService.saveCurrentProjectAsync();
+        assertSame(first, second);
+
+        // 快照在合并窗口结束后捕获，包含窗口内的所有修改
+        projectService.addComponent("主页面", createTestComponent("合并窗口内", 20, 20, 80, 30));
+        first.get(10, TimeUnit.SECONDS);
+        assertFalse(projectService.hasUnsavedChanges());
+        assertFalse(project.getPage("主页面").isDirty());
+        assertEquals(2, projectRepository.loadProject().getPage("主页面").getComponentCount());
+
+        // 关闭服务时等待排队中的保存完成
+        projectService.addComponent("主页面", createTestComponent("关闭前", 30, 30, 80, 30));
+        CompletableFuture<Void> last = projectService.saveCurrentProjectAsync();
+        assertNotSame(first, last);
+        projectService.shutdown();
+        assertTrue(last.isDone());
+        assertEquals(3, projectRepository.loadProject().getPage("主页面").getComponentCount());
+
+        logger.info("异步保存测试通过");
+    }
+
+    @Test
+    void testSnapshotSaveDoesNotBlockEditing() throws Exception {
+        logger.info("测试快照保存期间继续编辑");
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProjectRepository slowRepository = new JsonProjectRepository(pathManager) {
+            @Override
+            public void saveProject(ProjectData projectData) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.saveProject(projectData);
+            }
+        };
+        ProjectService service = new ProjectServiceImpl(slowRepository);
+        ProjectData project = service.createNewProject();
+        service.addComponent("主页面", createTestComponent("保存前", 10, 10, 80, 30));
+
+        CompletableFuture<Void> save = CompletableFuture.runAsync(() -> {
+            try {
+                service.saveCurrentProject();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        // 序列化尚未完成时编辑不被阻塞，快照共享的组件先复制再修改
+        PageData page = project.getPage("主页面");
+        assertTrue(page.isSharingComponents());
+        service.addComponent("主页面", createTestComponent("保存中", 20, 20, 80, 30));
+        service.adaptProjectToResolution(1920, 1080);
+        assertFalse(page.isSharingComponents());
+        assertEquals(ComponentData.PositionMode.RELATIVE, page.getComponent(0).getPositionMode());
+
+        release.countDown();
+        save.get(10, TimeUnit.SECONDS);
+
+        // 存储中只有快照时的内容，快照之后的修改仍为未保存
+        PageData savedPage = projectRepository.loadProject().getPage("主页面");
+        assertEquals(1, savedPage.getComponentCount());
+        assertEquals(ComponentData.PositionMode.ABSOLUTE, savedPage.getComponent(0).getPositionMode());
+        assertEquals(2, page.getComponentCount());
+        assertTrue(page.isDirty());
+        assertTrue(service.hasUnsavedChanges());
+
+        service.shutdown();
+        logger.info("快照保存测试通过");
+    }
+
+    @Test
+    void testPageScopedLocking() throws Exception {
+        logger.info("测试页面级锁");
+
+        projectService.createNewProject();
+        projectService.createPage("页面A");
+        projectService.createPage("页面B");
+
+        // 组件摘要在持有页面锁时生成，借此让一个页面的修改停在锁内
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ComponentData blocking = new ComponentData(10, 10, 80, 30, 80, 30, "测试组件", new LabelData()) {
+            @Override
+            public String getComponentSummary() {
+                if (inside.getCount() > 0) {
+                    inside.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getComponentSummary();
+            }
+        };
+        CompletableFuture<Void> slowEdit = CompletableFuture.runAsync(
+                () -> projectService.addComponent("页面A", blocking));
+        assertTrue(inside.await(10, TimeUnit.SECONDS));
+
+        // 其他页面的编辑和读取不等待
+        CompletableFuture<Integer> otherPage = CompletableFuture.supplyAsync(() -> {
+            projectService.addComponent("页面B", createTestComponent("并行", 10, 10, 80, 30));
+            return projectService.getPageComponents("页面B").size();
+        });
+        assertEquals(1, otherPage.get(5, TimeUnit.SECONDS).intValue());
+
+        // 读取同一页面使用已发布的视图，不等待；同一页面的修改等待前一个修改完成
+        assertEquals(1, projectService.getPageComponents("页面A").size());
+        CompletableFuture<Boolean> samePage = CompletableFuture.supplyAsync(
+                () -> projectService.removeComponent("页面A", blocking));
+        Thread.sleep(100);
+        assertFalse(samePage.isDone());
+
+        release.countDown();
+        slowEdit.get(10, TimeUnit.SECONDS);
+        assertTrue(samePage.get(10, TimeUnit.SECONDS));
+        assertTrue(projectService.getPageComponents("页面A").isEmpty());
+        assertTrue(projectService.hasUnsavedChanges());
+
+        logger.info("页面级锁测试通过");
+    }
+
+    @Test
+    void testPublishedProjectSnapshot() {
+        logger.info("测试项目只读视图");
+
+        assertFalse(projectService.getProjectSnapshot().hasProject());
+        projectService.createNewProject();
+        ComponentData first = createTestComponent("视图1", 10, 10, 80, 30);
+        projectService.addComponent("主页面", first);
+
+        ProjectSnapshot before = projectService.getProjectSnapshot();
+        List<ComponentData> components = projectService.getPageComponents("主页面");
+        assertSame(before.getComponents("主页面"), components);
+        assertThrows(UnsupportedOperationException.class,
+                () -> components.add(createTestComponent("非法", 0, 0, 10, 10)));
+
+        // 之后的修改发布新视图，已发布的视图保持不变
+        projectService.addComponent("主页面", createTestComponent("视图2", 100, 10, 80, 30));
+        projectService.createPage("视图页面");
+        projectService.setCurrentPage("视图页面");
+        ProjectSnapshot after = projectService.getProjectSnapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(1, before.getComponents("主页面").size());
+        assertEquals(1, before.getPages().size());
+        assertEquals(2, after.getComponents("主页面").size());
+        assertEquals(2, after.getPages().size());
+        assertEquals("视图页面", after.getCurrentPage());
+        assertTrue(after.getCurrentPageComponents().isEmpty());
+        assertSame(after.getPage("视图页面"), projectService.getCurrentPage());
+
+        // 修改组件前复制，已发布视图中的组件不受影响
+        projectService.adaptProjectToResolution(1920, 1080);
+        assertSame(first, after.getComponents("主页面").get(0));
+        assertEquals(ComponentData.PositionMode.ABSOLUTE, first.getPositionMode());
+
+        // 已发布的组件和页面冻结，不能绕过服务修改
+        assertThrows(IllegalStateException.class, () -> first.setX(500));
+        assertThrows(IllegalStateException.class, () -> first.getLabelData().setText("非法"));
+        assertThrows(UnsupportedOperationException.class, () -> after.getPage("主页面").setBackgroundColor("#000000"));
+        assertThrows(UnsupportedOperationException.class, () -> after.getPage("主页面").clearComponents());
+        assertEquals(10, first.getX());
+        assertSame(first, after.getComponents("主页面").get(0));
+
+        // 通过服务清空页面后重新发布，已发布的视图保持不变
+        projectService.clearPageComponents("主页面");
+        assertTrue(projectService.getProjectSnapshot().getComponents("主页面").isEmpty());
+        assertTrue(projectService.findComponentsInRegion("主页面",
+            new ComponentData.AbsolutePosition(0, 0, 1920, 1080), false, 1920, 1080).isEmpty());
+        assertSame(first, after.getComponents("主页面").get(0));
+
+        logger.info("项目只读视图测试通过");
+    }
+
+    @Test
+    void testComponentIdIndex() throws Exception {
+        logger.info("测试组件ID索引");
+
+        projectService.createNewProject();
+        List<ComponentData> created = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ComponentData component = createTestComponent("索引" + i, i % 40 * 30, i / 40 * 30, 80, 30);
+            created.add(component);
+            ids.add(component.getComponentId());
+            projectService.addComponent("主页面", component);
+        }
+        // 同一毫秒内创建的组件ID也不重复
+        assertEquals(1000, ids.size());
+
+        String removedId = created.get(10).getComponentId();
+        assertSame(created.get(10), projectService.getComponentById("主页面", removedId));
+        assertTrue(projectService.removeComponentById("主页面", removedId));
+        assertFalse(projectService.removeComponentById("主页面", removedId));
+        assertNull(projectService.getComponentById("主页面", removedId));
+
+        // 删除之后的组件位置前移，按ID仍能找到
+        ComponentData replacement = createTestComponent("替换", 0, 0, 80, 30);
+        assertTrue(projectService.updateComponentById("主页面", created.get(500).getComponentId(), replacement));
+        assertNull(projectService.getComponentById("主页面", created.get(500).getComponentId()));
+        assertSame(replacement, projectService.getComponentById("主页面", replacement.getComponentId()));
+        assertTrue(projectService.removeComponent("主页面", created.get(999)));
+
+        PageData page = projectService.getPage("主页面");
+        assertEquals(998, page.getComponentCount());
+        assertTrue(page.moveComponent(900, 0));
+        for (int i = 0; i < page.getComponentCount(); i++) {
+            ComponentData component = page.getComponent(i);
+            assertEquals(i, page.findComponentIndexById(component.getComponentId()));
+            assertEquals(i, page.findComponentIndex(component));
+        }
+
+        // 重复的组件ID在修复时重新分配
+        ComponentData duplicate = createTestComponent("重复", 0, 0, 80, 30);
+        duplicate.setComponentId(page.getComponent(0).getComponentId());
+        page.addComponent(duplicate);
+        assertFalse(page.validateIntegrity());
+        page.repairIntegrity();
+        assertTrue(page.validateIntegrity());
+        assertNotEquals(page.getComponent(0).getComponentId(), duplicate.getComponentId());
+        assertSame(duplicate, page.getComponentById(duplicate.getComponentId()));
+
+        // 加载时的修复保持未保存，写回之前每次加载得到相同的ID
+        ComponentData stored = createTestComponent("存储重复", 0, 0, 80, 30);
+        stored.setComponentId(page.getComponent(1).getComponentId());
+        page.addComponent(stored);
+        projectService.saveCurrentProject();
+        PageData firstLoad = new JsonProjectRepository(pathManager).loadProject().getPage("主页面");
+        PageData secondLoad = new JsonProjectRepository(pathManager).loadProject().getPage("主页面");
+        String repairedId = firstLoad.getComponent(999).getComponentId();
+        assertTrue(firstLoad.validateIntegrity());
+        assertTrue(firstLoad.isDirty());
+        assertEquals(repairedId, secondLoad.getComponent(999).getComponentId());
+
+        ProjectService reloaded = new ProjectServiceImpl(new JsonProjectRepository(pathManager));
+        reloaded.loadProject();
+        assertTrue(reloaded.hasUnsavedChanges());
+        reloaded.saveCurrentProject();
+        PageData savedPage = new JsonProjectRepository(pathManager).loadProject().getPage("主页面");
+        assertFalse(savedPage.isDirty());
+        assertEquals(repairedId, savedPage.getComponent(999).getComponentId());
+        reloaded.shutdown();
+
+        logger.info("组件ID索引测试通过");
+    }
+
+    @Test
+    void testSpatialIndexQueries() {
+        logger.info("测试组件空间索引");
+
+        projectService.createNewProject();
+        for (int i = 0; i < 400; i++) {
+            projectService.addComponent("主页面", createTestComponent("网格" + i, i % 20 * 60, i / 20 * 36, 50, 30));
+        }
+        ComponentData bottom = createTestComponent("下层", 600, 300, 200, 100);
+        ComponentData top = createTestComponent("上层", 650, 320, 60, 40);
+        projectService.addComponent("主页面", bottom);
+        projectService.addComponent("主页面", top);
+
+        // 命中测试按层次从上到下返回
+        List<ComponentData> hits = projectService.findComponentsAt("主页面", 660, 330, 1366, 768);
+        assertEquals(3, hits.size());
+        assertSame(top, hits.get(0));
+        assertSame(bottom, hits.get(1));
+
+        // 与逐个比较的结果一致
+        ComponentData.AbsolutePosition region = new ComponentData.AbsolutePosition(100, 100, 250, 120);
+        List<ComponentData> expected = new ArrayList<>();
+        for (ComponentData component : projectService.getPageComponents("主页面")) {
+            ComponentData.AbsolutePosition bounds = component.getAbsolutePosition(1366, 768);
+            if (bounds.x >= 100 && bounds.y >= 100 && bounds.x + bounds.width <= 350 && bounds.y + bounds.height <= 220) {
+                expected.add(component);
+            }
+        }
+        assertEquals(expected, projectService.findComponentsInRegion("主页面", region, true, 1366, 768));
+        assertTrue(projectService.findComponentsInRegion("主页面", region, false, 1366, 768).size() > expected.size());
+        assertTrue(projectService.findOverlappingComponents("主页面", top.getComponentId(), 1366, 768).contains(bottom));
+
+        // 修改后索引同步更新
+        projectService.removeComponent("主页面", top);
+        hits = projectService.findComponentsAt("主页面", 660, 330, 1366, 768);
+        assertSame(bottom, hits.get(0));
+        assertFalse(hits.contains(top));
+
+        // 分辨率适配后按新的容器尺寸计算位置（被视图引用的组件已复制）
+        projectService.adaptProjectToResolution(1366, 768);
+        hits = projectService.findComponentsAt("主页面", 1320, 660, 2732, 1536);
+        assertEquals(bottom.getComponentId(), hits.get(0).getComponentId());
+
+        // 拖动组件：就地修改后按新旧边界增量更新索引
+        ComponentData dragged = createTestComponent("拖动", 0, 1490, 40, 30);
+        projectService.addComponent("主页面", dragged);
+        PageData page = projectService.getPage("主页面");
+        int position = page.findComponentIndexById(dragged.getComponentId());
+        for (int step = 1; step <= 5; step++) {
+            page.getComponentForUpdate(position).setX(step * 100);
+            page.markDirty();
+            hits = projectService.findComponentsAt("主页面", step * 100 + 5, 1495, 2732, 1536);
+            assertEquals(1, hits.size());
+            assertEquals(dragged.getComponentId(), hits.get(0).getComponentId());
+            assertTrue(projectService.findComponentsAt("主页面", step * 100 - 95, 1495, 2732, 1536).isEmpty());
+        }
+
+        logger.info("组件空间索引测试通过");
+    }
+
+    @Test
+    void testPageVersionHistory() throws IOException {
+        logger.info("测试页面版本历史");
+
+        ProjectData project = projectService.createNewProject();
+        ComponentData first = createTestComponent("版本1", 10, 10, 80, 30);
+        projectService.addComponent("主页面", first);
+        projectService.saveCurrentProject();
+        // 没有修改的保存不记录新版本
+        projectService.saveCurrentProject();
+        assertEquals(1, projectService.listPageVersions("主页面").size());
+
+        for (int i = 2; i <= 12; i++) {
+            projectService.addComponent("主页面", createTestComponent("版本" + i, 10 * i, 10, 80, 30));
+            projectService.saveCurrentProject();
+        }
+        projectService.removeComponent("主页面", first);
+        projectService.saveCurrentProject();
+
+        // 增量只记录变化的组件，定期写入关键帧
+        List<PageVersionInfo> versions = projectService.listPageVersions("主页面");
+        assertEquals(13, versions.size());
+        assertTrue(versions.get(0).isKeyframe());
+        assertFalse(versions.get(1).isKeyframe());
+        assertEquals(1, versions.get(1).getChangedComponents());
+        assertTrue(versions.get(JsonPageHistory.KEYFRAME_INTERVAL).isKeyframe());
+        assertEquals(1, versions.get(12).getRemovedComponents());
+        assertEquals(11, versions.get(12).getComponentCount());
+
+        // 恢复关键帧之后的版本，组件ID保持不变
+        PageData restored = projectService.restorePageVersion("主页面", 12);
+        assertEquals(12, restored.getComponentCount());
+        assertEquals(first.getComponentId(), restored.getComponent(0).getComponentId());
+        assertSame(restored, project.getPage("主页面"));
+        assertTrue(projectService.hasUnsavedChanges());
+        assertEquals(3, projectService.restorePageVersion("主页面", 3).getComponentCount());
+
+        projectService.saveCurrentProject();
+        assertEquals(3, projectRepository.loadProject().getPage("主页面").getComponentCount());
+        assertEquals(14, projectService.listPageVersions("主页面").size());
+        assertThrows(IOException.class, () -> projectService.restorePageVersion("主页面", 99));
+
+        // 恢复已删除的页面时写入编辑日志，未保存也能在重新加载时重放
+        projectService.setJournalingEnabled(true);
+        projectService.createPage("临时");
+        projectService.addComponent("临时", createTestComponent("临时组件", 10, 10, 80, 30));
+        projectService.saveCurrentProject();
+        assertTrue(projectService.deletePage("临时"));
+        projectService.saveCurrentProject();
+        assertFalse(projectRepository.loadProject().hasPage("临时"));
+        assertEquals(1, projectService.restorePageVersion("临时", 1).getComponentCount());
+        assertTrue(project.hasPage("临时"));
+        assertEquals(1, projectRepository.loadProject().getPage("临时").getComponentCount());
+
+        // 重命名页面时历史版本随页面转到新名称下
+        int mainVersions = projectService.listPageVersions("主页面").size();
+        assertTrue(projectService.renamePage("主页面", "首页"));
+        assertEquals(mainVersions, projectService.listPageVersions("首页").size());
+        assertTrue(projectService.listPageVersions("主页面").isEmpty());
+        assertEquals("首页", projectService.restorePageVersion("首页", 3).getName());
+
+        // 重建最新版本只从最后一个关键帧开始读取，早期记录不再参与
+        Path historyDir = tempDir.resolve("history-tail");
+        JsonPageHistory history = new JsonPageHistory(historyDir);
+        PageData tailPage = new PageData("尾部");
+        for (int i = 1; i <= 25; i++) {
+            tailPage.addComponent(createTestComponent("尾部" + i, i, 10, 80, 30));
+            history.recordVersion(tailPage);
+        }
+        Path historyFile;
+        try (Stream<Path> files = Files.list(historyDir)) {
+            historyFile = files.findFirst().orElseThrow();
+        }
+        byte[] content = Files.readAllBytes(historyFile);
+        for (int i = 0; content[i] != '\n'; i++) {
+            content[i] = 'x';
+        }
+        Files.write(historyFile, content);
+        tailPage.addComponent(createTestComponent("尾部26", 26, 10, 80, 30));
+        PageVersionInfo next = new JsonPageHistory(historyDir).recordVersion(tailPage);
+        assertEquals(26, next.getVersion());
+        assertFalse(next.isKeyframe());
+        assertEquals(1, next.getChangedComponents());
+        assertEquals(26, new JsonPageHistory(historyDir).loadVersion("尾部", 26).getComponentCount());
+
+        logger.info("页面版本历史测试通过");
+    }
+
+    @Test
+    void testLegacyProjectMigration() throws IOException {
+        logger.info("测试旧版本项目文件迁移");
+
+        // 旧版编辑器的文件：没有版本号，组件只有像素坐标，文字位置保存为名称
+        String legacyJson = "{\"name\": \"旧项目\", \"pages\": [\"主页面\"], \"pageContents\": {\"主页面\": {"
+                + "\"name\": \"主页面\", \"components\": [{\"x\": 683, \"y\": 384, \"width\": 137, \"height\": 77,"
+                + " \"functionType\": \"按钮\", \"labelData\": {\"text\": \"开灯\", \"fontSize\": 14,"
+                + " \"horizontalTextPosition\": \"LEFT\", \"verticalTextPosition\": \"BOTTOM\"}}]}},"
+                + " \"editResolution\": \"1366x768\"}";
+        Path legacyDir = tempDir.resolve("legacy");
+        Files.createDirectories(legacyDir);
+        Files.write(legacyDir.resolve("a.json"), legacyJson.getBytes(StandardCharsets.UTF_8));
+        Files.write(legacyDir.resolve("c.json"), "{\"pageContents\": {".getBytes(StandardCharsets.UTF_8));
+        ProjectData current = projectService.createNewProject();
+        projectRepository.exportProject(current, legacyDir.resolve("b.json").toString());
+
+        // 导入旧文件时迁移临时副本，原文件不变
+        Path importFile = tempDir.resolve("legacy_import.json");
+        Files.write(importFile, legacyJson.getBytes(StandardCharsets.UTF_8));
+        ProjectData imported = projectService.importProject(importFile.toString());
+        ComponentData component = imported.getPage("主页面").getComponent(0);
+        assertEquals(ProjectMigrator.CURRENT_VERSION, imported.getVersion());
+        assertEquals(ComponentData.PositionMode.RELATIVE, component.getPositionMode());
+        assertEquals(0.5, component.getRelativePosition().getRelativeX(), 0.001);
+        assertEquals(137, component.getOriginalWidth());
+        assertEquals(2, component.getLabelData().getHorizontalTextPosition());
+        assertEquals(3, component.getLabelData().getVerticalTextPosition());
+        assertEquals(14, component.getLabelData().getOriginalFontSize());
+        assertNotNull(component.getComponentId());
+        assertEquals(LegacySchemaMigration.LEGACY_VERSION, new ProjectMigrator().readVersion(importFile));
+
+        // 批量原地迁移，单个文件失败不影响其他文件
+        MigrationResult result = projectService.migrateProjectFiles(legacyDir.toString());
+        assertEquals(LegacySchemaMigration.LEGACY_VERSION, result.getMigratedFiles().get("a.json"));
+        assertEquals(List.of("b.json"), result.getUpToDateFiles());
+        assertTrue(result.getErrors().containsKey("c.json"));
+        assertEquals(ProjectMigrator.CURRENT_VERSION, new ProjectMigrator().readVersion(legacyDir.resolve("a.json")));
+        assertTrue(Files.exists(legacyDir.resolve("a.json.prev")));
+        assertEquals(component.getRelativePosition().getRelativeY(), projectRepository
+                .importProject(legacyDir.resolve("a.json").toString()).getPage("主页面").getComponent(0)
+                .getRelativePosition().getRelativeY(), 0.0001);
+
+        logger.info("旧版本项目文件迁移测试通过");
+    }
+
+    @Test
+    void testMigrateDirectory() throws IOException {
+        logger.info("测试批量迁移目录");
+
+        Path batchDir = tempDir.resolve("batch");
+        Files.createDirectories(batchDir);
+        for (int i = 0; i < 12; i++) {
+            String legacyJson = "{\"name\": \"旧项目" + i + "\", \"pages\": [\"主页面\"], \"pageContents\": {"
+                    + "\"主页面\": {\"name\": \"主页面\", \"components\": [{\"x\": " + (i * 10)
+                    + ", \"y\": 384, \"width\": 137, \"height\": 77, \"functionType\": \"按钮\","
+                    + " \"labelData\": {\"text\": \"按钮" + i + "\", \"fontSize\": 14}}]}},"
+                    + " \"editResolution\": \"1366x768\"}";
+            Files.write(batchDir.resolve(String.format("legacy%02d.json", i)),
+                    legacyJson.getBytes(StandardCharsets.UTF_8));
+        }
+        ProjectData current = projectService.createNewProject();
+        Path currentFile = batchDir.resolve("current.json");
+        projectRepository.exportProject(current, currentFile.toString());
+        Files.write(batchDir.resolve("notes.txt"), "不是项目文件".getBytes(StandardCharsets.UTF_8));
+        byte[] currentBytes = Files.readAllBytes(currentFile);
+
+        // 多个文件并行迁移，非JSON文件不参与
+        ProjectMigrator migrator = new ProjectMigrator();
+        migrator.setParallelism(4);
+        MigrationResult result = migrator.migrateDirectory(batchDir);
+        assertEquals(12, result.getMigratedFiles().size());
+        assertEquals(List.of("current.json"), result.getUpToDateFiles());
+        assertTrue(result.getErrors().isEmpty());
+        for (int i = 0; i < 12; i++) {
+            Path file = batchDir.resolve(String.format("legacy%02d.json", i));
+            assertEquals(LegacySchemaMigration.LEGACY_VERSION, result.getMigratedFiles().get(file.getFileName().toString()));
+            assertEquals(ProjectMigrator.CURRENT_VERSION, migrator.readVersion(file));
+            ComponentData component = projectRepository.importProject(file.toString())
+                    .getPage("主页面").getComponent(0);
+            assertEquals("按钮" + i, component.getLabelData().getText());
+            assertEquals(i * 10 / 1366.0, component.getRelativePosition().getRelativeX(), 0.0001);
+        }
+
+        // 已是当前版本的文件不重写，也不保留上一版本
+        assertArrayEquals(currentBytes, Files.readAllBytes(currentFile));
+        assertFalse(Files.exists(batchDir.resolve("current.json.prev")));
+        assertFalse(migrator.needsMigration(currentFile));
+
+        // 再次迁移时全部是当前版本
+        migrator.setParallelism(1);
+        MigrationResult again = migrator.migrateDirectory(batchDir);
+        assertTrue(again.getMigratedFiles().isEmpty());
+        assertEquals(13, again.getUpToDateFiles().size());
+
+        assertThrows(IOException.class, () -> migrator.migrateDirectory(tempDir.resolve("不存在")));
+
+        logger.info("批量迁移目录测试通过");
+    }
+
+    @Test
+    void testExternalChangeReloadsChangedPages() throws Exception {
+        logger.info("测试外部修改检测");
+
+        ProjectData project = projectService.createNewProject();
+        projectService.createPage("灯光");
+        projectService.createPage("旧页面");
+        projectService.addComponent("灯光", createTestComponent("吊灯", 10, 10, 80, 30));
+        projectService.saveCurrentProject();
+
+        CompletableFuture<ProjectChangeSet> applied = new CompletableFuture<>();
+        projectService.addProjectChangeListener(applied::complete);
+        projectService.startExternalChangeWatch();
+        try {
+            // 自身的保存不视为外部修改，保存后的未保存编辑不会被覆盖
+            projectService.addComponent("主页面", createTestComponent("已保存", 10, 10, 80, 30));
+            projectService.saveCurrentProject();
+            projectService.addComponent("主页面", createTestComponent("未保存", 10, 50, 80, 30));
+            PageData mainPage = project.getPage("主页面");
+
+            // 部署脚本替换项目文件：修改一个页面并删除一个页面
+            ProjectData provisioned = new JsonProjectRepository(pathManager).loadProject();
+            provisioned.getPage("灯光").addComponent(createTestComponent("筒灯", 100, 10, 80, 30));
+            provisioned.removePage("旧页面");
+            Path staged = tempDir.resolve("provisioned.json");
+            projectRepository.exportProject(provisioned, staged.toString());
+            Files.move(staged, Path.of(projectRepository.getProjectFilePath()), StandardCopyOption.REPLACE_EXISTING);
+
+            ProjectChangeSet changes = applied.get(10, TimeUnit.SECONDS);
+            assertEquals(Set.of("灯光"), changes.getChangedPages());
+            assertEquals(Set.of("旧页面"), changes.getRemovedPages());
+            assertEquals(Set.of("主页面"), changes.getConflictPages());
+
+            // 只替换变化的页面，当前项目和其他页面保持原对象
+            assertSame(project, projectService.getCurrentProject());
+            assertSame(mainPage, project.getPage("主页面"));
+            assertEquals(2, project.getPage("主页面").getComponentCount());
+            assertEquals(2, project.getPage("灯光").getComponentCount());
+            assertFalse(project.getPage("灯光").isDirty());
+            assertFalse(project.hasPage("旧页面"));
+            assertTrue(projectService.hasUnsavedChanges());
+
+            // 保存后与磁盘内容一致，不产生修改
+            projectService.saveCurrentProject();
+            assertTrue(projectService.applyExternalChanges(
+                new JsonProjectRepository(pathManager).loadProject()).isEmpty());
+        } finally {
+            projectService.stopExternalChangeWatch();
+        }
+
+        // 分片布局中项目文件不是存储，重新加载的页面保存时写入分片，不沿用旧的页面文件
+        JsonProjectRepository shardedRepository =
+            new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED);
+        shardedRepository.saveProject(new JsonProjectRepository(pathManager).loadProject());
+        ProjectService shardedService = new ProjectServiceImpl(shardedRepository);
+        shardedService.setJournalingEnabled(true);
+        shardedService.loadProject();
+        ProjectData external = shardedRepository.loadProject();
+        external.getPage("灯光").addComponent(createTestComponent("射灯", 200, 10, 80, 30));
+        shardedRepository.exportProject(external, shardedRepository.getProjectFilePath());
+        ProjectChangeSet shardedChanges = shardedService.applyExternalChanges(
+            shardedRepository.importProject(shardedRepository.getProjectFilePath()));
+        assertEquals(Set.of("灯光"), shardedChanges.getChangedPages());
+        assertTrue(shardedService.hasUnsavedChanges());
+        shardedService.saveCurrentProject();
+        shardedService.shutdown();
+        assertEquals(3, new JsonProjectRepository(pathManager, JsonProjectRepository.StorageLayout.SHARDED)
+            .loadProject().getPage("灯光").getComponentCount());
+
+        logger.info("外部修改检测测试通过");
+    }
+
+    @Test
+    void testProjectWorkspaceSwitching() throws IOException {
+        logger.info("测试多项目工作区");
+
+        ProjectWorkspace workspace = new ProjectWorkspace(pathManager, projectRepository, JsonProjectRepository::new);
+        ProjectServiceImpl service = new ProjectServiceImpl(projectRepository);
+        service.setWorkspace(workspace);
+
+        ProjectData lobby = service.createNewProject();
+        service.addComponent("主页面", createTestComponent("大厅灯", 10, 10, 80, 30));
+        service.saveCurrentProject();
+
+        // 新建房间项目，切换前保存当前项目
+        WorkspaceProjectInfo room = service.createWorkspaceProject("会议室");
+        assertEquals(room.getProjectId(), service.getCurrentWorkspaceProjectId());
+        ProjectData roomProject = service.getCurrentProject();
+        assertNotSame(lobby, roomProject);
+        service.addComponent("主页面", createTestComponent("投影仪", 10, 10, 80, 30));
+
+        // 最近打开的项目直接从内存中取得，修改已写入各自的目录
+        assertSame(lobby, service.switchProject(ProjectWorkspace.DEFAULT_PROJECT_ID));
+        assertFalse(roomProject.hasUnsavedChanges());
+        assertSame(roomProject, service.switchProject(room.getProjectId()));
+        assertEquals(1, workspace.getRepository(room.getProjectId()).loadProject()
+            .getPage("主页面").getComponentCount());
+        assertEquals(1, projectRepository.loadProject().getPage("主页面").getComponentCount());
+
+        List<WorkspaceProjectInfo> projects = service.listWorkspaceProjects();
+        assertEquals(2, projects.size());
+        assertEquals(room.getProjectId(), projects.get(0).getProjectId());
+        assertTrue(projects.get(0).getSize() > 0);
+        assertEquals(1, projects.get(1).getComponentCount());
+
+        // 切换到内存中的项目不写索引文件，打开时间只在内存中更新，之后随保存或关闭写入
+        Path indexFile = Path.of(pathManager.getDataDirectory(), ProjectWorkspace.WORKSPACE_DIR_NAME,
+            ProjectWorkspace.INDEX_FILE_NAME);
+        byte[] indexBefore = Files.readAllBytes(indexFile);
+        assertSame(lobby, service.switchProject(ProjectWorkspace.DEFAULT_PROJECT_ID));
+        assertArrayEquals(indexBefore, Files.readAllBytes(indexFile));
+        assertEquals(ProjectWorkspace.DEFAULT_PROJECT_ID, service.listWorkspaceProjects().get(0).getProjectId());
+        workspace.flushIndex();
+        assertEquals(ProjectWorkspace.DEFAULT_PROJECT_ID,
+            new ProjectWorkspace(pathManager).listProjects().get(0).getProjectId());
+        assertSame(roomProject, service.switchProject(room.getProjectId()));
+
+        // 超出内存上限时淘汰最久未使用的项目，再次切换时从磁盘加载
+        assertTrue(ProjectWorkspace.estimateHeapBytes(lobby) > ProjectWorkspace.estimateHeapBytes(new ProjectData()));
+        workspace.setMaxResidentBytes(1);
+        assertEquals(List.of(room.getProjectId()), workspace.getResidentProjectIds());
+        ProjectData reloadedLobby = service.switchProject(ProjectWorkspace.DEFAULT_PROJECT_ID);
+        assertNotSame(lobby, reloadedLobby);
+        assertEquals(1, reloadedLobby.getPage("主页面").getComponentCount());
+
+        // 批量导入的文件各自成为独立项目
+        Path importDir = tempDir.resolve("workspace_import");
+        Files.createDirectories(importDir);
+        for (String name : List.of("101房间", "102房间")) {
+            ProjectData imported = new ProjectData();
+            imported.addPage("主页面");
+            projectRepository.exportProject(imported, importDir.resolve(name + ".json").toString());
+        }
+        List<WorkspaceProjectInfo> added = service.importProjectsToWorkspace(importDir.toString());
+        assertEquals(List.of("101房间", "102房间"),
+            added.stream().map(WorkspaceProjectInfo::getName).collect(Collectors.toList()));
+
+        // 索引持久化，重新打开工作区时不需要加载项目
+        assertEquals(4, new ProjectWorkspace(pathManager).listProjects().size());
+
+        assertThrows(IllegalStateException.class,
+            () -> service.deleteWorkspaceProject(ProjectWorkspace.DEFAULT_PROJECT_ID));
+        assertTrue(service.deleteWorkspaceProject(added.get(0).getProjectId()));
+        assertFalse(workspace.containsProject(added.get(0).getProjectId()));
+        assertEquals(3, service.listWorkspaceProjects().size());
+
+        service.shutdown();
+        logger.info("多项目工作区测试通过");
+    }
+
+    /**
+     * 统计目录树中的文件数量
+     */
+    private long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * 列出目录中的文件名
+     */
+    private Set<String> listFileNames(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * 构造与原值等长、CRC32相同但内容不同的字节数组
+     * CRC32对异或差分是仿射的，前33个比特的差分在32维空间中线性相关，按消元找出抵消为0的组合
+     */
+    private static byte[] crc32Collision(byte[] value) {
+        long zero = crc32(new byte[value.length]);
+        int[] basis = new int[32];
+        long[] combinations = new long[32];
+        for (int bit = 0; bit < 33; bit++) {
+            byte[] delta = new byte[value.length];
+            delta[bit / 8] = (byte) (1 << (bit % 8));
+            int vector = (int) (crc32(delta) ^ zero);
+            long combination = 1L << bit;
+            for (int b = 31; b >= 0 && vector != 0; b--) {
+                if ((vector >>> b & 1) == 0) {
+                    continue;
+                }
+                if (basis[b] == 0) {
+                    basis[b] = vector;
+                    combinations[b] = combination;
+                    vector = -1;
+                    break;
+                }
+                vector ^= basis[b];
+                combination ^= combinations[b];
+            }
+            if (vector == 0) {
+                byte[] collision = value.clone();
+                for (int i = 0; i < 33; i++) {
+                    if ((combination >>> i & 1) != 0) {
+                        collision[i / 8] ^= (byte) (1 << (i % 8));
+                    }
+                }
+                return collision;
+            }
+        }
+        throw new IllegalStateException("未找到CRC32碰撞");
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
     /**
      * 创建测试组件
      */
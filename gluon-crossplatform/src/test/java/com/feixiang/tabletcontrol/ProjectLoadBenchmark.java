@@ -0,0 +1,187 @@
+package com.feixiang.tabletcontrol;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.LabelData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.impl.BinaryProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.JsonProjectRepository;
+import com.feixiang.tabletcontrol.core.repository.impl.ModelTypeAdapters;
+import com.feixiang.tabletcontrol.core.repository.impl.SnapshotFiles;
+import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
+import com.feixiang.tabletcontrol.platform.PlatformManager;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 项目加载性能基准
+ * 对比 Gson 反射加载、手写适配器加载、流式加载和二进制快照加载在不同组件规模下的耗时和堆内存峰值
+ * 运行方式: mvn test -Dtest=ProjectLoadBenchmark -Dbenchmark=true [-Dbenchmark.sizes=10000,100000,1000000]
+ * 本基准在JVM上运行；原生镜像中模型类不再需要反射配置，首次序列化的开销需在目标设备上测量
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ProjectLoadBenchmark {
+
+    private static final int COMPONENTS_PER_PAGE = 100;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkReflectiveVersusStreamingLoad() throws IOException {
+        String sizes = System.getProperty("benchmark.sizes", "10000,100000,1000000");
+        System.out.printf("%-10s %-10s %12s %14s %14s%n", "组件数", "加载方式", "文件(MB)", "耗时(ms)", "堆峰值(MB)");
+
+        for (String size : sizes.split(",")) {
+            int componentCount = Integer.parseInt(size.trim());
+            Path dataDir = tempDir.resolve("data_" + componentCount);
+            JsonProjectRepository repository = new JsonProjectRepository(new BenchmarkPathManager(dataDir.toString()));
+
+            repository.saveProject(createProject(componentCount));
+            Path projectFile = Paths.get(repository.getProjectFilePath());
+            double fileMb = Files.size(projectFile) / (1024.0 * 1024.0);
+
+            Gson reflectiveGson = new GsonBuilder()
+                    .setPrettyPrinting()
+                    .setDateFormat("yyyy-MM-dd HH:mm:ss")
+                    .create();
+
+            // 项目文件末尾有校验尾，只读取快照内容
+            Measurement reflective = measure(() -> {
+                try (Reader reader = new InputStreamReader(SnapshotFiles.openVerified(projectFile),
+                        StandardCharsets.UTF_8)) {
+                    return reflectiveGson.fromJson(reader, ProjectData.class);
+                }
+            }, componentCount);
+
+            Gson adapterGson = ModelTypeAdapters.createPrettyGson();
+            Measurement adapter = measure(() -> {
+                try (Reader reader = new InputStreamReader(SnapshotFiles.openVerified(projectFile),
+                        StandardCharsets.UTF_8)) {
+                    return adapterGson.fromJson(reader, ProjectData.class);
+                }
+            }, componentCount);
+
+            Measurement streaming = measure(() -> repository.loadProject((pageName, loaded, total) -> { }),
+                    componentCount);
+
+            System.out.printf("%-10d %-10s %12.1f %14d %14.1f%n", componentCount, "反射", fileMb,
+                    reflective.millis, reflective.peakHeapMb);
+            System.out.printf("%-10d %-10s %12.1f %14d %14.1f%n", componentCount, "适配器", fileMb,
+                    adapter.millis, adapter.peakHeapMb);
+            System.out.printf("%-10d %-10s %12.1f %14d %14.1f%n", componentCount, "流式", fileMb,
+                    streaming.millis, streaming.peakHeapMb);
+
+            BinaryProjectRepository binaryRepository =
+                    new BinaryProjectRepository(new BenchmarkPathManager(dataDir.toString()));
+            binaryRepository.saveProject(binaryRepository.loadProject());
+            double binaryMb = Files.size(Paths.get(binaryRepository.getProjectFilePath())) / (1024.0 * 1024.0);
+            Measurement binary = measure(binaryRepository::loadProject, componentCount);
+            System.out.printf("%-10d %-10s %12.1f %14d %14.1f%n", componentCount, "二进制", binaryMb,
+                    binary.millis, binary.peakHeapMb);
+        }
+    }
+
+    private Measurement measure(Loader loader, int expectedComponents) throws IOException {
+        long bestMillis = Long.MAX_VALUE;
+        double bestPeak = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            System.gc();
+            long baseline = resetPeakAndGetUsedHeap();
+            long start = System.nanoTime();
+            ProjectData project = loader.load();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            double peakMb = (peakHeapUsage() - baseline) / (1024.0 * 1024.0);
+
+            assertEquals(expectedComponents, project.getTotalComponentCount());
+            bestMillis = Math.min(bestMillis, millis);
+            bestPeak = Math.min(bestPeak, peakMb);
+        }
+        return new Measurement(bestMillis, bestPeak);
+    }
+
+    private ProjectData createProject(int componentCount) {
+        ProjectData project = new ProjectData();
+        int pageCount = Math.max(1, componentCount / COMPONENTS_PER_PAGE);
+        for (int p = 0; p < pageCount; p++) {
+            PageData page = new PageData("页面" + p);
+            int count = p == pageCount - 1 ? componentCount - p * COMPONENTS_PER_PAGE : COMPONENTS_PER_PAGE;
+            for (int c = 0; c < count; c++) {
+                LabelData label = new LabelData();
+                label.setText("按钮" + c);
+                page.addComponent(new ComponentData(c % 40 * 30, c / 40 * 30, 80, 30, 80, 30, "按钮", label));
+            }
+            project.addPage(page);
+        }
+        return project;
+    }
+
+    private static long resetPeakAndGetUsedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private interface Loader {
+        ProjectData load() throws IOException;
+    }
+
+    private static class Measurement {
+        final long millis;
+        final double peakHeapMb;
+
+        Measurement(long millis, double peakHeapMb) {
+            this.millis = millis;
+            this.peakHeapMb = peakHeapMb;
+        }
+    }
+
+    /**
+     * 基准测试用路径管理器
+     */
+    private static class BenchmarkPathManager extends CrossPlatformPathManager {
+        private final String dataDirectory;
+
+        BenchmarkPathManager(String dataDirectory) {
+            super(new PlatformManager());
+            this.dataDirectory = dataDirectory;
+        }
+
+        @Override
+        public String getDataDirectory() {
+            return dataDirectory;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.feixiang.tabletcontrol;
+
+import com.feixiang.tabletcontrol.core.model.ComponentData;
+import com.feixiang.tabletcontrol.core.model.LabelData;
+import com.feixiang.tabletcontrol.core.model.PageData;
+import com.feixiang.tabletcontrol.core.model.ProjectData;
+import com.feixiang.tabletcontrol.core.repository.impl.JsonProjectRepository;
+import com.feixiang.tabletcontrol.core.service.impl.ProjectServiceImpl;
+import com.feixiang.tabletcontrol.platform.CrossPlatformPathManager;
+import com.feixiang.tabletcontrol.platform.PlatformManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务读取方法锁竞争基准
+ * 多个读取线程（渲染、状态轮询）频繁调用 getCurrentPage、getCurrentPageName、hasUnsavedChanges 和 getPageComponents，
+ * 同时一个编辑线程持续修改当前页面，对比每次读取都获取读锁与项目服务无锁读取（乐观读取和已发布的只读视图）的吞吐量
+ * 运行方式: mvn test -Dtest=ServiceContentionBenchmark -Dbenchmark=true [-Dbenchmark.readers=1,4,8]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ServiceContentionBenchmark {
+
+    private static final int COMPONENTS_PER_PAGE = 200;
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2000;
+    // 编辑线程每次修改后暂停，模拟界面编辑的频率
+    private static final long WRITE_PAUSE_MICROS = 50;
+
+    // 保存读取结果，避免读取被优化掉
+    private static volatile long sink;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void benchmarkLockedVersusOptimisticReads() throws Exception {
+        String readers = System.getProperty("benchmark.readers", "1,4,8");
+        System.out.printf("%-10s %-10s %16s %14s%n", "读取线程", "读取方式", "读取(次/秒)", "修改(次/秒)");
+
+        for (String value : readers.split(",")) {
+            int readerCount = Integer.parseInt(value.trim());
+
+            LockedReadService locked = new LockedReadService(createProject());
+            Result lockedResult = run(locked, readerCount);
+            System.out.printf("%-10d %-10s %16.0f %14.0f%n", readerCount, "读写锁",
+                    lockedResult.readsPerSecond, lockedResult.writesPerSecond);
+
+            ProjectServiceImpl service = new ProjectServiceImpl(
+                    new JsonProjectRepository(new BenchmarkPathManager(tempDir.toString())));
+            service.setCurrentProject(createProject());
+            Result optimisticResult = run(new OptimisticReadService(service), readerCount);
+            System.out.printf("%-10d %-10s %16.0f %14.0f%n", readerCount, "无锁读取",
+                    optimisticResult.readsPerSecond, optimisticResult.writesPerSecond);
+            service.shutdown();
+        }
+    }
+
+    private Result run(ReadService service, int readerCount) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(readerCount + 1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int r = 0; r < readerCount; r++) {
+            threads.add(new Thread(() -> {
+                long local = 0;
+                while (running.get()) {
+                    PageData page = service.getCurrentPage();
+                    String pageName = service.getCurrentPageName();
+                    local += service.hasUnsavedChanges() ? 1 : 0;
+                    local += service.getPageComponents(pageName).size();
+                    local += page != null ? 1 : 0;
+                    if (measuring.get()) {
+                        reads.add(4);
+                    }
+                }
+                sink = local;
+                finished.countDown();
+            }, "benchmark-reader-" + r));
+        }
+        threads.add(new Thread(() -> {
+            int next = 0;
+            while (running.get()) {
+                ComponentData component = createComponent(next++);
+                service.addComponent(component);
+                service.removeComponent(component);
+                if (measuring.get()) {
+                    writes.add(2);
+                }
+                long pauseUntil = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(WRITE_PAUSE_MICROS);
+                while (System.nanoTime() < pauseUntil) {
+                    Thread.onSpinWait();
+                }
+            }
+            finished.countDown();
+        }, "benchmark-writer"));
+
+        threads.forEach(Thread::start);
+        Thread.sleep(WARMUP_MILLIS);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        measuring.set(false);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        running.set(false);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        return new Result(reads.sum() / seconds, writes.sum() / seconds);
+    }
+
+    private static ProjectData createProject() {
+        ProjectData project = new ProjectData();
+        PageData page = new PageData("主页面");
+        for (int c = 0; c < COMPONENTS_PER_PAGE; c++) {
+            page.addComponent(createComponent(c));
+        }
+        project.addPage(page);
+        project.setCurrentPage("主页面");
+        return project;
+    }
+
+    private static ComponentData createComponent(int index) {
+        LabelData label = new LabelData();
+        label.setText("按钮" + index);
+        return new ComponentData(index % 40 * 30, index / 40 * 30, 80, 30, 80, 30, "按钮", label);
+    }
+
+    /**
+     * 基准测试中读取和修改的服务方法
+     */
+    private interface ReadService {
+        PageData getCurrentPage();
+        String getCurrentPageName();
+        boolean hasUnsavedChanges();
+        List<ComponentData> getPageComponents(String pageName);
+        void addComponent(ComponentData component);
+        void removeComponent(ComponentData component);
+    }
+
+    /**
+     * 对照组：每次读取都获取读锁，修改获取写锁
+     */
+    private static class LockedReadService implements ReadService {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ProjectData project;
+        private final String pageName;
+        private boolean hasUnsavedChanges;
+
+        LockedReadService(ProjectData project) {
+            this.project = project;
+            this.pageName = project.getCurrentPage();
+        }
+
+        @Override
+        public PageData getCurrentPage() {
+            lock.readLock().lock();
+            try {
+                return project.getPage(pageName);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public String getCurrentPageName() {
+            lock.readLock().lock();
+            try {
+                return pageName;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean hasUnsavedChanges() {
+            lock.readLock().lock();
+            try {
+                return hasUnsavedChanges;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public List<ComponentData> getPageComponents(String pageName) {
+            lock.readLock().lock();
+            try {
+                return new ArrayList<>(project.getPage(pageName).getComponents());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void addComponent(ComponentData component) {
+            lock.writeLock().lock();
+            try {
+                project.getPage(pageName).addComponent(component);
+                hasUnsavedChanges = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeComponent(ComponentData component) {
+            lock.writeLock().lock();
+            try {
+                project.getPage(pageName).removeComponent(component);
+                hasUnsavedChanges = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 项目服务的无锁读取路径
+     */
+    private static class OptimisticReadService implements ReadService {
+        private final ProjectServiceImpl service;
+
+        OptimisticReadService(ProjectServiceImpl service) {
+            this.service = service;
+        }
+
+        @Override
+        public PageData getCurrentPage() {
+            return service.getCurrentPage();
+        }
+
+        @Override
+        public String getCurrentPageName() {
+            return service.getCurrentPageName();
+        }
+
+        @Override
+        public boolean hasUnsavedChanges() {
+            return service.hasUnsavedChanges();
+        }
+
+        @Override
+        public List<ComponentData> getPageComponents(String pageName) {
+            return service.getPageComponents(pageName);
+        }
+
+        @Override
+        public void addComponent(ComponentData component) {
+            service.addComponentToCurrentPage(component);
+        }
+
+        @Override
+        public void removeComponent(ComponentData component) {
+            service.removeComponentFromCurrentPage(component);
+        }
+    }
+
+    private static class Result {
+        final double readsPerSecond;
+        final double writesPerSecond;
+
+        Result(double readsPerSecond, double writesPerSecond) {
+            this.readsPerSecond = readsPerSecond;
+            this.writesPerSecond = writesPerSecond;
+        }
+    }
+
+    /**
+     * 基准测试用路径管理器
+     */
+    private static class BenchmarkPathManager extends CrossPlatformPathManager {
+        private final String dataDirectory;
+
+        BenchmarkPathManager(String dataDirectory) {
+            super(new PlatformManager());
+            this.dataDirectory = dataDirectory;
+        }
+
+        @Override
+        public String getDataDirectory() {
+            return dataDirectory;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.feixiang.tabletcontrol.core.model;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 页面组件列表（持久化B树）测试
+ * 节点容量为32，测试数据跨越叶子分裂、根节点增高以及删除后的合并和降低高度
+ */
+public class ComponentListTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComponentListTest.class);
+
+    // 与 ComponentList 的节点容量一致
+    private static final int NODE_CAPACITY = 32;
+    // 超过两层节点的容量，根节点至少有三层
+    private static final int LARGE_SIZE = NODE_CAPACITY * NODE_CAPACITY + 5;
+
+    @Test
+    void testAddAndRemoveAcrossNodeBoundaries() {
+        logger.info("测试跨节点边界的插入和删除");
+
+        ComponentList list = new ComponentList();
+        List<ComponentData> expected = new ArrayList<>();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            ComponentData component = component(i);
+            list.add(component);
+            expected.add(component);
+        }
+        assertSameElements(expected, list);
+
+        // 在节点边界两侧插入，触发中间位置的分裂
+        for (int position : new int[] {0, NODE_CAPACITY - 1, NODE_CAPACITY, NODE_CAPACITY + 1,
+                NODE_CAPACITY * NODE_CAPACITY, list.size()}) {
+            ComponentData component = component(10000 + position);
+            list.add(position, component);
+            expected.add(position, component);
+            assertSameElements(expected, list);
+        }
+
+        // 连续删除同一个区域，子节点过空时与相邻节点合并
+        for (int i = 0; i < 3 * NODE_CAPACITY; i++) {
+            assertSame(expected.remove(NODE_CAPACITY), list.remove(NODE_CAPACITY));
+        }
+        assertSameElements(expected, list);
+
+        // 从头部删除到只剩一个节点，根节点降低高度
+        while (list.size() > NODE_CAPACITY / 2) {
+            assertSame(expected.remove(0), list.remove(0));
+        }
+        assertSameElements(expected, list);
+        while (!list.isEmpty()) {
+            assertSame(expected.remove(expected.size() - 1), list.remove(list.size() - 1));
+        }
+        assertTrue(list.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.remove(0));
+
+        // 清空后仍可继续使用
+        list.add(component(1));
+        assertEquals(1, list.size());
+
+        logger.info("跨节点边界的插入和删除测试通过");
+    }
+
+    @Test
+    void testRandomOperationsMatchArrayList() {
+        logger.info("测试随机操作与 ArrayList 一致");
+
+        Random random = new Random(20240315L);
+        ComponentList list = new ComponentList();
+        List<ComponentData> expected = new ArrayList<>();
+        for (int step = 0; step < 20000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                ComponentData component = component(step);
+                list.add(index, component);
+                expected.add(index, component);
+            } else if (operation < 8) {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), list.remove(index));
+            } else {
+                int index = random.nextInt(expected.size());
+                ComponentData component = component(step);
+                assertSame(expected.set(index, component), list.set(index, component));
+            }
+            if (step % 1000 == 0) {
+                assertSameElements(expected, list);
+            }
+        }
+        assertSameElements(expected, list);
+
+        logger.info("随机操作测试通过");
+    }
+
+    @Test
+    void testSetAndMoveAcrossNodeBoundaries() {
+        logger.info("测试跨节点边界的替换和移动");
+
+        PageData page = new PageData("移动测试");
+        List<ComponentData> expected = new ArrayList<>();
+        for (int i = 0; i < 3 * NODE_CAPACITY + 7; i++) {
+            ComponentData component = component(i);
+            page.addComponent(component);
+            expected.add(component);
+        }
+
+        int[][] moves = {{0, NODE_CAPACITY}, {NODE_CAPACITY, 0}, {NODE_CAPACITY - 1, NODE_CAPACITY},
+                {NODE_CAPACITY, NODE_CAPACITY - 1}, {5, expected.size() - 1}, {expected.size() - 1, 2 * NODE_CAPACITY}};
+        for (int[] move : moves) {
+            assertTrue(page.moveComponent(move[0], move[1]));
+            expected.add(move[1], expected.remove(move[0]));
+            assertSameElements(expected, page.getComponents());
+            // 移动后按ID查找仍定位到新位置
+            ComponentData moved = expected.get(move[1]);
+            assertEquals(move[1], page.findComponentIndexById(moved.getComponentId()));
+        }
+        assertFalse(page.moveComponent(0, expected.size()));
+
+        for (int index : new int[] {0, NODE_CAPACITY - 1, NODE_CAPACITY, expected.size() - 1}) {
+            ComponentData replacement = component(1000 + index);
+            assertTrue(page.replaceComponent(index, replacement));
+            expected.set(index, replacement);
+        }
+        assertSameElements(expected, page.getComponents());
+
+        logger.info("跨节点边界的替换和移动测试通过");
+    }
+
+    @Test
+    void testSnapshotSharesStructure() {
+        logger.info("测试快照共享结构");
+
+        ComponentList list = new ComponentList();
+        List<ComponentData> original = new ArrayList<>();
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            ComponentData component = component(i);
+            list.add(component);
+            original.add(component);
+        }
+
+        // 快照共享全部节点，组件被冻结
+        ComponentList snapshot = list.snapshot();
+        assertTrue(list.sharesContentWith(snapshot));
+        assertSameElements(original, snapshot);
+        assertTrue(original.stream().allMatch(ComponentData::isFrozen));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(component(-1)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.set(0, component(-1)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+        assertThrows(UnsupportedOperationException.class, snapshot::clear);
+
+        // 之后的修改复制路径上的节点，快照保持不变
+        ComponentData replacement = component(-2);
+        ComponentData added = component(-3);
+        list.set(NODE_CAPACITY, replacement);
+        list.add(0, added);
+        list.remove(list.size() - 1);
+        assertFalse(list.sharesContentWith(snapshot));
+        assertSameElements(original, snapshot);
+        assertSame(replacement, list.get(NODE_CAPACITY + 1));
+        assertSame(added, list.get(0));
+
+        // 新加入的组件在下一次快照时才冻结，之前的快照不受影响
+        assertFalse(added.isFrozen());
+        ComponentList second = list.snapshot();
+        assertTrue(added.isFrozen());
+        assertTrue(replacement.isFrozen());
+        assertSame(added, second.get(0));
+        assertSameElements(original, snapshot);
+
+        // 迭代期间替换组件时迭代器按新的根节点重新定位
+        Iterator<ComponentData> iterator = list.iterator();
+        for (int i = 0; i < NODE_CAPACITY; i++) {
+            iterator.next();
+        }
+        ComponentData late = component(-4);
+        list.set(NODE_CAPACITY + 1, late);
+        iterator.next();
+        assertSame(late, iterator.next());
+        assertSame(replacement, second.get(NODE_CAPACITY + 1));
+
+        logger.info("快照共享结构测试通过");
+    }
+
+    @Test
+    void testViewSnapshotAndCopyOnWrite() {
+        logger.info("测试页面快照和修改前复制");
+
+        PageData page = new PageData("快照测试");
+        for (int i = 0; i < 2 * NODE_CAPACITY; i++) {
+            page.addComponent(component(i));
+        }
+        ComponentData frozen = page.getComponent(NODE_CAPACITY);
+        int originalX = frozen.getX();
+
+        PageData view = page.viewSnapshot();
+        PageData saved = page.snapshot();
+        assertTrue(page.isSharingComponents());
+        assertThrows(UnsupportedOperationException.class, () -> view.addComponent(component(-1)));
+        assertThrows(UnsupportedOperationException.class, view::clearComponents);
+        assertThrows(UnsupportedOperationException.class, () -> view.getComponentForUpdate(0));
+        assertThrows(IllegalStateException.class, () -> frozen.setX(originalX + 1));
+
+        // 取得可修改的副本：组件ID不变，页面中的组件被替换，快照中仍是原组件
+        ComponentData editable = page.getComponentForUpdate(NODE_CAPACITY);
+        assertNotSame(frozen, editable);
+        assertFalse(editable.isFrozen());
+        assertEquals(frozen.getComponentId(), editable.getComponentId());
+        assertSame(editable, page.getComponent(NODE_CAPACITY));
+        assertSame(editable, page.getComponentById(frozen.getComponentId()));
+        assertSame(editable, page.getComponentForUpdate(NODE_CAPACITY));
+        editable.setX(originalX + 50);
+        page.markDirty();
+        assertFalse(page.isSharingComponents());
+
+        assertSame(frozen, view.getComponent(NODE_CAPACITY));
+        assertSame(frozen, saved.getComponent(NODE_CAPACITY));
+        assertEquals(originalX, frozen.getX());
+        assertEquals(originalX + 50, page.getComponent(NODE_CAPACITY).getX());
+
+        // 其他位置的组件仍与快照共享同一对象
+        assertSame(view.getComponent(0), page.getComponent(0));
+        assertSame(view.getComponent(2 * NODE_CAPACITY - 1), page.getComponent(2 * NODE_CAPACITY - 1));
+
+        // 未冻结的组件直接返回，不复制
+        ComponentData fresh = component(-5);
+        page.addComponent(fresh);
+        assertSame(fresh, page.getComponentForUpdate(page.getComponentCount() - 1));
+
+        logger.info("页面快照和修改前复制测试通过");
+    }
+
+    private static void assertSameElements(List<ComponentData> expected, List<ComponentData> actual) {
+        assertEquals(expected.size(), actual.size());
+        int index = 0;
+        for (ComponentData component : actual) {
+            assertSame(expected.get(index), component, "位置 " + index);
+            assertSame(expected.get(index), actual.get(index), "位置 " + index);
+            index++;
+        }
+    }
+
+    private static ComponentData component(int number) {
+        LabelData label = new LabelData();
+        label.setText("组件" + number);
+        ComponentData component = new ComponentData(number, number, 80, 30, 80, 30, "测试组件", label);
+        component.setComponentId("comp_" + number);
+        return component;
+    }
+}